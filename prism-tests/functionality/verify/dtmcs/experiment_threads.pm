@@ -0,0 +1,19 @@
+// Simple model for checking that experiments give the same results
+// when model iterations are run concurrently (-experimentthreads)
+
+dtmc
+
+const int n;
+
+module M
+
+	s : [0..1] init 0;
+
+	[] s=0 -> 1/n : (s'=1) + 1-1/n : (s'=0);
+	[] s=1 -> (s'=1);
+
+endmodule
+
+rewards "steps"
+	s=0 : 1;
+endrewards
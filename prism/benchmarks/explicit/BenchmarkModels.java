@@ -0,0 +1,99 @@
+package explicit;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.BitSet;
+
+import parser.ast.ModulesFile;
+import prism.Prism;
+import prism.PrismDevNullLog;
+import prism.PrismException;
+import prism.UndefinedConstants;
+import simulator.ModulesFileModelGenerator;
+
+/**
+ * Helpers for setting up the models used by the benchmarks.
+ * <br><br>
+ * Models are specified as strings of the form {@code "path:constants"},
+ * e.g. {@code "dtmcs/brp/brp.pm:N=16,MAX=2"}, where the path is relative
+ * to the prism-examples directory (system property {@code prism.examples},
+ * by default {@code ../prism-examples}) and the constants are in the format of the
+ * {@code -const} switch.
+ */
+public class BenchmarkModels
+{
+	/** Default location of prism-examples (relative to the prism directory) */
+	public static final String DEFAULT_EXAMPLES_DIR = "../prism-examples";
+
+	/**
+	 * Create a Prism object for use by the benchmarks (which does not need the native libraries).
+	 */
+	public static Prism createPrism()
+	{
+		return new Prism(new PrismDevNullLog());
+	}
+
+	/**
+	 * Parse the model file for a model specification, and define its constants.
+	 */
+	public static ModulesFile parseModel(Prism prism, String spec) throws PrismException
+	{
+		int i = spec.lastIndexOf(':');
+		String path = i == -1 ? spec : spec.substring(0, i);
+		String constants = i == -1 ? "" : spec.substring(i + 1);
+		File file = new File(System.getProperty("prism.examples", DEFAULT_EXAMPLES_DIR), path);
+		ModulesFile modulesFile;
+		try {
+			modulesFile = prism.parseModelFile(file);
+		} catch (FileNotFoundException e) {
+			throw new PrismException("File \"" + file + "\" not found");
+		}
+		UndefinedConstants undefinedConstants = new UndefinedConstants(modulesFile, null);
+		undefinedConstants.defineUsingConstSwitch(constants);
+		modulesFile.setSomeUndefinedConstants(undefinedConstants.getMFConstantValues());
+		return modulesFile;
+	}
+
+	/**
+	 * Create a model generator for a (parsed) model file.
+	 */
+	public static ModulesFileModelGenerator createModelGenerator(Prism prism, ModulesFile modulesFile) throws PrismException
+	{
+		return new ModulesFileModelGenerator(modulesFile, prism);
+	}
+
+	/**
+	 * Build the explicit-state model for a model specification.
+	 * @param sparse Whether to build the sparse (rather than "simple") version of the model
+	 */
+	public static Model buildModel(Prism prism, String spec, boolean sparse) throws PrismException
+	{
+		ModulesFile modulesFile = parseModel(prism, spec);
+		ConstructModel constructModel = new ConstructModel(prism);
+		constructModel.setBuildSparse(sparse);
+		return constructModel.constructModel(createModelGenerator(prism, modulesFile));
+	}
+
+	/**
+	 * Get a BitSet containing all states of a model.
+	 */
+	public static BitSet allStates(Model model)
+	{
+		BitSet bs = new BitSet();
+		bs.set(0, model.getNumStates());
+		return bs;
+	}
+
+	/**
+	 * Get an (arbitrary, but fixed) solution vector for a model, with values in [0,1].
+	 */
+	public static double[] initialVector(Model model)
+	{
+		int n = model.getNumStates();
+		double[] vect = new double[n];
+		for (int s = 0; s < n; s++) {
+			vect[s] = (s % 97) / 96.0;
+		}
+		return vect;
+	}
+}
@@ -0,0 +1,54 @@
+package explicit;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import prism.Prism;
+import prism.PrismException;
+
+/**
+ * Bisimulation minimisation ({@link Bisimulation#minimise}),
+ * preserving all labels of the model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BisimulationBenchmark
+{
+	@Param({ "dtmcs/herman/herman13.pm", "dtmcs/leader_sync/leader4_4.pm", "ctmcs/cluster/cluster.sm:N=8" })
+	public String model;
+
+	private Prism prism;
+	private Model built;
+	private List<String> propNames;
+	private List<BitSet> propBSs;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		prism = BenchmarkModels.createPrism();
+		built = BenchmarkModels.buildModel(prism, model, false);
+		propNames = new ArrayList<>(built.getLabels());
+		propBSs = new ArrayList<>();
+		for (String name : propNames) {
+			propBSs.add(built.getLabelStates(name));
+		}
+	}
+
+	@Benchmark
+	public Model minimise() throws PrismException
+	{
+		return new Bisimulation(prism).minimise(built, propNames, propBSs);
+	}
+}
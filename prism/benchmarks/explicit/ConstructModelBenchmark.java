@@ -0,0 +1,49 @@
+package explicit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import parser.ast.ModulesFile;
+import prism.Prism;
+import prism.PrismException;
+
+/**
+ * Explicit-state model construction ({@link ConstructModel}) for some of the prism-examples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConstructModelBenchmark
+{
+	@Param({ "dtmcs/brp/brp.pm:N=64,MAX=5", "mdps/consensus/coin4.nm:K=4", "ctmcs/kanban/kanban.sm:t=3" })
+	public String model;
+
+	@Param({ "false", "true" })
+	public boolean sparse;
+
+	private Prism prism;
+	private ModulesFile modulesFile;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		prism = BenchmarkModels.createPrism();
+		modulesFile = BenchmarkModels.parseModel(prism, model);
+	}
+
+	@Benchmark
+	public Model construct() throws PrismException
+	{
+		ConstructModel constructModel = new ConstructModel(prism);
+		constructModel.setBuildSparse(sparse);
+		return constructModel.constructModel(BenchmarkModels.createModelGenerator(prism, modulesFile));
+	}
+}
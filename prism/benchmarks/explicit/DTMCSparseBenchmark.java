@@ -0,0 +1,55 @@
+package explicit;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import prism.PrismException;
+
+/**
+ * Gauss-Seidel iterations ({@link DTMC#mvMultGS}) and plain matrix-vector
+ * multiplication on a {@link DTMCSparse}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DTMCSparseBenchmark
+{
+	@Param({ "dtmcs/brp/brp.pm:N=512,MAX=5", "dtmcs/herman/herman15.pm" })
+	public String model;
+
+	private DTMCSparse dtmc;
+	private BitSet all;
+	private double[] vect;
+	private double[] result;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		dtmc = (DTMCSparse) BenchmarkModels.buildModel(BenchmarkModels.createPrism(), model, true);
+		all = BenchmarkModels.allStates(dtmc);
+		vect = BenchmarkModels.initialVector(dtmc);
+		result = new double[dtmc.getNumStates()];
+	}
+
+	@Benchmark
+	public double mvMultGS()
+	{
+		return dtmc.mvMultGS(vect, all, false, true);
+	}
+
+	@Benchmark
+	public double[] mvMult()
+	{
+		dtmc.mvMult(vect, result, all, false);
+		return result;
+	}
+}
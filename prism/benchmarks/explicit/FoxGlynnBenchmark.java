@@ -0,0 +1,37 @@
+package explicit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import prism.PrismException;
+
+/**
+ * Computation of Poisson probabilities with {@link FoxGlynn},
+ * with the parameters used for transient analysis of CTMCs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FoxGlynnBenchmark
+{
+	/** The rate (uniformisation rate times time bound) */
+	@Param({ "10", "1000", "100000" })
+	public double qt;
+
+	@Param({ "1e-6" })
+	public double accuracy;
+
+	@Benchmark
+	public double[] weights() throws PrismException
+	{
+		FoxGlynn fg = new FoxGlynn(qt, 1e-300, 1e+300, accuracy);
+		return fg.getWeights();
+	}
+}
@@ -0,0 +1,70 @@
+package explicit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import acceptance.AcceptanceType;
+import parser.ast.Expression;
+import parser.ast.ExpressionProb;
+import parser.ast.ModulesFile;
+import parser.ast.PropertiesFile;
+import prism.Prism;
+import prism.PrismException;
+import prism.PrismLangException;
+import simulator.ModulesFileModelGenerator;
+
+/**
+ * Construction of the product of an MDP and a deterministic automaton
+ * for an LTL formula ({@link LTLModelChecker#constructProductMDP}).
+ * The time includes translation of the formula to an automaton.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LTLProductBenchmark
+{
+	@Param({ "mdps/consensus/coin4.nm:K=4" })
+	public String model;
+
+	@Param({ "G F \"agree\"", "(F G \"all_coins_equal_1\") | (G F \"finished\")" })
+	public String ltl;
+
+	private MDPModelChecker mc;
+	private MDP mdp;
+	private Expression expr;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		Prism prism = BenchmarkModels.createPrism();
+		ModulesFile modulesFile = BenchmarkModels.parseModel(prism, model);
+		ModulesFileModelGenerator modelGen = BenchmarkModels.createModelGenerator(prism, modulesFile);
+		mdp = (MDP) new ConstructModel(prism).constructModel(modelGen);
+		PropertiesFile propertiesFile = parseProperty(prism, modulesFile, "Pmax=? [ " + ltl + " ]");
+		expr = ((ExpressionProb) propertiesFile.getProperty(0)).getExpression();
+		mc = new MDPModelChecker(prism);
+		mc.setModelCheckingInfo(modulesFile, propertiesFile, modelGen);
+	}
+
+	private static PropertiesFile parseProperty(Prism prism, ModulesFile modulesFile, String prop) throws PrismLangException
+	{
+		PropertiesFile propertiesFile = prism.parsePropertiesString(modulesFile, prop);
+		propertiesFile.setSomeUndefinedConstants(null);
+		return propertiesFile;
+	}
+
+	@Benchmark
+	public Model constructProductMDP() throws PrismException
+	{
+		LTLModelChecker mcLtl = new LTLModelChecker(mc);
+		return mcLtl.constructProductMDP(mc, mdp, expr, null, AcceptanceType.RABIN).getProductModel();
+	}
+}
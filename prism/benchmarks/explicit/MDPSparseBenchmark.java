@@ -0,0 +1,58 @@
+package explicit;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import prism.PrismException;
+
+/**
+ * Matrix-vector multiplication with min/max ({@link MDPSparse#mvMultMinMax}),
+ * i.e. one iteration of value iteration, plus the Gauss-Seidel variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MDPSparseBenchmark
+{
+	@Param({ "mdps/consensus/coin4.nm:K=4", "mdps/consensus/coin6.nm:K=2" })
+	public String model;
+
+	@Param({ "true", "false" })
+	public boolean min;
+
+	private MDPSparse mdp;
+	private BitSet all;
+	private double[] vect;
+	private double[] result;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		mdp = (MDPSparse) BenchmarkModels.buildModel(BenchmarkModels.createPrism(), model, true);
+		all = BenchmarkModels.allStates(mdp);
+		vect = BenchmarkModels.initialVector(mdp);
+		result = new double[mdp.getNumStates()];
+	}
+
+	@Benchmark
+	public double[] mvMultMinMax()
+	{
+		mdp.mvMultMinMax(vect, min, result, all, false, null);
+		return result;
+	}
+
+	@Benchmark
+	public double mvMultGSMinMax()
+	{
+		return mdp.mvMultGSMinMax(vect, min, all, false, true, null);
+	}
+}
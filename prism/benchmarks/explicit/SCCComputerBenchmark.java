@@ -0,0 +1,45 @@
+package explicit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import prism.Prism;
+import prism.PrismException;
+
+/**
+ * SCC decomposition using {@link SCCComputerTarjan}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SCCComputerBenchmark
+{
+	@Param({ "dtmcs/herman/herman15.pm", "mdps/consensus/coin4.nm:K=4", "ctmcs/kanban/kanban.sm:t=2" })
+	public String model;
+
+	private Prism prism;
+	private Model built;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		prism = BenchmarkModels.createPrism();
+		built = BenchmarkModels.buildModel(prism, model, true);
+	}
+
+	@Benchmark
+	public int computeSCCsTarjan() throws PrismException
+	{
+		SCCConsumerStore sccs = new SCCConsumerStore();
+		new SCCComputerTarjan(prism, built, sccs).computeSCCs(false);
+		return sccs.getSCCs().size();
+	}
+}
@@ -0,0 +1,96 @@
+package param;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Arithmetic on {@link BigRational}s, for arrays of random rationals whose
+ * numerators and denominators have a given number of bits
+ * (so that they fit into a long or not).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BigRationalBenchmark
+{
+	/** Number of bits of numerators and denominators */
+	@Param({ "8", "30", "100" })
+	public int bits;
+
+	/** Number of rationals */
+	private static final int SIZE = 1000;
+
+	private BigRational[] a;
+	private BigRational[] b;
+
+	@Setup
+	public void setup()
+	{
+		Random random = new Random(42);
+		a = new BigRational[SIZE];
+		b = new BigRational[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			a[i] = randomRational(random);
+			b[i] = randomRational(random);
+		}
+	}
+
+	private BigRational randomRational(Random random)
+	{
+		BigInteger num = new BigInteger(bits, random);
+		BigInteger den = new BigInteger(bits, random).add(BigInteger.ONE);
+		return new BigRational(random.nextBoolean() ? num : num.negate(), den);
+	}
+
+	@Benchmark
+	public BigRational[] add()
+	{
+		BigRational[] res = new BigRational[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			res[i] = a[i].add(b[i]);
+		}
+		return res;
+	}
+
+	@Benchmark
+	public BigRational[] multiply()
+	{
+		BigRational[] res = new BigRational[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			res[i] = a[i].multiply(b[i]);
+		}
+		return res;
+	}
+
+	@Benchmark
+	public BigRational[] divide()
+	{
+		BigRational[] res = new BigRational[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			res[i] = a[i].divide(b[i]);
+		}
+		return res;
+	}
+
+	@Benchmark
+	public int compare()
+	{
+		int count = 0;
+		for (int i = 0; i < SIZE; i++) {
+			if (a[i].compareTo(b[i]) < 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,73 @@
+package param;
+
+import explicit.BenchmarkModels;
+import parser.ast.Expression;
+import parser.ast.ModulesFile;
+import parser.ast.PropertiesFile;
+import prism.Prism;
+import prism.PrismComponent;
+import prism.PrismException;
+import prism.PrismSettings;
+import simulator.ModulesFileModelGeneratorSymbolic;
+
+/**
+ * Helpers for setting up the models used by the benchmarks of the
+ * exact engine (i.e., the parametric engine without parameters).
+ * <br><br>
+ * Models are specified as strings of the form {@code "model|expression"},
+ * where the model is given as for {@link BenchmarkModels} and the expression
+ * is a property or a (Boolean) state formula, depending on the benchmark.
+ */
+public class ExactBenchmarkModels
+{
+	/** Dummy parameter (not used), as for exact model checking in {@link Prism#modelCheckExact} */
+	static final String[] PARAM_NAMES = { "dummy" };
+	static final String[] PARAM_LOWER_BOUNDS = { "0" };
+	static final String[] PARAM_UPPER_BOUNDS = { "1" };
+
+	/**
+	 * Create a PrismComponent, using the log of {@code prism}, to be passed to the exact engine.
+	 * Functions are not cached, so that repeated invocations of a benchmark do not just look up
+	 * the results. This uses separate settings, since changes to those of a Prism object
+	 * are passed on to the native engines.
+	 */
+	static PrismComponent createComponent(Prism prism) throws PrismException
+	{
+		PrismComponent parent = new PrismComponent();
+		parent.setLog(prism.getLog());
+		parent.getSettings().set(PrismSettings.PRISM_PARAM_FUNCTION, "JAS");
+		return parent;
+	}
+
+	/**
+	 * Get the model part of a specification.
+	 */
+	static String getModel(String spec)
+	{
+		return spec.substring(0, spec.indexOf('|'));
+	}
+
+	/**
+	 * Parse the expression part of a specification, as a properties file.
+	 */
+	static PropertiesFile parseExpression(Prism prism, ModulesFile modulesFile, String spec) throws PrismException
+	{
+		return prism.parsePropertiesString(modulesFile, spec.substring(spec.indexOf('|') + 1));
+	}
+
+	/**
+	 * Get the (first) expression of a properties file, with labels expanded.
+	 */
+	static Expression getExpression(PropertiesFile propertiesFile) throws PrismException
+	{
+		return (Expression) propertiesFile.getProperty(0).deepCopy().expandLabels(propertiesFile.getCombinedLabelList());
+	}
+
+	/**
+	 * Build the exact model for a (parsed) model file, using model builder {@code builder}.
+	 */
+	static ParamModel buildModel(PrismComponent parent, ModelBuilder builder, ModulesFile modulesFile) throws PrismException
+	{
+		return builder.constructModel(new ModulesFileModelGeneratorSymbolic(modulesFile, parent), PARAM_NAMES, PARAM_LOWER_BOUNDS, PARAM_UPPER_BOUNDS);
+	}
+}
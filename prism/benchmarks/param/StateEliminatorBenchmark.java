@@ -0,0 +1,86 @@
+package param;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import explicit.BenchmarkModels;
+import parser.Values;
+import parser.ast.Expression;
+import parser.ast.ModulesFile;
+import prism.Prism;
+import prism.PrismComponent;
+import prism.PrismException;
+
+/**
+ * Computation of reachability probabilities for an exact DTMC with {@link StateEliminator},
+ * for a model specification of the form {@code "model|target"}, where target is a state formula.
+ * The (mutable) DTMC is rebuilt before each invocation, since elimination modifies it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StateEliminatorBenchmark
+{
+	@Param({ "dtmcs/brp/brp.pm:N=16,MAX=2|s=5", "dtmcs/brp/brp.pm:N=64,MAX=4|s=5", "dtmcs/leader_sync/leader4_4.pm|\"elected\"" })
+	public String spec;
+
+	@Param({ "BACKWARD" })
+	public String order;
+
+	private ParamModel model;
+	private boolean[] target;
+	private MutablePMC pmc;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		Prism prism = BenchmarkModels.createPrism();
+		PrismComponent parent = ExactBenchmarkModels.createComponent(prism);
+		ModulesFile modulesFile = BenchmarkModels.parseModel(prism, ExactBenchmarkModels.getModel(spec));
+		Expression expr = ExactBenchmarkModels.getExpression(ExactBenchmarkModels.parseExpression(prism, modulesFile, spec));
+		model = ExactBenchmarkModels.buildModel(parent, new ModelBuilder(parent, ParamMode.EXACT), modulesFile);
+		Values constantValues = modulesFile.getConstantValues();
+		List<parser.State> statesList = model.getStatesList();
+		target = new boolean[model.getNumStates()];
+		for (int state = 0; state < target.length; state++) {
+			target[state] = expr.evaluateBoolean(constantValues, statesList.get(state));
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void buildPMC()
+	{
+		FunctionFactory functionFactory = model.getFunctionFactory();
+		pmc = new MutablePMC(functionFactory, model.getNumStates(), false, false);
+		for (int state = 0; state < model.getNumStates(); state++) {
+			pmc.setTargetState(state, target[state]);
+			pmc.setInitState(state, model.isInitialState(state));
+			if (target[state]) {
+				pmc.addTransition(state, state, functionFactory.getOne());
+			} else {
+				int choice = model.stateBegin(state);
+				for (int succ = model.choiceBegin(choice); succ < model.choiceEnd(choice); succ++) {
+					pmc.addTransition(state, model.succState(succ), model.succProb(succ));
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public Function eliminate()
+	{
+		StateEliminator eliminator = new StateEliminator(pmc, StateEliminator.EliminationOrder.valueOf(order));
+		eliminator.eliminate();
+		return eliminator.getResult(model.getFirstInitialState());
+	}
+}
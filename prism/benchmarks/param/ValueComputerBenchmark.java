@@ -0,0 +1,65 @@
+package param;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import explicit.BenchmarkModels;
+import parser.ast.Expression;
+import parser.ast.ModulesFile;
+import parser.ast.PropertiesFile;
+import prism.Prism;
+import prism.PrismComponent;
+import prism.PrismException;
+import prism.Result;
+
+/**
+ * Exact model checking of a property with {@link ParamModelChecker}
+ * (which uses {@link ValueComputer}, and policy iteration for MDPs),
+ * for a model specification of the form {@code "model|property"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ValueComputerBenchmark
+{
+	@Param({ "dtmcs/brp/brp.pm:N=16,MAX=2|P=? [ F s=5 ]", "dtmcs/leader_sync/leader4_4.pm|R=? [ F \"elected\" ]",
+			"mdps/consensus/coin2.nm:K=2|Pmin=? [ F \"finished\"&\"all_coins_equal_1\" ]" })
+	public String spec;
+
+	private PrismComponent parent;
+	private ModulesFile modulesFile;
+	private PropertiesFile propertiesFile;
+	private Expression expr;
+	private ModelBuilder builder;
+	private ParamModel model;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		Prism prism = BenchmarkModels.createPrism();
+		parent = ExactBenchmarkModels.createComponent(prism);
+		modulesFile = BenchmarkModels.parseModel(prism, ExactBenchmarkModels.getModel(spec));
+		propertiesFile = ExactBenchmarkModels.parseExpression(prism, modulesFile, spec);
+		expr = propertiesFile.getProperty(0);
+		builder = new ModelBuilder(parent, ParamMode.EXACT);
+		model = ExactBenchmarkModels.buildModel(parent, builder, modulesFile);
+	}
+
+	@Benchmark
+	public Result check() throws PrismException
+	{
+		ParamModelChecker mc = new ParamModelChecker(parent, ParamMode.EXACT);
+		mc.setModelBuilder(builder);
+		mc.setParameters(ExactBenchmarkModels.PARAM_NAMES, ExactBenchmarkModels.PARAM_LOWER_BOUNDS, ExactBenchmarkModels.PARAM_UPPER_BOUNDS);
+		mc.setModulesFileAndPropertiesFile(modulesFile, propertiesFile);
+		return mc.check(model, expr);
+	}
+}
@@ -0,0 +1,65 @@
+package simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import explicit.BenchmarkModels;
+import parser.ast.ModulesFile;
+import prism.Prism;
+import prism.PrismException;
+
+/**
+ * Random path generation with the {@link SimulatorEngine},
+ * for either full (stored) or on-the-fly paths of a fixed maximum length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SimulatorEngineBenchmark
+{
+	@Param({ "dtmcs/brp/brp.pm:N=64,MAX=5", "mdps/consensus/coin4.nm:K=4", "ctmcs/kanban/kanban.sm:t=3" })
+	public String model;
+
+	@Param({ "1000" })
+	public int pathLength;
+
+	@Param({ "true", "false" })
+	public boolean onTheFly;
+
+	private SimulatorEngine sim;
+
+	@Setup
+	public void setup() throws PrismException
+	{
+		Prism prism = BenchmarkModels.createPrism();
+		ModulesFile modulesFile = BenchmarkModels.parseModel(prism, model);
+		ModulesFileModelGenerator modelGen = BenchmarkModels.createModelGenerator(prism, modulesFile);
+		sim = new SimulatorEngine(prism);
+		sim.loadModel(modelGen, modelGen);
+	}
+
+	@Benchmark
+	public long generatePath() throws PrismException
+	{
+		if (onTheFly) {
+			sim.createNewOnTheFlyPath();
+		} else {
+			sim.createNewPath();
+		}
+		sim.initialisePath(null);
+		for (int i = 0; i < pathLength; i++) {
+			if (!sim.automaticTransition()) {
+				break;
+			}
+		}
+		return sim.getPathSize();
+	}
+}
@@ -0,0 +1,245 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-size array of primitive values, indexed by {@code long}, that is stored outside of the Java heap.
+ * <br><br>
+ * Since a single NIO buffer is limited to 2^31 bytes, the array is split into chunks
+ * of 2^CHUNK_BITS elements, each of which is a separate buffer. The storage is either
+ * allocated directly (see e.g. {@link OfInt#allocate(long)}; note that the total size of
+ * direct buffers is limited by the JVM option {@code -XX:MaxDirectMemorySize})
+ * or memory-mapped from a file (see e.g. {@link OfInt#map(FileChannel, long, long)}).
+ * Access to different elements from different threads is safe; the arrays are not resizable.
+ */
+public abstract class OffHeapArray
+{
+	/** Elements per chunk (as a power of 2): 2^27 elements, i.e. at most 1GB per chunk */
+	public static final int CHUNK_BITS = 27;
+	private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+	private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** Number of elements */
+	protected final long length;
+
+	protected OffHeapArray(long length)
+	{
+		if (length < 0) {
+			throw new IllegalArgumentException("Negative array length " + length);
+		}
+		this.length = length;
+	}
+
+	/**
+	 * Get the number of elements in the array.
+	 */
+	public long length()
+	{
+		return length;
+	}
+
+	/**
+	 * Get the number of chunks needed for an array of {@code length} elements.
+	 */
+	private static int numChunks(long length)
+	{
+		return Math.toIntExact((length + CHUNK_SIZE - 1) >>> CHUNK_BITS);
+	}
+
+	/**
+	 * Get the number of elements in chunk {@code c} of an array of {@code length} elements.
+	 */
+	private static int chunkLength(long length, int c)
+	{
+		return (int) Math.min(CHUNK_SIZE, length - (c * CHUNK_SIZE));
+	}
+
+	/**
+	 * Allocate direct (native byte order) buffers for the chunks of an array of {@code length} elements of {@code bytes} bytes.
+	 */
+	private static ByteBuffer[] allocateChunks(long length, int bytes)
+	{
+		ByteBuffer chunks[] = new ByteBuffer[numChunks(length)];
+		for (int c = 0; c < chunks.length; c++) {
+			chunks[c] = ByteBuffer.allocateDirect(chunkLength(length, c) * bytes).order(ByteOrder.nativeOrder());
+		}
+		return chunks;
+	}
+
+	/**
+	 * Memory-map (read-only, big-endian) the chunks of an array of {@code length} elements of {@code bytes} bytes,
+	 * stored contiguously in {@code channel}, starting at byte {@code position}.
+	 */
+	private static ByteBuffer[] mapChunks(long length, int bytes, FileChannel channel, long position) throws IOException
+	{
+		ByteBuffer chunks[] = new ByteBuffer[numChunks(length)];
+		for (int c = 0; c < chunks.length; c++) {
+			chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, position + c * CHUNK_SIZE * bytes, chunkLength(length, c) * bytes);
+		}
+		return chunks;
+	}
+
+	/**
+	 * Off-heap array of {@code int}s.
+	 */
+	public static final class OfInt extends OffHeapArray
+	{
+		private final IntBuffer chunks[];
+
+		private OfInt(long length, ByteBuffer byteChunks[])
+		{
+			super(length);
+			chunks = new IntBuffer[byteChunks.length];
+			for (int c = 0; c < chunks.length; c++) {
+				chunks[c] = byteChunks[c].asIntBuffer();
+			}
+		}
+
+		/**
+		 * Allocate a new array of {@code length} elements, initialised to 0.
+		 */
+		public static OfInt allocate(long length)
+		{
+			return new OfInt(length, allocateChunks(length, Integer.BYTES));
+		}
+
+		/**
+		 * Memory-map (read-only) an array of {@code length} big-endian elements,
+		 * stored contiguously in a file, starting at byte {@code position}.
+		 */
+		public static OfInt map(FileChannel channel, long position, long length) throws IOException
+		{
+			return new OfInt(length, mapChunks(length, Integer.BYTES, channel, position));
+		}
+
+		public int get(long i)
+		{
+			return chunks[(int) (i >>> CHUNK_BITS)].get((int) (i & CHUNK_MASK));
+		}
+
+		public void set(long i, int value)
+		{
+			chunks[(int) (i >>> CHUNK_BITS)].put((int) (i & CHUNK_MASK), value);
+		}
+	}
+
+	/**
+	 * Off-heap array of {@code long}s.
+	 */
+	public static final class OfLong extends OffHeapArray
+	{
+		private final LongBuffer chunks[];
+
+		private OfLong(long length, ByteBuffer byteChunks[])
+		{
+			super(length);
+			chunks = new LongBuffer[byteChunks.length];
+			for (int c = 0; c < chunks.length; c++) {
+				chunks[c] = byteChunks[c].asLongBuffer();
+			}
+		}
+
+		/**
+		 * Allocate a new array of {@code length} elements, initialised to 0.
+		 */
+		public static OfLong allocate(long length)
+		{
+			return new OfLong(length, allocateChunks(length, Long.BYTES));
+		}
+
+		/**
+		 * Memory-map (read-only) an array of {@code length} big-endian elements,
+		 * stored contiguously in a file, starting at byte {@code position}.
+		 */
+		public static OfLong map(FileChannel channel, long position, long length) throws IOException
+		{
+			return new OfLong(length, mapChunks(length, Long.BYTES, channel, position));
+		}
+
+		public long get(long i)
+		{
+			return chunks[(int) (i >>> CHUNK_BITS)].get((int) (i & CHUNK_MASK));
+		}
+
+		public void set(long i, long value)
+		{
+			chunks[(int) (i >>> CHUNK_BITS)].put((int) (i & CHUNK_MASK), value);
+		}
+	}
+
+	/**
+	 * Off-heap array of {@code double}s.
+	 */
+	public static final class OfDouble extends OffHeapArray
+	{
+		private final DoubleBuffer chunks[];
+
+		private OfDouble(long length, ByteBuffer byteChunks[])
+		{
+			super(length);
+			chunks = new DoubleBuffer[byteChunks.length];
+			for (int c = 0; c < chunks.length; c++) {
+				chunks[c] = byteChunks[c].asDoubleBuffer();
+			}
+		}
+
+		/**
+		 * Allocate a new array of {@code length} elements, initialised to 0.
+		 */
+		public static OfDouble allocate(long length)
+		{
+			return new OfDouble(length, allocateChunks(length, Double.BYTES));
+		}
+
+		/**
+		 * Memory-map (read-only) an array of {@code length} big-endian elements,
+		 * stored contiguously in a file, starting at byte {@code position}.
+		 */
+		public static OfDouble map(FileChannel channel, long position, long length) throws IOException
+		{
+			return new OfDouble(length, mapChunks(length, Double.BYTES, channel, position));
+		}
+
+		public double get(long i)
+		{
+			return chunks[(int) (i >>> CHUNK_BITS)].get((int) (i & CHUNK_MASK));
+		}
+
+		public void set(long i, double value)
+		{
+			chunks[(int) (i >>> CHUNK_BITS)].put((int) (i & CHUNK_MASK), value);
+		}
+	}
+}
@@ -0,0 +1,324 @@
+//==============================================================================
+//
+//	Copyright (c) 2014-
+//	Authors:
+//	* Xueyi Zou <xz972@york.ac.uk> (University of York)
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import prism.PrismException;
+
+/**
+ * Fixed-resolution grid over (part of) the belief space of a POMDP,
+ * as used for Lovejoy's grid-based approximation.
+ * <br>
+ * For each included observation, the grid points are the beliefs over its unobservations
+ * whose probabilities are all multiples of 1/resolution, i.e., they correspond to the
+ * ways of writing the resolution as an ordered sum of (non-negative) integers.
+ * These are indexed consecutively, by observation, using a perfect hash (a ranking of these sums),
+ * so that values for grid points can be stored in arrays. Values for other beliefs
+ * are interpolated over the vertices of the enclosing sub-simplex of the Freudenthal
+ * triangulation, which are also grid points (see {@link #interpolate(Belief, int[], double[])}).
+ */
+public class BeliefGrid
+{
+	/** Interpolation weights below this are ignored */
+	public static final double MIN_WEIGHT = 1e-6;
+
+	/** Grid resolution */
+	private int resolution;
+	/** Number of unobservations of the POMDP */
+	private int numUnobservations;
+	/** Unobservations for each observation in the grid (null for other observations) */
+	private int[][] unobsForObs;
+	/** Index of the first grid point for each observation in the grid */
+	private int[] obsOffsets;
+	/** numSums[m][r] is the number of ways of writing r as an ordered sum of m non-negative integers */
+	private long[][] numSums;
+	/** Grid points, in index order */
+	private List<Belief> points;
+
+	/**
+	 * Construct the grid for a POMDP, with resolution {@code resolution},
+	 * comprising beliefs with observations from {@code obs}.
+	 */
+	public BeliefGrid(POMDP pomdp, BitSet obs, int resolution) throws PrismException
+	{
+		this.resolution = resolution;
+		numUnobservations = pomdp.getNumUnobservations();
+		int numStates = pomdp.getNumStates();
+		int numObservations = pomdp.getNumObservations();
+		// Find unobservations for each observation
+		unobsForObs = new int[numObservations][];
+		int maxSize = 1;
+		for (int so = obs.nextSetBit(0); so >= 0; so = obs.nextSetBit(so + 1)) {
+			int count = 0;
+			int[] unobs = new int[numUnobservations];
+			for (int s = 0; s < numStates; s++) {
+				if (so == pomdp.getObservation(s)) {
+					unobs[count++] = pomdp.getUnobservation(s);
+				}
+			}
+			unobsForObs[so] = Arrays.copyOf(unobs, count);
+			maxSize = Math.max(maxSize, count);
+		}
+		// Count sums (and hence grid points)
+		numSums = new long[maxSize + 1][resolution + 1];
+		numSums[0][0] = 1;
+		for (int m = 1; m <= maxSize; m++) {
+			for (int r = 0; r <= resolution; r++) {
+				numSums[m][r] = Math.min(Long.MAX_VALUE / 2, numSums[m - 1][r] + (r > 0 ? numSums[m][r - 1] : 0));
+			}
+		}
+		obsOffsets = new int[numObservations];
+		long numPoints = 0;
+		for (int so = obs.nextSetBit(0); so >= 0; so = obs.nextSetBit(so + 1)) {
+			obsOffsets[so] = (int) numPoints;
+			numPoints += numSums[unobsForObs[so].length][resolution];
+			if (numPoints > Integer.MAX_VALUE - 8) {
+				throw new PrismException("Too many grid points for resolution " + resolution);
+			}
+		}
+		// Create grid points
+		Belief[] pointsArray = new Belief[(int) numPoints];
+		for (int so = obs.nextSetBit(0); so >= 0; so = obs.nextSetBit(so + 1)) {
+			if (unobsForObs[so].length > 0) {
+				addPoints(pointsArray, so, new int[unobsForObs[so].length], 0, resolution);
+			}
+		}
+		points = Arrays.asList(pointsArray);
+	}
+
+	/**
+	 * Add grid points for observation {@code so} to {@code pointsArray}, for all sums
+	 * that extend the first {@code i} summands in {@code sum} with summands adding up to {@code remaining}.
+	 */
+	private void addPoints(Belief[] pointsArray, int so, int[] sum, int i, int remaining)
+	{
+		if (i == sum.length - 1) {
+			sum[i] = remaining;
+			double[] bu = new double[numUnobservations];
+			int[] unobs = unobsForObs[so];
+			for (int j = 0; j < sum.length; j++) {
+				bu[unobs[j]] = (double) sum[j] / resolution;
+			}
+			pointsArray[getIndex(so, sum)] = new Belief(so, bu);
+			return;
+		}
+		for (int v = 0; v <= remaining; v++) {
+			sum[i] = v;
+			addPoints(pointsArray, so, sum, i + 1, remaining - v);
+		}
+	}
+
+	/**
+	 * Get the grid resolution.
+	 */
+	public int getResolution()
+	{
+		return resolution;
+	}
+
+	/**
+	 * Get the number of grid points.
+	 */
+	public int getNumPoints()
+	{
+		return points.size();
+	}
+
+	/**
+	 * Check whether beliefs with observation {@code so} are included in the grid.
+	 */
+	public boolean containsObservation(int so)
+	{
+		return so < unobsForObs.length && unobsForObs[so] != null;
+	}
+
+	/**
+	 * Get the grid points, in index order.
+	 */
+	public List<Belief> getPoints()
+	{
+		return points;
+	}
+
+	/**
+	 * Get the index of the grid point for observation {@code so} with
+	 * probabilities {@code sum[j]}/resolution for its j-th unobservation.
+	 */
+	private int getIndex(int so, int[] sum)
+	{
+		long index = 0;
+		int r = resolution;
+		for (int i = 0, k = sum.length; i < k - 1; i++) {
+			index += numSums[k - i][r] - numSums[k - i][r - sum[i]];
+			r -= sum[i];
+		}
+		return obsOffsets[so] + (int) index;
+	}
+
+	/**
+	 * Get the index of the grid point for observation {@code so}
+	 * that is the vertex of the Freudenthal triangulation given by {@code q}
+	 * (the probabilities are (q[i] - q[i + 1]) / resolution, taking q[n] = 0),
+	 * or -1 if it is not a grid point.
+	 */
+	private int getVertexIndex(int so, int[] q, int[] sum)
+	{
+		int[] unobs = unobsForObs[so];
+		int total = 0;
+		for (int j = 0; j < unobs.length; j++) {
+			int u = unobs[j];
+			sum[j] = q[u] - (u + 1 < q.length ? q[u + 1] : 0);
+			if (sum[j] < 0) {
+				return -1;
+			}
+			total += sum[j];
+		}
+		return total == resolution ? getIndex(so, sum) : -1;
+	}
+
+	/**
+	 * Compute the grid points and weights to approximate the value for a belief {@code belief},
+	 * whose observation must be in the grid, by interpolation (using the Freudenthal triangulation).
+	 * The indices of the grid points and their weights are stored in {@code indices} and {@code weights},
+	 * both of which need to have length at least the number of unobservations of the POMDP.
+	 * Grid points with weights below {@link #MIN_WEIGHT} are omitted.
+	 * Throws an IllegalArgumentException if {@code belief} is not valid.
+	 * @return the number of grid points used
+	 */
+	public int interpolate(Belief belief, int[] indices, double[] weights)
+	{
+		double[] b = belief.bu;
+		int n = b.length;
+		int M = resolution;
+
+		double[] X = new double[n];
+		int[] V = new int[n];
+		double[] D = new double[n];
+		for (int i = 0; i < n; i++) {
+			X[i] = 0;
+			for (int j = i; j < n; j++) {
+				X[i] += M * b[j];
+			}
+			X[i] = Math.round(X[i] * 1e6) / 1e6;
+			V[i] = (int) Math.floor(X[i]);
+			D[i] = X[i] - V[i];
+		}
+		int[] P = getSortedPermutation(D);
+
+		double[] lambdas = new double[n];
+		double sum = 0;
+		for (int i = 1; i < n; i++) {
+			double lambda = D[P[i - 1]] - D[P[i]];
+			lambdas[i] = lambda;
+			sum = sum + lambda;
+		}
+		lambdas[0] = 1 - sum;
+
+		// Step through the vertices of the sub-simplex
+		int[] Q = V;
+		int[] tmp = new int[unobsForObs[belief.so].length];
+		int count = 0;
+		for (int i = 0; i < n; i++) {
+			if (i > 0) {
+				Q[P[i - 1]]++;
+			}
+			if (lambdas[i] >= MIN_WEIGHT) {
+				int index = getVertexIndex(belief.so, Q, tmp);
+				if (index == -1) {
+					throw new IllegalArgumentException("Belief " + belief + " cannot be interpolated over the grid");
+				}
+				indices[count] = index;
+				weights[count] = lambdas[i];
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Get a permutation that sorts the (non-negative) values in an array into descending order
+	 * (non-zero values first, in stable order, then zero values, in reverse order).
+	 */
+	static int[] getSortedPermutation(double[] inputArray)
+	{
+		int n = inputArray.length;
+		double[] inputCopy = new double[n];
+		int[] permutation = new int[n];
+		int iState = 0, iIteration = 0;
+		int iNonZeroEntry = 0, iZeroEntry = n - 1;
+		boolean bDone = false;
+
+		for (iState = n - 1; iState >= 0; iState--) {
+			if (inputArray[iState] == 0.0) {
+				inputCopy[iZeroEntry] = 0.0;
+				permutation[iZeroEntry] = iState;
+				iZeroEntry--;
+			}
+
+		}
+
+		for (iState = 0; iState < n; iState++) {
+			if (inputArray[iState] != 0.0) {
+				inputCopy[iNonZeroEntry] = inputArray[iState];
+				permutation[iNonZeroEntry] = iState;
+				iNonZeroEntry++;
+			}
+		}
+
+		while (!bDone) {
+			bDone = true;
+			for (iState = 0; iState < iNonZeroEntry - iIteration - 1; iState++) {
+				if (inputCopy[iState] < inputCopy[iState + 1]) {
+					swap(inputCopy, iState, iState + 1);
+					swap(permutation, iState, iState + 1);
+					bDone = false;
+				}
+			}
+			iIteration++;
+		}
+
+		return permutation;
+	}
+
+	private static void swap(int[] aiArray, int i, int j)
+	{
+		int temp = aiArray[i];
+		aiArray[i] = aiArray[j];
+		aiArray[j] = temp;
+	}
+
+	private static void swap(double[] aiArray, int i, int j)
+	{
+		double temp = aiArray[i];
+		aiArray[i] = aiArray[j];
+		aiArray[j] = temp;
+	}
+}
@@ -0,0 +1,916 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+import common.OffHeapArray;
+import explicit.rewards.ConstructRewards;
+import explicit.rewards.MCRewards;
+import explicit.rewards.MDPRewards;
+import explicit.rewards.Rewards;
+import parser.State;
+import parser.Values;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.DeclarationType;
+import parser.ast.Expression;
+import parser.type.Type;
+import parser.type.TypeBool;
+import parser.type.TypeInt;
+import prism.ModelInfo;
+import prism.ModelType;
+import prism.PrismComponent;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+import prism.RewardGenerator;
+
+/**
+ * Binary storage of a built explicit-state model (DTMC, CTMC or MDP) in a single file,
+ * which can later be opened again without any parsing or re-construction of the model.
+ * <br><br>
+ * The file consists of a header (model type, initial/deadlock states, action names,
+ * variable/constant info, label and reward structure names), followed by a sequence of data sections,
+ * each of which is a contiguous (big-endian, 8-byte aligned) array of primitive values:
+ * <ul>
+ * <li> the transition matrix, in compressed sparse row format: for MDPs, the start of each state's choices,
+ *      then the start of the transitions for each state (or choice), their column indices and their probabilities (or rates);
+ * <li> for MDPs with action labels, the index of the action for each choice;
+ * <li> for each label, the set of states satisfying it (as the words of a bitset);
+ * <li> for each state variable, its value in each state;
+ * <li> for each reward structure, the state rewards and (for MDPs) the transition rewards.
+ * </ul>
+ * When opened, each data section is memory-mapped (read-only, see {@link OffHeapArray}) and the model returned
+ * by {@link #getModel()} is a view that reads the transition matrix, states, and rewards directly from the mapped file.
+ * Transitions are indexed by {@code long}s, so models with more than 2^31 transitions can be stored.
+ */
+public class BinaryModelFile
+{
+	/** Magic number at the start of the file ("PBIN") */
+	public static final int MAGIC = 0x5042494E;
+	/** Version number of the file format */
+	public static final int VERSION = 2;
+	/** Default file name extension */
+	public static final String EXTENSION = "pbin";
+
+	// Codes for the types of variables/constants
+	private static final byte TYPE_INT = 0;
+	private static final byte TYPE_BOOL = 1;
+	private static final byte TYPE_DOUBLE = 2;
+
+	// Header info
+
+	private ModelType modelType;
+	private int numStates;
+	private int numChoices;
+	private long numTransitions;
+	private int initialStates[];
+	private int deadlockStates[];
+	/** Action labels, indexed by the action indices (null if there are none) */
+	private List<Object> actions;
+	/** Variable info (varNames is null if no states are stored) */
+	private List<String> varNames;
+	private List<Type> varTypes;
+	private int varMins[];
+	private int varMaxs[];
+	private Values constantValues;
+	private List<String> labelNames;
+	private List<String> rewardNames;
+	private boolean rewardHasStateRewards[];
+	private boolean rewardHasTransRewards[];
+
+	// Data sections
+
+	/** Start of the choices of each state (MDPs only, size numStates+1) */
+	private OffHeapArray.OfInt choiceStarts;
+	/** Start of the transitions of each state (DTMCs/CTMCs, size numStates+1) or choice (MDPs, size numChoices+1) */
+	private OffHeapArray.OfLong transStarts;
+	/** Column indices of the transitions (size numTransitions) */
+	private OffHeapArray.OfInt cols;
+	/** Probabilities/rates of the transitions (size numTransitions) */
+	private OffHeapArray.OfDouble nonZeros;
+	/** Action index of each choice, or -1 if unlabelled (MDPs only, null if there are no actions) */
+	private OffHeapArray.OfInt actionIndices;
+	private LongBuffer labelStates[];
+	private OffHeapArray.OfInt varValues[];
+	private OffHeapArray.OfDouble stateRewards[];
+	private OffHeapArray.OfDouble transRewards[];
+
+	/**
+	 * Use {@link #open(File)} to create.
+	 */
+	private BinaryModelFile()
+	{
+	}
+
+	// Writing
+
+	/**
+	 * Write a model to a binary file, along with the reward structures defined for it by a reward generator.
+	 * The rewards are evaluated here, so the file can later be used without the reward generator.
+	 * @param parent PrismComponent (used for reward construction)
+	 * @param model The model (a DTMC, CTMC or MDP)
+	 * @param modelInfo Info about the variables and labels of the model (if {@code null}, the list of states is not stored)
+	 * @param rewardGen The reward generator (if {@code null}, no rewards are stored)
+	 * @param file The file to write to
+	 */
+	public static void write(PrismComponent parent, Model model, ModelInfo modelInfo, RewardGenerator rewardGen, File file) throws PrismException
+	{
+		ModelType modelType = model.getModelType();
+		if (modelType != ModelType.DTMC && modelType != ModelType.CTMC && modelType != ModelType.MDP) {
+			throw new PrismNotSupportedException("Binary model export is not supported for " + modelType + "s");
+		}
+		boolean nondet = modelType.nondeterministic();
+		int numStates = model.getNumStates();
+		int numChoices = nondet ? ((MDP) model).getNumChoices() : numStates;
+		// (count transitions as longs, since there may be more than 2^31)
+		long numTransitions = 0;
+		for (int s = 0; s < numStates; s++) {
+			numTransitions += model.getNumTransitions(s);
+		}
+		List<State> statesList = modelInfo == null ? null : model.getStatesList();
+		VarList varList = statesList == null ? null : modelInfo.createVarList();
+		int numVars = statesList == null ? -1 : varList.getNumVars();
+		for (int v = 0; v < numVars; v++) {
+			if (!(varList.getType(v) instanceof TypeInt || varList.getType(v) instanceof TypeBool)) {
+				throw new PrismNotSupportedException("Binary model export is not supported for variables of type " + varList.getType(v));
+			}
+		}
+		// Assign indices to action labels (MDPs only)
+		List<Object> actions = null;
+		Map<Object, Integer> actionIndexMap = new HashMap<>();
+		if (nondet) {
+			MDP mdp = (MDP) model;
+			for (int s = 0; s < numStates; s++) {
+				int n = mdp.getNumChoices(s);
+				for (int i = 0; i < n; i++) {
+					Object action = mdp.getAction(s, i);
+					if (action != null && !actionIndexMap.containsKey(action)) {
+						actionIndexMap.put(action, actionIndexMap.size());
+					}
+				}
+			}
+			if (!actionIndexMap.isEmpty()) {
+				actions = new ArrayList<>(Collections.nCopies(actionIndexMap.size(), null));
+				for (Map.Entry<Object, Integer> e : actionIndexMap.entrySet()) {
+					actions.set(e.getValue(), e.getKey());
+				}
+			}
+		}
+		// Construct rewards
+		int numRewardStructs = rewardGen == null ? 0 : rewardGen.getNumRewardStructs();
+		List<Rewards> rewards = new ArrayList<>();
+		ConstructRewards constructRewards = new ConstructRewards(parent);
+		constructRewards.allowNegativeRewards();
+		for (int r = 0; r < numRewardStructs; r++) {
+			// The explicit engine does not support transition rewards for D/CTMCs:
+			// just store the flag, so that the same error is reported when the model is checked later
+			if (!nondet && rewardGen.rewardStructHasTransitionRewards(r)) {
+				rewards.add(null);
+			} else {
+				rewards.add(constructRewards.buildRewardStructure(model, rewardGen, r));
+			}
+		}
+
+		try (Output out = new Output(file)) {
+			// Header
+			out.putInt(MAGIC);
+			out.putInt(VERSION);
+			// (placeholder for offset of data sections)
+			out.putLong(0);
+			out.putString(modelType.name());
+			out.putInt(numStates);
+			out.putInt(numChoices);
+			out.putLong(numTransitions);
+			out.putInt(model.getNumInitialStates());
+			for (int s : model.getInitialStates()) {
+				out.putInt(s);
+			}
+			out.putInt(model.getNumDeadlockStates());
+			for (int s : model.getDeadlockStates()) {
+				out.putInt(s);
+			}
+			out.putInt(actions == null ? -1 : actions.size());
+			for (int a = 0; actions != null && a < actions.size(); a++) {
+				out.putString(actions.get(a).toString());
+			}
+			out.putInt(numVars);
+			for (int v = 0; v < numVars; v++) {
+				out.putString(varList.getName(v));
+				out.putByte(varList.getType(v) instanceof TypeBool ? TYPE_BOOL : TYPE_INT);
+				out.putInt(varList.getLow(v));
+				out.putInt(varList.getHigh(v));
+			}
+			Values constantValues = model.getConstantValues();
+			int numConstants = constantValues == null ? 0 : constantValues.getNumValues();
+			out.putInt(numConstants);
+			for (int c = 0; c < numConstants; c++) {
+				out.putString(constantValues.getName(c));
+				Object value = constantValues.getValue(c);
+				if (value instanceof Integer) {
+					out.putByte(TYPE_INT);
+					out.putInt((Integer) value);
+				} else if (value instanceof Boolean) {
+					out.putByte(TYPE_BOOL);
+					out.putByte((Boolean) value ? 1 : 0);
+				} else {
+					out.putByte(TYPE_DOUBLE);
+					out.putDouble(((Number) value).doubleValue());
+				}
+			}
+			// (keep labels in the order in which they were originally defined, where known)
+			List<String> labelNames = new ArrayList<>();
+			if (modelInfo != null) {
+				for (String name : modelInfo.getLabelNames()) {
+					if (model.hasLabel(name)) {
+						labelNames.add(name);
+					}
+				}
+			}
+			for (String name : model.getLabels()) {
+				if (!labelNames.contains(name)) {
+					labelNames.add(name);
+				}
+			}
+			out.putInt(labelNames.size());
+			for (String name : labelNames) {
+				out.putString(name);
+			}
+			out.putInt(numRewardStructs);
+			for (int r = 0; r < numRewardStructs; r++) {
+				out.putString(rewardGen.getRewardStructName(r));
+				out.putByte(rewards.get(r) != null && rewardGen.rewardStructHasStateRewards(r) ? 1 : 0);
+				out.putByte(rewardGen.rewardStructHasTransitionRewards(r) ? 1 : 0);
+			}
+			long dataOffset = out.align();
+
+			// Transition matrix
+			if (nondet) {
+				MDP mdp = (MDP) model;
+				int choice = 0;
+				for (int s = 0; s < numStates; s++) {
+					out.putInt(choice);
+					choice += mdp.getNumChoices(s);
+				}
+				out.putInt(choice);
+				out.align();
+				long trans = 0;
+				for (int s = 0; s < numStates; s++) {
+					int n = mdp.getNumChoices(s);
+					for (int i = 0; i < n; i++) {
+						out.putLong(trans);
+						trans += mdp.getNumTransitions(s, i);
+					}
+				}
+				out.putLong(trans);
+				checkNumTransitions(trans, numTransitions);
+				out.align();
+				for (int s = 0; s < numStates; s++) {
+					int n = mdp.getNumChoices(s);
+					for (int i = 0; i < n; i++) {
+						mdp.forEachTransition(s, i, (s_, t, d) -> out.putInt(t));
+					}
+				}
+				out.align();
+				for (int s = 0; s < numStates; s++) {
+					int n = mdp.getNumChoices(s);
+					for (int i = 0; i < n; i++) {
+						mdp.forEachTransition(s, i, (s_, t, d) -> out.putDouble(d));
+					}
+				}
+				out.align();
+				if (actions != null) {
+					for (int s = 0; s < numStates; s++) {
+						int n = mdp.getNumChoices(s);
+						for (int i = 0; i < n; i++) {
+							Object action = mdp.getAction(s, i);
+							out.putInt(action == null ? -1 : actionIndexMap.get(action));
+						}
+					}
+					out.align();
+				}
+			} else {
+				DTMC dtmc = (DTMC) model;
+				long trans = 0;
+				for (int s = 0; s < numStates; s++) {
+					out.putLong(trans);
+					trans += dtmc.getNumTransitions(s);
+				}
+				out.putLong(trans);
+				checkNumTransitions(trans, numTransitions);
+				out.align();
+				for (int s = 0; s < numStates; s++) {
+					dtmc.forEachTransition(s, (s_, t, d) -> out.putInt(t));
+				}
+				out.align();
+				for (int s = 0; s < numStates; s++) {
+					dtmc.forEachTransition(s, (s_, t, d) -> out.putDouble(d));
+				}
+				out.align();
+			}
+			// Labels
+			int numWords = (numStates + 63) / 64;
+			for (String name : labelNames) {
+				long words[] = model.getLabelStates(name).toLongArray();
+				for (int w = 0; w < numWords; w++) {
+					out.putLong(w < words.length ? words[w] : 0L);
+				}
+				out.align();
+			}
+			// States
+			for (int v = 0; v < numVars; v++) {
+				for (int s = 0; s < numStates; s++) {
+					Object value = statesList.get(s).varValues[v];
+					out.putInt(value instanceof Boolean ? ((Boolean) value ? 1 : 0) : (Integer) value);
+				}
+				out.align();
+			}
+			// Rewards
+			for (int r = 0; r < numRewardStructs; r++) {
+				Rewards rew = rewards.get(r);
+				if (rew == null) {
+					continue;
+				}
+				if (nondet) {
+					MDPRewards mdpRewards = (MDPRewards) rew;
+					if (rewardGen.rewardStructHasStateRewards(r)) {
+						for (int s = 0; s < numStates; s++) {
+							out.putDouble(mdpRewards.getStateReward(s));
+						}
+						out.align();
+					}
+					if (rewardGen.rewardStructHasTransitionRewards(r)) {
+						MDP mdp = (MDP) model;
+						for (int s = 0; s < numStates; s++) {
+							int n = mdp.getNumChoices(s);
+							for (int i = 0; i < n; i++) {
+								out.putDouble(mdpRewards.getTransitionReward(s, i));
+							}
+						}
+						out.align();
+					}
+				} else if (rewardGen.rewardStructHasStateRewards(r)) {
+					MCRewards mcRewards = (MCRewards) rew;
+					for (int s = 0; s < numStates; s++) {
+						out.putDouble(mcRewards.getStateReward(s));
+					}
+					out.align();
+				}
+			}
+			out.putLongAt(8, dataOffset);
+		} catch (IOException | UncheckedIOException e) {
+			throw new PrismException("Could not write binary model file \"" + file + "\": " + e.getMessage());
+		}
+	}
+
+	private static void checkNumTransitions(long counted, long expected) throws PrismException
+	{
+		if (counted != expected) {
+			throw new PrismException("Inconsistent transition count in model (" + counted + " vs. " + expected + ")");
+		}
+	}
+
+	/**
+	 * Buffered, position-tracking output to a file.
+	 * I/O errors are rethrown as {@link UncheckedIOException}s,
+	 * so that writes can be done from within transition consumers.
+	 */
+	private static class Output implements Closeable
+	{
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+		private long position = 0;
+
+		public Output(File file) throws IOException
+		{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+
+		public void putByte(int b)
+		{
+			ensureRemaining(1);
+			buffer.put((byte) b);
+			position += 1;
+		}
+
+		public void putInt(int i)
+		{
+			ensureRemaining(4);
+			buffer.putInt(i);
+			position += 4;
+		}
+
+		public void putLong(long l)
+		{
+			ensureRemaining(8);
+			buffer.putLong(l);
+			position += 8;
+		}
+
+		public void putDouble(double d)
+		{
+			ensureRemaining(8);
+			buffer.putDouble(d);
+			position += 8;
+		}
+
+		public void putString(String s)
+		{
+			byte bytes[] = s.getBytes(StandardCharsets.UTF_8);
+			putInt(bytes.length);
+			for (byte b : bytes) {
+				putByte(b);
+			}
+		}
+
+		/**
+		 * Pad with zeros to the next multiple of 8 bytes, and return the resulting position.
+		 */
+		public long align()
+		{
+			while (position % 8 != 0) {
+				putByte(0);
+			}
+			return position;
+		}
+
+		/**
+		 * Overwrite a long at some (already written) position in the file.
+		 */
+		public void putLongAt(long pos, long l) throws IOException
+		{
+			flush();
+			ByteBuffer buf = ByteBuffer.allocate(8).putLong(l);
+			buf.flip();
+			channel.write(buf, pos);
+		}
+
+		private void ensureRemaining(int n)
+		{
+			if (buffer.remaining() < n) {
+				flush();
+			}
+		}
+
+		private void flush()
+		{
+			try {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			try {
+				flush();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+	// Reading
+
+	/**
+	 * Open a binary model file, memory-mapping its data sections.
+	 * The file can be closed (or deleted) afterwards, while the mappings remain valid.
+	 * @param file The file to open
+	 */
+	public static BinaryModelFile open(File file) throws PrismException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			BinaryModelFile bmf = new BinaryModelFile();
+			bmf.read(channel);
+			return bmf;
+		} catch (IOException e) {
+			throw new PrismException("Could not read binary model file \"" + file + "\": " + e.getMessage());
+		} catch (RuntimeException e) {
+			// Buffer underflows etc. (from truncated/corrupt headers)
+			throw new PrismException("Could not read binary model file \"" + file + "\": file is corrupt");
+		}
+	}
+
+	private void read(FileChannel channel) throws IOException, PrismException
+	{
+		long fileSize = channel.size();
+		if (fileSize < 16) {
+			throw new PrismException("not a binary model file");
+		}
+		ByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, 16);
+		if (start.getInt() != MAGIC) {
+			throw new PrismException("not a binary model file");
+		}
+		int version = start.getInt();
+		if (version != VERSION) {
+			throw new PrismException("unsupported file format version " + version + " (expected " + VERSION + ")");
+		}
+		long dataOffset = start.getLong();
+		if (dataOffset < 16 || dataOffset > fileSize) {
+			throw new PrismException("file is corrupt");
+		}
+
+		// Header
+		ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, dataOffset);
+		header.position(16);
+		modelType = ModelType.valueOf(getString(header));
+		numStates = header.getInt();
+		numChoices = header.getInt();
+		numTransitions = header.getLong();
+		initialStates = new int[header.getInt()];
+		for (int i = 0; i < initialStates.length; i++) {
+			initialStates[i] = header.getInt();
+		}
+		deadlockStates = new int[header.getInt()];
+		for (int i = 0; i < deadlockStates.length; i++) {
+			deadlockStates[i] = header.getInt();
+		}
+		int numActions = header.getInt();
+		if (numActions >= 0) {
+			actions = new ArrayList<>(numActions);
+			for (int a = 0; a < numActions; a++) {
+				actions.add(getString(header));
+			}
+		}
+		int numVars = header.getInt();
+		if (numVars >= 0) {
+			varNames = new ArrayList<>(numVars);
+			varTypes = new ArrayList<>(numVars);
+			varMins = new int[numVars];
+			varMaxs = new int[numVars];
+			for (int v = 0; v < numVars; v++) {
+				varNames.add(getString(header));
+				varTypes.add(header.get() == TYPE_BOOL ? TypeBool.getInstance() : TypeInt.getInstance());
+				varMins[v] = header.getInt();
+				varMaxs[v] = header.getInt();
+			}
+		}
+		int numConstants = header.getInt();
+		constantValues = new Values();
+		for (int c = 0; c < numConstants; c++) {
+			String name = getString(header);
+			switch (header.get()) {
+			case TYPE_INT:
+				constantValues.addValue(name, header.getInt());
+				break;
+			case TYPE_BOOL:
+				constantValues.addValue(name, header.get() != 0);
+				break;
+			default:
+				constantValues.addValue(name, header.getDouble());
+			}
+		}
+		int numLabels = header.getInt();
+		labelNames = new ArrayList<>(numLabels);
+		for (int l = 0; l < numLabels; l++) {
+			labelNames.add(getString(header));
+		}
+		int numRewardStructs = header.getInt();
+		rewardNames = new ArrayList<>(numRewardStructs);
+		rewardHasStateRewards = new boolean[numRewardStructs];
+		rewardHasTransRewards = new boolean[numRewardStructs];
+		for (int r = 0; r < numRewardStructs; r++) {
+			rewardNames.add(getString(header));
+			rewardHasStateRewards[r] = header.get() != 0;
+			rewardHasTransRewards[r] = header.get() != 0;
+		}
+
+		// Data sections
+		boolean nondet = modelType.nondeterministic();
+		Sections sections = new Sections(channel, dataOffset, fileSize);
+		if (nondet) {
+			choiceStarts = sections.mapInts(numStates + 1L);
+			transStarts = sections.mapLongs(numChoices + 1L);
+		} else {
+			transStarts = sections.mapLongs(numStates + 1L);
+		}
+		cols = sections.mapInts(numTransitions);
+		nonZeros = sections.mapDoubles(numTransitions);
+		if (nondet && actions != null) {
+			actionIndices = sections.mapInts(numChoices);
+		}
+		labelStates = new LongBuffer[numLabels];
+		for (int l = 0; l < numLabels; l++) {
+			labelStates[l] = sections.mapBitSet(numStates);
+		}
+		varValues = new OffHeapArray.OfInt[Math.max(numVars, 0)];
+		for (int v = 0; v < numVars; v++) {
+			varValues[v] = sections.mapInts(numStates);
+		}
+		stateRewards = new OffHeapArray.OfDouble[numRewardStructs];
+		transRewards = new OffHeapArray.OfDouble[numRewardStructs];
+		for (int r = 0; r < numRewardStructs; r++) {
+			if (rewardHasStateRewards[r]) {
+				stateRewards[r] = sections.mapDoubles(numStates);
+			}
+			if (nondet && rewardHasTransRewards[r]) {
+				transRewards[r] = sections.mapDoubles(numChoices);
+			}
+		}
+	}
+
+	private static String getString(ByteBuffer buffer)
+	{
+		byte bytes[] = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Sequential memory-mapping of the (8-byte aligned) data sections of a file.
+	 */
+	private static class Sections
+	{
+		private final FileChannel channel;
+		private final long fileSize;
+		private long position;
+
+		public Sections(FileChannel channel, long position, long fileSize)
+		{
+			this.channel = channel;
+			this.position = position;
+			this.fileSize = fileSize;
+		}
+
+		public OffHeapArray.OfInt mapInts(long n) throws IOException, PrismException
+		{
+			return OffHeapArray.OfInt.map(channel, next(n * 4), n);
+		}
+
+		public OffHeapArray.OfLong mapLongs(long n) throws IOException, PrismException
+		{
+			return OffHeapArray.OfLong.map(channel, next(n * 8), n);
+		}
+
+		public OffHeapArray.OfDouble mapDoubles(long n) throws IOException, PrismException
+		{
+			return OffHeapArray.OfDouble.map(channel, next(n * 8), n);
+		}
+
+		/**
+		 * Map the words of a bitset over {@code numStates} states
+		 * (which, since there are at most 2^31 states, fits in a single buffer).
+		 */
+		public LongBuffer mapBitSet(int numStates) throws IOException, PrismException
+		{
+			long size = ((numStates + 63L) / 64) * 8;
+			return channel.map(FileChannel.MapMode.READ_ONLY, next(size), size).asLongBuffer();
+		}
+
+		/**
+		 * Check that a section of {@code size} bytes fits in the file,
+		 * return its start and move to the start of the next one.
+		 */
+		private long next(long size) throws PrismException
+		{
+			if (size < 0 || position + size > fileSize) {
+				throw new PrismException("file is truncated or corrupt");
+			}
+			long start = position;
+			position = (position + size + 7) / 8 * 8;
+			return start;
+		}
+	}
+
+	// Accessors
+
+	/**
+	 * Get the type of the stored model.
+	 */
+	public ModelType getModelType()
+	{
+		return modelType;
+	}
+
+	/**
+	 * Get the number of states of the stored model.
+	 */
+	public int getNumStates()
+	{
+		return numStates;
+	}
+
+	/**
+	 * Get the number of transitions of the stored model.
+	 */
+	public long getNumTransitions()
+	{
+		return numTransitions;
+	}
+
+	/**
+	 * Create a (read-only) model that accesses the transition matrix, states
+	 * and labels directly from the mapped file. The model is a
+	 * {@link DTMCOffHeap}, {@link CTMCOffHeap} or {@link MDPOffHeap}, depending on the model type.
+	 */
+	public ModelExplicit getModel() throws PrismException
+	{
+		ModelExplicit model;
+		switch (modelType) {
+		case DTMC:
+			model = new DTMCOffHeap(numStates, transStarts, cols, nonZeros);
+			break;
+		case CTMC:
+			model = new CTMCOffHeap(numStates, transStarts, cols, nonZeros);
+			break;
+		case MDP:
+			model = new MDPOffHeap(numStates, choiceStarts, transStarts, cols, nonZeros, actionIndices, actions);
+			break;
+		default:
+			throw new PrismNotSupportedException("Binary model import is not supported for " + modelType + "s");
+		}
+		for (int s : initialStates) {
+			model.addInitialState(s);
+		}
+		for (int s : deadlockStates) {
+			model.addDeadlockState(s);
+		}
+		model.setConstantValues(constantValues);
+		if (varNames != null) {
+			model.setVarList(getModelInfo().createVarList());
+			model.setStatesList(new MappedStatesList());
+		}
+		for (int l = 0; l < labelNames.size(); l++) {
+			model.addLabel(labelNames.get(l), BitSet.valueOf(labelStates[l]));
+		}
+		return model;
+	}
+
+	/**
+	 * List of states, created on demand from the mapped variable values.
+	 */
+	private class MappedStatesList extends AbstractList<State> implements RandomAccess
+	{
+		@Override
+		public State get(int s)
+		{
+			int numVars = varNames.size();
+			State state = new State(numVars);
+			for (int v = 0; v < numVars; v++) {
+				int value = varValues[v].get(s);
+				state.setValue(v, varTypes.get(v) instanceof TypeBool ? (Object) (value != 0) : (Object) value);
+			}
+			return state;
+		}
+
+		@Override
+		public int size()
+		{
+			return numStates;
+		}
+	}
+
+	/**
+	 * Get a ModelInfo object for the stored model,
+	 * providing its type, variables (if stored) and labels.
+	 */
+	public ModelInfo getModelInfo()
+	{
+		return new ModelInfo()
+		{
+			@Override
+			public ModelType getModelType()
+			{
+				return modelType;
+			}
+
+			@Override
+			public Values getConstantValues()
+			{
+				return constantValues;
+			}
+
+			@Override
+			public List<String> getVarNames()
+			{
+				return varNames == null ? Collections.emptyList() : varNames;
+			}
+
+			@Override
+			public List<Type> getVarTypes()
+			{
+				return varTypes == null ? Collections.emptyList() : varTypes;
+			}
+
+			@Override
+			public DeclarationType getVarDeclarationType(int i) throws PrismException
+			{
+				if (varTypes.get(i) instanceof TypeInt) {
+					return new DeclarationInt(Expression.Int(varMins[i]), Expression.Int(varMaxs[i]));
+				} else {
+					return new DeclarationBool();
+				}
+			}
+
+			@Override
+			public List<String> getLabelNames()
+			{
+				return labelNames;
+			}
+		};
+	}
+
+	/**
+	 * Get a RewardGenerator for the reward structures stored in the file,
+	 * which looks up rewards by state index.
+	 */
+	public RewardGenerator getRewardGenerator()
+	{
+		return new RewardGenerator()
+		{
+			@Override
+			public List<String> getRewardStructNames()
+			{
+				return rewardNames;
+			}
+
+			@Override
+			public boolean rewardStructHasStateRewards(int r)
+			{
+				return rewardHasStateRewards[r];
+			}
+
+			@Override
+			public boolean rewardStructHasTransitionRewards(int r)
+			{
+				return rewardHasTransRewards[r];
+			}
+
+			@Override
+			public boolean isRewardLookupSupported(RewardLookup lookup)
+			{
+				return lookup == RewardLookup.BY_STATE_INDEX;
+			}
+
+			@Override
+			public double getStateReward(int r, int s) throws PrismException
+			{
+				return stateRewards[r] == null ? 0.0 : stateRewards[r].get(s);
+			}
+
+			@Override
+			public double getStateActionReward(int r, int s, Object action) throws PrismException
+			{
+				if (transRewards[r] == null) {
+					return 0.0;
+				}
+				// Rewards are attached to actions, so any choice with the right action will do
+				for (int j = choiceStarts.get(s), stop = choiceStarts.get(s + 1); j < stop; j++) {
+					int a = actionIndices == null ? -1 : actionIndices.get(j);
+					if (Objects.equals(a < 0 ? null : actions.get(a), action)) {
+						return transRewards[r].get(j);
+					}
+				}
+				return 0.0;
+			}
+		};
+	}
+}
@@ -1,52 +1,75 @@
 //==============================================================================
-//	
+//
 //	Copyright (c) 2002-
 //	Authors:
 //	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
-//	
+//
 //------------------------------------------------------------------------------
-//	
+//
 //	This file is part of PRISM.
-//	
+//
 //	PRISM is free software; you can redistribute it and/or modify
 //	it under the terms of the GNU General Public License as published by
 //	the Free Software Foundation; either version 2 of the License, or
 //	(at your option) any later version.
-//	
+//
 //	PRISM is distributed in the hope that it will be useful,
 //	but WITHOUT ANY WARRANTY; without even the implied warranty of
 //	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
 //	GNU General Public License for more details.
-//	
+//
 //	You should have received a copy of the GNU General Public License
 //	along with PRISM; if not, write to the Free Software Foundation,
 //	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
-//	
+//
 //==============================================================================
 
 package explicit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import parser.State;
 import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismNotSupportedException;
+import prism.PrismUtils;
 
 /**
- * Class to perform bisimulation minimisation for explicit-state models.
+ * Class to perform bisimulation minimisation for explicit-state models:
+ * (ordinary) lumping for DTMCs and CTMCs, probabilistic bisimulation for MDPs.
+ * <br><br>
+ * The partition is refined by splitting blocks according to the signatures of their states,
+ * i.e., the outgoing distributions (sets of distributions for MDPs) lifted to the current partition.
+ * Only blocks containing a predecessor of a state that changed block are re-examined,
+ * and only for those states. When a block is split, its largest part keeps the block's index,
+ * so that a state changes block at most log(n) times (as in Paige-Tarjan/Valmari style algorithms).
+ * The blocks to be re-examined in each round are processed in parallel, if worthwhile.
  */
 public class Bisimulation extends PrismComponent
 {
+	/** Minimum number of states to be re-examined in a round for this to be done in parallel */
+	private static final int PARALLEL_THRESHOLD = 16384;
+
 	// Local storage of partition info
 	protected int numStates;
 	protected int[] partition;
 	protected int numBlocks;
-	protected MDPSimple mdp;
+	// Storage of the blocks: states of block b are elems[blockStart[b]], ..., elems[blockEnd[b]-1]
+	protected int[] elems;
+	protected int[] blockStart;
+	protected int[] blockEnd;
+
+	// Statistics for the last minimisation
+	protected int numRounds;
+	protected long timeTaken;
 
 	/**
 	 * Construct a new Bisimulation object.
@@ -64,103 +87,122 @@ public class Bisimulation extends PrismComponent
 	 */
 	public Model minimise(Model model, List<String> propNames, List<BitSet> propBSs) throws PrismException
 	{
-		switch (model.getModelType()) {
-		case DTMC:
-			return minimiseDTMC((DTMC) model, propNames, propBSs);
-		case CTMC:
-			return minimiseCTMC((CTMC) model, propNames, propBSs);
-		default:
-			throw new PrismNotSupportedException("Bisimulation minimisation not yet supported for " + model.getModelType() + "s");
-		}
+		return minimise(model, propNames, propBSs, 1.0);
 	}
 
 	/**
-	 * Perform bisimulation minimisation on a DTMC.
-	 * @param dtmc The DTMC
+	 * Perform bisimulation minimisation on a model, but give up (and return null) as soon as it
+	 * is clear that the minimised model would have more than {@code maxRatio} times as many states.
+	 * @param model The model
 	 * @param propNames Names of the propositions in {@code propBSs}
 	 * @param propBSs Propositions (satisfying sets of states) to be preserved by bisimulation.
+	 * @param maxRatio Maximum ratio of minimised/original number of states (1.0 to always minimise)
 	 */
-	private DTMC minimiseDTMC(DTMC dtmc, List<String> propNames, List<BitSet> propBSs)
+	public Model minimise(Model model, List<String> propNames, List<BitSet> propBSs, double maxRatio) throws PrismException
 	{
+		switch (model.getModelType()) {
+		case DTMC:
+		case CTMC:
+		case MDP:
+			break;
+		default:
+			throw new PrismNotSupportedException("Bisimulation minimisation not yet supported for " + model.getModelType() + "s");
+		}
+
+		long timer = System.currentTimeMillis();
 		// Create initial partition based on propositions
-		initialisePartitionInfo(dtmc, propBSs);
-		//printPartition(dtmc);
+		initialisePartitionInfo(model, propBSs);
+		//printPartition(model);
 
 		// Iterative splitting
-		boolean changed = true;
-		while (changed)
-			changed = splitDTMC(dtmc);
-		mainLog.println("Minimisation: " + numStates + " to " + numBlocks + " States");
-		//printPartition(dtmc);
+		int maxBlocks = (int) Math.min(numStates, Math.floor(maxRatio * numStates));
+		boolean done = refine(model, maxBlocks);
+		timeTaken = System.currentTimeMillis() - timer;
+		if (!done) {
+			mainLog.println("Minimisation abandoned after " + numRounds + " rounds and " + timeTaken / 1000.0
+					+ " seconds: more than " + maxBlocks + " of " + numStates + " states would remain");
+			return null;
+		}
+		//printPartition(model);
 
 		// Build reduced model
-		DTMCSimple dtmcNew = new DTMCSimple(numBlocks);
-		for (int i = 0; i < numBlocks; i++) {
-			for (Map.Entry<Integer, Double> e : mdp.getChoice(i, 0)) {
-				dtmcNew.setProbability((Integer) mdp.getAction(i, 0), e.getKey(), e.getValue());
-			}
+		ModelExplicit modelNew;
+		switch (model.getModelType()) {
+		case DTMC:
+			modelNew = buildQuotientDTMC((DTMC) model, new DTMCSimple(numBlocks));
+			break;
+		case CTMC:
+			modelNew = buildQuotientDTMC((DTMC) model, new CTMCSimple(numBlocks));
+			break;
+		default:
+			modelNew = buildQuotientMDP((MDP) model);
+			break;
 		}
-		attachStatesAndLabels(dtmc, dtmcNew, propNames, propBSs);
+		attachStatesAndLabels(model, modelNew, propNames, propBSs);
+		timeTaken = System.currentTimeMillis() - timer;
 
-		return dtmcNew;
+		mainLog.print("Minimisation: " + numStates + " to " + numBlocks + " States");
+		mainLog.print(" (" + PrismUtils.formatPercent1dp(numStates == 0 ? 0.0 : 1.0 - (double) numBlocks / numStates) + " reduction), ");
+		mainLog.print(model.getNumTransitions() + " to " + modelNew.getNumTransitions() + " transitions");
+		mainLog.println(", " + numRounds + " rounds, " + timeTaken / 1000.0 + " seconds.");
+
+		return modelNew;
 	}
 
 	/**
-	 * Perform bisimulation minimisation on a CTMC.
-	 * @param ctmc The CTMC
-	 * @param propNames Names of the propositions in {@code propBSs}
-	 * @param propBSs Propositions (satisfying sets of states) to be preserved by bisimulation.
+	 * Get the number of blocks (states of the minimised model) after the last minimisation.
 	 */
-	private CTMC minimiseCTMC(CTMC ctmc, List<String> propNames, List<BitSet> propBSs)
+	public int getNumBlocks()
 	{
-		// Create initial partition based on propositions
-		initialisePartitionInfo(ctmc, propBSs);
-		//printPartition(ctmc);
+		return numBlocks;
+	}
 
-		// Iterative splitting
-		boolean changed = true;
-		while (changed)
-			changed = splitDTMC(ctmc);
-		mainLog.println("Minimisation: " + numStates + " to " + numBlocks + " States");
-		//printPartition(ctmc);
+	/**
+	 * Get the block (state of the minimised model) for each state of the original model,
+	 * after the last minimisation.
+	 */
+	public int[] getPartition()
+	{
+		return partition;
+	}
 
-		// Build reduced model
-		CTMCSimple ctmcNew = new CTMCSimple(numBlocks);
-		for (int i = 0; i < numBlocks; i++) {
-			for (Map.Entry<Integer, Double> e : mdp.getChoice(i, 0)) {
-				ctmcNew.setProbability((Integer) mdp.getAction(i, 0), e.getKey(), e.getValue());
-			}
-		}
-		attachStatesAndLabels(ctmc, ctmcNew, propNames, propBSs);
+	/**
+	 * Get the number of refinement rounds in the last minimisation.
+	 */
+	public int getNumRounds()
+	{
+		return numRounds;
+	}
 
-		return ctmcNew;
+	/**
+	 * Get the time taken (in milliseconds) for the last minimisation.
+	 */
+	public long getTimeTaken()
+	{
+		return timeTaken;
 	}
 
 	/**
 	 * Construct the initial partition based on a set of proposition bitsets.
-	 * Store info in {@code numStates}, {@code numBlocks} and {@code partition}.
+	 * Store info in {@code numStates}, {@code numBlocks} and {@code partition},
+	 * and the blocks in {@code elems}, {@code blockStart} and {@code blockEnd}.
 	 */
 	private void initialisePartitionInfo(Model model, List<BitSet> propBSs)
 	{
-		BitSet bs1, bs0;
 		numStates = model.getNumStates();
 		partition = new int[numStates];
 
 		// Compute all non-empty combinations of propositions
 		List<BitSet> all = new ArrayList<BitSet>();
-		bs1 = (BitSet) propBSs.get(0).clone();
-		bs0 = (BitSet) bs1.clone();
-		bs0.flip(0, numStates);
-		all.add(bs1);
-		all.add(bs0);
-		int n = propBSs.size();
-		for (int i = 1; i < n; i++) {
-			BitSet bs = propBSs.get(i);
+		BitSet allStates = new BitSet();
+		allStates.set(0, numStates);
+		all.add(allStates);
+		for (BitSet bs : propBSs) {
 			int m = all.size();
 			for (int j = 0; j < m; j++) {
-				bs1 = all.get(j);
-				bs0 = (BitSet) bs1.clone();
- 				bs0.andNot(bs);
+				BitSet bs1 = all.get(j);
+				BitSet bs0 = (BitSet) bs1.clone();
+				bs0.andNot(bs);
 				bs1.and(bs);
 				if (bs1.isEmpty()) {
 					all.set(j, bs0);
@@ -170,60 +212,450 @@ public class Bisimulation extends PrismComponent
 				}
 			}
 		}
+		all.removeIf(BitSet::isEmpty);
 
 		// Construct initial partition
 		numBlocks = all.size();
+		elems = new int[numStates];
+		blockStart = new int[numStates + 1];
+		blockEnd = new int[numStates + 1];
+		int k = 0;
 		for (int j = 0; j < numBlocks; j++) {
 			BitSet bs = all.get(j);
+			blockStart[j] = k;
 			for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
 				partition[i] = j;
+				elems[k++] = i;
+			}
+			blockEnd[j] = k;
+		}
+	}
+
+	/**
+	 * Refine the partition until it is a bisimulation, updating {@code numBlocks}, {@code partition}
+	 * and the block storage. Gives up if the number of blocks exceeds {@code maxBlocks}.
+	 * @return true if the refinement finished, false if it gave up
+	 */
+	private boolean refine(Model model, int maxBlocks)
+	{
+		PredecessorRelation pre = model.getPredecessorRelation(this, true);
+		boolean parallelOK = model instanceof ModelExplicit && ForkJoinPool.getCommonPoolParallelism() > 1;
+
+		// States whose signature may have changed, and the blocks containing them (initially everything)
+		boolean[] marked = new boolean[numStates];
+		Arrays.fill(marked, true);
+		boolean[] dirty = new boolean[numStates];
+		int[] dirtyBlocks = new int[numStates];
+		int numDirty = 0;
+		for (int b = 0; b < numBlocks; b++) {
+			dirty[b] = true;
+			dirtyBlocks[numDirty++] = b;
+		}
+		int[] moved = new int[numStates];
+
+		numRounds = 0;
+		while (numDirty > 0) {
+			if (numBlocks > maxBlocks) {
+				return false;
+			}
+			numRounds++;
+
+			// Split the dirty blocks according to signatures (in parallel, if worthwhile)
+			final int[] blocks = dirtyBlocks;
+			int[][] splits = new int[numDirty][];
+			long work = 0;
+			for (int i = 0; i < numDirty; i++) {
+				work += blockEnd[blocks[i]] - blockStart[blocks[i]];
+			}
+			IntStream range = IntStream.range(0, numDirty);
+			if (parallelOK && work >= PARALLEL_THRESHOLD) {
+				range = range.parallel();
+			}
+			range.forEach(i -> splits[i] = splitBlock(model, blocks[i], marked));
+
+			// Assign indices to the new blocks, unmark states, and note the states that changed block
+			int numMoved = 0;
+			for (int i = 0; i < numDirty; i++) {
+				int b = blocks[i];
+				for (int j = blockStart[b]; j < blockEnd[b]; j++) {
+					marked[elems[j]] = false;
+				}
+				dirty[b] = false;
+				int[] split = splits[i];
+				if (split == null) {
+					continue;
+				}
+				// split[0] is the index of the largest part, which keeps the index b;
+				// the other entries are the boundaries of the parts
+				int largest = split[0];
+				int numParts = split.length - 2;
+				for (int p = 0; p < numParts; p++) {
+					int from = split[p + 1];
+					int to = split[p + 2];
+					if (p == largest) {
+						blockStart[b] = from;
+						blockEnd[b] = to;
+						continue;
+					}
+					int bNew = numBlocks++;
+					blockStart[bNew] = from;
+					blockEnd[bNew] = to;
+					for (int j = from; j < to; j++) {
+						partition[elems[j]] = bNew;
+						moved[numMoved++] = elems[j];
+					}
+				}
+			}
+
+			// The predecessors of states that changed block need to be re-examined
+			numDirty = 0;
+			for (int i = 0; i < numMoved; i++) {
+				for (PrimitiveIterator.OfInt it = pre.getPredecessorsIterator(moved[i]); it.hasNext();) {
+					int s = it.nextInt();
+					if (!marked[s]) {
+						marked[s] = true;
+						int b = partition[s];
+						if (!dirty[b]) {
+							dirty[b] = true;
+							dirtyBlocks[numDirty++] = b;
+						}
+					}
+				}
+			}
+		}
+		return numBlocks <= maxBlocks;
+	}
+
+	/**
+	 * Split block {@code b} into parts whose states have the same signature, reordering its
+	 * states in {@code elems} so that each part is contiguous. States that are not marked
+	 * are known to have the same signature as each other. Only reads the partition,
+	 * so can be called concurrently for different blocks.
+	 * @return null if the block is not split; otherwise, an array containing the index
+	 * of the largest part, followed by the start positions of the parts and the end of the last one
+	 */
+	private int[] splitBlock(Model model, int b, boolean[] marked)
+	{
+		int start = blockStart[b];
+		int end = blockEnd[b];
+		int size = end - start;
+		if (size == 1) {
+			return null;
+		}
+		SignatureBuilder builder = new SignatureBuilder(model);
+		Map<Signature, Integer> parts = new HashMap<>();
+		int[] partOf = new int[size];
+		int unmarkedPart = -1;
+		for (int j = 0; j < size; j++) {
+			int s = elems[start + j];
+			if (!marked[s]) {
+				if (unmarkedPart == -1) {
+					unmarkedPart = parts.computeIfAbsent(builder.build(s, partition), k -> parts.size());
+				}
+				partOf[j] = unmarkedPart;
+			} else {
+				partOf[j] = parts.computeIfAbsent(builder.build(s, partition), k -> parts.size());
+			}
+		}
+		int numParts = parts.size();
+		if (numParts == 1) {
+			return null;
+		}
+
+		// Reorder the states of the block by part (counting sort, stable)
+		int[] split = new int[numParts + 2];
+		int[] counts = new int[numParts];
+		for (int j = 0; j < size; j++) {
+			counts[partOf[j]]++;
+		}
+		int largest = 0;
+		int pos = start;
+		int[] next = new int[numParts];
+		for (int p = 0; p < numParts; p++) {
+			if (counts[p] > counts[largest]) {
+				largest = p;
+			}
+			split[p + 1] = pos;
+			next[p] = pos - start;
+			pos += counts[p];
+		}
+		split[0] = largest;
+		split[numParts + 1] = end;
+		int[] reordered = new int[size];
+		for (int j = 0; j < size; j++) {
+			reordered[next[partOf[j]]++] = elems[start + j];
+		}
+		System.arraycopy(reordered, 0, elems, start, size);
+		return split;
+	}
+
+	/**
+	 * Build the quotient of a DTMC (or CTMC) with respect to the current partition,
+	 * storing it in {@code dtmcNew} (which has one state per block).
+	 */
+	private ModelExplicit buildQuotientDTMC(DTMC dtmc, DTMCSimple dtmcNew)
+	{
+		SignatureBuilder builder = new SignatureBuilder(dtmc);
+		for (int b = 0; b < numBlocks; b++) {
+			Signature sig = builder.build(elems[blockStart[b]], partition);
+			for (int k = 0; k < sig.blocks.length; k++) {
+				dtmcNew.setProbability(b, sig.blocks[k], sig.values[k]);
+			}
+		}
+		return dtmcNew;
+	}
+
+	/**
+	 * Build the quotient of an MDP with respect to the current partition: the choices of each state
+	 * are the distinct lifted distributions of (the choices of) a representative state of the block.
+	 */
+	private ModelExplicit buildQuotientMDP(MDP mdp)
+	{
+		MDPSimple mdpNew = new MDPSimple(numBlocks);
+		SignatureBuilder builder = new SignatureBuilder(mdp);
+		for (int b = 0; b < numBlocks; b++) {
+			int s = elems[blockStart[b]];
+			int numChoices = mdp.getNumChoices(s);
+			for (int i = 0; i < numChoices; i++) {
+				builder.reset();
+				builder.addChoice(s, i, partition);
+				Distribution distr = new Distribution();
+				for (int k = 0; k < builder.numEntries; k++) {
+					distr.add(builder.entryBlocks[k], builder.entryValues[k]);
+				}
+				int numChoicesOld = mdpNew.getNumChoices(b);
+				int j = mdpNew.addChoice(b, distr);
+				if (j == numChoicesOld) {
+					mdpNew.setAction(b, j, mdp.getAction(s, i));
+				}
 			}
 		}
+		return mdpNew;
 	}
 
 	/**
-	 * Perform a split of the current partition, if possible, updating {@code numBlocks} and {@code partition}.
-	 * @return whether or not the partition was split 
+	 * Signature of a state: its outgoing distribution(s), lifted to the current partition,
+	 * stored as lists of (block, value) pairs, sorted by block. For multiple distributions
+	 * (MDPs), they are sorted, without duplicates, and {@code sizes} gives the number of pairs of each.
+	 * Values are compared approximately (see {@link PrismUtils#doublesAreEqual(double, double)}),
+	 * so the hash code depends only on the blocks (and sizes).
 	 */
-	private boolean splitDTMC(DTMC dtmc)
+	private static final class Signature
 	{
-		int s, a, i, numBlocksNew, numChoicesOld;
-		Distribution distrNew;
-		int partitionNew[];
-
-		partitionNew = new int[numStates];
-		numBlocksNew = 0;
-		// Compute the signature for each state (i.e. the distribution for outgoing
-		// transitions, lifted to the current partition)
-		// For convenience, we just store them as an MDP, with action label equal to the index of the block
-		mdp = new MDPSimple(numBlocks);
-		for (s = 0; s < numStates; s++) {
-			// Build lifted distribution
-			Iterator<Map.Entry<Integer, Double>> iter = dtmc.getTransitionsIterator(s);
-			distrNew = new Distribution();
-			while (iter.hasNext()) {
-				Map.Entry<Integer, Double> e = iter.next();
-				distrNew.add(partition[e.getKey()], e.getValue());
+		private final int[] sizes;
+		private final int[] blocks;
+		private final double[] values;
+		private final int hash;
+
+		private Signature(int[] sizes, int[] blocks, double[] values)
+		{
+			this.sizes = sizes;
+			this.blocks = blocks;
+			this.values = values;
+			hash = 31 * Arrays.hashCode(sizes) + Arrays.hashCode(blocks);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Signature)) {
+				return false;
+			}
+			Signature sig = (Signature) o;
+			if (hash != sig.hash || !Arrays.equals(sizes, sig.sizes) || !Arrays.equals(blocks, sig.blocks)) {
+				return false;
+			}
+			for (int k = 0; k < values.length; k++) {
+				if (!PrismUtils.doublesAreEqual(values[k], sig.values[k])) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Builder for signatures, with scratch storage (so one is needed per thread).
+	 * Values for the same block are summed in ascending order, so that signatures
+	 * do not depend on the order in which transitions are stored.
+	 */
+	private static final class SignatureBuilder
+	{
+		private final Model model;
+		// Transitions of the current distribution, lifted to blocks
+		private int numTransitions;
+		private long[] keys = new long[16];
+		private int[] transBlocks = new int[16];
+		private double[] transValues = new double[16];
+		// Entries of the lifted distribution(s), for all choices so far
+		private int numEntries;
+		private int[] entryBlocks = new int[16];
+		private double[] entryValues = new double[16];
+		private int numDistrs;
+		private int[] distrStart = new int[4];
+
+		private SignatureBuilder(Model model)
+		{
+			this.model = model;
+		}
+
+		private void reset()
+		{
+			numEntries = 0;
+			numDistrs = 0;
+		}
+
+		/**
+		 * Build the signature of state {@code s}, for partition {@code partition}.
+		 */
+		private Signature build(int s, int[] partition)
+		{
+			reset();
+			if (model instanceof MDP) {
+				MDP mdp = (MDP) model;
+				int numChoices = mdp.getNumChoices(s);
+				for (int i = 0; i < numChoices; i++) {
+					addChoice(s, i, partition);
+				}
+				return buildSet();
+			}
+			numTransitions = 0;
+			((DTMC) model).forEachTransition(s, (src, t, d) -> addTransition(partition[t], d));
+			addDistribution();
+			return new Signature(null, Arrays.copyOf(entryBlocks, numEntries), Arrays.copyOf(entryValues, numEntries));
+		}
+
+		/**
+		 * Add the lifted distribution for choice {@code i} of state {@code s} of an MDP.
+		 */
+		private void addChoice(int s, int i, int[] partition)
+		{
+			numTransitions = 0;
+			((MDP) model).forEachTransition(s, i, (src, t, d) -> addTransition(partition[t], d));
+			addDistribution();
+		}
+
+		private void addTransition(int block, double value)
+		{
+			if (value == 0.0) {
+				return;
+			}
+			if (numTransitions == keys.length) {
+				keys = Arrays.copyOf(keys, 2 * numTransitions);
+				transBlocks = Arrays.copyOf(transBlocks, 2 * numTransitions);
+				transValues = Arrays.copyOf(transValues, 2 * numTransitions);
+			}
+			keys[numTransitions] = ((long) block << 32) | numTransitions;
+			transBlocks[numTransitions] = block;
+			transValues[numTransitions] = value;
+			numTransitions++;
+		}
+
+		/**
+		 * Lift the transitions added since the last call to a distribution over blocks, and store it.
+		 */
+		private void addDistribution()
+		{
+			// Sort by block, then sum values for each block in ascending order
+			Arrays.sort(keys, 0, numTransitions);
+			double[] sorted = new double[numTransitions];
+			for (int k = 0; k < numTransitions; k++) {
+				sorted[k] = transValues[(int) keys[k]];
+			}
+			if (numDistrs + 1 >= distrStart.length) {
+				distrStart = Arrays.copyOf(distrStart, 2 * distrStart.length);
+			}
+			distrStart[numDistrs] = numEntries;
+			int k = 0;
+			while (k < numTransitions) {
+				int block = transBlocks[(int) keys[k]];
+				int kEnd = k + 1;
+				while (kEnd < numTransitions && transBlocks[(int) keys[kEnd]] == block) {
+					kEnd++;
+				}
+				Arrays.sort(sorted, k, kEnd);
+				double sum = 0.0;
+				for (int l = k; l < kEnd; l++) {
+					sum += sorted[l];
+				}
+				if (numEntries == entryBlocks.length) {
+					entryBlocks = Arrays.copyOf(entryBlocks, 2 * numEntries);
+					entryValues = Arrays.copyOf(entryValues, 2 * numEntries);
+				}
+				entryBlocks[numEntries] = block;
+				entryValues[numEntries] = sum;
+				numEntries++;
+				k = kEnd;
 			}
-			// Store in MDP, update new partition
-			a = partition[s];
-			numChoicesOld = mdp.getNumChoices(a);
-			i = mdp.addChoice(a, distrNew);
-			if (i == numChoicesOld)
-				mdp.setAction(a, i, numBlocksNew++);
-			partitionNew[s] = (Integer) mdp.getAction(a, i);
+			numDistrs++;
+			distrStart[numDistrs] = numEntries;
+		}
+
+		/**
+		 * Build a signature from the set of distributions stored (sorted, without duplicates).
+		 */
+		private Signature buildSet()
+		{
+			Integer[] order = new Integer[numDistrs];
+			for (int i = 0; i < numDistrs; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, this::compareDistrs);
+			int numDistinct = 0;
+			int total = 0;
+			for (int i = 0; i < numDistrs; i++) {
+				if (i == 0 || compareDistrs(order[i - 1], order[i]) != 0) {
+					order[numDistinct++] = order[i];
+					total += distrStart[order[i] + 1] - distrStart[order[i]];
+				}
+			}
+			int[] sizes = new int[numDistinct];
+			int[] blocks = new int[total];
+			double[] values = new double[total];
+			int pos = 0;
+			for (int i = 0; i < numDistinct; i++) {
+				int from = distrStart[order[i]];
+				int len = distrStart[order[i] + 1] - from;
+				sizes[i] = len;
+				System.arraycopy(entryBlocks, from, blocks, pos, len);
+				System.arraycopy(entryValues, from, values, pos, len);
+				pos += len;
+			}
+			return new Signature(sizes, blocks, values);
+		}
+
+		/**
+		 * Compare two of the stored distributions (by size, then blocks, then values),
+		 * treating values as equal if they are approximately equal, as for {@link Signature}.
+		 */
+		private int compareDistrs(int i, int j)
+		{
+			int from1 = distrStart[i], len1 = distrStart[i + 1] - from1;
+			int from2 = distrStart[j], len2 = distrStart[j + 1] - from2;
+			if (len1 != len2) {
+				return Integer.compare(len1, len2);
+			}
+			for (int k = 0; k < len1; k++) {
+				int c = Integer.compare(entryBlocks[from1 + k], entryBlocks[from2 + k]);
+				if (c != 0) {
+					return c;
+				}
+			}
+			for (int k = 0; k < len1; k++) {
+				double v1 = entryValues[from1 + k];
+				double v2 = entryValues[from2 + k];
+				if (!PrismUtils.doublesAreEqual(v1, v2)) {
+					return Double.compare(v1, v2);
+				}
+			}
+			return 0;
 		}
-		// Debug info
-		//mainLog.println("New partition: " + java.util.Arrays.toString(partitionNew));
-		//mainLog.println("Signatures MDP: " + mdp.infoString());
-		//mainLog.println("Signatures MDP: " + mdp);
-		//try { mdp.exportToDotFile("mdp.dot"); } catch (PrismException e) {}
-		// Update info
-		boolean changed = numBlocks != numBlocksNew;
-		partition = partitionNew;
-		numBlocks = numBlocksNew;
-
-		return changed;
 	}
 
 	/**
@@ -248,7 +680,8 @@ public class Bisimulation extends PrismComponent
 	 * Attach a list of states to the minimised model by adding a representative state
 	 * from the original model.
 	 * Also attach information about the propositions (used for bisimulation minimisation)
-	 * to the minimised model, in the form of labels (stored as BitSets).
+	 * to the minimised model, in the form of labels (stored as BitSets),
+	 * and the initial/deadlock states.
 	 * @param model The original model
 	 * @param modelNew The minimised model
 	 * @param propNames The names of the propositions
@@ -261,15 +694,24 @@ public class Bisimulation extends PrismComponent
 			List<State> statesList = model.getStatesList();
 			List<State> statesListNew = new ArrayList<State>(numBlocks);
 			for (int i = 0; i < numBlocks; i++) {
-				statesListNew.add(null);
-			}
-			for (int i = 0; i < numStates; i++) {
-				if (statesListNew.get(partition[i]) == null)
-					statesListNew.set(partition[i], statesList.get(i));
+				statesListNew.add(statesList.get(elems[blockStart[i]]));
 			}
 			modelNew.setStatesList(statesListNew);
 		}
 
+		// Attach initial/deadlock states
+		BitSet initNew = new BitSet();
+		for (int s : model.getInitialStates()) {
+			if (!initNew.get(partition[s])) {
+				initNew.set(partition[s]);
+				modelNew.addInitialState(partition[s]);
+			}
+		}
+		for (int i = 0; i < numBlocks; i++) {
+			if (model.isDeadlockState(elems[blockStart[i]]))
+				modelNew.addDeadlockState(i);
+		}
+
 		// Build/attach new labels
 		int numProps = propBSs.size();
 		for (int i = 0; i < numProps; i++) {
@@ -42,6 +42,9 @@ import prism.*;
  */
 public class CTMCModelChecker extends ProbModelChecker
 {
+	/** Time bounds of the current experiment sweep, if any (optional: null means none) */
+	protected TimeBoundSweep timeBoundSweep = null;
+
 	/**
 	 * Create a new CTMCModelChecker, inherit basic state from parent (unless null).
 	 */
@@ -50,6 +53,25 @@ public class CTMCModelChecker extends ProbModelChecker
 		super(parent);
 	}
 	
+	// Setters/getters
+
+	/**
+	 * Set the time bounds of the current experiment sweep, for which time-bounded until probabilities
+	 * are computed in a single pass (optional: null means none).
+	 */
+	public void setTimeBoundSweep(TimeBoundSweep timeBoundSweep)
+	{
+		this.timeBoundSweep = timeBoundSweep;
+	}
+
+	/**
+	 * Get the time bounds of the current experiment sweep (null if none).
+	 */
+	public TimeBoundSweep getTimeBoundSweep()
+	{
+		return timeBoundSweep;
+	}
+
 	// Model checking functions
 
 	@Override
@@ -194,16 +216,9 @@ public class CTMCModelChecker extends ProbModelChecker
 			// <= uTime
 			else if (lTime == 0) {
 				// nb: uTime != 0 since would be caught above (trivial case)
-				b1.andNot(b2);
-				res = computeTransientBackwardsProbs((CTMC) model, b2, b1, uTime, null);
+				// (this also sets values to exactly 1 for target (b2) states)
+				res = computeTimeBoundedUntilProbs((CTMC) model, b1, b2, uTime);
 				probs = StateValues.createFromDoubleArray(res.soln, model);
-				// set values to exactly 1 for target (b2) states
-				// (these are computed inexactly during uniformisation)
-				int n = model.getNumStates();
-				for (int i = 0; i < n; i++) {
-					if (b2.get(i))
-						probs.setValue(i, 1.0);
-				}
 			}
 			// [lTime,uTime] (including where lTime == uTime)
 			else {
@@ -377,25 +392,60 @@ public class CTMCModelChecker extends ProbModelChecker
 	 * Compute time-bounded until probabilities,
 	 * i.e. compute the probability of reaching a state in {@code target},
 	 * within time {@code t}, and while remaining in states in {@code remain}.
+	 * If {@code t} is part of the current time bound sweep (see {@link #setTimeBoundSweep(TimeBoundSweep)}),
+	 * the probabilities for the following time bounds of the sweep are computed at the same time.
 	 * @param ctmc The CTMC
 	 * @param remain Remain in these states (optional: null means "all")
 	 * @param target Target states
 	 * @param t Time bound
 	 */
 	public ModelCheckerResult computeTimeBoundedUntilProbs(CTMC ctmc, BitSet remain, BitSet target, double t) throws PrismException
+	{
+		if (timeBoundSweep == null || timeBoundSweep.getNumTimes() < 2 || !timeBoundSweep.contains(t)) {
+			return computeTimeBoundedUntilProbs(ctmc, remain, target, new double[] { t })[0];
+		}
+		// Use stored probabilities from the sweep if present, otherwise compute a new batch
+		double soln[] = timeBoundSweep.remove(ctmc, remain, target, t);
+		if (soln != null) {
+			mainLog.println("\nUsing time-bounded until probabilities for time " + t + " from current sweep");
+			ModelCheckerResult res = new ModelCheckerResult();
+			res.soln = soln;
+			return res;
+		}
+		double times[] = timeBoundSweep.getBatch(t, ctmc.getNumStates());
+		ModelCheckerResult res[] = computeTimeBoundedUntilProbs(ctmc, remain, target, times);
+		for (int j = 1; j < times.length; j++) {
+			timeBoundSweep.put(ctmc, remain, target, times[j], res[j].soln);
+		}
+		return res[0];
+	}
+
+	/**
+	 * Compute time-bounded until probabilities for several time bounds at once,
+	 * i.e. compute, for each time bound {@code times[j]}, the probability of reaching
+	 * a state in {@code target}, within time {@code times[j]}, and while remaining in states in {@code remain}.
+	 * This is done with a single uniformisation pass, up to the largest time bound.
+	 * @param ctmc The CTMC
+	 * @param remain Remain in these states (optional: null means "all")
+	 * @param target Target states
+	 * @param times Time bounds
+	 */
+	public ModelCheckerResult[] computeTimeBoundedUntilProbs(CTMC ctmc, BitSet remain, BitSet target, double times[]) throws PrismException
 	{
 		BitSet nonAbs = null;
 		if (remain != null) {
 			nonAbs = (BitSet) remain.clone();
 			nonAbs.andNot(target);
 		}
-		ModelCheckerResult res = computeTransientBackwardsProbs(ctmc, target, nonAbs, t, null);
+		ModelCheckerResult res[] = computeTransientBackwardsProbs(ctmc, target, nonAbs, times, null);
 		// Set values to exactly 1 for target states
 		// (these are computed inexactly during uniformisation)
 		int n = ctmc.getNumStates();
-		for (int i = 0; i < n; i++) {
-			if (target.get(i))
-				res.soln[i] = 1.0;
+		for (ModelCheckerResult resTime : res) {
+			for (int i = 0; i < n; i++) {
+				if (target.get(i))
+					resTime.soln[i] = 1.0;
+			}
 		}
 		return res;
 	}
@@ -415,101 +465,81 @@ public class CTMCModelChecker extends ProbModelChecker
 	 */
 	public ModelCheckerResult computeTransientBackwardsProbs(CTMC ctmc, BitSet target, BitSet nonAbs, double t, double multProbs[]) throws PrismException
 	{
-		ModelCheckerResult res = null;
-		int i, n, iters;
-		double soln[], soln2[], tmpsoln[], sum[];
-		DTMC dtmc;
+		return computeTransientBackwardsProbs(ctmc, target, nonAbs, new double[] { t }, multProbs)[0];
+	}
+
+	/**
+	 * Perform transient probability computation, as required for (e.g. CSL) model checking,
+	 * for several time points at once. Compute, for each time {@code times[j]} and each state,
+	 * the sum over {@code target} states of the probability of being in that state at time {@code times[j]}
+	 * multiplied by the corresponding probability in the vector {@code multProbs},
+	 * assuming that all states *not* in {@code nonAbs} are made absorbing.
+	 * If {@code multProbs} is null, it is assumed to be all 1s.
+	 * The matrix-vector multiplications are shared between all time points.
+	 * @param ctmc The CTMC
+	 * @param target Target states
+	 * @param nonAbs States *not* to be made absorbing (optional: null means "all")
+	 * @param times Time bounds
+	 * @param multProbs Multiplication vector (optional: null means all 1s)
+	 */
+	public ModelCheckerResult[] computeTransientBackwardsProbs(CTMC ctmc, BitSet target, BitSet nonAbs, double times[], double multProbs[]) throws PrismException
+	{
+		ModelCheckerResult res[] = new ModelCheckerResult[times.length];
+		int i, n, numTimes;
+		double soln[];
 		long timer;
-		// Fox-Glynn stuff
-		FoxGlynn fg;
-		int left, right;
-		double q, qt, acc, weights[], totalWeight;
 
 		// Optimisations: If (nonAbs is empty or t = 0) and multProbs is null, this is easy.
-		if (((nonAbs != null && nonAbs.isEmpty()) || (t == 0)) && multProbs == null) {
-			res = new ModelCheckerResult();
-			res.soln = Utils.bitsetToDoubleArray(target, ctmc.getNumStates());
+		// Remaining time points are stored in (the start of) array timesLeft.
+		double timesLeft[] = new double[times.length];
+		numTimes = 0;
+		for (int j = 0; j < times.length; j++) {
+			if (((nonAbs != null && nonAbs.isEmpty()) || (times[j] == 0)) && multProbs == null) {
+				res[j] = new ModelCheckerResult();
+				res[j].soln = Utils.bitsetToDoubleArray(target, ctmc.getNumStates());
+			} else {
+				timesLeft[numTimes++] = times[j];
+			}
+		}
+		if (numTimes == 0) {
 			return res;
 		}
 
 		// Start backwards transient computation
 		timer = System.currentTimeMillis();
-		mainLog.println("\nStarting backwards transient probability computation...");
+		mainLog.println("\nStarting backwards transient probability computation" + (numTimes > 1 ? " for " + numTimes + " time points..." : "..."));
 
 		// Store num states
 		n = ctmc.getNumStates();
 
-		// Get uniformisation rate; do Fox-Glynn
-		q = ctmc.getDefaultUniformisationRate(nonAbs);
-		qt = q * t;
-		mainLog.println("\nUniformisation: q.t = " + q + " x " + t + " = " + qt);
-		acc = termCritParam / 8.0;
-		fg = new FoxGlynn(qt, 1e-300, 1e+300, acc);
-		left = fg.getLeftTruncationPoint();
-		right = fg.getRightTruncationPoint();
-		if (right < 0) {
-			throw new PrismException("Overflow in Fox-Glynn computation (time bound too big?)");
-		}
-		weights = fg.getWeights();
-		totalWeight = fg.getTotalWeight();
-		for (i = left; i <= right; i++) {
-			weights[i - left] /= totalWeight;
-		}
-		mainLog.println("Fox-Glynn (" + acc + "): left = " + left + ", right = " + right);
-
-		// Build (implicit) uniformised DTMC
-		dtmc = ctmc.buildImplicitUniformisedDTMC(q);
-
-		// Create solution vector(s)
+		// Create solution vector.
+		// This is 1 for target states, or multProbs[i] if supplied.
 		soln = new double[n];
-		soln2 = new double[n];
-		sum = new double[n];
-
-		// Initialise solution vectors.
-		// Vectors soln/soln2 are 1 for target states, or multProbs[i] if supplied.
-		// Vector sum is all zeros (done by array creation).
 		if (multProbs != null) {
 			for (i = 0; i < n; i++)
-				soln[i] = soln2[i] = target.get(i) ? multProbs[i] : 0.0;
+				soln[i] = target.get(i) ? multProbs[i] : 0.0;
 		} else {
 			for (i = 0; i < n; i++)
-				soln[i] = soln2[i] = target.get(i) ? 1.0 : 0.0;
+				soln[i] = target.get(i) ? 1.0 : 0.0;
 		}
 
-		// If necessary, do 0th element of summation (doesn't require any matrix powers)
-		if (left == 0)
-			for (i = 0; i < n; i++)
-				sum[i] += weights[0] * soln[i];
-
-		// Start iterations
-		iters = 1;
-		while (iters <= right) {
-			// Matrix-vector multiply
-			dtmc.mvMult(soln, soln2, nonAbs, false);
-			// Swap vectors for next iter
-			tmpsoln = soln;
-			soln = soln2;
-			soln2 = tmpsoln;
-			// Add to sum
-			if (iters >= left) {
-				for (i = 0; i < n; i++)
-					sum[i] += weights[iters - left] * soln[i];
+		// Do uniformisation
+		double q = nonAbs == null ? ctmc.getDefaultUniformisationRate() : ctmc.getDefaultUniformisationRate(nonAbs);
+		ModelCheckerResult resLeft[] = doUniformisation(ctmc, q, Arrays.copyOf(timesLeft, numTimes), soln, nonAbs, true);
+		for (int j = 0, k = 0; j < times.length; j++) {
+			if (res[j] == null) {
+				res[j] = resLeft[k++];
 			}
-			iters++;
 		}
 
 		// Finished backwards transient computation
 		timer = System.currentTimeMillis() - timer;
 		mainLog.print("Backwards transient probability computation");
-		mainLog.println(" took " + iters + " iters and " + timer / 1000.0 + " seconds.");
+		mainLog.println(" took " + getMaxNumIters(resLeft) + " iters and " + timer / 1000.0 + " seconds.");
+		for (ModelCheckerResult resTime : resLeft) {
+			resTime.timeTaken = timer / 1000.0;
+		}
 
-		// Return results
-		res = new ModelCheckerResult();
-		res.soln = sum;
-		res.lastSoln = soln2;
-		res.numIters = iters;
-		res.timeTaken = timer / 1000.0;
-		res.timePre = 0.0;
 		return res;
 	}
 
@@ -907,92 +937,164 @@ public class CTMCModelChecker extends ProbModelChecker
 	 */
 	public ModelCheckerResult computeTransientProbs(CTMC ctmc, double t, double initDist[]) throws PrismException
 	{
-		ModelCheckerResult res = null;
-		int i, n, iters;
-		double soln[], soln2[], tmpsoln[], sum[];
-		DTMC dtmc;
+		return computeTransientProbs(ctmc, new double[] { t }, initDist)[0];
+	}
+
+	/**
+	 * Compute transient probabilities for several time points at once,
+	 * i.e. compute, for each time {@code times[j]}, the probability of being in each state
+	 * at time {@code times[j]}, assuming the initial distribution {@code initDist}.
+	 * The matrix-vector multiplications are shared between all time points.
+	 * For space efficiency, the initial distribution vector will be modified and values over-written,  
+	 * so if you wanted it, take a copy. 
+	 * @param ctmc The CTMC
+	 * @param times Time points
+	 * @param initDist Initial distribution (will be overwritten)
+	 */
+	public ModelCheckerResult[] computeTransientProbs(CTMC ctmc, double times[], double initDist[]) throws PrismException
+	{
+		ModelCheckerResult res[];
 		long timer;
-		// Fox-Glynn stuff
-		FoxGlynn fg;
-		int left, right;
-		double q, qt, acc, weights[], totalWeight;
 
-		// Start bounded probabilistic reachability
+		// Start transient probability computation
 		timer = System.currentTimeMillis();
-		mainLog.println("\nStarting transient probability computation...");
+		mainLog.println("\nStarting transient probability computation" + (times.length > 1 ? " for " + times.length + " time points..." : "..."));
 
-		// Store num states
+		// Do uniformisation
+		// (for the solution vector, we just use initDist, since we are free to modify it)
+		res = doUniformisation(ctmc, ctmc.getDefaultUniformisationRate(), times, initDist, null, false);
+
+		// Finished transient probability computation
+		timer = System.currentTimeMillis() - timer;
+		mainLog.print("Transient probability computation");
+		mainLog.println(" took " + getMaxNumIters(res) + " iters and " + timer / 1000.0 + " seconds.");
+		for (ModelCheckerResult resTime : res) {
+			resTime.timeTaken = timer / 1000.0;
+		}
+
+		return res;
+	}
+
+	/**
+	 * Do the uniformisation part of a transient probability computation for several time points.
+	 * For each time {@code times[j]}, compute the Poisson-weighted sum (from Fox-Glynn) of the vectors
+	 * obtained by repeatedly multiplying {@code soln} by the uniformised DTMC (with rate {@code q}),
+	 * either from the right (backwards, with states not in {@code nonAbs} made absorbing)
+	 * or from the left (forwards). The matrix powers are shared between all time points,
+	 * and the vector {@code soln} is overwritten.
+	 * @param ctmc The CTMC
+	 * @param q Uniformisation rate
+	 * @param times Time points
+	 * @param soln Initial vector (will be overwritten)
+	 * @param nonAbs States *not* to be made absorbing (backwards only, optional: null means "all")
+	 * @param backwards Backwards (matrix-vector) or forwards (vector-matrix) multiplication?
+	 */
+	private ModelCheckerResult[] doUniformisation(CTMC ctmc, double q, double times[], double soln[], BitSet nonAbs, boolean backwards) throws PrismException
+	{
+		int i, j, n, iters, numTimes, maxRight;
+		double soln2[], tmpsoln[], sum[][];
+		DTMC dtmc;
+		// Fox-Glynn stuff
+		FoxGlynn fg;
+		int left[], right[];
+		double qt, acc, weights[][], totalWeight;
+
+		// Store num states/times
 		n = ctmc.getNumStates();
+		numTimes = times.length;
 
-		// Get uniformisation rate; do Fox-Glynn
-		q = ctmc.getDefaultUniformisationRate();
-		qt = q * t;
-		mainLog.println("\nUniformisation: q.t = " + q + " x " + t + " = " + qt);
+		// Do Fox-Glynn for each time point
 		acc = termCritParam / 8.0;
-		fg = new FoxGlynn(qt, 1e-300, 1e+300, acc);
-		left = fg.getLeftTruncationPoint();
-		right = fg.getRightTruncationPoint();
-		if (right < 0) {
-			throw new PrismException("Overflow in Fox-Glynn computation (time bound too big?)");
-		}
-		weights = fg.getWeights();
-		totalWeight = fg.getTotalWeight();
-		for (i = left; i <= right; i++) {
-			weights[i - left] /= totalWeight;
+		left = new int[numTimes];
+		right = new int[numTimes];
+		weights = new double[numTimes][];
+		maxRight = 0;
+		for (j = 0; j < numTimes; j++) {
+			// (time 0 just needs the initial vector)
+			if (times[j] == 0) {
+				weights[j] = new double[] { 1.0 };
+				continue;
+			}
+			qt = q * times[j];
+			mainLog.println("\nUniformisation: q.t = " + q + " x " + times[j] + " = " + qt);
+			fg = new FoxGlynn(qt, 1e-300, 1e+300, acc);
+			left[j] = fg.getLeftTruncationPoint();
+			right[j] = fg.getRightTruncationPoint();
+			if (right[j] < 0) {
+				throw new PrismException("Overflow in Fox-Glynn computation (time bound too big?)");
+			}
+			weights[j] = fg.getWeights();
+			totalWeight = fg.getTotalWeight();
+			for (i = left[j]; i <= right[j]; i++) {
+				weights[j][i - left[j]] /= totalWeight;
+			}
+			mainLog.println("Fox-Glynn (" + acc + "): left = " + left[j] + ", right = " + right[j]);
+			maxRight = Math.max(maxRight, right[j]);
 		}
-		mainLog.println("Fox-Glynn (" + acc + "): left = " + left + ", right = " + right);
 
 		// Build (implicit) uniformised DTMC
 		dtmc = ctmc.buildImplicitUniformisedDTMC(q);
 
-		// Create solution vector(s)
-		// For soln, we just use init (since we are free to modify this vector)
-		soln = initDist;
-		soln2 = new double[n];
-		sum = new double[n];
-
-		// Initialise solution vectors
-		// (don't need to do soln2 since will be immediately overwritten)
-		for (i = 0; i < n; i++)
-			sum[i] = 0.0;
+		// Create vectors
+		// (soln2 is a copy of soln since, backwards, values for absorbing states are not overwritten)
+		soln2 = soln.clone();
+		sum = new double[numTimes][n];
 
-		// If necessary, do 0th element of summation (doesn't require any matrix powers)
-		if (left == 0)
-			for (i = 0; i < n; i++)
-				sum[i] += weights[0] * soln[i];
+		// If necessary, do 0th element of summations (doesn't require any matrix powers)
+		for (j = 0; j < numTimes; j++) {
+			if (left[j] == 0)
+				for (i = 0; i < n; i++)
+					sum[j][i] += weights[j][0] * soln[i];
+		}
 
 		// Start iterations
 		iters = 1;
-		while (iters <= right) {
+		while (iters <= maxRight) {
 			// Matrix-vector multiply
-			dtmc.vmMult(soln, soln2);
+			if (backwards)
+				dtmc.mvMult(soln, soln2, nonAbs, false);
+			else
+				dtmc.vmMult(soln, soln2);
 			// Swap vectors for next iter
 			tmpsoln = soln;
 			soln = soln2;
 			soln2 = tmpsoln;
-			// Add to sum
-			if (iters >= left) {
-				for (i = 0; i < n; i++)
-					sum[i] += weights[iters - left] * soln[i];
+			// Add to sums
+			for (j = 0; j < numTimes; j++) {
+				if (iters >= left[j] && iters <= right[j]) {
+					double w = weights[j][iters - left[j]];
+					double sumTime[] = sum[j];
+					for (i = 0; i < n; i++)
+						sumTime[i] += w * soln[i];
+				}
 			}
 			iters++;
 		}
 
-		// Finished bounded probabilistic reachability
-		timer = System.currentTimeMillis() - timer;
-		mainLog.print("Transient probability computation");
-		mainLog.println(" took " + iters + " iters and " + timer / 1000.0 + " seconds.");
-
 		// Return results
-		res = new ModelCheckerResult();
-		res.soln = sum;
-		res.lastSoln = soln2;
-		res.numIters = iters;
-		res.timeTaken = timer / 1000.0;
-		res.timePre = 0.0;
+		ModelCheckerResult res[] = new ModelCheckerResult[numTimes];
+		for (j = 0; j < numTimes; j++) {
+			res[j] = new ModelCheckerResult();
+			res[j].soln = sum[j];
+			res[j].lastSoln = soln2;
+			res[j].numIters = right[j] + 1;
+			res[j].timePre = 0.0;
+		}
 		return res;
 	}
 
+	/**
+	 * Get the maximum number of iterations over the results {@code res}.
+	 */
+	private static int getMaxNumIters(ModelCheckerResult res[])
+	{
+		int iters = 0;
+		for (ModelCheckerResult resTime : res) {
+			iters = Math.max(iters, resTime.numIters);
+		}
+		return iters;
+	}
+
 	// Utility methods
 	
 	/**
@@ -0,0 +1,189 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.BitSet;
+
+import common.OffHeapArray;
+import prism.ModelType;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a CTMC,
+ * stored outside of the Java heap, as for {@link DTMCOffHeap}.
+ * Since the matrix cannot be modified, uniformisation is only available
+ * via (implicit or explicit) construction of a separate DTMC.
+ */
+public class CTMCOffHeap extends DTMCOffHeap implements CTMC
+{
+	/** Cached implicit embedded DTMC (null if not yet built) */
+	protected DTMC cachedEmbeddedDTMC = null;
+
+	/**
+	 * Constructor: create from sparse matrix arrays (which are not copied).
+	 * Initial states, labels, etc. need to be added separately.
+	 */
+	public CTMCOffHeap(int numStates, OffHeapArray.OfLong rows, OffHeapArray.OfInt columns, OffHeapArray.OfDouble rates)
+	{
+		super(numStates, rows, columns, rates);
+	}
+
+	/**
+	 * Constructor: copy an arbitrary CTMC into off-heap storage.
+	 */
+	public CTMCOffHeap(CTMC ctmc)
+	{
+		super(ctmc);
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public ModelType getModelType()
+	{
+		return ModelType.CTMC;
+	}
+
+	// Accessors (for CTMC)
+
+	@Override
+	public double getExitRate(int i)
+	{
+		double d = 0.0;
+		for (long k = rows.get(i), stop = rows.get(i + 1); k < stop; k++) {
+			d += probabilities.get(k);
+		}
+		return d;
+	}
+
+	@Override
+	public double getMaxExitRate()
+	{
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < numStates; i++) {
+			max = Math.max(max, getExitRate(i));
+		}
+		return max;
+	}
+
+	@Override
+	public double getMaxExitRate(BitSet subset)
+	{
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+			max = Math.max(max, getExitRate(i));
+		}
+		return max;
+	}
+
+	@Override
+	public double getDefaultUniformisationRate()
+	{
+		return 1.02 * getMaxExitRate();
+	}
+
+	@Override
+	public double getDefaultUniformisationRate(BitSet nonAbs)
+	{
+		return 1.02 * getMaxExitRate(nonAbs);
+	}
+
+	@Override
+	public DTMC buildImplicitEmbeddedDTMC()
+	{
+		DTMCEmbeddedSimple dtmc = new DTMCEmbeddedSimple(this);
+		if (cachedEmbeddedDTMC != null) {
+			// replace cached DTMC
+			cachedEmbeddedDTMC = dtmc;
+		}
+		return dtmc;
+	}
+
+	@Override
+	public DTMC getImplicitEmbeddedDTMC()
+	{
+		if (cachedEmbeddedDTMC == null) {
+			cachedEmbeddedDTMC = new DTMCEmbeddedSimple(this);
+		}
+		return cachedEmbeddedDTMC;
+	}
+
+	@Override
+	public DTMCSimple buildEmbeddedDTMC()
+	{
+		DTMCSimple dtmc = new DTMCSimple(numStates);
+		for (int in : getInitialStates()) {
+			dtmc.addInitialState(in);
+		}
+		for (int i = 0; i < numStates; i++) {
+			double d = getExitRate(i);
+			if (d == 0) {
+				dtmc.setProbability(i, i, 1.0);
+			} else {
+				forEachTransition(i, (s, t, rate) -> dtmc.setProbability(s, t, rate / d));
+			}
+		}
+		return dtmc;
+	}
+
+	@Override
+	public void uniformise(double q)
+	{
+		throw new UnsupportedOperationException("Can't uniformise a CTMCOffHeap since it cannot be modified");
+	}
+
+	@Override
+	public DTMC buildImplicitUniformisedDTMC(double q)
+	{
+		return new DTMCUniformisedSimple(this, q);
+	}
+
+	@Override
+	public DTMCSimple buildUniformisedDTMC(double q)
+	{
+		DTMCSimple dtmc = new DTMCSimple(numStates);
+		for (int in : getInitialStates()) {
+			dtmc.addInitialState(in);
+		}
+		for (int i = 0; i < numStates; i++) {
+			// Add scaled off-diagonal entries
+			double d = 0.0;
+			for (long k = rows.get(i), stop = rows.get(i + 1); k < stop; k++) {
+				int t = columns.get(k);
+				double rate = probabilities.get(k);
+				dtmc.setProbability(i, t, rate / q);
+				if (t != i) {
+					d += rate;
+				}
+			}
+			// Add diagonal, if needed
+			if (d < q) {
+				dtmc.setProbability(i, i, 1 - (d / q));
+			}
+		}
+		return dtmc;
+	}
+}
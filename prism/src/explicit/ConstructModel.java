@@ -29,9 +29,18 @@ package explicit;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import parser.State;
 import parser.Values;
@@ -44,6 +53,7 @@ import prism.PrismException;
 import prism.PrismLog;
 import prism.PrismNotSupportedException;
 import prism.PrismPrintStreamLog;
+import prism.PrismSettings;
 import prism.ProgressDisplay;
 import prism.UndefinedConstants;
 
@@ -69,6 +79,15 @@ public class ConstructModel extends PrismComponent
 	protected boolean distinguishActions = true;
 	/** Should labels be processed and attached to the model? */
 	protected boolean attachLabels = true;
+	/** Store reachable states in bit-packed form (where possible)? */
+	protected boolean packStates = false;
+	/** If storing states in bit-packed form, store them outside of the Java heap? */
+	protected boolean packStatesOffHeap = false;
+	/** Number of threads to use for (parallel) state space exploration */
+	protected int numThreads = 1;
+	/** Store the constructed model outside of the Java heap, if possible?
+	 *  (e.g. MDPOffHeap rather than MDPSparse data structure) */
+	protected boolean buildOffHeap = false;
 
 	// Details of built model:
 
@@ -78,6 +97,15 @@ public class ConstructModel extends PrismComponent
 	public ConstructModel(PrismComponent parent) throws PrismException
 	{
 		super(parent);
+
+		// If present, initialise settings from PrismSettings
+		if (settings != null) {
+			String s = settings.getString(PrismSettings.PRISM_STATE_STORAGE);
+			setPackStates(!s.equals("Default"));
+			setPackStatesOffHeap(s.equals("Bit-packed (off-heap)"));
+			setNumThreads(settings.getInteger(PrismSettings.PRISM_CONSTRUCT_THREADS));
+			setBuildOffHeap(settings.getString(PrismSettings.PRISM_MODEL_STORAGE).equals("Off-heap"));
+		}
 	}
 
 	/**
@@ -130,6 +158,44 @@ public class ConstructModel extends PrismComponent
 		this.attachLabels = attachLabels;
 	}
 
+	/**
+	 * Store reachable states in bit-packed form (where possible)?
+	 * (see {@link PackedStateStorage})
+	 */
+	public void setPackStates(boolean packStates)
+	{
+		this.packStates = packStates;
+	}
+
+	/**
+	 * If storing states in bit-packed form, store them outside of the Java heap?
+	 */
+	public void setPackStatesOffHeap(boolean packStatesOffHeap)
+	{
+		this.packStatesOffHeap = packStatesOffHeap;
+	}
+
+	/**
+	 * Set the number of threads to use for state space exploration.
+	 * If more than one, states are explored in parallel, where possible,
+	 * i.e., if the ModelGenerator supports {@link ModelGenerator#createCopy()}.
+	 * The resulting model is identical to the one built sequentially.
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		this.numThreads = numThreads;
+	}
+
+	/**
+	 * Store the constructed model outside of the Java heap, if possible?
+	 * (i.e. DTMCOffHeap, CTMCOffHeap or MDPOffHeap, which are indexed by longs,
+	 * so also allow more than 2^31 transitions).
+	 */
+	public void setBuildOffHeap(boolean buildOffHeap)
+	{
+		this.buildOffHeap = buildOffHeap;
+	}
+
 	/**
 	 * Build the set of reachable states for a model and return it.
 	 * @param modelGen The ModelGenerator interface providing the model 
@@ -161,8 +227,9 @@ public class ConstructModel extends PrismComponent
 		// Model info
 		ModelType modelType;
 		// State storage
-		StateStorage<State> states;
-		LinkedList<State> explore;
+		StateStorage<State> states = null;
+		PackedStateStorage packedStates = null;
+		LinkedList<State> explore = null;
 		State state, stateNew;
 		// Explicit model storage
 		ModelSimple modelSimple = null;
@@ -225,116 +292,150 @@ public class ConstructModel extends PrismComponent
 	        ((ModelExplicit) modelSimple).setVarList(varList);
 		}
 
-		// Initialise states storage
-		states = new IndexedSet<State>(true);
-		explore = new LinkedList<State>();
-		// Add initial state(s) to 'explore', 'states' and to the model
-		for (State initState : modelGen.getInitialStates()) {
-			explore.add(initState);
-			states.add(initState);
-			if (!justReach) {
-				modelSimple.addState();
-				modelSimple.addInitialState(modelSimple.getNumStates() - 1);
-			}
-		}
 		// Explore...
-		src = -1;
-		while (!explore.isEmpty()) {
-			// Pick next state to explore
-			// (they are stored in order found so know index is src+1)
-			state = explore.removeFirst();
-			src++;
-			// Explore all choices/transitions from this state
-			modelGen.exploreState(state);
-			// Look at each outgoing choice in turn
-			nc = modelGen.getNumChoices();
-			for (i = 0; i < nc; i++) {
-				// If required, check for duplicate actions here
-				if (modelType.partiallyObservable()) {
-					if (((NondetModel) modelSimple).getChoiceByAction(src, modelGen.getChoiceAction(i)) != -1) {
-						String act = modelGen.getChoiceAction(i) == null ? "" : modelGen.getChoiceAction(i).toString();
-						String err = modelType + " is not allowed duplicate action";
-						err += " (\"" + act + "\") in state " + state.toString(modelGen);
-						throw new PrismException(err);
-					}
+		// (in parallel, if requested and possible)
+		List<ModelGenerator> modelGens = numThreads > 1 ? createModelGeneratorCopies(modelGen, numThreads) : null;
+		List<State> exploredStates = null;
+		if (modelGens != null) {
+			// Parallel exploration uses its own (concurrent) state index
+			if (packStates) {
+				mainLog.printWarning("Bit-packed state storage is not supported for parallel model construction, using default storage");
+			}
+			mainLog.print(" (using " + numThreads + " threads)...");
+			mainLog.flush();
+			exploredStates = exploreParallel(modelGen, modelGens, modelSimple, progress);
+			src = exploredStates.size() - 1;
+		} else {
+			// Initialise states storage
+			// (for bit-packed storage, states are explored in index order,
+			// so they are decoded from storage and no separate 'explore' list is needed)
+			if (packStates) {
+				if (!modelGen.containsUnboundedVariables() && PackedStateStorage.canPack(varList)) {
+					states = packedStates = new PackedStateStorage(varList, packStatesOffHeap);
+				} else {
+					mainLog.printWarning("Bit-packed state storage is not possible for this model, using default storage");
 				}
-				// For nondet models, collect transitions in a Distribution
-				if (!justReach && modelType.nondeterministic()) {
-					distr = new Distribution();
+			}
+			if (packedStates == null) {
+				states = new IndexedSet<State>(true);
+				explore = new LinkedList<State>();
+			}
+			// Add initial state(s) to 'explore', 'states' and to the model
+			for (State initState : modelGen.getInitialStates()) {
+				if (explore != null) {
+					explore.add(initState);
 				}
-				// Look at each transition in the choice
-				nt = modelGen.getNumTransitions(i);
-				for (j = 0; j < nt; j++) {
-					stateNew = modelGen.computeTransitionTarget(i, j);
-					// Is this a new state?
-					if (states.add(stateNew)) {
-						// If so, add to the explore list
-						explore.add(stateNew);
-						// And to model
+				states.add(initState);
+				if (!justReach) {
+					modelSimple.addState();
+					modelSimple.addInitialState(modelSimple.getNumStates() - 1);
+				}
+			}
+			// Explore sequentially
+			src = -1;
+			while (packedStates != null ? src + 1 < packedStates.size() : !explore.isEmpty()) {
+				// Pick next state to explore
+				// (they are stored in order found so know index is src+1)
+				state = packedStates != null ? packedStates.getState(src + 1) : explore.removeFirst();
+				src++;
+				// Explore all choices/transitions from this state
+				modelGen.exploreState(state);
+				// Look at each outgoing choice in turn
+				nc = modelGen.getNumChoices();
+				for (i = 0; i < nc; i++) {
+					// If required, check for duplicate actions here
+					if (modelType.partiallyObservable()) {
+						if (((NondetModel) modelSimple).getChoiceByAction(src, modelGen.getChoiceAction(i)) != -1) {
+							String act = modelGen.getChoiceAction(i) == null ? "" : modelGen.getChoiceAction(i).toString();
+							String err = modelType + " is not allowed duplicate action";
+							err += " (\"" + act + "\") in state " + state.toString(modelGen);
+							throw new PrismException(err);
+						}
+					}
+					// For nondet models, collect transitions in a Distribution
+					if (!justReach && modelType.nondeterministic()) {
+						distr = new Distribution();
+					}
+					// Look at each transition in the choice
+					nt = modelGen.getNumTransitions(i);
+					for (j = 0; j < nt; j++) {
+						stateNew = modelGen.computeTransitionTarget(i, j);
+						// Is this a new state?
+						if (states.add(stateNew)) {
+							// If so, add to the explore list
+							if (explore != null) {
+								explore.add(stateNew);
+							}
+							// And to model
+							if (!justReach) {
+								modelSimple.addState();
+							}
+						}
+						// Get index of state in state set
+						dest = states.getIndexOfLastAdd();
+						// Add transitions to model
 						if (!justReach) {
-							modelSimple.addState();
+							switch (modelType) {
+							case DTMC:
+								dtmc.addToProbability(src, dest, modelGen.getTransitionProbability(i, j));
+								break;
+							case CTMC:
+								ctmc.addToProbability(src, dest, modelGen.getTransitionProbability(i, j));
+								break;
+							case MDP:
+							case POMDP:
+							case CTMDP:
+								distr.add(dest, modelGen.getTransitionProbability(i, j));
+								break;
+							case LTS:
+								if (distinguishActions) {
+									lts.addActionLabelledTransition(src, dest, modelGen.getChoiceAction(i));
+								} else {
+									lts.addTransition(src, dest);
+								}
+								break;
+							case STPG:
+							case SMG:
+							case PTA:
+								throw new PrismNotSupportedException("Model construction not supported for " + modelType + "s");
+							}
 						}
 					}
-					// Get index of state in state set
-					dest = states.getIndexOfLastAdd();
-					// Add transitions to model
+					// For nondet models, add collated transition to model 
+					// (trimming any spare capacity first, since it is stored as is)
 					if (!justReach) {
-						switch (modelType) {
-						case DTMC:
-							dtmc.addToProbability(src, dest, modelGen.getTransitionProbability(i, j));
-							break;
-						case CTMC:
-							ctmc.addToProbability(src, dest, modelGen.getTransitionProbability(i, j));
-							break;
-						case MDP:
-						case POMDP:
-						case CTMDP:
-							distr.add(dest, modelGen.getTransitionProbability(i, j));
-							break;
-						case LTS:
+						if (distr != null) {
+							distr.trimToSize();
+						}
+						if (modelType == ModelType.MDP) {
 							if (distinguishActions) {
-								lts.addActionLabelledTransition(src, dest, modelGen.getChoiceAction(i));
+								mdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
 							} else {
-								lts.addTransition(src, dest);
+								mdp.addChoice(src, distr);
+							}
+						} else if (modelType == ModelType.POMDP) {
+							if (distinguishActions) {
+								pomdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
+							} else {
+								pomdp.addChoice(src, distr);
+							}
+						} else if (modelType == ModelType.CTMDP) {
+							if (distinguishActions) {
+								ctmdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
+							} else {
+								ctmdp.addChoice(src, distr);
 							}
-							break;
-						case STPG:
-						case SMG:
-						case PTA:
-							throw new PrismNotSupportedException("Model construction not supported for " + modelType + "s");
 						}
 					}
 				}
-				// For nondet models, add collated transition to model 
-				if (!justReach) {
-					if (modelType == ModelType.MDP) {
-						if (distinguishActions) {
-							mdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
-						} else {
-							mdp.addChoice(src, distr);
-						}
-					} else if (modelType == ModelType.POMDP) {
-						if (distinguishActions) {
-							pomdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
-						} else {
-							pomdp.addChoice(src, distr);
-						}
-					} else if (modelType == ModelType.CTMDP) {
-						if (distinguishActions) {
-							ctmdp.addActionLabelledChoice(src, distr, modelGen.getChoiceAction(i));
-						} else {
-							ctmdp.addChoice(src, distr);
-						}
-					}
+				// For partially observable models, add observation info to state
+				// (do it after transitions are added, since observation actions are checked)
+				if (!justReach && modelType == ModelType.POMDP) {
+					setStateObservation(modelGen, (POMDPSimple) modelSimple, src, state);
 				}
+				// Print some progress info occasionally
+				progress.updateIfReady(src + 1);
 			}
-			// For partially observable models, add observation info to state
-			// (do it after transitions are added, since observation actions are checked)
-			if (!justReach && modelType == ModelType.POMDP) {
-				setStateObservation(modelGen, (POMDPSimple) modelSimple, src, state);
-			}
-			// Print some progress info occasionally
-			progress.updateIfReady(src + 1);
 		}
 
 		// Finish progress display
@@ -344,6 +445,9 @@ public class ConstructModel extends PrismComponent
 		// Reachability complete
 		mainLog.print("Reachable states exploration" + (justReach ? "" : " and model construction"));
 		mainLog.println(" done in " + ((System.currentTimeMillis() - timer) / 1000.0) + " secs.");
+		if (packedStates != null) {
+			mainLog.println("State storage: " + packedStates.getStorageInfo());
+		}
 		//mainLog.println(states);
 
 		// Find/fix deadlocks (if required)
@@ -353,17 +457,32 @@ public class ConstructModel extends PrismComponent
 
 		int permut[] = null;
 
-		if (sortStates) {
-			// Sort states and convert set to list
-			mainLog.println("Sorting reachable states list...");
-			permut = states.buildSortingPermutation();
-			statesList = states.toPermutedArrayList(permut);
-			//mainLog.println(permut);
+		if (exploredStates != null) {
+			// For parallel exploration, states are already in a list
+			if (sortStates) {
+				mainLog.println("Sorting reachable states list...");
+				permut = buildSortingPermutation(exploredStates);
+				statesList = new ArrayList<State>(exploredStates);
+				for (i = 0; i < permut.length; i++) {
+					statesList.set(permut[i], exploredStates.get(i));
+				}
+			} else {
+				statesList = exploredStates;
+			}
+			exploredStates = null;
 		} else {
-			statesList = states.toArrayList();
+			if (sortStates) {
+				// Sort states and convert set to list
+				mainLog.println("Sorting reachable states list...");
+				permut = states.buildSortingPermutation();
+				statesList = states.toPermutedArrayList(permut);
+				//mainLog.println(permut);
+			} else {
+				statesList = states.toArrayList();
+			}
+			states.clear();
+			states = null;
 		}
-		states.clear();
-		states = null;
 		//mainLog.println(statesList);
 
 		// Construct new explicit-state model (with correct state ordering, if desired)
@@ -400,6 +519,22 @@ public class ConstructModel extends PrismComponent
 			case PTA:
 				throw new PrismNotSupportedException("Model construction not supported for " + modelType + "s");
 			}
+			// Move the transition matrix outside of the Java heap, if requested
+			if (buildOffHeap) {
+				switch (modelType) {
+				case DTMC:
+					model = new DTMCOffHeap((DTMC) model);
+					break;
+				case CTMC:
+					model = new CTMCOffHeap((CTMC) model);
+					break;
+				case MDP:
+					model = new MDPOffHeap((MDP) model);
+					break;
+				default:
+					mainLog.printWarning("Off-heap storage is not supported for " + modelType + "s, using the default");
+				}
+			}
 			model.setStatesList(statesList);
 			model.setConstantValues(new Values(modelGen.getConstantValues()));
 			//mainLog.println("Model: " + model);
@@ -414,6 +549,311 @@ public class ConstructModel extends PrismComponent
 		return model;
 	}
 
+	/**
+	 * Create copies of a ModelGenerator, one for each thread used for parallel exploration.
+	 * Returns null if this is not possible, i.e., the model type is not supported
+	 * or the ModelGenerator cannot be copied.
+	 */
+	private List<ModelGenerator> createModelGeneratorCopies(ModelGenerator modelGen, int numCopies) throws PrismException
+	{
+		// Partially observable models need sequential checks during construction
+		if (modelGen.getModelType().partiallyObservable()) {
+			return null;
+		}
+		List<ModelGenerator> modelGens = new ArrayList<>(numCopies);
+		for (int t = 0; t < numCopies; t++) {
+			ModelGenerator copy = modelGen.createCopy();
+			if (copy == null) {
+				mainLog.printWarning("Parallel model construction is not supported for this model, exploring sequentially");
+				return null;
+			}
+			modelGens.add(copy);
+		}
+		return modelGens;
+	}
+
+	/**
+	 * Explore the state space of a model in parallel, and add states and transitions to {@code modelSimple}
+	 * (unless it is null), returning the list of reachable states.
+	 * <br>
+	 * Exploration is level-by-level (breadth-first). The states in each level are split into chunks,
+	 * which are explored by worker threads, each using its own ModelGenerator.
+	 * Target states are looked up (or added) in a shared concurrent index, where states found
+	 * for the first time in the current level get a temporary (negative) index.
+	 * The explored chunks are then replayed, in order, to assign final indices and add transitions
+	 * to the model. This gives exactly the same state indices and transition order
+	 * as sequential exploration.
+	 * @param modelGen The ModelGenerator interface providing the model
+	 * @param modelGens Copies of {@code modelGen} to be used by the worker threads
+	 * @param modelSimple Model to be constructed (null if just computing reachable states)
+	 * @param progress Progress display
+	 */
+	private List<State> exploreParallel(ModelGenerator modelGen, List<ModelGenerator> modelGens, ModelSimple modelSimple, ProgressDisplay progress) throws PrismException
+	{
+		ModelType modelType = modelGen.getModelType();
+		int numWorkers = modelGens.size();
+		// Reachable states, in order of (final) index
+		List<State> exploredStates = new ArrayList<>();
+		// Index of reachable states: non-negative values are final indices,
+		// negative ones (-1, -2, ...) are temporary ones for states first found in the current level
+		ConcurrentHashMap<State, Integer> index = new ConcurrentHashMap<>();
+		// Add initial state(s) to storage and to the model
+		for (State initState : modelGen.getInitialStates()) {
+			if (index.putIfAbsent(initState, exploredStates.size()) == null) {
+				exploredStates.add(initState);
+			}
+			if (modelSimple != null) {
+				modelSimple.addState();
+				modelSimple.addInitialState(modelSimple.getNumStates() - 1);
+			}
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+		try {
+			int levelStart = 0;
+			while (levelStart < exploredStates.size()) {
+				// Split the current level into chunks
+				final int levelEnd = exploredStates.size();
+				final int chunkSize = Math.max(1, Math.min(1024, (levelEnd - levelStart) / (4 * numWorkers)));
+				final int numChunks = (levelEnd - levelStart + chunkSize - 1) / chunkSize;
+				final int levelFirst = levelStart;
+				final ExploredChunk chunks[] = new ExploredChunk[numChunks];
+				final AtomicInteger nextChunk = new AtomicInteger(0);
+				final AtomicInteger numNew = new AtomicInteger(0);
+				// Explore chunks in parallel
+				List<Callable<Void>> tasks = new ArrayList<>(numWorkers);
+				for (ModelGenerator workerModelGen : modelGens) {
+					tasks.add(() -> {
+						int c;
+						while ((c = nextChunk.getAndIncrement()) < numChunks) {
+							int start = levelFirst + c * chunkSize;
+							int end = Math.min(start + chunkSize, levelEnd);
+							chunks[c] = exploreChunk(workerModelGen, exploredStates, start, end, index, numNew);
+						}
+						return null;
+					});
+				}
+				for (Future<Void> future : executor.invokeAll(tasks)) {
+					future.get();
+				}
+				// Replay explored chunks in order, assigning final indices to new states
+				State newStates[] = new State[numNew.get()];
+				int tempToFinal[] = new int[numNew.get()];
+				for (ExploredChunk chunk : chunks) {
+					for (int k = 0; k < chunk.newStates.size(); k++) {
+						newStates[chunk.newStateIds.get(k)] = chunk.newStates.get(k);
+					}
+				}
+				for (ExploredChunk chunk : chunks) {
+					chunk.addToModel(modelType, modelSimple, exploredStates, newStates, tempToFinal, distinguishActions);
+				}
+				// Switch temporary to final indices in the index
+				for (int k = 0; k < newStates.length; k++) {
+					index.put(newStates[k], tempToFinal[k] - 1);
+				}
+				levelStart = levelEnd;
+				progress.updateIfReady(levelStart);
+			}
+		} catch (InterruptedException e) {
+			throw new PrismException("Parallel model construction was interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof PrismException) {
+				throw (PrismException) e.getCause();
+			}
+			throw new PrismException("Error during parallel model construction: " + e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return exploredStates;
+	}
+
+	/**
+	 * Explore states {@code start}, ..., {@code end}-1 of {@code exploredStates} using {@code modelGen}
+	 * (as part of parallel exploration, see {@link #exploreParallel}).
+	 */
+	private static ExploredChunk exploreChunk(ModelGenerator modelGen, List<State> statesList, int start, int end, ConcurrentHashMap<State, Integer> index, AtomicInteger numNew) throws PrismException
+	{
+		ExploredChunk chunk = new ExploredChunk(start);
+		boolean isNew[] = new boolean[1];
+		for (int s = start; s < end; s++) {
+			modelGen.exploreState(statesList.get(s));
+			int nc = modelGen.getNumChoices();
+			chunk.addState(nc);
+			for (int i = 0; i < nc; i++) {
+				int nt = modelGen.getNumTransitions(i);
+				chunk.addChoice(modelGen.getChoiceAction(i), nt);
+				for (int j = 0; j < nt; j++) {
+					State stateNew = modelGen.computeTransitionTarget(i, j);
+					isNew[0] = false;
+					int id = index.computeIfAbsent(stateNew, k -> {
+						isNew[0] = true;
+						return -(numNew.getAndIncrement() + 1);
+					});
+					if (isNew[0]) {
+						chunk.newStates.add(stateNew);
+						chunk.newStateIds.add(-id - 1);
+					}
+					chunk.addTransition(id, modelGen.getTransitionProbability(i, j));
+				}
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * Build a sort permutation for a list of states,
+	 * i.e., an array mapping current indices to new indices under the sorting order.
+	 */
+	private static int[] buildSortingPermutation(List<State> states)
+	{
+		int n = states.size();
+		Integer order[] = new Integer[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		Arrays.parallelSort(order, (i1, i2) -> states.get(i1).compareTo(states.get(i2)));
+		int permut[] = new int[n];
+		for (int i = 0; i < n; i++) {
+			permut[order[i]] = i;
+		}
+		return permut;
+	}
+
+	/**
+	 * Choices/transitions found when exploring a contiguous set of states,
+	 * stored in order of exploration, during parallel exploration.
+	 */
+	private static class ExploredChunk
+	{
+		/** Index of the first state in the chunk */
+		private int start;
+		/** Number of states explored */
+		private int numStates = 0;
+		/** Number of choices for each state */
+		private int numChoices[] = new int[16];
+		/** Action and number of transitions for each choice */
+		private List<Object> choiceActions = new ArrayList<>();
+		private int numTransitions[] = new int[16];
+		/** Target and probability for each transition (target indices are as in the shared index) */
+		private int numTargets = 0;
+		private int targets[] = new int[64];
+		private double probs[] = new double[64];
+		/** States first found while exploring this chunk, and their (temporary) ids */
+		private List<State> newStates = new ArrayList<>();
+		private List<Integer> newStateIds = new ArrayList<>();
+
+		private ExploredChunk(int start)
+		{
+			this.start = start;
+		}
+
+		private void addState(int nc)
+		{
+			if (numStates == numChoices.length) {
+				numChoices = Arrays.copyOf(numChoices, 2 * numStates);
+			}
+			numChoices[numStates++] = nc;
+		}
+
+		private void addChoice(Object action, int nt)
+		{
+			int n = choiceActions.size();
+			if (n == numTransitions.length) {
+				numTransitions = Arrays.copyOf(numTransitions, 2 * n);
+			}
+			numTransitions[n] = nt;
+			choiceActions.add(action);
+		}
+
+		private void addTransition(int target, double prob)
+		{
+			if (numTargets == targets.length) {
+				targets = Arrays.copyOf(targets, 2 * numTargets);
+				probs = Arrays.copyOf(probs, 2 * numTargets);
+			}
+			targets[numTargets] = target;
+			probs[numTargets++] = prob;
+		}
+
+		/**
+		 * Add the explored states and transitions to a model (or just assign indices if it is null),
+		 * in exactly the same way as for sequential exploration.
+		 * States first found are given the next free index and appended to {@code statesList}.
+		 * {@code tempToFinal} stores (final index + 1) for each temporary id (0 if not yet assigned).
+		 */
+		private void addToModel(ModelType modelType, ModelSimple modelSimple, List<State> statesList, State newStates[], int tempToFinal[], boolean distinguishActions) throws PrismException
+		{
+			int choice = 0, trans = 0;
+			for (int s = 0; s < numStates; s++) {
+				int src = start + s;
+				int nc = numChoices[s];
+				for (int i = 0; i < nc; i++, choice++) {
+					Object action = choiceActions.get(choice);
+					int nt = numTransitions[choice];
+					Distribution distr = modelType.nondeterministic() ? new Distribution() : null;
+					for (int j = 0; j < nt; j++, trans++) {
+						int dest = targets[trans];
+						if (dest < 0) {
+							// First time this state is encountered in the replay: assign a final index
+							int temp = -dest - 1;
+							if (tempToFinal[temp] == 0) {
+								statesList.add(newStates[temp]);
+								tempToFinal[temp] = statesList.size();
+								if (modelSimple != null) {
+									modelSimple.addState();
+								}
+							}
+							dest = tempToFinal[temp] - 1;
+						}
+						if (modelSimple == null) {
+							continue;
+						}
+						switch (modelType) {
+						case DTMC:
+							((DTMCSimple) modelSimple).addToProbability(src, dest, probs[trans]);
+							break;
+						case CTMC:
+							((CTMCSimple) modelSimple).addToProbability(src, dest, probs[trans]);
+							break;
+						case MDP:
+						case CTMDP:
+							distr.add(dest, probs[trans]);
+							break;
+						case LTS:
+							if (distinguishActions) {
+								((LTSSimple) modelSimple).addActionLabelledTransition(src, dest, action);
+							} else {
+								((LTSSimple) modelSimple).addTransition(src, dest);
+							}
+							break;
+						default:
+							throw new PrismNotSupportedException("Parallel model construction not supported for " + modelType + "s");
+						}
+					}
+					// For nondet models, add collated transition to model
+					// (trimming any spare capacity first, since it is stored as is)
+					if (modelSimple != null) {
+						if (distr != null) {
+							distr.trimToSize();
+						}
+						if (modelType == ModelType.MDP) {
+							if (distinguishActions) {
+								((MDPSimple) modelSimple).addActionLabelledChoice(src, distr, action);
+							} else {
+								((MDPSimple) modelSimple).addChoice(src, distr);
+							}
+						} else if (modelType == ModelType.CTMDP) {
+							if (distinguishActions) {
+								((CTMDPSimple) modelSimple).addActionLabelledChoice(src, distr, action);
+							} else {
+								((CTMDPSimple) modelSimple).addChoice(src, distr);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
 	private void setStateObservation(ModelGenerator modelGen, POMDPSimple pomdp, int s, State state) throws PrismException
 	{
 		// Get observation for the current state
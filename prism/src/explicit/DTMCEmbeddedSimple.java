@@ -44,7 +44,7 @@ import prism.PrismNotSupportedException;
 public class DTMCEmbeddedSimple extends DTMCExplicit
 {
 	// Parent CTMC
-	protected CTMCSimple ctmc;
+	protected CTMC ctmc;
 	// Exit rates vector
 	protected double exitRates[];
 	// Number of extra transitions added (just for stats)
@@ -53,7 +53,7 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 	/**
 	 * Constructor: create from CTMC.
 	 */
-	public DTMCEmbeddedSimple(CTMCSimple ctmc)
+	public DTMCEmbeddedSimple(CTMC ctmc)
 	{
 		this.ctmc = ctmc;
 		this.numStates = ctmc.getNumStates();
@@ -61,7 +61,7 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 		exitRates = new double[numStates];
 		numExtraTransitions = 0;
 		for (int i = 0; i < numStates; i++) {
-			exitRates[i] = ctmc.getTransitions(i).sum();
+			exitRates[i] = ctmc.getExitRate(i);
 			if (exitRates[i] == 0)
 				numExtraTransitions++;
 		}
@@ -268,9 +268,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 	{
 		int k;
 		double d, er, prob;
-		Distribution distr;
+		Iterable<Map.Entry<Integer, Double>> distr;
 
-		distr = ctmc.getTransitions(s);
+		distr = () -> ctmc.getTransitionsIterator(s);
 		d = 0.0;
 		er = exitRates[s];
 		// Exit rate 0: prob 1 self-loop
@@ -295,9 +295,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 	{
 		int k;
 		double diag, d, er, prob;
-		Distribution distr;
+		Iterable<Map.Entry<Integer, Double>> distr;
 
-		distr = ctmc.getTransitions(s);
+		distr = () -> ctmc.getTransitionsIterator(s);
 		diag = d = 0.0;
 		er = exitRates[s];
 		// Exit rate 0: prob 1 self-loop
@@ -329,9 +329,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 	{
 		int k;
 		double d, er, prob;
-		Distribution distr;
+		Iterable<Map.Entry<Integer, Double>> distr;
 
-		distr = ctmc.getTransitions(s);
+		distr = () -> ctmc.getTransitionsIterator(s);
 		er = exitRates[s];
 		d = 0;
 		// Exit rate 0: prob 1 self-loop
@@ -357,9 +357,9 @@ public class DTMCEmbeddedSimple extends DTMCExplicit
 	{
 		int k;
 		double diag, d, er, prob;
-		Distribution distr;
+		Iterable<Map.Entry<Integer, Double>> distr;
 
-		distr = ctmc.getTransitions(s);
+		distr = () -> ctmc.getTransitionsIterator(s);
 		diag = d = 0.0;
 		er = exitRates[s];
 		// Exit rate 0: prob 1 self-loop
@@ -284,6 +284,21 @@ public class DTMCModelChecker extends ProbModelChecker
 		return res;
 	}
 
+	/**
+	 * Compute the SCCs (and BSCCs) of a DTMC, re-using a previous decomposition if available
+	 * (see {@link #setSCCCache(SCCCache)}). The result should not be modified.
+	 */
+	protected SCCConsumerStore computeSCCs(DTMC dtmc) throws PrismException
+	{
+		if (sccCache != null) {
+			return sccCache.getSCCs(this, dtmc);
+		}
+		SCCConsumerStore sccStore = new SCCConsumerStore();
+		SCCComputer sccComputer = SCCComputer.createSCCComputer(this, dtmc, sccStore);
+		sccComputer.computeSCCs();
+		return sccStore;
+	}
+
 	public ModelCheckerResult computeTotalRewards(DTMC dtmc, MCRewards mcRewards) throws PrismException
 	{
 		ModelCheckerResult res = null;
@@ -308,9 +323,7 @@ public class DTMCModelChecker extends ProbModelChecker
 		mainLog.println("\nStarting total reward computation...");
 
 		// Compute bottom strongly connected components (BSCCs)
-		SCCConsumerStore sccStore = new SCCConsumerStore();
-		SCCComputer sccComputer = SCCComputer.createSCCComputer(this, dtmc, sccStore);
-		sccComputer.computeSCCs();
+		SCCConsumerStore sccStore = computeSCCs(dtmc);
 		List<BitSet> bsccs = sccStore.getBSCCs();
 		numBSCCs = bsccs.size();
 
@@ -631,6 +644,17 @@ public class DTMCModelChecker extends ProbModelChecker
 		numNo = no.cardinality();
 		mainLog.println("target=" + target.cardinality() + ", yes=" + numYes + ", no=" + numNo + ", maybe=" + (n - (numYes + numNo)));
 
+		// If available, warm-start from the solution of the same computation for
+		// a previous model with the same structure (e.g. when sweeping constants);
+		// the precomputation ensures that the solution is unique, so this is safe
+		boolean warmStart = warmStartVectors != null && init == null && precomp && prob0 && prob1 && !doIntervalIteration;
+		if (warmStart && numYes + numNo < n) {
+			init = warmStartVectors.get(dtmc, remain, target);
+			if (init != null) {
+				mainLog.println("Warm-starting from previous solution vector");
+			}
+		}
+
 		// Compute probabilities (if needed)
 		if (numYes + numNo < n) {
 			boolean termCritAbsolute = termCrit == TermCrit.ABSOLUTE;
@@ -638,14 +662,17 @@ public class DTMCModelChecker extends ProbModelChecker
 			switch (linEqMethod) {
 			case POWER:
 				iterationMethod = new IterationMethodPower(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numIterationThreads);
 				break;
 			case JACOBI:
 				iterationMethod = new IterationMethodJacobi(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numIterationThreads);
 				break;
 			case GAUSS_SEIDEL:
 			case BACKWARDS_GAUSS_SEIDEL: {
 				boolean backwards = linEqMethod == LinEqMethod.BACKWARDS_GAUSS_SEIDEL;
 				iterationMethod = new IterationMethodGS(termCritAbsolute, termCritParam, backwards);
+				iterationMethod.setNumThreads(numIterationThreads);
 				break;
 			}
 			default:
@@ -661,6 +688,9 @@ public class DTMCModelChecker extends ProbModelChecker
 			res.soln = Utils.bitsetToDoubleArray(yes, n);
 			res.accuracy = AccuracyFactory.doublesFromQualitative();
 		}
+		if (warmStart) {
+			warmStartVectors.put(dtmc, remain, target, res.soln);
+		}
 
 		// Finished probabilistic reachability
 		timer = System.currentTimeMillis() - timer;
@@ -1034,6 +1064,7 @@ public class DTMCModelChecker extends ProbModelChecker
 	protected ModelCheckerResult computeReachProbsValIter(DTMC dtmc, BitSet no, BitSet yes, double init[], BitSet known) throws PrismException
 	{
 		IterationMethodPower iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+		iterationMethod.setNumThreads(numIterationThreads);
 		return doValueIterationReachProbs(dtmc, no, yes, init, known, iterationMethod, false);
 	}
 
@@ -1752,14 +1783,17 @@ public class DTMCModelChecker extends ProbModelChecker
 			switch (linEqMethod) {
 			case POWER:
 				iterationMethod = new IterationMethodPower(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numIterationThreads);
 				break;
 			case JACOBI:
 				iterationMethod = new IterationMethodJacobi(termCritAbsolute, termCritParam);
+				iterationMethod.setNumThreads(numIterationThreads);
 				break;
 			case GAUSS_SEIDEL:
 			case BACKWARDS_GAUSS_SEIDEL: {
 				boolean backwards = linEqMethod == LinEqMethod.BACKWARDS_GAUSS_SEIDEL;
 				iterationMethod = new IterationMethodGS(termCritAbsolute, termCritParam, backwards);
+				iterationMethod.setNumThreads(numIterationThreads);
 				break;
 			}
 			default:
@@ -2167,9 +2201,7 @@ public class DTMCModelChecker extends ProbModelChecker
 		double[] solnProbs = new double[numStates];
 
 		// Compute bottom strongly connected components (BSCCs)
-		SCCConsumerStore sccStore = new SCCConsumerStore();
-		SCCComputer sccComputer = SCCComputer.createSCCComputer(this, dtmc, sccStore);
-		sccComputer.computeSCCs();
+		SCCConsumerStore sccStore = computeSCCs(dtmc);
 		List<BitSet> bsccs = sccStore.getBSCCs();
 		BitSet notInBSCCs = sccStore.getNotInBSCCs();
 		int numBSCCs = bsccs.size();
@@ -2285,9 +2317,7 @@ public class DTMCModelChecker extends ProbModelChecker
 		int numStates = dtmc.getNumStates();
 
 		// Compute bottom strongly connected components (BSCCs)
-		SCCConsumerStore sccStore = new SCCConsumerStore();
-		SCCComputer sccComputer = SCCComputer.createSCCComputer(this, dtmc, sccStore);
-		sccComputer.computeSCCs();
+		SCCConsumerStore sccStore = computeSCCs(dtmc);
 		List<BitSet> bsccs = sccStore.getBSCCs();
 		BitSet notInBSCCs = sccStore.getNotInBSCCs();
 		int numBSCCs = bsccs.size();
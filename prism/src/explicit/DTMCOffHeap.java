@@ -0,0 +1,352 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import common.OffHeapArray;
+import explicit.rewards.MCRewards;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of a DTMC,
+ * stored outside of the Java heap (see {@link OffHeapArray}), either in direct buffers
+ * or memory-mapped from a {@link BinaryModelFile}.
+ * Apart from where the arrays live, this is the same as {@link DTMCSparse},
+ * except that transitions are indexed by {@code long}s, so there can be more than 2^31 of them.
+ */
+public class DTMCOffHeap extends DTMCExplicit
+{
+	/** Indices into probabilities/columns giving the start of the transitions for each state (size numStates+1) */
+	protected OffHeapArray.OfLong rows;
+	/** Column (destination) indices for each transition (size numTransitions) */
+	protected OffHeapArray.OfInt columns;
+	/** Probabilities for each transition (size numTransitions) */
+	protected OffHeapArray.OfDouble probabilities;
+
+	/**
+	 * Constructor: create from sparse matrix arrays (which are not copied).
+	 * Initial states, labels, etc. need to be added separately.
+	 */
+	public DTMCOffHeap(int numStates, OffHeapArray.OfLong rows, OffHeapArray.OfInt columns, OffHeapArray.OfDouble probabilities)
+	{
+		initialise(numStates);
+		this.rows = rows;
+		this.columns = columns;
+		this.probabilities = probabilities;
+	}
+
+	/**
+	 * Constructor: copy an arbitrary DTMC (or CTMC) into off-heap storage.
+	 */
+	public DTMCOffHeap(DTMC dtmc)
+	{
+		initialise(dtmc.getNumStates());
+		copyFrom(dtmc);
+		// Count transitions (as longs, in case of overflow)
+		long numTransitions = 0;
+		for (int state = 0; state < numStates; state++) {
+			numTransitions += dtmc.getNumTransitions(state);
+		}
+		rows = OffHeapArray.OfLong.allocate(numStates + 1L);
+		columns = OffHeapArray.OfInt.allocate(numTransitions);
+		probabilities = OffHeapArray.OfDouble.allocate(numTransitions);
+		// Copy transition function
+		long column = 0;
+		for (int state = 0; state < numStates; state++) {
+			rows.set(state, column);
+			for (Iterator<Entry<Integer, Double>> transitions = dtmc.getTransitionsIterator(state); transitions.hasNext();) {
+				Entry<Integer, Double> transition = transitions.next();
+				columns.set(column, transition.getKey());
+				probabilities.set(column, transition.getValue());
+				column++;
+			}
+		}
+		rows.set(numStates, column);
+	}
+
+	//--- Model ---
+
+	@Override
+	public int getNumTransitions()
+	{
+		return Math.toIntExact(rows.get(numStates));
+	}
+
+	/**
+	 * Get the total number of transitions in the model,
+	 * which (unlike {@link #getNumTransitions()}) may exceed 2^31.
+	 */
+	public long getNumTransitionsLong()
+	{
+		return rows.get(numStates);
+	}
+
+	@Override
+	public String infoString()
+	{
+		String s = "";
+		s += getNumStates() + " states (" + getNumInitialStates() + " initial)";
+		s += ", " + getNumTransitionsLong() + " transitions";
+		return s;
+	}
+
+	@Override
+	public String infoStringTable()
+	{
+		String s = "";
+		s += "States:      " + getNumStates() + " (" + getNumInitialStates() + " initial)\n";
+		s += "Transitions: " + getNumTransitionsLong() + "\n";
+		return s;
+	}
+
+	@Override
+	public int getNumTransitions(int state)
+	{
+		return Math.toIntExact(rows.get(state + 1) - rows.get(state));
+	}
+
+	@Override
+	public SuccessorsIterator getSuccessors(int state)
+	{
+		// We assume here that all the successor states for a given state are distinct
+		return new SuccessorsIterator()
+		{
+			long i = rows.get(state);
+			final long stop = rows.get(state + 1);
+
+			@Override
+			public boolean successorsAreDistinct()
+			{
+				return true;
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return i < stop;
+			}
+
+			@Override
+			public int nextInt()
+			{
+				return columns.get(i++);
+			}
+		};
+	}
+
+	@Override
+	public boolean isSuccessor(final int s1, final int s2)
+	{
+		for (long i = rows.get(s1), stop = rows.get(s1 + 1); i < stop; i++) {
+			if (columns.get(i) == s2) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean allSuccessorsInSet(final int state, final BitSet set)
+	{
+		for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+			if (!set.get(columns.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean someSuccessorsInSet(final int state, final BitSet set)
+	{
+		for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+			if (set.get(columns.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void findDeadlocks(boolean fix) throws PrismException
+	{
+		for (int state = 0; state < numStates; state++) {
+			if (rows.get(state) == rows.get(state + 1)) {
+				if (fix) {
+					throw new PrismException("Can't fix deadlocks in a " + getClass().getSimpleName() + " since it cannot be modified");
+				}
+				deadlocks.add(state);
+			}
+		}
+	}
+
+	@Override
+	public void checkForDeadlocks(BitSet except) throws PrismException
+	{
+		for (int state = 0; state < numStates; state++) {
+			if (rows.get(state) == rows.get(state + 1) && (except == null || !except.get(state)))
+				throw new PrismException(getModelType() + " has a deadlock in state " + state);
+		}
+	}
+
+	//--- ModelExplicit ---
+
+	@Override
+	public void buildFromPrismExplicit(String filename) throws PrismException
+	{
+		throw new PrismNotSupportedException("Building " + getClass().getSimpleName() + " currently not supported from PrismExplicit");
+	}
+
+	//--- DTMC ---
+
+	@Override
+	public void forEachTransition(int state, TransitionConsumer consumer)
+	{
+		for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+			consumer.accept(state, columns.get(i), probabilities.get(i));
+		}
+	}
+
+	@Override
+	public Iterator<Entry<Integer, Double>> getTransitionsIterator(final int state)
+	{
+		return new Iterator<Entry<Integer, Double>>()
+		{
+			long i = rows.get(state);
+			final long stop = rows.get(state + 1);
+
+			@Override
+			public boolean hasNext()
+			{
+				return i < stop;
+			}
+
+			@Override
+			public Entry<Integer, Double> next()
+			{
+				assert (i < stop);
+				final long index = i++;
+				return new AbstractMap.SimpleImmutableEntry<>(columns.get(index), probabilities.get(index));
+			}
+		};
+	}
+
+	@Override
+	public boolean prob0step(final int s, final BitSet u)
+	{
+		return someSuccessorsInSet(s, u);
+	}
+
+	@Override
+	public boolean prob1step(final int s, final BitSet u, final BitSet v)
+	{
+		boolean hasTransitionToV = false;
+		for (long i = rows.get(s), stop = rows.get(s + 1); i < stop; i++) {
+			final int successor = columns.get(i);
+			if (!u.get(successor)) {
+				// early abort, as overall result is false
+				return false;
+			}
+			hasTransitionToV = hasTransitionToV || v.get(successor);
+		}
+		return hasTransitionToV;
+	}
+
+	@Override
+	public double mvMultSingle(final int state, final double[] vect)
+	{
+		double d = 0.0;
+		for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+			d += probabilities.get(i) * vect[columns.get(i)];
+		}
+		return d;
+	}
+
+	@Override
+	public double mvMultJacSingle(final int state, final double[] vect)
+	{
+		double diag = 1.0;
+		double d = 0.0;
+		for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+			final int target = columns.get(i);
+			final double probability = probabilities.get(i);
+			if (target != state) {
+				d += probability * vect[target];
+			} else {
+				diag -= probability;
+			}
+		}
+		if (diag > 0) {
+			d /= diag;
+		}
+		return d;
+	}
+
+	@Override
+	public double mvMultRewSingle(final int state, final double[] vect, final MCRewards mcRewards)
+	{
+		double d = mcRewards.getStateReward(state);
+		for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+			d += probabilities.get(i) * vect[columns.get(i)];
+		}
+		return d;
+	}
+
+	@Override
+	public void vmMult(final double[] vect, final double[] result)
+	{
+		// Initialise result to 0
+		Arrays.fill(result, 0);
+		// Go through matrix elements (by row)
+		for (int state = 0; state < numStates; state++) {
+			for (long i = rows.get(state), stop = rows.get(state + 1); i < stop; i++) {
+				result[columns.get(i)] += probabilities.get(i) * vect[state];
+			}
+		}
+	}
+
+	//--- Object ---
+
+	@Override
+	public String toString()
+	{
+		StringBuilder s = new StringBuilder("trans: [ ");
+		for (int state = 0; state < numStates; state++) {
+			if (state > 0) {
+				s.append(", ");
+			}
+			s.append(state + ": " + new Distribution(getTransitionsIterator(state)));
+		}
+		return s.append(" ]").toString();
+	}
+}
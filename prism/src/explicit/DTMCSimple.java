@@ -271,6 +271,15 @@ public class DTMCSimple extends DTMCExplicit implements ModelSimple
 		return trans.get(s).iterator();
 	}
 
+	@Override
+	public void forEachTransition(int s, TransitionConsumer c)
+	{
+		Distribution distr = trans.get(s);
+		for (int k = 0, n = distr.size(); k < n; k++) {
+			c.accept(s, distr.getIndexAt(k), distr.getProbabilityAt(k));
+		}
+	}
+
 	// Accessors (other)
 
 	/**
@@ -95,6 +95,25 @@ public class DTMCSparse extends DTMCExplicit
 		predecessorRelation = dtmc.hasStoredPredecessorRelation() ? dtmc.getPredecessorRelation(null, false) : null;
 	}
 
+	/**
+	 * Construct a DTMC with the same transition structure as an existing one (and the same
+	 * initial states, states list, labels, etc.), but with new transition probabilities.
+	 * These are given in the order that transitions are stored in {@code dtmc}, i.e.,
+	 * the order of {@link #getTransitionsIterator(int)}, for each state in turn.
+	 * The transition structure is shared with {@code dtmc}, not copied.
+	 */
+	public DTMCSparse(final DTMCSparse dtmc, double[] probabilities) {
+		if (probabilities.length != dtmc.probabilities.length) {
+			throw new IllegalArgumentException("Expected " + dtmc.probabilities.length + " transition probabilities, not " + probabilities.length);
+		}
+		initialise(dtmc.getNumStates());
+		copyFrom(dtmc);
+		rows = dtmc.rows;
+		columns = dtmc.columns;
+		this.probabilities = probabilities;
+		predecessorRelation = dtmc.predecessorRelation;
+	}
+
 	public DTMCSparse(final DTMC dtmc, int[] permut) {
 		initialise(dtmc.getNumStates());
 		for (Integer state : dtmc.getDeadlockStates()) {
@@ -50,7 +50,7 @@ import explicit.rewards.MCRewards;
 public class DTMCUniformisedSimple extends DTMCExplicit
 {
 	// Parent CTMC
-	protected CTMCSimple ctmc;
+	protected CTMC ctmc;
 	// Uniformisation rate
 	protected double q;
 	// Number of extra transitions added (just for stats)
@@ -59,14 +59,23 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 	/**
 	 * Constructor: create from CTMC and uniformisation rate q.
 	 */
-	public DTMCUniformisedSimple(CTMCSimple ctmc, double q)
+	public DTMCUniformisedSimple(CTMC ctmc, double q)
 	{
 		this.ctmc = ctmc;
 		this.numStates = ctmc.getNumStates();
 		this.q = q;
 		numExtraTransitions = 0;
 		for (int i = 0; i < numStates; i++) {
-			if (ctmc.getTransitions(i).get(i) == 0 && ctmc.getTransitions(i).sumAllBut(i) < q) {
+			double diag = 0.0, sumAllBut = 0.0;
+			for (Iterator<Entry<Integer, Double>> transitions = ctmc.getTransitionsIterator(i); transitions.hasNext();) {
+				Entry<Integer, Double> trans = transitions.next();
+				if (trans.getKey() == i) {
+					diag += trans.getValue();
+				} else {
+					sumAllBut += trans.getValue();
+				}
+			}
+			if (diag == 0 && sumAllBut < q) {
 				numExtraTransitions++;
 			}
 		}
@@ -75,7 +84,7 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 	/**
 	 * Constructor: create from CTMC and its default uniformisation rate.
 	 */
-	public DTMCUniformisedSimple(CTMCSimple ctmc)
+	public DTMCUniformisedSimple(CTMC ctmc)
 	{
 		this(ctmc, ctmc.getDefaultUniformisationRate());
 	}
@@ -222,9 +231,9 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 	{
 		int k;
 		double sum, d, prob;
-		Distribution distr;
+		Iterable<Map.Entry<Integer, Double>> distr;
 
-		distr = ctmc.getTransitions(s);
+		distr = () -> ctmc.getTransitionsIterator(s);
 		sum = d = 0.0;
 		for (Map.Entry<Integer, Double> e : distr) {
 			k = (Integer) e.getKey();
@@ -248,9 +257,9 @@ public class DTMCUniformisedSimple extends DTMCExplicit
 	{
 		int k;
 		double sum, d, prob;
-		Distribution distr;
+		Iterable<Map.Entry<Integer, Double>> distr;
 
-		distr = ctmc.getTransitions(s);
+		distr = () -> ctmc.getTransitionsIterator(s);
 		sum = d = 0.0;
 		for (Map.Entry<Integer, Double> e : distr) {
 			k = (Integer) e.getKey();
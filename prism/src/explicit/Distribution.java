@@ -26,11 +26,13 @@
 
 package explicit;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import prism.PrismUtils;
@@ -39,10 +41,25 @@ import simulator.RandomNumberGenerator;
 /**
  * Explicit representation of a probability distribution.
  * Basically, a mapping from (integer-valued) indices to (non-zero, double-valued) probabilities. 
+ * <br><br>
+ * Entries are stored compactly, as a pair of parallel arrays of indices and probabilities,
+ * sorted by index (so iteration is always in ascending order of index).
+ * Arrays grow as needed (with amortised doubling); use {@link #trimToSize()} to drop unused capacity.
  */
 public class Distribution implements Iterable<Entry<Integer, Double>>
 {
-	private HashMap<Integer, Double> map;
+	/** Shared empty arrays, used until the first entry is added */
+	private static final int[] EMPTY_INDICES = new int[0];
+	private static final double[] EMPTY_PROBS = new double[0];
+	/** Capacity allocated for the first entry */
+	private static final int INITIAL_CAPACITY = 2;
+
+	/** Indices, in ascending order (only the first {@code size} entries are used) */
+	private int[] indices;
+	/** Probabilities, corresponding to {@code indices} */
+	private double[] probs;
+	/** Number of entries */
+	private int size;
 
 	/**
 	 * Create an empty distribution.
@@ -57,7 +74,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution(Distribution distr)
 	{
-		this(distr.iterator());
+		indices = Arrays.copyOf(distr.indices, distr.size);
+		probs = Arrays.copyOf(distr.probs, distr.size);
+		size = distr.size;
 	}
 
 	/**
@@ -80,20 +99,85 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution(Distribution distr, int permut[])
 	{
-		this();
-		Iterator<Entry<Integer, Double>> i = distr.iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			add(permut[e.getKey()], e.getValue());
+		this(distr.size);
+		for (int k = 0; k < distr.size; k++) {
+			add(permut[distr.indices[k]], distr.probs[k]);
 		}
 	}
 
+	/**
+	 * Create an empty distribution, with space for {@code capacity} entries.
+	 */
+	private Distribution(int capacity)
+	{
+		indices = capacity == 0 ? EMPTY_INDICES : new int[capacity];
+		probs = capacity == 0 ? EMPTY_PROBS : new double[capacity];
+		size = 0;
+	}
+
 	/**
 	 * Clear all entries of the distribution.
 	 */
 	public void clear()
 	{
-		map = new HashMap<Integer, Double>();
+		indices = EMPTY_INDICES;
+		probs = EMPTY_PROBS;
+		size = 0;
+	}
+
+	/**
+	 * Reduce the storage used by the distribution to the minimum needed for its current entries.
+	 */
+	public void trimToSize()
+	{
+		if (indices.length > size) {
+			indices = size == 0 ? EMPTY_INDICES : Arrays.copyOf(indices, size);
+			probs = size == 0 ? EMPTY_PROBS : Arrays.copyOf(probs, size);
+		}
+	}
+
+	/**
+	 * Find the position of index j in the (sorted) storage,
+	 * or (-(insertion point) - 1) if it is not present.
+	 */
+	private int find(int j)
+	{
+		// Common case when building: indices are added in ascending order
+		if (size == 0 || j > indices[size - 1]) {
+			return -size - 1;
+		}
+		return Arrays.binarySearch(indices, 0, size, j);
+	}
+
+	/**
+	 * Insert a new entry (j,prob) at position pos, growing storage if needed.
+	 */
+	private void insert(int pos, int j, double prob)
+	{
+		if (size == indices.length) {
+			int capacity = Math.max(INITIAL_CAPACITY, 2 * size);
+			indices = Arrays.copyOf(indices, capacity);
+			probs = Arrays.copyOf(probs, capacity);
+		}
+		if (pos < size) {
+			System.arraycopy(indices, pos, indices, pos + 1, size - pos);
+			System.arraycopy(probs, pos, probs, pos + 1, size - pos);
+		}
+		indices[pos] = j;
+		probs[pos] = prob;
+		size++;
+	}
+
+	/**
+	 * Remove the entry at position pos.
+	 */
+	private void remove(int pos)
+	{
+		if (pos < size - 1) {
+			System.arraycopy(indices, pos + 1, indices, pos, size - pos - 1);
+			System.arraycopy(probs, pos + 1, probs, pos, size - pos - 1);
+		}
+		size--;
 	}
 
 	/**
@@ -103,12 +187,12 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean add(int j, double prob)
 	{
-		Double d = (Double) map.get(j);
-		if (d == null) {
-			map.put(j, prob);
+		int pos = find(j);
+		if (pos < 0) {
+			insert(-pos - 1, j, prob);
 			return false;
 		} else {
-			set(j, d + prob);
+			set(j, probs[pos] + prob);
 			return true;
 		}
 	}
@@ -118,10 +202,16 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public void set(int j, double prob)
 	{
-		if (prob == 0.0)
-			map.remove(j);
-		else
-			map.put(j, prob);
+		int pos = find(j);
+		if (prob == 0.0) {
+			if (pos >= 0) {
+				remove(pos);
+			}
+		} else if (pos >= 0) {
+			probs[pos] = prob;
+		} else {
+			insert(-pos - 1, j, prob);
+		}
 	}
 
 	/**
@@ -129,9 +219,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public double get(int j)
 	{
-		Double d;
-		d = (Double) map.get(j);
-		return d == null ? 0.0 : d.doubleValue();
+		int pos = find(j);
+		return pos < 0 ? 0.0 : probs[pos];
 	}
 
 	/**
@@ -139,7 +228,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean contains(int j)
 	{
-		return map.get(j) != null;
+		return find(j) >= 0;
 	}
 
 	/**
@@ -147,10 +236,8 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean isSubsetOf(BitSet set)
 	{
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (!set.get((Integer) e.getKey()))
+		for (int k = 0; k < size; k++) {
+			if (!set.get(indices[k]))
 				return false;
 		}
 		return true;
@@ -161,21 +248,56 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean containsOneOf(BitSet set)
 	{
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (set.get((Integer) e.getKey()))
+		for (int k = 0; k < size; k++) {
+			if (set.get(indices[k]))
 				return true;
 		}
 		return false;
 	}
 
 	/**
-	 * Get the support of the distribution.
+	 * Get the support of the distribution (as a read-only view).
 	 */
 	public Set<Integer> getSupport()
 	{
-		return map.keySet();
+		return new AbstractSet<Integer>()
+		{
+			@Override
+			public Iterator<Integer> iterator()
+			{
+				return new Iterator<Integer>()
+				{
+					int k = 0;
+
+					@Override
+					public boolean hasNext()
+					{
+						return k < size;
+					}
+
+					@Override
+					public Integer next()
+					{
+						if (k >= size) {
+							throw new NoSuchElementException();
+						}
+						return indices[k++];
+					}
+				};
+			}
+
+			@Override
+			public boolean contains(Object o)
+			{
+				return o instanceof Integer && Distribution.this.contains((Integer) o);
+			}
+
+			@Override
+			public int size()
+			{
+				return size;
+			}
+		};
 	}
 
 	/**
@@ -183,7 +305,45 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Iterator<Entry<Integer, Double>> iterator()
 	{
-		return map.entrySet().iterator();
+		return new Iterator<Entry<Integer, Double>>()
+		{
+			int k = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return k < size;
+			}
+
+			@Override
+			public Entry<Integer, Double> next()
+			{
+				if (k >= size) {
+					throw new NoSuchElementException();
+				}
+				Entry<Integer, Double> e = new AbstractMap.SimpleImmutableEntry<>(indices[k], probs[k]);
+				k++;
+				return e;
+			}
+		};
+	}
+
+	/**
+	 * Get the index of the {@code k}th entry of the distribution (entries are in ascending order of index).
+	 * Together with {@link #getProbabilityAt(int)} and {@link #size()},
+	 * this allows iteration over the distribution without boxing.
+	 */
+	public int getIndexAt(int k)
+	{
+		return indices[k];
+	}
+
+	/**
+	 * Get the probability of the {@code k}th entry of the distribution (entries are in ascending order of index).
+	 */
+	public double getProbabilityAt(int k)
+	{
+		return probs[k];
 	}
 
 	/**
@@ -191,7 +351,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public boolean isEmpty()
 	{
-		return map.isEmpty();
+		return size == 0;
 	}
 
 	/**
@@ -199,7 +359,7 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public int size()
 	{
-		return map.size();
+		return size;
 	}
 
 	/**
@@ -230,14 +390,13 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 		if (isEmpty()) {
 			return -1;
 		}
-		Iterator<Entry<Integer, Double>> i = iterator();
-		Map.Entry<Integer, Double> e = null;
+		int k = -1;
 		double tot = 0.0;
-		while (x >= tot && i.hasNext()) {
-			e = i.next();
-			tot += e.getValue();
+		while (x >= tot && k < size - 1) {
+			k++;
+			tot += probs[k];
 		}
-		return e.getKey();
+		return indices[k];
 	}
 	
 	/**
@@ -291,13 +450,11 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public double sum()
 	{
-		double mean = 0.0;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			mean += e.getValue();
+		double sum = 0.0;
+		for (int k = 0; k < size; k++) {
+			sum += probs[k];
 		}
-		return mean;
+		return sum;
 	}
 
 	/**
@@ -306,11 +463,9 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public double sumAllBut(int j)
 	{
 		double d = 0.0;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			if (e.getKey() != j)
-				d += e.getValue();
+		for (int k = 0; k < size; k++) {
+			if (indices[k] != j)
+				d += probs[k];
 		}
 		return d;
 	}
@@ -321,28 +476,18 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	 */
 	public Distribution map(int map[])
 	{
-		Distribution distrNew = new Distribution();
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			distrNew.add(map[e.getKey()], e.getValue());
-		}
-		return distrNew;
+		return new Distribution(this, map);
 	}
 
 	@Override
 	public boolean equals(Object o)
 	{
-		Double d1, d2;
 		Distribution d = (Distribution) o;
-		if (d.size() != size())
+		if (d.size != size)
 			return false;
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			d1 = e.getValue();
-			d2 = d.map.get(e.getKey());
-			if (d2 == null || !PrismUtils.doublesAreEqual(d1, d2))
+		// Both are sorted by index, so can compare entry by entry
+		for (int k = 0; k < size; k++) {
+			if (indices[k] != d.indices[k] || !PrismUtils.doublesAreEqual(probs[k], d.probs[k]))
 				return false;
 		}
 		return true;
@@ -352,28 +497,31 @@ public class Distribution implements Iterable<Entry<Integer, Double>>
 	public int hashCode()
 	{
 		// Simple hash code
-		return map.size();
+		return size;
 	}
 
 	@Override
 	public String toString()
 	{
-		return map.toString();
+		StringBuilder sb = new StringBuilder("{");
+		for (int k = 0; k < size; k++) {
+			if (k > 0) {
+				sb.append(", ");
+			}
+			sb.append(indices[k]).append("=").append(probs[k]);
+		}
+		return sb.append("}").toString();
 	}
 	
 	public String toStringCSV()
 	{
 		String s = "Value";
-		Iterator<Entry<Integer, Double>> i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			s += ", " + e.getKey();
+		for (int k = 0; k < size; k++) {
+			s += ", " + indices[k];
 		}
 		s += "\nProbability";
-		i = iterator();
-		while (i.hasNext()) {
-			Map.Entry<Integer, Double> e = i.next();
-			s += ", " + e.getValue();
+		for (int k = 0; k < size; k++) {
+			s += ", " + probs[k];
 		}
 		s += "\n";
 		return s;
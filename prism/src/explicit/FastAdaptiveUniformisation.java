@@ -30,13 +30,12 @@ package explicit;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import common.PeriodicTimer;
 import parser.State;
 import parser.Values;
 import parser.ast.Expression;
@@ -46,7 +45,9 @@ import parser.ast.RewardStruct;
 import prism.ModelGenerator;
 import prism.PrismComponent;
 import prism.PrismException;
+import prism.PrismLangException;
 import prism.PrismSettings;
+import prism.PrismUtils;
 
 /*
  * TODO
@@ -54,14 +55,12 @@ import prism.PrismSettings;
  *   - by delta (as current)
  *   - by max probability loss per iteration (requires sort by prob)
  *   - by max number of states (requires sort by prob)
- * - compress states to Bitset (memory waste currently excessive e.g. for mapk)
  * - do not delete states immediately but only after they have been below
  *   delta for a specified number of iterations to avoid deleting and exploring
  *   the same states over and over again
  * - dynamic adaption of interval width (with of 1 seems to work best, however)
  * - improve birth process - only worth it if we find case study where it makes a
  *   difference, but could contribute to publicability then
- * - plot number of active states over time for mapk to get idea of model behaviour
  * - in gen-dat.pl, mark runs as dead if we can derive that they cannot succeed
  * - discuss public interface with Dave
  * - make stop of deletion after half of Birth threshold reached optional
@@ -74,323 +73,42 @@ import prism.PrismSettings;
 
 /**
  * Implementation of fast adaptive uniformisation (FAU).
+ * <br>
+ * The current set of states is kept in a {@link SlotStateStorage}, and all properties
+ * of states needed for the fast adaptive method (current-step, next-step and transient
+ * probability, reward, successor states and the rates to them, the number of incoming
+ * transitions (references) from relevant states and whether the state has a significant
+ * probability mass (is alive)) are stored in arrays indexed by the state's slot.
+ * Slots of states that are removed, once their probability drops below
+ * the threshold delta, are reused for newly discovered states.
+ * <br>
+ * The transitions of states that become relevant are explored in parallel,
+ * if more than one thread is used (see {@link PrismSettings#PRISM_FAU_THREADS}),
+ * as are iterations over the fixed-size (array) representation.
  */
 public final class FastAdaptiveUniformisation extends PrismComponent
 {
+	/** State flag: the flags for this state are known */
+	private static final byte FLAG_KNOWN = 1;
+	/** State flag: the state is a deadlock */
+	private static final byte FLAG_DEADLOCK = 2;
+	/** State flag: the state satisfies the sink condition */
+	private static final byte FLAG_SINK = 4;
+
+	/** Number of states per chunk for parallel exploration */
+	private static final int EXPLORE_CHUNK_SIZE = 64;
+
 	/**
-	 * Stores properties of states needed for fast adaptive method.
-	 * This includes the current-step probability, next-state probability,
-	 * and the transient probability (sum of step probabilities weighted
-	 * with birth process distributions). It also contains the list of successor
-	 * states and the rates to them, the number of incoming transitions
-	 * (references) and a flag whether the state has a significant probability
-	 * mass (alive).
+	 * Result of exploring a single state: its flags and the successor states
+	 * and rates to them (null for a self-loop with rate 1, i.e. for sinks and deadlocks).
 	 */
-	private final static class StateProp
+	private final static class ExploredState
 	{
-		/** current-step probability.
-		 * should contain initial probability before actual analysis is started.
-		 * will contain transient probability after analysis. */
-		private double prob;
-		/** next-state probability */
-		private double nextProb;
-		/** sum probability weighted with birth process distribution */
-		private double sum;
-		/** reward of this state */
-		private double reward;
-		/** rates to successor states */
-		private double[] succRates;
-		/** successor states */
-		private StateProp[] succStates;
-		/** number of incoming transitions of relevant states */
-		private int references;
-		/** true if and only if state probability above relevance threshold */
-		private boolean alive;
-		
-		/**
-		 * Constructs a new state property object.
-		 */
-		StateProp()
-		{
-			prob = 0.0;
-			nextProb = 0.0;
-			sum = 0.0;
-			reward = 0.0;
-			succRates = null;
-			succStates = null;
-			references = 0;
-			alive = true;
-		}
-		
-		/**
-		 * Set current state probability.
-		 * 
-		 * @param prob current state probability to set
-		 */
-		void setProb(double prob)
-		{
-			this.prob = prob;
-		}
-
-		/**
-		 * Gets current state probability.
-		 * 
-		 * @return current state probability
-		 */
-		double getProb()
-		{
-			return prob;
-		}
-
-		/**
-		 * Sets next state probability.
-		 * 
-		 * @param nextProb next state probability to set
-		 */
-		void setNextProb(double nextProb)
-		{
-			this.nextProb = nextProb;
-		}
-
-		/**
-		 * Adds value to next state probability.
-		 * 
-		 * @param add value to add to next state probability
-		 */
-		void addToNextProb(double add)
-		{
-			this.nextProb += add;
-		}
-
-		/**
-		 * Sets weighted sum probability.
-		 * 
-		 * @param sum weighted sum probability to set.
-		 */
-		void setSum(double sum)
-		{
-			this.sum = sum;
-		}
-
-		/**
-		 * Adds current probability times {@code poisson} to weighted sum probability.
-		 * 
-		 * @param poisson this value times current probability will be added to sum probability
-		 */
-		void addToSum(double poisson)
-		{
-			sum += poisson * prob;
-		}
-
-		/**
-		 * Gets weighted sum probability.
-		 * 
-		 * @return weighted sum probability
-		 */
-		double getSum()
-		{
-			return sum;
-		}
-
-		/**
-		 * Prepares next iteration step.
-		 * Sets current probability to next probability, and sets next
-		 * probability to zero.
-		 */
-		void prepareNextIteration()
-		{
-			prob = nextProb;
-			nextProb = 0.0;
-		}
-
-		/**
-		 * Set state reward.
-		 * 
-		 * @param reward state reward to set
-		 */
-		void setReward(double reward)
-		{
-			this.reward = reward;
-		}
-
-		/**
-		 * Get state reward.
-		 * 
-		 * @return state reward
-		 */
-		double getReward()
-		{
-			return reward;
-		}
-
-		/**
-		 * Sets rates to successor states.
-		 * Expects an array of rates, so that the rate to the successor
-		 * state set by {@setSuccStates} is the one given by the corresponding
-		 * index. The value {@code null} is allowed here.
-		 * 
-		 * @param succRates rates to successor states.
-		 */
-		void setSuccRates(double[] succRates)
-		{
-			this.succRates = succRates;
-		}
-
-		/**
-		 * Sets successor states.
-		 * Expects an array of successor states, so that the rate set by
-		 * {@setSuccRates} is the one given by the corresponding index.
-		 * The value {@code null} is allowed here.
-		 * 
-		 * @param succStates successor states
-		 */
-		void setSuccStates(StateProp[] succStates)
-		{
-			this.succStates = succStates;
-			if (succStates != null) {
-				for (int succNr = 0; succNr < succStates.length; succNr++) {
-					succStates[succNr].incReferences();
-				}
-			}
-		}
-
-		/**
-		 * Returns number of successor states of this state.
-		 * 
-		 * @return number of successor states
-		 */
-		int getNumSuccs()
-		{
-			if (succRates == null) {
-				return 0;
-			} else {
-				return succRates.length;
-			}
-		}
-		
-		/**
-		 * Gets successor rates.
-		 * 
-		 * @return successor rates
-		 */
-		double[] getSuccRates()
-		{
-			return succRates;
-		}
-
-		/**
-		 * Gets successor states.
-		 * 
-		 * @return successor states
-		 */
-		StateProp[] getSuccStates()
-		{
-			return succStates;
-		}
-
-		/**
-		 * Sets whether state is alive.
-		 * 
-		 * @param alive whether state should be set to being alive
-		 */
-		void setAlive(boolean alive)
-		{
-			this.alive = alive;
-		}
-
-		/**
-		 * Checks whether state is alive.
-		 * 
-		 * @return true iff state is alive
-		 */
-		boolean isAlive()
-		{
-			return alive;
-		}
-
-		/**
-		 * Increments the number of references of this state.
-		 * The number of references should correspond to the number of alive
-		 * states which have this state as successor state.
-		 */
-		void incReferences()
-		{
-			references++;
-		}
-
-		/**
-		 * Decrements the number of references of this state.
-		 * The number of references should correspond to the number of alive
-		 * states which have this state as successor state.
-		 */
-		void decReferences()
-		{
-			references--;
-		}
-
-		/**
-		 * Deletes this state.
-		 * This means basically removing all of its successors. Beforehand,
-		 * their reference counter is decreased, because this state does no
-		 * longer count as a model state. It is left in the model however,
-		 * because it might still be the successor state of some alive state.
-		 */
-		void delete()
-		{
-			if (null != succStates) {
-				for (int succNr = 0; succNr < succStates.length; succNr++) {
-					succStates[succNr].decReferences();
-				}
-			}
-			succStates = null;
-			succRates = null;
-			alive = false;
-			prob = 0.0;
-			nextProb = 0.0;
-		}
-
-		/**
-		 * Checks whether this state can be removed.
-		 * This is only the case if its probability is below the threshold
-		 * specified, and then only if there are no transitions from alive
-		 * states into this state.
-		 * 
-		 * @return true if and only if this state can be removed
-		 */
-		boolean canRemove()
-		{
-			return !alive && (0 == references);
-		}
-
-		/**
-		 * Checks whether this state has successors or not.
-		 * Will be true if and only if successor state array is nonnull.
-		 * 
-		 * @return whether this state has successors or not
-		 */
-		boolean hasSuccs()
-		{
-			return succStates != null;
-		}
-
-		/**
-		 * Returns the sum of all rates leaving to successor states.
-		 * 
-		 * @return sum of all rates leaving to successor states
-		 */
-		double sumRates()
-		{
-			if (null == succRates) {
-				return 0.0;
-			}
-			double sumRates = 0.0;
-			for (int rateNr = 0; rateNr < succRates.length; rateNr++) {
-				sumRates += succRates[rateNr];
-			}
-			return sumRates;
-		}
+		private byte flags;
+		private State[] succs;
+		private double[] rates;
 	}
-	
+
 	/**
 	 * Enum to store type of analysis to perform.
 	 */
@@ -415,6 +133,8 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private int numIntervals;
 	/** iterations after which switch to sparse matrix if no new/dropped states */
 	private int arrayThreshold;
+	/** number of threads for exploration and array iterations */
+	private int numThreads;
 	
 	/** reward structure to use for analysis */
 	private RewardStruct rewStruct = null;
@@ -422,13 +142,35 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private double value;
 	/** model constants */
 	private Values constantValues = null;
-	/** maps from state (assignment of variable values) to property object */
-	private LinkedHashMap<State,StateProp> states;
+	/** states currently stored; the arrays below are indexed by their slots */
+	private SlotStateStorage states;
+	/** current-step probability.
+	 * should contain initial probability before actual analysis is started.
+	 * will contain transient probability after analysis. */
+	private double[] probs;
+	/** next-state probability */
+	private double[] nextProbs;
+	/** sum probability weighted with birth process distribution */
+	private double[] sums;
+	/** reward of each state */
+	private double[] rewards;
+	/** sum of rates to successor states */
+	private double[] exitRates;
+	/** successor states (null if not explored, or deleted) */
+	private int[][] succStates;
+	/** rates to successor states */
+	private double[][] succRates;
+	/** number of incoming transitions of relevant states */
+	private int[] references;
+	/** true if and only if state probability above relevance threshold */
+	private boolean[] alive;
+	/** state flags (see FLAG_KNOWN etc.) */
+	private byte[] flags;
 	/** states for which successor rates are to be computed */
-	private ArrayList<State> addDistr;
-	/** states which are to be deleted */
-	private ArrayList<State> deleteStates;
-	/** initial size of state hash map */
+	private int[] addDistr;
+	/** number of entries in addDistr */
+	private int numAddDistr;
+	/** initial size of state arrays */
 	private final int initSize = 3000;
 	/** maximal total leaving rate of all states alive */
 	private double maxRate = 0.0;
@@ -442,6 +184,8 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private BirthProcess birthProc;
 	/** states which fulfill this will be made absorbing - for until props */
 	private Expression sink;
+	/** sink condition, with special labels expanded (see {@link #expandSpecialLabels(Expression)}) */
+	private Expression[] sinkExprs;
 	/** if true, don't drop further states.
 	 * Used to avoid excessive probability loss in some cases. */
 	private boolean keepSumProb;
@@ -457,6 +201,21 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private double totalProbLoss;
 	/** probability mass intentionally set to zero */
 	private double totalProbSetZero;
+	/** copies of modelGen for parallel exploration, not in use by a worker (null if not created yet, or not possible) */
+	private ConcurrentLinkedQueue<ModelGenerator> modelGenCopies;
+	/** have we already tried to create modelGenCopies? */
+	private boolean modelGenCopiesTried = false;
+
+	// Statistics, for throughput reporting
+
+	/** total number of iterations */
+	private long numIters;
+	/** total number of state updates (states processed, summed over iterations) */
+	private long numStateUpdates;
+	/** total number of states explored */
+	private long numExplored;
+	/** timer for progress updates */
+	private PeriodicTimer updatesTimer;
 	
 	/**
 	 * Constructor.
@@ -472,6 +231,7 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		delta = settings.getDouble(PrismSettings.PRISM_FAU_DELTA);
 		numIntervals = settings.getInteger(PrismSettings.PRISM_FAU_INTERVALS);
 		arrayThreshold = settings.getInteger(PrismSettings.PRISM_FAU_ARRAYTHRESHOLD);
+		numThreads = settings.getInteger(PrismSettings.PRISM_FAU_THREADS);
 		analysisType = AnalysisType.TRANSIENT;
 		rewStruct = null;
 		target = Expression.False();
@@ -479,6 +239,7 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		specialLabels = new LabelList();
 		specialLabels.addLabel(new ExpressionIdent("deadlock"), new ExpressionIdent("deadlock"));
 		specialLabels.addLabel(new ExpressionIdent("init"), new ExpressionIdent("init"));
+		sinkExprs = expandSpecialLabels(sink);
 	}
 
 	/**
@@ -556,22 +317,19 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	public void setSink(Expression sink) throws PrismException
 	{
 		this.sink = sink;
+		sinkExprs = expandSpecialLabels(sink);
 		if (states != null) {
-			for (Map.Entry<State,StateProp> statePair : states.entrySet()) {
-				State state = statePair.getKey();
-				StateProp prop = statePair.getValue();
+			for (int slot = 0; slot < states.getNumSlots(); slot++) {
+				if (!states.isUsed(slot)) {
+					continue;
+				}
+				State state = states.getState(slot);
 				modelGen.exploreState(state);
-				specialLabels.setLabel(0, modelGen.getNumTransitions() == 0 ? Expression.True() : Expression.False());
-				specialLabels.setLabel(1, initStates.contains(state) ? Expression.True() : Expression.False());
-				Expression evSink = sink.deepCopy();
-				evSink = (Expression) evSink.expandLabels(specialLabels);
-				if (evSink.evaluateBoolean(constantValues, state)) {
-					double[] succRates = new double[1];
-					StateProp[] succStates = new StateProp[1];
-					succRates[0] = 1.0;
-					succStates[0] = states.get(state);
-					prop.setSuccRates(succRates);
-					prop.setSuccStates(succStates);
+				boolean deadlock = modelGen.getNumTransitions() == 0;
+				boolean isSink = evaluateWithSpecialLabels(sinkExprs, state, deadlock);
+				flags[slot] = (byte) (FLAG_KNOWN | (deadlock ? FLAG_DEADLOCK : 0) | (isSink ? FLAG_SINK : 0));
+				if (isSink) {
+					setSuccs(slot, new int[] { slot }, new double[] { 1.0 });
 				}
 			}
 		}
@@ -616,24 +374,19 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		}
 		
 		/* prepare fast adaptive uniformisation */
-		addDistr = new ArrayList<State>();
-		deleteStates = new ArrayList<State>();
-		states = new LinkedHashMap<State,StateProp>(initSize);
-		value = 0.0;
+		initStorage();
 		initStates = new HashSet<State>();
 		ListIterator<State> it = initDist.statesList.listIterator();
 		double[] values = initDist.getDoubleArray();
 		maxRate = 0.0;
+		int[] initSlots = new int[initDist.size];
 		for (int stateNr = 0; stateNr < initDist.size; stateNr++) {
-			State initState = it.next();
-			addToModel(initState);
+			initSlots[stateNr] = addToModel(it.next());
 		}
-		it = initDist.statesList.listIterator();
+		exploreStates(initSlots, initSlots.length);
 		for (int stateNr = 0; stateNr < initDist.size; stateNr++) {
-			State initState = it.next();
-			computeStateRatesAndRewards(initState);
-			states.get(initState).setProb(values[stateNr]);
-			maxRate = Math.max(maxRate, states.get(initState).sumRates() * 1.02);			
+			probs[initSlots[stateNr]] = values[stateNr];
+			maxRate = Math.max(maxRate, exitRates[initSlots[stateNr]] * 1.02);
 		}
 
 		/* run fast adaptive uniformisation */
@@ -643,17 +396,19 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		ArrayList<State> statesList = new ArrayList<State>(states.size());
 		double[] probsArr = new double[states.size()];
 		int probsArrEntry = 0;
-		for (Map.Entry<State,StateProp> statePair : states.entrySet()) {
-			statesList.add(statePair.getKey());
-			probsArr[probsArrEntry] = statePair.getValue().getProb();
-			probsArrEntry++;
+		for (int slot = 0; slot < states.getNumSlots(); slot++) {
+			if (states.isUsed(slot)) {
+				statesList.add(states.getState(slot));
+				probsArr[probsArrEntry] = probs[slot];
+				probsArrEntry++;
+			}
 		}
-		StateValues probs = StateValues.createFromDoubleArray(probsArr, statesList);
+		StateValues probsResult = StateValues.createFromDoubleArray(probsArr, statesList);
 
 		mainLog.println("\nTotal probability lost is : " + getTotalDiscreteLoss());
 		mainLog.println("Maximal number of states stored during analysis : " + getMaxNumStates());
 		
-		return probs;
+		return probsResult;
 	}
 
 	/**
@@ -666,56 +421,66 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	 */
 	public void computeTransientProbsAdaptive(double time) throws PrismException
 	{
-		if (addDistr == null) {
-			addDistr = new ArrayList<State>();
-			deleteStates = new ArrayList<State>();
-			states = new LinkedHashMap<State,StateProp>(initSize);
-			value = 0.0;
+		if (states == null) {
+			initStorage();
 			prepareInitialDistribution();
 		}
 
+		long timer = System.currentTimeMillis();
+		numIters = numStateUpdates = 0;
+		long numExploredBefore = numExplored;
+		long sumActive = 0;
+		int maxActive = 0;
+		updatesTimer = new PeriodicTimer(ProbModelChecker.UPDATE_DELAY);
+		updatesTimer.start();
+
 		double initIval = settings.getDouble(PrismSettings.PRISM_FAU_INITIVAL);
 		if (time - initIval < 0.0) {
 			initIval = 0.0;
 		}
-		if (initIval != 0.0) {
-			iterateAdaptiveInterval(initIval);
-			for (StateProp prop : states.values()) {
-				prop.setProb(prop.getSum());
-				prop.setSum(0.0);
-				prop.setNextProb(0.0);
-			}
-			updateStates();
-		}
-
-		for (int ivalNr = 0; ivalNr < numIntervals; ivalNr++) {
-			double interval = (time - initIval) / numIntervals;
+		int numIvals = (initIval != 0.0 ? 1 : 0) + numIntervals;
+		double ivalStart = 0.0;
+		for (int ivalNr = 0; ivalNr < numIvals; ivalNr++) {
+			double interval = (initIval != 0.0 && ivalNr == 0) ? initIval : (time - initIval) / numIntervals;
+			long itersBefore = numIters;
 			iterateAdaptiveInterval(interval);
-			for (StateProp prop : states.values()) {
-				prop.setProb(prop.getSum());
-				prop.setSum(0.0);
-				prop.setNextProb(0.0);
+			int n = states.getNumSlots();
+			for (int slot = 0; slot < n; slot++) {
+				probs[slot] = sums[slot];
+				sums[slot] = 0.0;
+				nextProbs[slot] = 0.0;
 			}
 			updateStates();
+			ivalStart += interval;
+			int numAlive = getNumAlive();
+			sumActive += numAlive;
+			maxActive = Math.max(maxActive, numAlive);
+			mainLog.println("FAU interval " + (ivalNr + 1) + "/" + numIvals + " (time " + PrismUtils.formatDouble(ivalStart) + "): " + (numIters - itersBefore)
+					+ " iterations, " + states.size() + " states (" + numAlive + " alive)");
 		}
 		if (AnalysisType.REW_INST == analysisType) {
-			for (StateProp prop : states.values()) {
-				value += prop.getProb() * prop.getReward();
+			for (int slot = 0; slot < states.getNumSlots(); slot++) {
+				value += probs[slot] * rewards[slot];
 			}
-		} else {
-			for (Map.Entry<State,StateProp> statePair : states.entrySet()) {
-				State state = statePair.getKey();
-				StateProp prop = statePair.getValue();
-				modelGen.exploreState(state);
-				specialLabels.setLabel(0, modelGen.getNumTransitions() == 0 ? Expression.True() : Expression.False());
-				specialLabels.setLabel(1, initStates.contains(state) ? Expression.True() : Expression.False());
-				Expression evTarget = target.deepCopy();
-				evTarget = (Expression) evTarget.expandLabels(specialLabels);
-				if (AnalysisType.REACH == analysisType) {
-					value += prop.getProb() * (evTarget.evaluateBoolean(constantValues, state) ? 1.0 : 0.0);
+		} else if (AnalysisType.REACH == analysisType) {
+			Expression[] targetExprs = expandSpecialLabels(target);
+			for (int slot = 0; slot < states.getNumSlots(); slot++) {
+				if (states.isUsed(slot) && probs[slot] != 0.0) {
+					State state = states.getState(slot);
+					boolean deadlock = (getFlags(slot) & FLAG_DEADLOCK) != 0;
+					value += probs[slot] * (evaluateWithSpecialLabels(targetExprs, state, deadlock) ? 1.0 : 0.0);
 				}
 			}
 		}
+
+		// Report throughput
+		timer = System.currentTimeMillis() - timer;
+		mainLog.print("Fast adaptive uniformisation took " + numIters + " iterations and " + timer / 1000.0 + " seconds");
+		mainLog.println(" (" + states.getStorageInfo() + (numThreads > 1 ? ", " + numThreads + " threads" : "") + ").");
+		double secs = Math.max(timer, 1) / 1000.0;
+		mainLog.print("States explored: " + (numExplored - numExploredBefore) + ", state updates: " + numStateUpdates);
+		mainLog.println(" (" + PrismUtils.formatDouble2dp(numStateUpdates / secs) + " states/sec)");
+		mainLog.println("Active (alive) states at end of intervals: average " + PrismUtils.formatDouble2dp((double) sumActive / numIvals) + ", maximum " + maxActive);
 	}
 
 	/**
@@ -738,22 +503,28 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 			if (birthProbSum >= epsilon/2) {
 				keepSumProb = true;
 			}
+			int itersBefore = iters;
 			if ((itersUnchanged == arrayThreshold)) {
 				iters = arrayIterate(iters);
 			} else {
-			    long birthProcTimer = System.currentTimeMillis();
 				double prob = birthProc.calculateNextProb(maxRate);
-				birthProcTimer = System.currentTimeMillis() - birthProcTimer;
 				birthProbSum += prob;
 				collectValuePostIter(prob, birthProbSum);
-				for (StateProp prop : states.values()) {
-					prop.addToSum(prob);
+				int n = states.getNumSlots();
+				for (int slot = 0; slot < n; slot++) {
+					sums[slot] += prob * probs[slot];
 				}
 				
 				mvMult(maxRate);
 				updateStates();
 				iters++;
 			}
+			numIters += iters - itersBefore;
+			if (updatesTimer.triggered()) {
+				mainLog.print("Iteration " + numIters + ": " + states.size() + " states (" + getNumAlive() + " alive), ");
+				mainLog.print(PrismUtils.formatDouble2dp(numStateUpdates / (Math.max(updatesTimer.elapsedMillisTotal(), 1) / 1000.0)) + " states/sec, ");
+				mainLog.println(PrismUtils.formatDouble2dp(updatesTimer.elapsedMillisTotal() / 1000.0) + " sec so far");
+			}
 		}
 
 		computeTotalDiscreteLoss();
@@ -769,9 +540,6 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	 * to the original data structure. The method returns the current
 	 * iteration.
 	 * 
-	 * In case border states become
-	 * relevant, this data structure can 
-	 * 
 	 * @param iters current iteration number
 	 * @return current iteration after termination of this method
 	 * @throws PrismException thrown if problems in underlying methods occur
@@ -779,26 +547,27 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private int arrayIterate(int iters) throws PrismException
 	{
 		/* build backwards matrix and map values */
+		int numSlots = states.getNumSlots();
 		int numStates = states.size();
 		int numTransitions = 0;
-		for (StateProp prop : states.values()) {
-			numTransitions += prop.getNumSuccs() + 1;
-		}
 		int stateNr = 0;
-		HashMap<StateProp,Integer> stateToNumber = new HashMap<StateProp,Integer>(numStates);
-		StateProp[] numberToState = new StateProp[numStates];
-		for (StateProp prop : states.values()) {
-			if (prop.isAlive()) {
-				stateToNumber.put(prop, stateNr);
-				numberToState[stateNr] = prop;
-				stateNr++;
+		int[] slotToNumber = new int[numSlots];
+		int[] numberToSlot = new int[numStates];
+		for (int slot = 0; slot < numSlots; slot++) {
+			if (states.isUsed(slot)) {
+				numTransitions += (succStates[slot] == null ? 0 : succStates[slot].length) + 1;
+				if (alive[slot]) {
+					slotToNumber[slot] = stateNr;
+					numberToSlot[stateNr] = slot;
+					stateNr++;
+				}
 			}
 		}
 		int numAlive = stateNr;
-		for (StateProp prop : states.values()) {
-			if (!prop.isAlive()) {
-				stateToNumber.put(prop, stateNr);
-				numberToState[stateNr] = prop;
+		for (int slot = 0; slot < numSlots; slot++) {
+			if (states.isUsed(slot) && !alive[slot]) {
+				slotToNumber[slot] = stateNr;
+				numberToSlot[stateNr] = slot;
 				stateNr++;
 			}
 		}
@@ -807,32 +576,20 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		int[] rows = new int[numStates + 1];
 		int[] cols = new int[numTransitions];
 		double[] outRates = new double[numStates];
-		for (StateProp prop : states.values()) {
-			StateProp[] succStates = prop.getSuccStates();
-			if (succStates != null) {
-				for (StateProp succ : succStates) {
-					rows[stateToNumber.get(succ) + 1]++;
-				}
-			}
-			rows[stateToNumber.get(prop) + 1]++;
-		}
-		for (stateNr = 0; stateNr < numStates; stateNr++) {
-			rows[stateNr + 1] += rows[stateNr];
-		}
+		countIncoming(rows, slotToNumber, numberToSlot);
 
-		for (StateProp prop : states.values()) {
-			int stateNumber = stateToNumber.get(prop);
-			StateProp[] succStates = prop.getSuccStates();
-			double[] succRates = prop.getSuccRates();
-			if (succStates != null) {
-				for (int i = 0; i < succStates.length; i++) {
-					StateProp succState = succStates[i];
-					int succStateNumber = stateToNumber.get(succState);
-					double succRate = succRates[i];
-					cols[rows[succStateNumber]] = stateNumber;
+		for (stateNr = 0; stateNr < numStates; stateNr++) {
+			int slot = numberToSlot[stateNr];
+			int[] succs = succStates[slot];
+			double[] rates = succRates[slot];
+			if (succs != null) {
+				for (int i = 0; i < succs.length; i++) {
+					int succStateNumber = slotToNumber[succs[i]];
+					double succRate = rates[i];
+					cols[rows[succStateNumber]] = stateNr;
 					inProbs[rows[succStateNumber]] = succRate / maxRate;
 					rows[succStateNumber]++;
-					outRates[stateNumber] += succRate;
+					outRates[stateNr] += succRate;
 				}
 			}
 		}
@@ -843,69 +600,93 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		}
 
 		Arrays.fill(rows, 0);
-		for (StateProp prop : states.values()) {
-			StateProp[] succStates = prop.getSuccStates();
-			if (succStates != null) {
-				for (StateProp succ : succStates) {
-					rows[stateToNumber.get(succ) + 1]++;
-				}
-			}
-			rows[stateToNumber.get(prop) + 1]++;
-		}
-		for (stateNr = 0; stateNr < numStates; stateNr++) {
-			rows[stateNr + 1] += rows[stateNr];
-		}
+		countIncoming(rows, slotToNumber, numberToSlot);
 
-		double[] rewards = new double[numStates];
-		double[] probs = new double[numStates];
-		double[] nextProbs = new double[numStates];
-		double[] sum = new double[numStates];
-		for (stateNr = 0; stateNr < numberToState.length; stateNr++) {
-			StateProp prop = numberToState[stateNr];
+		double[] arrRewards = new double[numStates];
+		double[] arrProbs = new double[numStates];
+		double[] arrNextProbs = new double[numStates];
+		double[] arrSum = new double[numStates];
+		int[] allStates = new int[numStates];
+		for (stateNr = 0; stateNr < numStates; stateNr++) {
+			int slot = numberToSlot[stateNr];
 			if (analysisType == AnalysisType.REW_CUMUL) {
-				rewards[stateNr] = prop.getReward();
+				arrRewards[stateNr] = rewards[slot];
 			}
-			probs[stateNr] = prop.getProb();
-			sum[stateNr] = prop.getSum();
+			arrProbs[stateNr] = probs[slot];
+			arrSum[stateNr] = sums[slot];
+			allStates[stateNr] = stateNr;
 		}
 
 		/* iterate using matrix */
+		ParallelIteration parallel = new ParallelIteration(numThreads);
 		boolean canArray = true;
 		while (birthProbSum < (1 - epsilon) && canArray) {
-			//			timer2 = System.currentTimeMillis();
 			double prob = birthProc.calculateNextProb(maxRate);
 			birthProbSum += prob;
 			double mixed = (1.0 - birthProbSum) / maxRate;
-			for (stateNr = 0; stateNr < numStates; stateNr++) {
-				value += probs[stateNr] * mixed * rewards[stateNr];
-				sum[stateNr] += prob * probs[stateNr];
-				nextProbs[stateNr] = 0.0;
-				for (int succNr = rows[stateNr]; succNr < rows[stateNr+1]; succNr++) {
-					nextProbs[stateNr] += inProbs[succNr] * probs[cols[succNr]];
-				}
-				if ((stateNr < numAlive) != (nextProbs[stateNr] > delta)) {
-					canArray = false;
-				} else if (stateNr >= numAlive) {
-				    nextProbs[stateNr] = 0.0;
+			if (analysisType == AnalysisType.REW_CUMUL) {
+				for (stateNr = 0; stateNr < numStates; stateNr++) {
+					value += arrProbs[stateNr] * mixed * arrRewards[stateNr];
 				}
 			}
-			double[] swap = probs;
-			probs = nextProbs;
-			nextProbs = swap;
+			final double[] p = arrProbs;
+			final double[] pNext = arrNextProbs;
+			canArray = parallel.forEachChunk(allStates, (array, from, to) -> {
+				boolean ok = true;
+				for (int s = from; s < to; s++) {
+					arrSum[s] += prob * p[s];
+					double next = 0.0;
+					for (int succNr = rows[s]; succNr < rows[s + 1]; succNr++) {
+						next += inProbs[succNr] * p[cols[succNr]];
+					}
+					if ((s < numAlive) != (next > delta)) {
+						ok = false;
+					} else if (s >= numAlive) {
+						next = 0.0;
+					}
+					pNext[s] = next;
+				}
+				return ok;
+			});
+			arrProbs = pNext;
+			arrNextProbs = p;
+			numStateUpdates += numStates;
 
 			iters++;
 		}
 		
 		/* map back, update states and return current iteration */
-		for (stateNr = 0; stateNr < numberToState.length; stateNr++) {
-			StateProp prop = numberToState[stateNr];
-			prop.setProb(probs[stateNr]);
-			prop.setSum(sum[stateNr]);
+		for (stateNr = 0; stateNr < numStates; stateNr++) {
+			int slot = numberToSlot[stateNr];
+			probs[slot] = arrProbs[stateNr];
+			sums[slot] = arrSum[stateNr];
 		}
 		updateStates();
 		return iters;
 	}
 
+	/**
+	 * For the array form of the current submodel (see {@link #arrayIterate(int)}),
+	 * compute the start of each row of the backwards matrix
+	 * (i.e., add the number of incoming transitions, including self-loops, of each state).
+	 */
+	private void countIncoming(int[] rows, int[] slotToNumber, int[] numberToSlot)
+	{
+		int numStates = numberToSlot.length;
+		for (int stateNr = 0; stateNr < numStates; stateNr++) {
+			int[] succs = succStates[numberToSlot[stateNr]];
+			if (succs != null) {
+				for (int succ : succs) {
+					rows[slotToNumber[succ] + 1]++;
+				}
+			}
+			rows[stateNr + 1]++;
+		}
+		for (int stateNr = 0; stateNr < numStates; stateNr++) {
+			rows[stateNr + 1] += rows[stateNr];
+		}
+	}
+
 	/**
 	 * Update analysis value after iteration.
 	 * For certain analyses (currently cumulative rewards) we have to modify
@@ -928,8 +709,8 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 			break;
 		case REW_CUMUL:
 			double mixed = (1.0 - probSum) / maxRate;
-			for (StateProp prop : states.values()) {
-				value += prop.getProb() * mixed * prop.getReward();
+			for (int slot = 0; slot < states.getNumSlots(); slot++) {
+				value += probs[slot] * mixed * rewards[slot];
 			}
 			break;
 		}
@@ -949,25 +730,30 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private void updateStates() throws PrismException
 	{
 		maxRate = 0.0;
-		addDistr.clear();
-		for (Map.Entry<State,StateProp> statePair : states.entrySet()) {
-			State state = statePair.getKey();
-			StateProp prop = statePair.getValue();
-			if (prop.getProb() > delta) {
-				prop.setAlive(true);
-				if (!prop.hasSuccs()) {
+		numAddDistr = 0;
+		int n = states.getNumSlots();
+		for (int slot = 0; slot < n; slot++) {
+			if (!states.isUsed(slot)) {
+				continue;
+			}
+			if (probs[slot] > delta) {
+				alive[slot] = true;
+				if (succStates[slot] == null) {
 					itersUnchanged = 0;
-					addDistr.add(state);
+					if (numAddDistr == addDistr.length) {
+						addDistr = Arrays.copyOf(addDistr, 2 * addDistr.length);
+					}
+					addDistr[numAddDistr++] = slot;
 				} else {
-					maxRate = Math.max(maxRate, prop.sumRates());
+					maxRate = Math.max(maxRate, exitRates[slot]);
 				}
 			} else {
-				prop.delete();
+				delete(slot);
 			}
 		}
-		for (int stateNr = 0; stateNr < addDistr.size(); stateNr++) {
-			computeStateRatesAndRewards(addDistr.get(stateNr));
-			maxRate = Math.max(maxRate, states.get(addDistr.get(stateNr)).sumRates());
+		exploreStates(addDistr, numAddDistr);
+		for (int i = 0; i < numAddDistr; i++) {
+			maxRate = Math.max(maxRate, exitRates[addDistr[i]]);
 		}
 		maxRate *= 1.02;
 
@@ -983,17 +769,13 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	private void removeDeletedStates()
 	{
 		boolean unchanged = true;
-		for (Map.Entry<State,StateProp> statePair : states.entrySet()) {
-			State state = statePair.getKey();
-			StateProp prop = statePair.getValue();
-			if (prop.canRemove()) {
-				deleteStates.add(state);
+		int n = states.getNumSlots();
+		for (int slot = 0; slot < n; slot++) {
+			if (states.isUsed(slot) && !alive[slot] && references[slot] == 0) {
 				unchanged = false;
-			}
-		}
-		if (!keepSumProb) {
-			for (int i = 0; i < deleteStates.size(); i++) {
-				states.remove(deleteStates.get(i));
+				if (!keepSumProb) {
+					removeFromModel(slot);
+				}
 			}
 		}
 		if (unchanged) {
@@ -1001,23 +783,64 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 		} else {
 			itersUnchanged = 0;
 		}
-		deleteStates.clear();
 	}
     
+	/**
+	 * Creates the (empty) storage for states.
+	 */
+	private void initStorage() throws PrismException
+	{
+		states = new SlotStateStorage(modelGen.createVarList(), !modelGen.containsUnboundedVariables());
+		probs = new double[initSize];
+		nextProbs = new double[initSize];
+		sums = new double[initSize];
+		rewards = new double[initSize];
+		exitRates = new double[initSize];
+		succStates = new int[initSize][];
+		succRates = new double[initSize][];
+		references = new int[initSize];
+		alive = new boolean[initSize];
+		flags = new byte[initSize];
+		addDistr = new int[initSize];
+		numAddDistr = 0;
+		value = 0.0;
+	}
+
+	/**
+	 * Makes sure the state arrays can be indexed by all slots below {@code numSlots}.
+	 */
+	private void ensureCapacity(int numSlots)
+	{
+		if (numSlots <= probs.length) {
+			return;
+		}
+		int newSize = Math.max(numSlots, 2 * probs.length);
+		probs = Arrays.copyOf(probs, newSize);
+		nextProbs = Arrays.copyOf(nextProbs, newSize);
+		sums = Arrays.copyOf(sums, newSize);
+		rewards = Arrays.copyOf(rewards, newSize);
+		exitRates = Arrays.copyOf(exitRates, newSize);
+		succStates = Arrays.copyOf(succStates, newSize);
+		succRates = Arrays.copyOf(succRates, newSize);
+		references = Arrays.copyOf(references, newSize);
+		alive = Arrays.copyOf(alive, newSize);
+		flags = Arrays.copyOf(flags, newSize);
+	}
+
 	/**
 	 * Prepares initial distribution for the case of a single initial state.
 	 * 
 	 * @throws PrismException
 	 */
-    private void prepareInitialDistribution() throws PrismException
-    {
-    	initStates = new HashSet<State>();
+	private void prepareInitialDistribution() throws PrismException
+	{
+		initStates = new HashSet<State>();
 		State initState = modelGen.getInitialState();
 		initStates.add(initState);
-		addToModel(initState);
-		computeStateRatesAndRewards(initState);
-		states.get(initState).setProb(1.0);
-		maxRate = states.get(initState).sumRates() * 1.02;
+		int slot = addToModel(initState);
+		exploreStates(new int[] { slot }, 1);
+		probs[slot] = 1.0;
+		maxRate = exitRates[slot] * 1.02;
 	}
 
     /**
@@ -1028,8 +851,8 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	public void computeTotalDiscreteLoss()
 	{
 		double totalProb = 0;
-		for (StateProp prop : states.values()) {
-			totalProb += prop.getSum();
+		for (int slot = 0; slot < states.getNumSlots(); slot++) {
+			totalProb += sums[slot];
 		}
 		totalProb += totalProbSetZero;
 		
@@ -1051,91 +874,257 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	 * @throws PrismException 
 	 */
 	public void clearSinkStates() throws PrismException {
-		for (Map.Entry<State,StateProp> statePair : states.entrySet()) {
-			State state = statePair.getKey();
-			StateProp prop = statePair.getValue();
-			modelGen.exploreState(state);
-			specialLabels.setLabel(0, modelGen.getNumTransitions() == 0 ? Expression.True() : Expression.False());
-			specialLabels.setLabel(1, initStates.contains(state) ? Expression.True() : Expression.False());
-			Expression evSink = sink.deepCopy();
-			evSink = (Expression) evSink.expandLabels(specialLabels);
-			if (evSink.evaluateBoolean(constantValues, state)) {
-				totalProbSetZero += prop.getProb();
-				prop.setProb(0.0);
+		for (int slot = 0; slot < states.getNumSlots(); slot++) {
+			if (states.isUsed(slot) && probs[slot] != 0.0 && (getFlags(slot) & FLAG_SINK) != 0) {
+				totalProbSetZero += probs[slot];
+				probs[slot] = 0.0;
 			}
 		}
 	}
 	
 	/**
 	 * Adds @a state to model.
-	 * Computes reward for this states, creates entry in map of states,
+	 * Computes reward for this states, stores it in a free slot,
 	 * and updates number of states
 	 * 
 	 * @param state state to add
+	 * @return the slot of the state
 	 * @throws PrismException thrown if something wrong happens in underlying methods
 	 */
-	private void addToModel(State state) throws PrismException
+	private int addToModel(State state) throws PrismException
 	{
-		StateProp prop = new StateProp();
-		prop.setReward(computeRewards(state));
-		states.put(state, prop);
+		double reward = computeRewards(state);
+		int slot = states.add(state);
+		ensureCapacity(states.getNumSlots());
+		probs[slot] = 0.0;
+		nextProbs[slot] = 0.0;
+		sums[slot] = 0.0;
+		rewards[slot] = reward;
+		exitRates[slot] = 0.0;
+		succStates[slot] = null;
+		succRates[slot] = null;
+		references[slot] = 0;
+		alive[slot] = true;
+		flags[slot] = 0;
 		maxNumStates = Math.max(maxNumStates, states.size());
+		return slot;
+	}
+
+	/**
+	 * Removes the state in slot {@code slot} from the model, freeing the slot.
+	 * The state should have been deleted (see {@link #delete(int)}) beforehand.
+	 */
+	private void removeFromModel(int slot)
+	{
+		states.remove(slot);
+		probs[slot] = 0.0;
+		nextProbs[slot] = 0.0;
+		sums[slot] = 0.0;
+		rewards[slot] = 0.0;
 	}
 
 	/**
-	 * Computes successor rates and rewards for a given state.
+	 * Deletes the state in slot {@code slot}.
+	 * This means basically removing all of its successors. Beforehand,
+	 * their reference counter is decreased, because this state does no
+	 * longer count as a model state. It is left in the model however,
+	 * because it might still be the successor state of some alive state.
+	 */
+	private void delete(int slot)
+	{
+		setSuccs(slot, null, null);
+		alive[slot] = false;
+		probs[slot] = 0.0;
+		nextProbs[slot] = 0.0;
+	}
+
+	/**
+	 * Sets the successor states (slots) and rates to them for the state in slot {@code slot},
+	 * updating the reference counters of old and new successor states. 
+	 * The value {@code null} is allowed here (for both).
+	 */
+	private void setSuccs(int slot, int[] succs, double[] rates)
+	{
+		if (succStates[slot] != null) {
+			for (int succ : succStates[slot]) {
+				references[succ]--;
+			}
+		}
+		succStates[slot] = succs;
+		succRates[slot] = rates;
+		double sumRates = 0.0;
+		if (succs != null) {
+			for (int succNr = 0; succNr < succs.length; succNr++) {
+				references[succs[succNr]]++;
+				sumRates += rates[succNr];
+			}
+		}
+		exitRates[slot] = sumRates;
+	}
+
+	/**
+	 * Gets the number of states which are alive.
+	 */
+	private int getNumAlive()
+	{
+		int numAlive = 0;
+		for (int slot = 0; slot < states.getNumSlots(); slot++) {
+			if (states.isUsed(slot) && alive[slot]) {
+				numAlive++;
+			}
+		}
+		return numAlive;
+	}
+
+	/**
+	 * Gets the flags (see FLAG_KNOWN etc.) of the state in slot {@code slot},
+	 * computing them if they are not yet known.
+	 */
+	private byte getFlags(int slot) throws PrismException
+	{
+		if ((flags[slot] & FLAG_KNOWN) == 0) {
+			flags[slot] = exploreState(modelGen, states.getState(slot), false).flags;
+		}
+		return flags[slot];
+	}
+
+	/**
+	 * Computes successor rates and rewards for the states in slots
+	 * {@code slots[0]}, ..., {@code slots[num-1]}, adding any new successor states to the model.
 	 * Rewards computed depend on the reward structure set by
-	 * {@code setRewardStruct}.
+	 * {@code setRewardStruct}. Successors are generated in parallel, if possible,
+	 * but added to the model sequentially, in the same order as for sequential exploration.
 	 * 
-	 * @param state state to compute successor rates and rewards for
 	 * @throws PrismException thrown if something goes wrong
 	 */
-	private void computeStateRatesAndRewards(State state) throws PrismException
+	private void exploreStates(int[] slots, int num) throws PrismException
 	{
-		double[] succRates;
-		StateProp[] succStates;
-		modelGen.exploreState(state);
-		specialLabels.setLabel(0, modelGen.getNumTransitions() == 0 ? Expression.True() : Expression.False());
-		specialLabels.setLabel(1, initStates.contains(state) ? Expression.True() : Expression.False());
-		Expression evSink = sink.deepCopy();
-		evSink = (Expression) evSink.expandLabels(specialLabels);
-		if (evSink.evaluateBoolean(constantValues, state)) {
-			succRates = new double[1];
-			succStates = new StateProp[1];
-			succRates[0] = 1.0;
-			succStates[0] = states.get(state);
+		if (num == 0) {
+			return;
+		}
+		State[] statesToExplore = new State[num];
+		for (int i = 0; i < num; i++) {
+			statesToExplore[i] = states.getState(slots[i]);
+		}
+		ExploredState[] explored = new ExploredState[num];
+		if (numThreads > 1 && num > 2 * EXPLORE_CHUNK_SIZE && getModelGenCopies() != null) {
+			int[] indices = new int[num];
+			for (int i = 0; i < num; i++) {
+				indices[i] = i;
+			}
+			new ParallelIteration(numThreads, EXPLORE_CHUNK_SIZE).forEachChunk(indices, (array, from, to) -> {
+				ModelGenerator workerModelGen = modelGenCopies.poll();
+				if (workerModelGen == null) {
+					// The pool may run more threads than requested (e.g. to compensate for blocked ones),
+					// so create an extra copy if needed (it is kept for later use)
+					workerModelGen = modelGen.createCopy();
+				}
+				try {
+					for (int i = from; i < to; i++) {
+						explored[i] = exploreState(workerModelGen, statesToExplore[i], true);
+					}
+				} finally {
+					modelGenCopies.add(workerModelGen);
+				}
+				return true;
+			});
 		} else {
-			int ntAll = modelGen.getNumTransitions();
-			if (ntAll > 0) {
-				succRates = new double[ntAll];
-				succStates = new StateProp[ntAll];
+			for (int i = 0; i < num; i++) {
+				explored[i] = exploreState(modelGen, statesToExplore[i], true);
+			}
+		}
+		for (int i = 0; i < num; i++) {
+			int slot = slots[i];
+			ExploredState exploredState = explored[i];
+			if (exploredState.succs == null) {
+				setSuccs(slot, new int[] { slot }, new double[] { 1.0 });
+			} else {
+				int[] succs = new int[exploredState.succs.length];
+				for (int t = 0; t < succs.length; t++) {
+					int succ = states.get(exploredState.succs[t]);
+					succs[t] = succ != -1 ? succ : addToModel(exploredState.succs[t]);
+				}
+				setSuccs(slot, succs, exploredState.rates);
+			}
+			flags[slot] = exploredState.flags;
+		}
+		numExplored += num;
+	}
 
-				int t = 0;
-				for (int i = 0, nc = modelGen.getNumChoices(); i < nc; i++) {
-					for (int j = 0, ntChoice = modelGen.getNumTransitions(i); j < ntChoice; j++) {
-						State succState = modelGen.computeTransitionTarget(i, j);
-						StateProp succProp = states.get(succState);
-						if (null == succProp) {
-							addToModel(succState);
-							succProp = states.get(succState);
+	/**
+	 * Explores a state with a model generator, determining its flags and,
+	 * if {@code computeSuccs} is true, its successors and rates to them.
+	 * This only reads shared data, so it can be called concurrently,
+	 * with different model generators.
+	 */
+	private ExploredState exploreState(ModelGenerator modelGen, State state, boolean computeSuccs) throws PrismException
+	{
+		ExploredState exploredState = new ExploredState();
+		modelGen.exploreState(state);
+		int ntAll = modelGen.getNumTransitions();
+		boolean deadlock = ntAll == 0;
+		boolean isSink = evaluateWithSpecialLabels(sinkExprs, state, deadlock);
+		exploredState.flags = (byte) (FLAG_KNOWN | (deadlock ? FLAG_DEADLOCK : 0) | (isSink ? FLAG_SINK : 0));
+		if (computeSuccs && !isSink && !deadlock) {
+			exploredState.succs = new State[ntAll];
+			exploredState.rates = new double[ntAll];
+			int t = 0;
+			for (int i = 0, nc = modelGen.getNumChoices(); i < nc; i++) {
+				for (int j = 0, ntChoice = modelGen.getNumTransitions(i); j < ntChoice; j++) {
+					exploredState.succs[t] = modelGen.computeTransitionTarget(i, j);
+					exploredState.rates[t] = modelGen.getTransitionProbability(i, j);
+					t++;
+				}
+			}
+		}
+		return exploredState;
+	}
 
-							// re-explore state, as call to addToModel may have explored succState
-							modelGen.exploreState(state);
-						}
-						succRates[t] = modelGen.getTransitionProbability(i, j);
-						succStates[t] = succProp;
-						t++;
-					}
+	/**
+	 * Gets the copies of the model generator used for parallel exploration,
+	 * creating them if needed, or null if this is not possible.
+	 */
+	private ConcurrentLinkedQueue<ModelGenerator> getModelGenCopies() throws PrismException
+	{
+		if (!modelGenCopiesTried) {
+			modelGenCopiesTried = true;
+			ConcurrentLinkedQueue<ModelGenerator> copies = new ConcurrentLinkedQueue<>();
+			for (int t = 0; t < numThreads; t++) {
+				ModelGenerator copy = modelGen.createCopy();
+				if (copy == null) {
+					mainLog.printWarning("Parallel exploration is not supported for this model, exploring sequentially");
+					return null;
 				}
-			} else {
-				succRates = new double[1];
-				succStates = new StateProp[1];
-				succRates[0] = 1.0;
-				succStates[0] = states.get(state);
+				copies.add(copy);
 			}
+			modelGenCopies = copies;
 		}
-		states.get(state).setSuccRates(succRates);
-		states.get(state).setSuccStates(succStates);
+		return modelGenCopies;
+	}
+
+	/**
+	 * Expands the special labels ("deadlock", "init") in an expression, for each combination
+	 * of their values. Element (deadlock ? 1 : 0) + (init ? 2 : 0) of the returned array
+	 * is the expression for that combination.
+	 */
+	private Expression[] expandSpecialLabels(Expression expr) throws PrismLangException
+	{
+		Expression[] exprs = new Expression[4];
+		for (int i = 0; i < 4; i++) {
+			specialLabels.setLabel(0, (i & 1) != 0 ? Expression.True() : Expression.False());
+			specialLabels.setLabel(1, (i & 2) != 0 ? Expression.True() : Expression.False());
+			exprs[i] = (Expression) expr.deepCopy().expandLabels(specialLabels);
+		}
+		return exprs;
+	}
+
+	/**
+	 * Evaluates an expression, with special labels expanded (see {@link #expandSpecialLabels(Expression)}),
+	 * in a state, which is a deadlock if {@code deadlock} is true.
+	 */
+	private boolean evaluateWithSpecialLabels(Expression[] exprs, State state, boolean deadlock) throws PrismLangException
+	{
+		return exprs[(deadlock ? 1 : 0) + (initStates.contains(state) ? 2 : 0)].evaluateBoolean(constantValues, state);
 	}
 
 	/**
@@ -1145,23 +1134,27 @@ public final class FastAdaptiveUniformisation extends PrismComponent
 	 */
 	private void mvMult(double maxRate)
 	{
-		for (StateProp prop : states.values()) {
-			double[] succRates = prop.getSuccRates();
-			StateProp[] succStates = prop.getSuccStates();
-			double stateProb = prop.getProb();
-			if (null != succStates) {
+		int n = states.getNumSlots();
+		for (int slot = 0; slot < n; slot++) {
+			int[] succs = succStates[slot];
+			if (null != succs) {
+				double[] rates = succRates[slot];
+				double stateProb = probs[slot];
 				double sumRates = 0.0;
-				for (int succ = 0; succ < succStates.length; succ++) {
-				    double rate = succRates[succ];
+				for (int succ = 0; succ < succs.length; succ++) {
+				    double rate = rates[succ];
 				    sumRates += rate;
-				    succStates[succ].addToNextProb((rate / maxRate) * stateProb);
+				    nextProbs[succs[succ]] += (rate / maxRate) * stateProb;
 				}
-				prop.addToNextProb(((maxRate - sumRates) / maxRate) * prop.getProb());
+				nextProbs[slot] += ((maxRate - sumRates) / maxRate) * stateProb;
+				numStateUpdates++;
 			}
 		}
-		for (StateProp prop : states.values()) {
-			prop.prepareNextIteration();
-		}
+		// prepare next iteration: current probabilities are set to next ones, next ones to zero
+		double[] swap = probs;
+		probs = nextProbs;
+		nextProbs = swap;
+		Arrays.fill(nextProbs, 0, n, 0.0);
 	}
 
 	/**
@@ -28,7 +28,16 @@
 
 package explicit;
 
+import java.util.Arrays;
 import java.util.PrimitiveIterator;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import common.IntSet;
 import common.PeriodicTimer;
@@ -63,6 +72,17 @@ public abstract class IterationMethod {
 		/** Perform one iteration (over the set of states) and return true if convergence has been detected. */
 		public boolean iterateAndCheckConvergence(IntSet states) throws PrismException;
 
+		/**
+		 * Perform one iteration over the states of an SCC, whose successor SCCs are all finished,
+		 * and return true if convergence has been detected. The error for the states
+		 * (see {@link #getError()}) is stored in {@code error[0]}.
+		 * <br>
+		 * The result is the same as for {@link #iterateAndCheckConvergence(IntSet)},
+		 * but this only reads and writes the solution values of {@code states}
+		 * (and of the finished states), so it can be called concurrently for different SCCs.
+		 */
+		public boolean iterateAndCheckConvergenceSCC(IntSet states, double[] error) throws PrismException;
+
 		/**
 		 * Notify that the given states are done (e.g., because the given SCC is finished
 		 * during a topological iteration).
@@ -171,6 +191,23 @@ public abstract class IterationMethod {
 		{
 			super(model);
 		}
+
+		/** Perform one (in-place) iteration, for the states in {@code states}, and return the error */
+		public abstract double doIterate(IntSet states) throws PrismException;
+
+		@Override
+		public boolean iterateAndCheckConvergence(IntSet states) throws PrismException
+		{
+			error = doIterate(states);
+			return (error < termCritParam);
+		}
+
+		@Override
+		public boolean iterateAndCheckConvergenceSCC(IntSet states, double[] error) throws PrismException
+		{
+			error[0] = doIterate(states);
+			return (error[0] < termCritParam);
+		}
 	}
 
 	/** Abstract base class for an IterationIntervalIter with a single solution vector */
@@ -225,8 +262,21 @@ public abstract class IterationMethod {
 			System.arraycopy(soln, 0, soln2, 0, soln.length);
 		}
 
-		/** Perform one iteration */
-		public abstract void doIterate(IntSet states) throws PrismException;
+		/** Perform one iteration, for the states in {@code states} (from {@code soln} into {@code soln2}) */
+		public abstract void doIterate(PrimitiveIterator.OfInt states) throws PrismException;
+
+		/** Perform one iteration, in parallel if enabled */
+		protected void doIterate(IntSet states) throws PrismException
+		{
+			if (parallel == null) {
+				doIterate(states.iterator());
+			} else {
+				parallel.forEachChunk(states, (array, from, to) -> {
+					doIterate(ParallelIteration.iterator(array, from, to));
+					return true;
+				});
+			}
+		}
 
 		@Override
 		public void iterate(IntSet states) throws PrismException
@@ -247,6 +297,19 @@ public abstract class IterationMethod {
 		@Override
 		public boolean iterateAndCheckConvergence(IntSet states) throws PrismException
 		{
+			if (parallel != null && postProcessor == null) {
+				// do the iteration and check convergence chunk-wise, in parallel
+				boolean done = parallel.forEachChunk(states, (array, from, to) -> {
+					doIterate(ParallelIteration.iterator(array, from, to));
+					return PrismUtils.doublesAreClose(soln, soln2, ParallelIteration.iterator(array, from, to), termCritParam, absolute);
+				});
+				// switch vectors
+				double[] tmp = soln;
+				soln = soln2;
+				soln2 = tmp;
+				return done;
+			}
+
 			// do the iteration
 			doIterate(states);
 			// optionally, post processing
@@ -264,6 +327,64 @@ public abstract class IterationMethod {
 			return done;
 		}
 
+		@Override
+		public boolean iterateAndCheckConvergenceSCC(IntSet states, double[] error) throws PrismException
+		{
+			if (parallel == null || postProcessor != null || states.count() <= 2 * parallel.getChunkSize()) {
+				// do the iteration
+				doIterate(states.iterator());
+				// optionally, post processing
+				if (postProcessor != null) {
+					postProcessor.apply(soln, soln2, states);
+				}
+				return checkAndSwitch(states.iterator(), error);
+			}
+
+			// large SCC: iterate chunk-wise, in parallel, then check convergence and switch,
+			// which must be done separately since the new values are read by other chunks
+			int[] array = states.stream().toArray();
+			parallel.forEachChunk(array, (a, from, to) -> {
+				doIterate(ParallelIteration.iterator(a, from, to));
+				return true;
+			});
+			DoubleAccumulator maxError = new DoubleAccumulator(Math::max, 0.0);
+			boolean done = parallel.forEachChunk(array, (a, from, to) -> {
+				double[] chunkError = new double[1];
+				boolean chunkDone = checkAndSwitch(ParallelIteration.iterator(a, from, to), chunkError);
+				maxError.accumulate(chunkError[0]);
+				return chunkDone;
+			});
+			error[0] = maxError.get();
+			return done;
+		}
+
+		/**
+		 * For the given states, check convergence (as in {@link #iterateAndCheckConvergence(IntSet)}),
+		 * store the error (as in {@link #getError()}) in {@code error[0]} and switch the values
+		 * in the two vectors, i.e., do the vector switch for these states only.
+		 */
+		private boolean checkAndSwitch(PrimitiveIterator.OfInt states, double[] error)
+		{
+			boolean done = true;
+			double maxDiff = 0;
+			while (states.hasNext()) {
+				int state = states.nextInt();
+				double oldValue = soln[state];
+				double newValue = soln2[state];
+				if (done && !PrismUtils.doublesAreClose(oldValue, newValue, termCritParam, absolute)) {
+					done = false;
+				}
+				double diff = absolute ? PrismUtils.measureSupNormAbs(newValue, oldValue) : PrismUtils.measureSupNormRel(newValue, oldValue);
+				if (diff > maxDiff) {
+					maxDiff = diff;
+				}
+				soln[state] = newValue;
+				soln2[state] = oldValue;
+			}
+			error[0] = maxDiff;
+			return done;
+		}
+
 		@Override
 		public double getError()
 		{
@@ -314,6 +435,8 @@ public abstract class IterationMethod {
 	protected final boolean absolute;
 	/** Convergence check: epsilon value */
 	protected final double termCritParam;
+	/** For parallel iteration (null if sequential) */
+	protected ParallelIteration parallel = null;
 
 	/**
 	 * Constructor.
@@ -326,6 +449,18 @@ public abstract class IterationMethod {
 		this.termCritParam = termCritParam;
 	}
 
+	/**
+	 * Set the number of threads to use for iterations.
+	 * Within an iteration, this only affects methods where state values are computed independently
+	 * (e.g. Power, Jacobi), not Gauss-Seidel. For topological value iteration, independent SCCs
+	 * are also solved in parallel, for all methods.
+	 * Results are unaffected, other than (possibly) the order of floating-point operations.
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		parallel = numThreads > 1 ? new ParallelIteration(numThreads) : null;
+	}
+
 	// ------------ Abstract DTMC methods ----------------------------
 
 	/** Obtain an Iteration object using mvMult (matrix-vector multiplication) in a DTMC */
@@ -485,6 +620,10 @@ public abstract class IterationMethod {
 	 */
 	public ModelCheckerResult doTopologicalValueIteration(ProbModelChecker mc, String description, SCCInfo sccs, IterationMethod.IterationValIter iterator, SingletonSCCSolver singletonSCCSolver, long startTime, ExportIterations iterationsExport) throws PrismException
 	{
+		if (parallel != null) {
+			return doTopologicalValueIterationParallel(mc, description, sccs, iterator, singletonSCCSolver, startTime, iterationsExport);
+		}
+
 		// Start iterations
 		int iters = 0;
 		long mvCount = 0;
@@ -583,6 +722,303 @@ public abstract class IterationMethod {
 		return res;
 	}
 
+	/**
+	 * Perform the actual work of a topological value iteration, as for
+	 * {@link #doTopologicalValueIteration}, but solving independent SCCs in parallel.
+	 * <br>
+	 * The SCCs are treated as a task graph, in which an SCC is ready once all of its successor SCCs
+	 * have been solved; ready SCCs are then solved by the fork-join pool used for parallel iteration.
+	 * Singleton SCCs are solved in batches, within a single task, to avoid the overhead of a task per state.
+	 * Each SCC is iterated in exactly the same way as for the sequential method, so the results are the same.
+	 * If {@code iterationsExport} is non-null, the solution vector is exported after each iteration
+	 * of each SCC, as for the sequential method, but in an order that depends on scheduling.
+	 */
+	private ModelCheckerResult doTopologicalValueIterationParallel(ProbModelChecker mc, String description, SCCInfo sccs, IterationMethod.IterationValIter iterator, SingletonSCCSolver singletonSCCSolver, long startTime, ExportIterations iterationsExport) throws PrismException
+	{
+		SCCScheduler scheduler = new SCCScheduler(mc, sccs, iterator, singletonSCCSolver, iterationsExport);
+		boolean done = scheduler.run();
+		long iters = scheduler.iters.sum();
+
+		// Finished value iteration
+		long timer = System.currentTimeMillis() - startTime;
+		mc.getLog().print("Value iteration (" + description + ", with " + scheduler.numNonSingletonSCCs + " non-singleton SCCs)");
+		mc.getLog().print(" took " + iters + " iterations, ");
+		mc.getLog().print(scheduler.mvCount.sum() + " multiplications");
+		mc.getLog().println(" and " + timer / 1000.0 + " seconds.");
+
+		if (iterationsExport != null)
+			iterationsExport.close();
+
+		// Non-convergence is an error (usually)
+		if (!done && mc.errorOnNonConverge) {
+			String msg = "Iterative method did not converge within " + iters + " iterations.";
+			msg += "\nConsider using a different numerical method or increasing the maximum number of iterations";
+			throw new PrismException(msg);
+		}
+
+		// Return results
+		ModelCheckerResult res = new ModelCheckerResult();
+		res.soln = iterator.getSolnVector();
+		res.accuracy = AccuracyFactory.valueIteration(termCritParam, scheduler.error.get(), absolute);
+		res.numIters = (int) iters;
+		res.timeTaken = timer / 1000.0;
+		return res;
+	}
+
+	/**
+	 * Scheduler for solving the SCCs of a topological value iteration in parallel
+	 * (see {@link IterationMethod#doTopologicalValueIterationParallel}).
+	 */
+	private class SCCScheduler
+	{
+		/** Maximum number of ready singleton SCCs that are kept by a task before the rest are split off */
+		private static final int BATCH_SIZE = 256;
+
+		private final ProbModelChecker mc;
+		private final SCCInfo sccs;
+		private final IterationValIter iterator;
+		private final SingletonSCCSolver singletonSCCSolver;
+		private final ExportIterations iterationsExport;
+		private final int numNonSingletonSCCs;
+
+		/** Predecessor SCCs of each SCC: preds[predStart[i]], ..., preds[predStart[i+1]-1] */
+		private int[] predStart;
+		private int[] preds;
+		/** For each SCC, the number of successor SCCs that have not been solved yet */
+		private AtomicIntegerArray pending;
+
+		/** Statistics, and the max error over all SCCs */
+		private final LongAdder iters = new LongAdder();
+		private final LongAdder mvCount = new LongAdder();
+		private final AtomicInteger finishedNonSingletonSCCs = new AtomicInteger();
+		private final DoubleAccumulator error = new DoubleAccumulator(Math::max, 0.0);
+
+		/** Set once an SCC did not converge or an exception occurred, so that everything stops */
+		private volatile boolean failed = false;
+		/** The first exception thrown while solving an SCC, if any */
+		private final AtomicReference<Throwable> exception = new AtomicReference<>();
+
+		private final PeriodicTimer updatesTimer = new PeriodicTimer(ProbModelChecker.UPDATE_DELAY);
+
+		public SCCScheduler(ProbModelChecker mc, SCCInfo sccs, IterationValIter iterator, SingletonSCCSolver singletonSCCSolver, ExportIterations iterationsExport)
+		{
+			this.mc = mc;
+			this.sccs = sccs;
+			this.iterator = iterator;
+			this.singletonSCCSolver = singletonSCCSolver;
+			this.iterationsExport = iterationsExport;
+			numNonSingletonSCCs = sccs.countNonSingletonSCCs();
+			buildDependencies();
+		}
+
+		/**
+		 * Determine, for each SCC, the (distinct) SCCs that it depends on (i.e., its successors),
+		 * and store the reverse relation.
+		 */
+		private void buildDependencies()
+		{
+			int numSCCs = sccs.getNumSCCs();
+			Model model = iterator.getModel();
+			int[] numSuccs = new int[numSCCs];
+			predStart = new int[numSCCs + 1];
+			// last[j] == i iff SCC j has already been seen as a successor of SCC i
+			int[] last = new int[numSCCs];
+			Arrays.fill(last, -1);
+			for (int scc = 0; scc < numSCCs; scc++) {
+				PrimitiveIterator.OfInt states = sccs.getStatesForSCC(scc).iterator();
+				while (states.hasNext()) {
+					SuccessorsIterator succs = model.getSuccessors(states.nextInt());
+					while (succs.hasNext()) {
+						int succSCC = sccs.getSCCIndex(succs.nextInt());
+						if (succSCC >= 0 && succSCC != scc && last[succSCC] != scc) {
+							last[succSCC] = scc;
+							numSuccs[scc]++;
+							predStart[succSCC + 1]++;
+						}
+					}
+				}
+			}
+			for (int scc = 0; scc < numSCCs; scc++) {
+				predStart[scc + 1] += predStart[scc];
+			}
+			preds = new int[predStart[numSCCs]];
+			int[] next = Arrays.copyOf(predStart, numSCCs);
+			Arrays.fill(last, -1);
+			for (int scc = 0; scc < numSCCs; scc++) {
+				PrimitiveIterator.OfInt states = sccs.getStatesForSCC(scc).iterator();
+				while (states.hasNext()) {
+					SuccessorsIterator succs = model.getSuccessors(states.nextInt());
+					while (succs.hasNext()) {
+						int succSCC = sccs.getSCCIndex(succs.nextInt());
+						if (succSCC >= 0 && succSCC != scc && last[succSCC] != scc) {
+							last[succSCC] = scc;
+							preds[next[succSCC]++] = scc;
+						}
+					}
+				}
+			}
+			pending = new AtomicIntegerArray(numSuccs);
+		}
+
+		/**
+		 * Solve all SCCs, return true if all of them converged.
+		 */
+		public boolean run() throws PrismException
+		{
+			updatesTimer.start();
+			SCCTask root = new SCCTask(null);
+			for (int scc = sccs.getNumSCCs() - 1; scc >= 0; scc--) {
+				if (pending.get(scc) == 0) {
+					root.push(scc);
+				}
+			}
+			ForkJoinPool pool = parallel.getPool();
+			if (ForkJoinTask.getPool() == pool) {
+				root.invoke();
+			} else {
+				pool.invoke(root);
+			}
+			Throwable e = exception.get();
+			if (e instanceof PrismException) {
+				throw (PrismException) e;
+			} else if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			} else if (e instanceof Error) {
+				throw (Error) e;
+			}
+			return !failed;
+		}
+
+		/**
+		 * Solve an SCC, return true if it converged.
+		 */
+		private boolean solve(int scc) throws PrismException
+		{
+			if (sccs.isSingletonSCC(scc)) {
+				// get the single state in this SCC
+				int state = sccs.getStatesForSCC(scc).iterator().nextInt();
+				iterator.solveSingletonSCC(state, singletonSCCSolver);
+				mvCount.add(iterator.getModel().getNumTransitions(state));
+				iters.increment();
+				exportIteration();
+				return true;
+			}
+
+			// complex SCC: do VI
+			boolean doneSCC = false;
+			IntSet statesForSCC = sccs.getStatesForSCC(scc);
+			double[] errorSCC = new double[1];
+			int itersInSCC = 0;
+			// abort on convergence or if iterations *in this SCC* are above maxIters
+			while (!doneSCC && itersInSCC < mc.maxIters && !failed) {
+				iters.increment();
+				itersInSCC++;
+				// do iteration step
+				doneSCC = iterator.iterateAndCheckConvergenceSCC(statesForSCC, errorSCC);
+				exportIteration();
+				if (!doneSCC) {
+					reportProgress();
+				}
+			}
+			error.accumulate(errorSCC[0]);
+			// store the values in the second vector of a two-vector iterator
+			iterator.doneWith(statesForSCC);
+			mvCount.add(itersInSCC * iterator.getModel().getNumTransitions(statesForSCC.iterator()));
+			finishedNonSingletonSCCs.incrementAndGet();
+			return doneSCC;
+		}
+
+		private void exportIteration() throws PrismException
+		{
+			if (iterationsExport != null) {
+				synchronized (iterationsExport) {
+					iterationsExport.exportVector(iterator.getSolnVector(), 0);
+				}
+			}
+		}
+
+		private void reportProgress()
+		{
+			synchronized (updatesTimer) {
+				if (updatesTimer.triggered()) {
+					mc.getLog().print("Iteration " + iters.sum() + ": ");
+					mc.getLog().print(finishedNonSingletonSCCs.get() + " of " + numNonSingletonSCCs + " non-singleton SCCs finished");
+					mc.getLog().println(", " + PrismUtils.formatDouble2dp(updatesTimer.elapsedMillisTotal() / 1000.0) + " sec so far");
+				}
+			}
+		}
+
+		/**
+		 * Task that solves a stack of ready SCCs, together with any SCCs that become ready as a result
+		 * (singletons are kept, other SCCs are passed on to new tasks where possible).
+		 */
+		@SuppressWarnings("serial")
+		private class SCCTask extends CountedCompleter<Void>
+		{
+			private int[] stack = new int[16];
+			private int size = 0;
+
+			public SCCTask(CountedCompleter<?> parent)
+			{
+				super(parent);
+			}
+
+			private void push(int scc)
+			{
+				if (size == stack.length) {
+					stack = Arrays.copyOf(stack, 2 * size);
+				}
+				stack[size++] = scc;
+			}
+
+			private void fork(int[] sccsToSolve, int from, int to)
+			{
+				SCCTask task = new SCCTask(this);
+				for (int i = from; i < to; i++) {
+					task.push(sccsToSolve[i]);
+				}
+				addToPendingCount(1);
+				task.fork();
+			}
+
+			@Override
+			public void compute()
+			{
+				try {
+					while (size > 0 && !failed) {
+						int scc = stack[--size];
+						if (size > 0 && !sccs.isSingletonSCC(scc)) {
+							// there is other work here, so solve the SCC in its own task
+							fork(stack, size, size + 1);
+							continue;
+						}
+						if (!solve(scc)) {
+							failed = true;
+							break;
+						}
+						// any predecessors that are now ready can be solved
+						for (int i = predStart[scc]; i < predStart[scc + 1]; i++) {
+							if (pending.decrementAndGet(preds[i]) == 0) {
+								push(preds[i]);
+							}
+						}
+						// too much work for one task: split off the older half
+						if (size > BATCH_SIZE) {
+							int half = size / 2;
+							fork(stack, 0, half);
+							System.arraycopy(stack, half, stack, 0, size - half);
+							size -= half;
+						}
+					}
+				} catch (Throwable e) {
+					exception.compareAndSet(null, e);
+					failed = true;
+				}
+				tryComplete();
+			}
+		}
+	}
+
 	/**
 	 * Perform the actual work of an interval iteration, i.e., iterate until convergence or abort.
 	 *
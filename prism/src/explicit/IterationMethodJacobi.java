@@ -26,7 +26,8 @@
 
 package explicit;
 
-import common.IntSet;
+import java.util.PrimitiveIterator;
+
 import explicit.rewards.MCRewards;
 import explicit.rewards.MDPRewards;
 import prism.PrismException;
@@ -52,9 +53,9 @@ class IterationMethodJacobi extends IterationMethod {
 	{
 		return new TwoVectorIteration(dtmc, null) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMultJac(soln, soln2, states.iterator());
+				dtmc.mvMultJac(soln, soln2, states);
 			}
 		};
 	}
@@ -68,9 +69,9 @@ class IterationMethodJacobi extends IterationMethod {
 
 		return new TwoVectorIteration(dtmc, post) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMultJac(soln, soln2, states.iterator());
+				dtmc.mvMultJac(soln, soln2, states);
 			}
 		};
 	}
@@ -80,9 +81,9 @@ class IterationMethodJacobi extends IterationMethod {
 	{
 		return new TwoVectorIteration(dtmc, null) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMultRewJac(soln, rew, soln2, states.iterator());
+				dtmc.mvMultRewJac(soln, rew, soln2, states);
 			}
 		};
 	}
@@ -96,9 +97,9 @@ class IterationMethodJacobi extends IterationMethod {
 
 		return new TwoVectorIteration(dtmc, post) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMultRewJac(soln, rew, soln2, states.iterator());
+				dtmc.mvMultRewJac(soln, rew, soln2, states);
 			}
 		};
 	}
@@ -26,7 +26,8 @@
 
 package explicit;
 
-import common.IntSet;
+import java.util.PrimitiveIterator;
+
 import explicit.rewards.MCRewards;
 import explicit.rewards.MDPRewards;
 import prism.PrismException;
@@ -51,9 +52,9 @@ public class IterationMethodPower extends IterationMethod {
 	{
 		return new TwoVectorIteration(dtmc, null) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMult(soln, soln2, states.iterator());
+				dtmc.mvMult(soln, soln2, states);
 			}
 		};
 	}
@@ -67,9 +68,9 @@ public class IterationMethodPower extends IterationMethod {
 
 		return new TwoVectorIteration(dtmc, post) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMult(soln, soln2, states.iterator());
+				dtmc.mvMult(soln, soln2, states);
 			}
 		};
 	}
@@ -79,9 +80,9 @@ public class IterationMethodPower extends IterationMethod {
 	{
 		return new TwoVectorIteration(dtmc, null) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMultRew(soln, rew, soln2, states.iterator());
+				dtmc.mvMultRew(soln, rew, soln2, states);
 			}
 		};
 	}
@@ -95,9 +96,9 @@ public class IterationMethodPower extends IterationMethod {
 
 		return new TwoVectorIteration(dtmc, post) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				dtmc.mvMultRew(soln, rew, soln2, states.iterator());
+				dtmc.mvMultRew(soln, rew, soln2, states);
 			}
 		};
 	}
@@ -107,9 +108,9 @@ public class IterationMethodPower extends IterationMethod {
 	{
 		return new TwoVectorIteration(mdp, null) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				mdp.mvMultMinMax(soln, min, soln2, states.iterator(), strat);
+				mdp.mvMultMinMax(soln, min, soln2, states, strat);
 			}
 		};
 	}
@@ -124,9 +125,9 @@ public class IterationMethodPower extends IterationMethod {
 
 		return new TwoVectorIteration(mdp, post) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				mdp.mvMultMinMax(soln, min, soln2, states.iterator(), strat);
+				mdp.mvMultMinMax(soln, min, soln2, states, strat);
 			}
 		};
 	}
@@ -142,9 +143,9 @@ public class IterationMethodPower extends IterationMethod {
 	{
 		return new TwoVectorIteration(mdp, null) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				mdp.mvMultRewMinMax(soln, rewards, min, soln2, states.iterator(), strat);
+				mdp.mvMultRewMinMax(soln, rewards, min, soln2, states, strat);
 			}
 		};
 	}
@@ -159,9 +160,9 @@ public class IterationMethodPower extends IterationMethod {
 
 		return new TwoVectorIteration(mdp, post) {
 			@Override
-			public void doIterate(IntSet states)
+			public void doIterate(PrimitiveIterator.OfInt states)
 			{
-				mdp.mvMultRewMinMax(soln, rewards, min, soln2, states.iterator(), strat);
+				mdp.mvMultRewMinMax(soln, rewards, min, soln2, states, strat);
 			}
 		};
 	}
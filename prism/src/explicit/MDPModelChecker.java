@@ -48,7 +48,6 @@ import explicit.rewards.MCRewardsFromMDPRewards;
 import explicit.rewards.MDPRewards;
 import explicit.rewards.Rewards;
 import parser.ast.Expression;
-import parser.type.TypeDouble;
 import prism.AccuracyFactory;
 import prism.OptionsIntervalIteration;
 import prism.Prism;
@@ -118,7 +117,7 @@ public class MDPModelChecker extends ProbModelChecker
 
 		// Subtract from 1 if we're model checking a negated formula for regular Pmin
 		if (minMax.isMin()) {
-			probsProduct.applyFunction(TypeDouble.getInstance(), v -> 1.0 - (double) v);
+			probsProduct.applyDoubleFunction(v -> 1.0 - v, null);
 		}
 
 		// Output vector over product, if required
@@ -511,9 +510,11 @@ public class MDPModelChecker extends ProbModelChecker
 		switch (method) {
 		case VALUE_ITERATION:
 			iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+			iterationMethod.setNumThreads(numIterationThreads);
 			break;
 		case GAUSS_SEIDEL:
 			iterationMethod = new IterationMethodGS(termCrit == TermCrit.ABSOLUTE, termCritParam, false);
+			iterationMethod.setNumThreads(numIterationThreads);
 			break;
 		case POLICY_ITERATION:
 			if (doIntervalIteration) {
@@ -590,22 +591,31 @@ public class MDPModelChecker extends ProbModelChecker
 		if (remain != null)
 			unknown.and(remain);
 
-		// Fixed point loop
-		iters = 0;
-		u_done = false;
-		// Least fixed point - should start from 0 but we optimise by
-		// starting from 'target', thus bypassing first iteration
-		u.or(target);
-		soln.or(target);
-		while (!u_done) {
-			iters++;
-			// Single step of Prob0
-			mdp.prob0step(unknown, u, min, soln);
-			// Check termination
-			u_done = soln.equals(u);
-			// u = soln
-			u.clear();
-			u.or(soln);
+		if (!min && preRel) {
+			// For max, the states with some path to 'target' (remaining in 'remain')
+			// can be found with a single backwards search in the underlying graph,
+			// where all the 'target' states are made absorbing
+			PredecessorRelation pre = mdp.getPredecessorRelation(this, true);
+			u = pre.calculatePreStar(remain, target, target);
+			iters = 0;
+		} else {
+			// Fixed point loop
+			iters = 0;
+			u_done = false;
+			// Least fixed point - should start from 0 but we optimise by
+			// starting from 'target', thus bypassing first iteration
+			u.or(target);
+			soln.or(target);
+			while (!u_done) {
+				iters++;
+				// Single step of Prob0
+				mdp.prob0step(unknown, u, min, soln);
+				// Check termination
+				u_done = soln.equals(u);
+				// u = soln
+				u.clear();
+				u.or(soln);
+			}
 		}
 
 		// Negate
@@ -615,7 +625,11 @@ public class MDPModelChecker extends ProbModelChecker
 		timer = System.currentTimeMillis() - timer;
 		if (!silentPrecomputations) {
 			mainLog.print("Prob0 (" + (min ? "min" : "max") + ")");
-			mainLog.println(" took " + iters + " iterations and " + timer / 1000.0 + " seconds.");
+			if (iters > 0) {
+				mainLog.println(" took " + iters + " iterations and " + timer / 1000.0 + " seconds.");
+			} else {
+				mainLog.println(" took " + timer / 1000.0 + " seconds.");
+			}
 		}
 
 		// If required, generate strategy. This is for min probs,
@@ -760,6 +774,7 @@ public class MDPModelChecker extends ProbModelChecker
 			throws PrismException
 	{
 		IterationMethodPower iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+		iterationMethod.setNumThreads(numIterationThreads);
 		return doValueIterationReachProbs(mdp, no, yes, min, init, known, iterationMethod, false, strat);
 	}
 
@@ -2224,9 +2239,11 @@ public class MDPModelChecker extends ProbModelChecker
 		switch (method) {
 		case VALUE_ITERATION:
 			iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+			iterationMethod.setNumThreads(numIterationThreads);
 			break;
 		case GAUSS_SEIDEL:
 			iterationMethod = new IterationMethodGS(termCrit == TermCrit.ABSOLUTE, termCritParam, false);
+			iterationMethod.setNumThreads(numIterationThreads);
 			break;
 		case POLICY_ITERATION:
 			if (doIntervalIteration) {
@@ -2266,6 +2283,7 @@ public class MDPModelChecker extends ProbModelChecker
 			throws PrismException
 	{
 		IterationMethodPower iterationMethod = new IterationMethodPower(termCrit == TermCrit.ABSOLUTE, termCritParam);
+		iterationMethod.setNumThreads(numIterationThreads);
 		return doValueIterationReachRewards(mdp, mdpRewards, iterationMethod, target, inf, min, init, known, false, strat);
 	}
 
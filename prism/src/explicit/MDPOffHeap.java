@@ -0,0 +1,889 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import common.IterableStateSet;
+import common.OffHeapArray;
+import explicit.rewards.MCRewards;
+import explicit.rewards.MDPRewards;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+import prism.PrismUtils;
+
+/**
+ * Sparse matrix (non-mutable) explicit-state representation of an MDP,
+ * stored outside of the Java heap (see {@link OffHeapArray}), either in direct buffers
+ * or memory-mapped from a {@link BinaryModelFile}.
+ * Apart from where the arrays live, this is the same as {@link MDPSparse},
+ * except that transitions are indexed by {@code long}s, so there can be more than 2^31 of them.
+ */
+public class MDPOffHeap extends MDPExplicit
+{
+	/** Probabilities for each transition (size numTransitions) */
+	protected OffHeapArray.OfDouble nonZeros;
+	/** Column (destination) indices for each transition (size numTransitions) */
+	protected OffHeapArray.OfInt cols;
+	/** Indices into nonZeros/cols giving the start of each choice (distribution) (size numChoices+1) */
+	protected OffHeapArray.OfLong choiceStarts;
+	/** Indices into choiceStarts giving the start of the choices for each state (size numStates+1) */
+	protected OffHeapArray.OfInt rowStarts;
+	/** Index (into actionList) of the action label for each choice, or -1 if unlabelled (null if no actions) */
+	protected OffHeapArray.OfInt actionIndices;
+	/** Action labels, indexed by actionIndices */
+	protected List<Object> actionList;
+
+	// Other statistics
+	protected int numDistrs;
+	protected long numTransitions;
+	protected int maxNumDistrs;
+
+	/**
+	 * Constructor: create from sparse matrix arrays (which are not copied).
+	 * Initial states, labels, etc. need to be added separately.
+	 * @param actionIndices Action index of each choice (may be {@code null} if there are no action labels)
+	 * @param actionList Action labels, indexed by {@code actionIndices}
+	 */
+	public MDPOffHeap(int numStates, OffHeapArray.OfInt rowStarts, OffHeapArray.OfLong choiceStarts, OffHeapArray.OfInt cols, OffHeapArray.OfDouble nonZeros, OffHeapArray.OfInt actionIndices, List<Object> actionList)
+	{
+		initialise(numStates);
+		this.rowStarts = rowStarts;
+		this.choiceStarts = choiceStarts;
+		this.cols = cols;
+		this.nonZeros = nonZeros;
+		this.actionIndices = actionIndices;
+		this.actionList = actionList;
+		numDistrs = rowStarts.get(numStates);
+		numTransitions = choiceStarts.get(numDistrs);
+		maxNumDistrs = 0;
+		for (int s = 0; s < numStates; s++) {
+			maxNumDistrs = Math.max(maxNumDistrs, getNumChoices(s));
+		}
+	}
+
+	/**
+	 * Constructor: copy an arbitrary MDP into off-heap storage.
+	 */
+	public MDPOffHeap(MDP mdp)
+	{
+		initialise(mdp.getNumStates());
+		copyFrom(mdp);
+
+		// Copy stats (counting transitions as longs, in case of overflow)
+		numDistrs = mdp.getNumChoices();
+		numTransitions = 0;
+		for (int s = 0; s < numStates; s++) {
+			numTransitions += mdp.getNumTransitions(s);
+		}
+		maxNumDistrs = mdp.getMaxNumChoices();
+		// Allocate transition function
+		nonZeros = OffHeapArray.OfDouble.allocate(numTransitions);
+		cols = OffHeapArray.OfInt.allocate(numTransitions);
+		choiceStarts = OffHeapArray.OfLong.allocate(numDistrs + 1L);
+		rowStarts = OffHeapArray.OfInt.allocate(numStates + 1L);
+		Map<Object, Integer> actionIndexMap = new HashMap<>();
+		actionList = new ArrayList<>();
+
+		// Copy transition function
+		int rowIndex = 0;
+		long choiceIndex = 0;
+		for (int s = 0; s < numStates; s++) {
+			rowStarts.set(s, rowIndex);
+			for (int i = 0, numChoices = mdp.getNumChoices(s); i < numChoices; i++) {
+				Object action = mdp.getAction(s, i);
+				if (action != null) {
+					if (actionIndices == null) {
+						actionIndices = OffHeapArray.OfInt.allocate(numDistrs);
+						for (int j = 0; j < rowIndex; j++) {
+							actionIndices.set(j, -1);
+						}
+					}
+					actionIndices.set(rowIndex, actionIndexMap.computeIfAbsent(action, a -> {
+						actionList.add(a);
+						return actionList.size() - 1;
+					}));
+				} else if (actionIndices != null) {
+					actionIndices.set(rowIndex, -1);
+				}
+				choiceStarts.set(rowIndex, choiceIndex);
+				for (Iterator<Entry<Integer, Double>> transitions = mdp.getTransitionsIterator(s, i); transitions.hasNext();) {
+					Entry<Integer, Double> trans = transitions.next();
+					cols.set(choiceIndex, trans.getKey());
+					nonZeros.set(choiceIndex, trans.getValue());
+					choiceIndex++;
+				}
+				rowIndex++;
+			}
+		}
+		choiceStarts.set(numDistrs, numTransitions);
+		rowStarts.set(numStates, numDistrs);
+	}
+
+	@Override
+	public void buildFromPrismExplicit(String filename) throws PrismException
+	{
+		throw new PrismNotSupportedException("Building MDPOffHeap currently not supported from PrismExplicit");
+	}
+
+	// Accessors (for Model)
+
+	@Override
+	public int getNumTransitions()
+	{
+		return Math.toIntExact(numTransitions);
+	}
+
+	/**
+	 * Get the total number of transitions in the model,
+	 * which (unlike {@link #getNumTransitions()}) may exceed 2^31.
+	 */
+	public long getNumTransitionsLong()
+	{
+		return numTransitions;
+	}
+
+	@Override
+	public String infoString()
+	{
+		String s = "";
+		s += numStates + " states (" + getNumInitialStates() + " initial)";
+		s += ", " + numTransitions + " transitions";
+		s += ", " + numDistrs + " choices";
+		s += ", dist max/avg = " + maxNumDistrs + "/" + PrismUtils.formatDouble2dp(((double) numDistrs) / numStates);
+		return s;
+	}
+
+	@Override
+	public String infoStringTable()
+	{
+		String s = "";
+		s += "States:      " + numStates + " (" + getNumInitialStates() + " initial)\n";
+		s += "Transitions: " + numTransitions + "\n";
+		s += "Choices:     " + numDistrs + "\n";
+		s += "Max/avg:     " + maxNumDistrs + "/" + PrismUtils.formatDouble2dp(((double) numDistrs) / numStates) + "\n";
+		return s;
+	}
+
+	@Override
+	public int getNumTransitions(int s)
+	{
+		return Math.toIntExact(choiceStarts.get(rowStarts.get(s + 1)) - choiceStarts.get(rowStarts.get(s)));
+	}
+
+	private SuccessorsIterator colsIterator(long start, long end, boolean distinct)
+	{
+		return new SuccessorsIterator() {
+			long cur = start;
+
+			@Override
+			public boolean successorsAreDistinct()
+			{
+				return distinct;
+			}
+
+			@Override
+			public boolean hasNext()
+			{
+				return cur < end;
+			}
+
+			@Override
+			public int nextInt()
+			{
+				return cols.get(cur++);
+			}
+		};
+	}
+
+	@Override
+	public SuccessorsIterator getSuccessors(final int s)
+	{
+		// Assumes that only non-zero entries are stored
+		long start = choiceStarts.get(rowStarts.get(s));
+		long end = choiceStarts.get(rowStarts.get(s + 1));
+		// we can guarantee that the successors are distinct if there is at most one successor...
+		boolean distinct = (start == end || start + 1 == end);
+		return colsIterator(start, end, distinct);
+	}
+
+	@Override
+	public void findDeadlocks(boolean fix) throws PrismException
+	{
+		for (int i = 0; i < numStates; i++) {
+			// Note that no distributions is a deadlock, not an empty distribution
+			if (getNumChoices(i) == 0) {
+				addDeadlockState(i);
+				if (fix) {
+					throw new PrismException("Can't fix deadlocks in an MDPOffHeap since it cannot be modified");
+				}
+			}
+		}
+	}
+
+	@Override
+	public void checkForDeadlocks(BitSet except) throws PrismException
+	{
+		for (int i = 0; i < numStates; i++) {
+			if (getNumChoices(i) == 0 && (except == null || !except.get(i)))
+				throw new PrismException("MDP has a deadlock in state " + i);
+		}
+	}
+
+	// Accessors (for NondetModel)
+
+	@Override
+	public int getNumChoices(int s)
+	{
+		return rowStarts.get(s + 1) - rowStarts.get(s);
+	}
+
+	@Override
+	public int getMaxNumChoices()
+	{
+		return maxNumDistrs;
+	}
+
+	@Override
+	public int getNumChoices()
+	{
+		return numDistrs;
+	}
+
+	@Override
+	public Object getAction(int s, int i)
+	{
+		if (i < 0 || actionIndices == null) {
+			return null;
+		}
+		int a = actionIndices.get(rowStarts.get(s) + i);
+		return a < 0 ? null : actionList.get(a);
+	}
+
+	@Override
+	public SuccessorsIterator getSuccessors(final int s, final int i)
+	{
+		long start = choiceStarts.get(rowStarts.get(s) + i);
+		long end = choiceStarts.get(rowStarts.get(s) + i + 1);
+		// we assume here that the successors for a single choice are distinct
+		return colsIterator(start, end, true);
+	}
+
+	// Accessors (for MDP)
+
+	@Override
+	public int getNumTransitions(int s, int i)
+	{
+		return (int) (choiceStarts.get(rowStarts.get(s) + i + 1) - choiceStarts.get(rowStarts.get(s) + i));
+	}
+
+	@Override
+	public void forEachTransition(int s, int i, TransitionConsumer c)
+	{
+		for (long col = choiceStarts.get(rowStarts.get(s) + i), stop = choiceStarts.get(rowStarts.get(s) + i + 1); col < stop; col++) {
+			c.accept(s, cols.get(col), nonZeros.get(col));
+		}
+	}
+
+	@Override
+	public Iterator<Entry<Integer, Double>> getTransitionsIterator(final int s, final int i)
+	{
+		return new Iterator<Entry<Integer, Double>>()
+		{
+			final long start = choiceStarts.get(rowStarts.get(s) + i);
+			long col = start;
+			final long end = choiceStarts.get(rowStarts.get(s) + i + 1);
+
+			@Override
+			public boolean hasNext()
+			{
+				return col < end;
+			}
+
+			@Override
+			public Entry<Integer, Double> next()
+			{
+				assert (col < end);
+				final long i = col;
+				col++;
+				return new AbstractMap.SimpleImmutableEntry<>(cols.get(i), nonZeros.get(i));
+			}
+		};
+	}
+
+	@Override
+	public void prob0step(BitSet subset, BitSet u, boolean forall, BitSet result)
+	{
+		int j, l1, h1;
+		long k, l2, h2;
+		boolean b1, some;
+		for (int i : new IterableStateSet(subset, numStates)) {
+			b1 = forall; // there exists or for all
+			l1 = rowStarts.get(i);
+			h1 = rowStarts.get(i + 1);
+			for (j = l1; j < h1; j++) {
+				some = false;
+				l2 = choiceStarts.get(j);
+				h2 = choiceStarts.get(j + 1);
+				for (k = l2; k < h2; k++) {
+					// Assume that only non-zero entries are stored
+					if (u.get(cols.get(k))) {
+						some = true;
+						break;
+					}
+				}
+				if (forall) {
+					if (!some) {
+						b1 = false;
+						break;
+					}
+				} else {
+					if (some) {
+						b1 = true;
+						break;
+					}
+				}
+			}
+			result.set(i, b1);
+		}
+	}
+
+	@Override
+	public void prob1Astep(BitSet subset, BitSet u, BitSet v, BitSet result)
+	{
+		int j, l1, h1;
+		long k, l2, h2;
+		boolean b1, some, all;
+		for (int i : new IterableStateSet(subset, numStates)) {
+			b1 = true;
+			l1 = rowStarts.get(i);
+			h1 = rowStarts.get(i + 1);
+			for (j = l1; j < h1; j++) {
+				some = false;
+				all = true;
+				l2 = choiceStarts.get(j);
+				h2 = choiceStarts.get(j + 1);
+				for (k = l2; k < h2; k++) {
+					// Assume that only non-zero entries are stored
+					if (!u.get(cols.get(k))) {
+						all = false;
+						break; // Stop early (already know b1 will be set to false)
+					}
+					if (v.get(cols.get(k))) {
+						some = true;
+					}
+				}
+				if (!(some && all)) {
+					b1 = false;
+					break;
+				}
+			}
+			result.set(i, b1);
+		}
+	}
+
+	@Override
+	public void prob1Estep(BitSet subset, BitSet u, BitSet v, BitSet result, int strat[])
+	{
+		int j, l1, h1, stratCh = -1;
+		long k, l2, h2;
+		boolean b1, some, all;
+		for (int i : new IterableStateSet(subset, numStates)) {
+			b1 = false;
+			l1 = rowStarts.get(i);
+			h1 = rowStarts.get(i + 1);
+			for (j = l1; j < h1; j++) {
+				some = false;
+				all = true;
+				l2 = choiceStarts.get(j);
+				h2 = choiceStarts.get(j + 1);
+				for (k = l2; k < h2; k++) {
+					// Assume that only non-zero entries are stored
+					if (!u.get(cols.get(k))) {
+						all = false;
+						break; // Stop early (already know b1 will not be set to true)
+					}
+					if (v.get(cols.get(k))) {
+						some = true;
+					}
+				}
+				if (some && all) {
+					b1 = true;
+					// If strategy generation is enabled, remember optimal choice
+					if (strat != null)
+						stratCh = j - l1;
+					break;
+				}
+			}
+			// If strategy generation is enabled, store optimal choice
+			// (only if this the first time we add the state to S^yes)
+			if (strat != null & b1 & !result.get(i)) {
+				strat[i] = stratCh;
+			}
+			// Store result
+			result.set(i, b1);
+		}
+	}
+
+	@Override
+	public void prob1step(BitSet subset, BitSet u, BitSet v, boolean forall, BitSet result)
+	{
+		int j, l1, h1;
+		long k, l2, h2;
+		boolean b1, some, all;
+		for (int i : new IterableStateSet(subset, numStates)) {
+			b1 = forall; // there exists or for all
+			l1 = rowStarts.get(i);
+			h1 = rowStarts.get(i + 1);
+			for (j = l1; j < h1; j++) {
+				some = false;
+				all = true;
+				l2 = choiceStarts.get(j);
+				h2 = choiceStarts.get(j + 1);
+				for (k = l2; k < h2; k++) {
+					// Assume that only non-zero entries are stored
+					if (v.get(cols.get(k))) {
+						some = true;
+					}
+					if (!u.get(cols.get(k))) {
+						all = false;
+					}
+				}
+				if (forall) {
+					if (!(some && all)) {
+						b1 = false;
+						break;
+					}
+				} else {
+					if (some && all) {
+						b1 = true;
+						break;
+					}
+				}
+			}
+			result.set(i, b1);
+		}
+	}
+
+	@Override
+	public boolean prob1stepSingle(int s, int i, BitSet u, BitSet v)
+	{
+		int j;
+		long k, l2, h2;
+		boolean some, all;
+
+		j = rowStarts.get(s) + i;
+		some = false;
+		all = true;
+		l2 = choiceStarts.get(j);
+		h2 = choiceStarts.get(j + 1);
+		for (k = l2; k < h2; k++) {
+			// Assume that only non-zero entries are stored
+			if (v.get(cols.get(k))) {
+				some = true;
+			}
+			if (!u.get(cols.get(k))) {
+				all = false;
+			}
+		}
+		return some && all;
+	}
+
+	@Override
+	public double mvMultMinMaxSingle(int s, double vect[], boolean min, int strat[])
+	{
+		int j, l1, h1, stratCh = -1;
+		long k, l2, h2;
+		double d, minmax;
+		boolean first;
+
+		minmax = 0;
+		first = true;
+		l1 = rowStarts.get(s);
+		h1 = rowStarts.get(s + 1);
+		for (j = l1; j < h1; j++) {
+			// Compute sum for this distribution
+			d = 0.0;
+			l2 = choiceStarts.get(j);
+			h2 = choiceStarts.get(j + 1);
+			for (k = l2; k < h2; k++) {
+				d += nonZeros.get(k) * vect[cols.get(k)];
+			}
+			// Check whether we have exceeded min/max so far
+			if (first || (min && d < minmax) || (!min && d > minmax)) {
+				minmax = d;
+				// If strategy generation is enabled, remember optimal choice
+				if (strat != null)
+					stratCh = j - l1;
+			}
+			first = false;
+		}
+		// If strategy generation is enabled, store optimal choice
+		if (strat != null & !first) {
+			// For max, only remember strictly better choices
+			if (min) {
+				strat[s] = stratCh;
+			} else if (strat[s] == -1 || minmax > vect[s]) {
+				strat[s] = stratCh;
+			}
+		}
+
+		return minmax;
+	}
+
+	@Override
+	public List<Integer> mvMultMinMaxSingleChoices(int s, double vect[], boolean min, double val)
+	{
+		int j, l1, h1;
+		long k, l2, h2;
+		double d;
+		List<Integer> res;
+
+		// Create data structures to store strategy
+		res = new ArrayList<Integer>();
+		// One row of matrix-vector operation
+		l1 = rowStarts.get(s);
+		h1 = rowStarts.get(s + 1);
+		for (j = l1; j < h1; j++) {
+			// Compute sum for this distribution
+			d = 0.0;
+			l2 = choiceStarts.get(j);
+			h2 = choiceStarts.get(j + 1);
+			for (k = l2; k < h2; k++) {
+				d += nonZeros.get(k) * vect[cols.get(k)];
+			}
+			// Store strategy info if value matches
+			if (PrismUtils.doublesAreEqual(val, d)) {
+				res.add(j - l1);
+			}
+		}
+
+		return res;
+	}
+
+	@Override
+	public double mvMultSingle(int s, int i, double vect[])
+	{
+		int j;
+		long k, l2, h2;
+		double d;
+
+		j = rowStarts.get(s) + i;
+		// Compute sum for this distribution
+		d = 0.0;
+		l2 = choiceStarts.get(j);
+		h2 = choiceStarts.get(j + 1);
+		for (k = l2; k < h2; k++) {
+			d += nonZeros.get(k) * vect[cols.get(k)];
+		}
+
+		return d;
+	}
+
+	@Override
+	public double mvMultJacMinMaxSingle(int s, double vect[], boolean min, int strat[])
+	{
+		int j, l1, h1, stratCh = -1;
+		long k, l2, h2;
+		double diag, d, minmax;
+		boolean first;
+
+		minmax = 0;
+		first = true;
+		l1 = rowStarts.get(s);
+		h1 = rowStarts.get(s + 1);
+		for (j = l1; j < h1; j++) {
+			diag = 1.0;
+			// Compute sum for this distribution
+			d = 0.0;
+			l2 = choiceStarts.get(j);
+			h2 = choiceStarts.get(j + 1);
+			for (k = l2; k < h2; k++) {
+				if (cols.get(k) != s) {
+					d += nonZeros.get(k) * vect[cols.get(k)];
+				} else {
+					diag -= nonZeros.get(k);
+				}
+			}
+			if (diag > 0)
+				d /= diag;
+			// Check whether we have exceeded min/max so far
+			if (first || (min && d < minmax) || (!min && d > minmax)) {
+				minmax = d;
+				// If strategy generation is enabled, remember optimal choice
+				if (strat != null)
+					stratCh = j - l1;
+			}
+			first = false;
+		}
+		// If strategy generation is enabled, store optimal choice
+		if (strat != null & !first) {
+			// For max, only remember strictly better choices
+			if (min) {
+				strat[s] = stratCh;
+			} else if (strat[s] == -1 || minmax > vect[s]) {
+				strat[s] = stratCh;
+			}
+		}
+
+		return minmax;
+	}
+
+	@Override
+	public double mvMultJacSingle(int s, int i, double vect[])
+	{
+		int j;
+		long k, l2, h2;
+		double diag, d;
+
+		j = rowStarts.get(s) + i;
+		diag = 1.0;
+		// Compute sum for this distribution
+		d = 0.0;
+		l2 = choiceStarts.get(j);
+		h2 = choiceStarts.get(j + 1);
+		for (k = l2; k < h2; k++) {
+			if (cols.get(k) != s) {
+				d += nonZeros.get(k) * vect[cols.get(k)];
+			} else {
+				diag -= nonZeros.get(k);
+			}
+		}
+		if (diag > 0)
+			d /= diag;
+
+		return d;
+	}
+
+	@Override
+	public double mvMultRewMinMaxSingle(int s, double vect[], MDPRewards mdpRewards, boolean min, int strat[])
+	{
+		int j, l1, h1, stratCh = -1;
+		long k, l2, h2;
+		double d, minmax;
+		boolean first;
+
+		minmax = 0;
+		first = true;
+		l1 = rowStarts.get(s);
+		h1 = rowStarts.get(s + 1);
+		for (j = l1; j < h1; j++) {
+			// Compute sum for this distribution
+			d = mdpRewards.getTransitionReward(s, j - l1);
+			l2 = choiceStarts.get(j);
+			h2 = choiceStarts.get(j + 1);
+			for (k = l2; k < h2; k++) {
+				d += nonZeros.get(k) * vect[cols.get(k)];
+			}
+			// Check whether we have exceeded min/max so far
+			if (first || (min && d < minmax) || (!min && d > minmax)) {
+				minmax = d;
+				// If strategy generation is enabled, remember optimal choice
+				if (strat != null)
+					stratCh = j - l1;
+			}
+			first = false;
+		}
+		// Add state reward (doesn't affect min/max)
+		minmax += mdpRewards.getStateReward(s);
+		// If strategy generation is enabled, store optimal choice
+		if (strat != null & !first) {
+			// For max, only remember strictly better choices
+			if (min) {
+				strat[s] = stratCh;
+			} else if (strat[s] == -1 || minmax > vect[s]) {
+				strat[s] = stratCh;
+			}
+		}
+
+		return minmax;
+	}
+
+	@Override
+	public double mvMultRewSingle(int s, int i, double[] vect, MCRewards mcRewards)
+	{
+		int j;
+		long k, l2, h2;
+		double d;
+
+		j = rowStarts.get(s) + i;
+		// Compute sum for this distribution
+		// TODO: use transition rewards when added to DTMCss
+		// d = mcRewards.getTransitionReward(s);
+		d = 0;
+		l2 = choiceStarts.get(j);
+		h2 = choiceStarts.get(j + 1);
+		for (k = l2; k < h2; k++) {
+			d += nonZeros.get(k) * vect[cols.get(k)];
+		}
+		d += mcRewards.getStateReward(s);
+		return d;
+	}
+	
+	@Override
+	public double mvMultRewJacMinMaxSingle(int s, double vect[], MDPRewards mdpRewards, boolean min, int strat[])
+	{
+		int j, l1, h1, stratCh = -1;
+		long k, l2, h2;
+		double diag, d, minmax;
+		boolean first;
+
+		minmax = 0;
+		first = true;
+		l1 = rowStarts.get(s);
+		h1 = rowStarts.get(s + 1);
+		for (j = l1; j < h1; j++) {
+			diag = 1.0;
+			boolean onlySelfloops = true;
+			// Compute sum for this distribution
+			// (note: have to add state rewards in the loop for Jacobi)
+			d = mdpRewards.getStateReward(s);
+			d += mdpRewards.getTransitionReward(s, j - l1);
+			l2 = choiceStarts.get(j);
+			h2 = choiceStarts.get(j + 1);
+			for (k = l2; k < h2; k++) {
+				if (cols.get(k) != s) {
+					onlySelfloops = false;
+					d += nonZeros.get(k) * vect[cols.get(k)];
+				} else {
+					diag -= nonZeros.get(k);
+				}
+			}
+			// Catch special case of probability 1 self-loop (Jacobi does it wrong)
+			if (onlySelfloops) {
+				if (d != 0) {
+					// always choosing the selfloop-action will produce infinite reward
+					d = (d>0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY);
+				} else {
+					// no reward & only self-loops: d remains 0
+					d = 0;
+				}
+			} else if (diag > 0) {
+				// not only self-loops, do Jacobi division
+				d /= diag;
+			}
+
+			// Check whether we have exceeded min/max so far
+			if (first || (min && d < minmax) || (!min && d > minmax)) {
+				minmax = d;
+				// If strategy generation is enabled, remember optimal choice
+				if (strat != null)
+					stratCh = j - l1;
+			}
+			first = false;
+		}
+		// If strategy generation is enabled, store optimal choice
+		if (strat != null & !first) {
+			// For max, only remember strictly better choices
+			if (min) {
+				strat[s] = stratCh;
+			} else if (strat[s] == -1 || minmax > vect[s]) {
+				strat[s] = stratCh;
+			}
+		}
+
+		return minmax;
+	}
+
+	@Override
+	public List<Integer> mvMultRewMinMaxSingleChoices(int s, double vect[], MDPRewards mdpRewards, boolean min, double val)
+	{
+		int j, l1, h1;
+		long k, l2, h2;
+		double d;
+		List<Integer> res;
+
+		// Create data structures to store strategy
+		res = new ArrayList<Integer>();
+		// One row of matrix-vector operation
+		l1 = rowStarts.get(s);
+		h1 = rowStarts.get(s + 1);
+		for (j = l1; j < h1; j++) {
+			// Compute sum for this distribution
+			d = mdpRewards.getTransitionReward(s, j - l1);
+			l2 = choiceStarts.get(j);
+			h2 = choiceStarts.get(j + 1);
+			for (k = l2; k < h2; k++) {
+				d += nonZeros.get(k) * vect[cols.get(k)];
+			}
+			d += mdpRewards.getStateReward(s);
+			// Store strategy info if value matches
+			if (PrismUtils.doublesAreEqual(val, d)) {
+				res.add(j - l1);
+			}
+		}
+
+		return res;
+	}
+
+	@Override
+	public void mvMultRight(int[] states, int[] strat, double[] source, double[] dest)
+	{
+		for (int s : states) {
+			int j = rowStarts.get(s) + strat[s];
+			long l2 = choiceStarts.get(j);
+			long h2 = choiceStarts.get(j + 1);
+			for (long k = l2; k < h2; k++) {
+				dest[cols.get(k)] += nonZeros.get(k) * source[s];
+			}
+		}
+	}
+
+	// Standard methods
+
+	@Override
+	public String toString()
+	{
+		StringBuilder s = new StringBuilder("[ ");
+		for (int i = 0; i < numStates; i++) {
+			if (i > 0) {
+				s.append(", ");
+			}
+			s.append(i + ": [");
+			int n = getNumChoices(i);
+			for (int j = 0; j < n; j++) {
+				if (j > 0) {
+					s.append(",");
+				}
+				Object action = getAction(i, j);
+				if (action != null) {
+					s.append(action + ":");
+				}
+				s.append(new Distribution(getTransitionsIterator(i, j)));
+			}
+			s.append("]");
+		}
+		return s.append(" ]").toString();
+	}
+}
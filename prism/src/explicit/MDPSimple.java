@@ -506,6 +506,15 @@ public class MDPSimple extends MDPExplicit implements NondetModelSimple
 		return trans.get(s).get(i).iterator();
 	}
 
+	@Override
+	public void forEachTransition(int s, int i, TransitionConsumer c)
+	{
+		Distribution distr = trans.get(s).get(i);
+		for (int k = 0, n = distr.size(); k < n; k++) {
+			c.accept(s, distr.getIndexAt(k), distr.getProbabilityAt(k));
+		}
+	}
+
 	
 
 	// Accessors (other)
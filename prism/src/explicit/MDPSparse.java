@@ -33,6 +33,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
@@ -189,7 +190,6 @@ public class MDPSparse extends MDPExplicit
 	public MDPSparse(MDPSimple mdp, boolean sort)
 	{
 		int i, j, k;
-		TreeMap<Integer, Double> sorted = null;
 		initialise(mdp.getNumStates());
 		copyFrom(mdp);
 		// Copy stats
@@ -197,9 +197,7 @@ public class MDPSparse extends MDPExplicit
 		numTransitions = mdp.getNumTransitions();
 		maxNumDistrs = mdp.getMaxNumChoices();
 		// Copy transition function
-		if (sort) {
-			sorted = new TreeMap<Integer, Double>();
-		}
+		// (Distributions are already sorted by index, so 'sort' needs no extra work)
 		nonZeros = new double[numTransitions];
 		cols = new int[numTransitions];
 		choiceStarts = new int[numDistrs + 1];
@@ -209,22 +207,10 @@ public class MDPSparse extends MDPExplicit
 			rowStarts[i] = j;
 			for (Distribution distr : mdp.trans.get(i)) {
 				choiceStarts[j] = k;
-				for (Map.Entry<Integer, Double> e : distr) {
-					if (sort) {
-						sorted.put(e.getKey(), e.getValue());
-					} else {
-						cols[k] = (Integer) e.getKey();
-						nonZeros[k] = (Double) e.getValue();
-						k++;
-					}
-				}
-				if (sort) {
-					for (Map.Entry<Integer, Double> e : sorted.entrySet()) {
-						cols[k] = (Integer) e.getKey();
-						nonZeros[k] = (Double) e.getValue();
-						k++;
-					}
-					sorted.clear();
+				for (int l = 0, n = distr.size(); l < n; l++) {
+					cols[k] = distr.getIndexAt(l);
+					nonZeros[k] = distr.getProbabilityAt(l);
+					k++;
 				}
 				j++;
 			}
@@ -249,7 +235,6 @@ public class MDPSparse extends MDPExplicit
 	public MDPSparse(MDPSimple mdp, boolean sort, int permut[])
 	{
 		int i, j, k;
-		TreeMap<Integer, Double> sorted = null;
 		int permutInv[];
 		initialise(mdp.getNumStates());
 		copyFrom(mdp, permut);
@@ -263,9 +248,6 @@ public class MDPSparse extends MDPExplicit
 			permutInv[permut[i]] = i;
 		}
 		// Copy transition function
-		if (sort) {
-			sorted = new TreeMap<Integer, Double>();
-		}
 		nonZeros = new double[numTransitions];
 		cols = new int[numTransitions];
 		choiceStarts = new int[numDistrs + 1];
@@ -275,22 +257,13 @@ public class MDPSparse extends MDPExplicit
 			rowStarts[i] = j;
 			for (Distribution distr : mdp.trans.get(permutInv[i])) {
 				choiceStarts[j] = k;
-				for (Map.Entry<Integer, Double> e : distr) {
-					if (sort) {
-						sorted.put(permut[e.getKey()], e.getValue());
-					} else {
-						cols[k] = (Integer) permut[e.getKey()];
-						nonZeros[k] = (Double) e.getValue();
-						k++;
-					}
+				for (int l = 0, n = distr.size(); l < n; l++) {
+					cols[k] = permut[distr.getIndexAt(l)];
+					nonZeros[k] = distr.getProbabilityAt(l);
+					k++;
 				}
 				if (sort) {
-					for (Map.Entry<Integer, Double> e : sorted.entrySet()) {
-						cols[k] = (Integer) e.getKey();
-						nonZeros[k] = (Double) e.getValue();
-						k++;
-					}
-					sorted.clear();
+					sortTransitions(choiceStarts[j], k);
 				}
 				j++;
 			}
@@ -302,6 +275,66 @@ public class MDPSparse extends MDPExplicit
 		actions = new ChoiceActionsSimple(mdp.actions, permut).convertToSparseStorage(this);
 	}
 
+	/**
+	 * Construct an MDP with the same transition structure as an existing one (and the same
+	 * initial states, states list, labels, actions, etc.), but with new transition probabilities.
+	 * These are given in the order that transitions are stored in {@code mdp}, i.e.,
+	 * the order of {@link #getTransitionsIterator(int, int)}, for each choice of each state in turn.
+	 * The transition structure is shared with {@code mdp}, not copied.
+	 */
+	public MDPSparse(MDPSparse mdp, double nonZeros[])
+	{
+		if (nonZeros.length != mdp.numTransitions) {
+			throw new IllegalArgumentException("Expected " + mdp.numTransitions + " transition probabilities, not " + nonZeros.length);
+		}
+		initialise(mdp.getNumStates());
+		copyFrom(mdp);
+		numDistrs = mdp.numDistrs;
+		numTransitions = mdp.numTransitions;
+		maxNumDistrs = mdp.maxNumDistrs;
+		this.nonZeros = nonZeros;
+		cols = mdp.cols;
+		choiceStarts = mdp.choiceStarts;
+		rowStarts = mdp.rowStarts;
+		actions = mdp.actions;
+		predecessorRelation = mdp.predecessorRelation;
+	}
+
+	/**
+	 * Sort the transitions stored in positions [from,to) of {@code cols}/{@code nonZeros}
+	 * by ascending order of column index (insertion sort for small choices, which are typical;
+	 * otherwise, sort (column, position) pairs packed into longs, then permute).
+	 */
+	private void sortTransitions(int from, int to)
+	{
+		int n = to - from;
+		if (n <= 16) {
+			for (int k = from + 1; k < to; k++) {
+				int col = cols[k];
+				double prob = nonZeros[k];
+				int l = k - 1;
+				while (l >= from && cols[l] > col) {
+					cols[l + 1] = cols[l];
+					nonZeros[l + 1] = nonZeros[l];
+					l--;
+				}
+				cols[l + 1] = col;
+				nonZeros[l + 1] = prob;
+			}
+			return;
+		}
+		long[] keys = new long[n];
+		for (int k = 0; k < n; k++) {
+			keys[k] = ((long) cols[from + k] << 32) | k;
+		}
+		Arrays.sort(keys);
+		double[] probs = Arrays.copyOfRange(nonZeros, from, to);
+		for (int k = 0; k < n; k++) {
+			cols[from + k] = (int) (keys[k] >>> 32);
+			nonZeros[from + k] = probs[(int) keys[k]];
+		}
+	}
+
 	/**
 	 * Copy constructor for a (sub-)MDP from a given MDP.
 	 * The states and actions will be indexed as given by the order
@@ -0,0 +1,268 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import parser.State;
+import parser.Values;
+import prism.ModelGenerator;
+import prism.PrismException;
+
+/**
+ * Template for re-instantiating an explicit-state model, built from a {@link ModelGenerator},
+ * for new values of model constants that leave its structure (reachable states, choices and
+ * transition targets) unchanged and only affect the values of transition probabilities/rates.
+ * <br><br>
+ * The template records, for each transition generated by the model generator, its target state
+ * and the position of the corresponding entry in the model's transition storage, which is shared
+ * between all instantiations. Re-instantiation explores each state again, to evaluate the
+ * probabilities/rates, and checks that the structure is indeed unchanged (it may not be,
+ * e.g., if some probability becomes 0). This avoids state space exploration (state lookups)
+ * and reconstruction of the (sparse) transition matrix.
+ * <br><br>
+ * Currently supported for models stored as {@link DTMCSparse}, {@link MDPSparse},
+ * {@link DTMCSimple} or {@link CTMCSimple}, with a states list attached.
+ */
+public class ModelTemplate
+{
+	/** The model whose structure is re-used */
+	private final ModelExplicit base;
+	/** Number of choices (of the model generator) for each state */
+	private final int numChoices[];
+	/** Number of transitions for each choice, over all states */
+	private final int choiceSizes[];
+	/** Index of the target state of each transition, over all choices/states */
+	private final int targets[];
+	/** Position of each transition in the model's transition storage */
+	private final int slots[];
+	/** Values for storage entries not generated by the model generator (e.g., added self-loops); 0 otherwise */
+	private final double baseValues[];
+
+	private ModelTemplate(ModelExplicit base, int numChoices[], int choiceSizes[], int targets[], int slots[], double baseValues[])
+	{
+		this.base = base;
+		this.numChoices = numChoices;
+		this.choiceSizes = choiceSizes;
+		this.targets = targets;
+		this.slots = slots;
+		this.baseValues = baseValues;
+	}
+
+	/**
+	 * Is re-instantiation supported for (the storage used by) this model?
+	 */
+	public static boolean isSupported(Model model)
+	{
+		Class<?> c = model.getClass();
+		return (c == DTMCSparse.class || c == MDPSparse.class || c == DTMCSimple.class || c == CTMCSimple.class) && model.getStatesList() != null;
+	}
+
+	/**
+	 * Create a template from a model built from {@code modelGen}, i.e., with the same states
+	 * and transitions (the values of constants affecting probabilities/rates may differ).
+	 * Returns null if this is not supported for the model or if the structure does not match.
+	 */
+	public static ModelTemplate create(Model model, ModelGenerator modelGen) throws PrismException
+	{
+		if (!isSupported(model)) {
+			return null;
+		}
+		ModelExplicit base = (ModelExplicit) model;
+		boolean nondet = model instanceof MDPSparse;
+		List<State> statesList = model.getStatesList();
+		int numStates = model.getNumStates();
+		Map<State, Integer> stateIndices = new HashMap<>();
+		for (int s = 0; s < numStates; s++) {
+			stateIndices.put(statesList.get(s), s);
+		}
+
+		int numChoices[] = new int[numStates];
+		int choiceSizes[] = new int[numStates];
+		int targets[] = new int[Math.max(16, model.getNumTransitions())];
+		int slots[] = new int[targets.length];
+		double baseValues[] = new double[model.getNumTransitions()];
+		int storedCols[] = new int[16];
+		int numChoicesTotal = 0, k = 0;
+		// Position of the first stored transition for the current state/choice
+		int offset = 0;
+		for (int s = 0; s < numStates; s++) {
+			modelGen.exploreState(statesList.get(s));
+			int nc = modelGen.getNumChoices();
+			// Stored choices (for DTMCs/CTMCs, transitions from all choices are stored together;
+			// deadlock states have no choices in the generator, but may have had a self-loop added)
+			int numStoredChoices = nondet ? ((MDPSparse) model).getNumChoices(s) : 1;
+			if (nondet && nc != numStoredChoices && nc > 0) {
+				return null;
+			}
+			numChoices[s] = nc;
+			for (int i = 0; i < numStoredChoices; i++) {
+				Iterator<Entry<Integer, Double>> stored = nondet ? ((MDPSparse) model).getTransitionsIterator(s, i) : ((DTMC) model).getTransitionsIterator(s);
+				storedCols = loadStoredTransitions(stored, storedCols, baseValues, offset);
+				int numStored = nondet ? ((MDPSparse) model).getNumTransitions(s, i) : model.getNumTransitions(s);
+				// Corresponding generator choice(s) (all of them, for DTMCs/CTMCs)
+				int first = nondet ? i : 0;
+				int last = nondet ? Math.min(i + 1, nc) : nc;
+				for (int i2 = first; i2 < last; i2++) {
+					int nt = modelGen.getNumTransitions(i2);
+					if (numChoicesTotal == choiceSizes.length) {
+						choiceSizes = Arrays.copyOf(choiceSizes, 2 * choiceSizes.length);
+					}
+					choiceSizes[numChoicesTotal++] = nt;
+					for (int j = 0; j < nt; j++, k++) {
+						Integer dest = stateIndices.get(modelGen.computeTransitionTarget(i2, j));
+						int pos = dest == null ? -1 : indexOf(storedCols, numStored, dest);
+						if (pos < 0) {
+							return null;
+						}
+						if (k == targets.length) {
+							targets = Arrays.copyOf(targets, 2 * targets.length);
+							slots = Arrays.copyOf(slots, 2 * slots.length);
+						}
+						targets[k] = dest;
+						slots[k] = offset + pos;
+						// Value will be computed from the model generator
+						baseValues[offset + pos] = 0.0;
+					}
+				}
+				offset += numStored;
+			}
+		}
+		return new ModelTemplate(base, numChoices, Arrays.copyOf(choiceSizes, numChoicesTotal), Arrays.copyOf(targets, k), Arrays.copyOf(slots, k), baseValues);
+	}
+
+	/**
+	 * Store the targets of some stored transitions in {@code cols} (enlarging it if needed,
+	 * and returning it), and their values in {@code values}, starting at position {@code offset}.
+	 */
+	private static int[] loadStoredTransitions(Iterator<Entry<Integer, Double>> transitions, int cols[], double values[], int offset)
+	{
+		int j = 0;
+		while (transitions.hasNext()) {
+			Entry<Integer, Double> e = transitions.next();
+			if (j == cols.length) {
+				cols = Arrays.copyOf(cols, 2 * cols.length);
+			}
+			cols[j] = e.getKey();
+			values[offset + j] = e.getValue();
+			j++;
+		}
+		return cols;
+	}
+
+	/**
+	 * Find {@code x} in the first {@code n} entries of array {@code a} (or return -1).
+	 */
+	private static int indexOf(int a[], int n, int x)
+	{
+		for (int i = 0; i < n; i++) {
+			if (a[i] == x) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the model whose structure is re-used by this template.
+	 */
+	public Model getBaseModel()
+	{
+		return base;
+	}
+
+	/**
+	 * Build a new model, with the structure of this template, and transition
+	 * probabilities/rates (and constant values) taken from {@code modelGen}.
+	 * Returns null if the model generator yields a different structure,
+	 * in which case the model needs to be constructed from scratch.
+	 */
+	public Model instantiate(ModelGenerator modelGen) throws PrismException
+	{
+		List<State> statesList = base.getStatesList();
+		int numStates = base.getNumStates();
+		double values[] = baseValues.clone();
+		int c = 0, k = 0;
+		for (int s = 0; s < numStates; s++) {
+			modelGen.exploreState(statesList.get(s));
+			int nc = modelGen.getNumChoices();
+			if (nc != numChoices[s]) {
+				return null;
+			}
+			for (int i = 0; i < nc; i++) {
+				int nt = modelGen.getNumTransitions(i);
+				if (nt != choiceSizes[c++]) {
+					return null;
+				}
+				for (int j = 0; j < nt; j++, k++) {
+					if (!modelGen.computeTransitionTarget(i, j).equals(statesList.get(targets[k]))) {
+						return null;
+					}
+					// Summed in generation order, as during model construction
+					values[slots[k]] += modelGen.getTransitionProbability(i, j);
+				}
+			}
+		}
+		ModelExplicit model = buildModel(values);
+		model.setConstantValues(new Values(modelGen.getConstantValues()));
+		return model;
+	}
+
+	/**
+	 * Build a new model, with the structure of this template,
+	 * and the transition values given in storage order.
+	 */
+	private ModelExplicit buildModel(double values[])
+	{
+		if (base instanceof DTMCSparse) {
+			return new DTMCSparse((DTMCSparse) base, values);
+		}
+		if (base instanceof MDPSparse) {
+			return new MDPSparse((MDPSparse) base, values);
+		}
+		DTMCSimple dtmc = (DTMCSimple) base;
+		int numStates = dtmc.getNumStates();
+		DTMCSimple model = dtmc instanceof CTMCSimple ? new CTMCSimple(numStates) : new DTMCSimple(numStates);
+		model.copyFrom(dtmc);
+		int k = 0;
+		for (int s = 0; s < numStates; s++) {
+			Distribution distr = new Distribution();
+			for (Iterator<Entry<Integer, Double>> transitions = dtmc.getTransitionsIterator(s); transitions.hasNext();) {
+				distr.set(transitions.next().getKey(), values[k++]);
+			}
+			model.trans.set(s, distr);
+		}
+		model.numTransitions = dtmc.numTransitions;
+		model.predecessorRelation = dtmc.predecessorRelation;
+		return model;
+	}
+}
@@ -29,6 +29,7 @@ package explicit;
 
 import java.util.BitSet;
 import java.util.Iterator;
+import java.util.PrimitiveIterator;
 import java.util.Vector;
 
 import automata.LTL2NBA;
@@ -356,7 +357,8 @@ public class NonProbModelChecker extends StateModelChecker
 			// if there are no remaining successors into T, i.e, if count[s]==0
 
 			// For all predecessors s of t....
-			for (int s : pre.getPre(t)) {
+			for (PrimitiveIterator.OfInt it = pre.getPredecessorsIterator(t); it.hasNext();) {
+				int s = it.nextInt();
 				// ... ignore if we have already proven that it does not satisfy E[ a R b ]
 				if (!T.get(s)) continue;
 
@@ -432,7 +434,8 @@ public class NonProbModelChecker extends StateModelChecker
 
 			// For all predecessors s of t....
 
-			for (int s : pre.getPre(t)) {
+			for (PrimitiveIterator.OfInt it = pre.getPredecessorsIterator(t); it.hasNext();) {
+				int s = it.nextInt();
 				// ... ignore if we have already proven that it does not satisfy E[ a R b ]
 				if (!T.get(s)) continue;
 
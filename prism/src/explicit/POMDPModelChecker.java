@@ -28,15 +28,17 @@
 package explicit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 import explicit.graphviz.Decoration;
 import explicit.graphviz.Decorator;
@@ -74,6 +76,94 @@ public class POMDPModelChecker extends ProbModelChecker
 		}
 	}
 	
+	/**
+	 * Grid-based approximation of (part of) a belief MDP, for value iteration over the points of a {@link BeliefGrid},
+	 * stored in arrays (in compressed sparse row style): the choices of each grid point;
+	 * the (optional) reward and successor beliefs (with probabilities) of each choice;
+	 * and, for each successor, a fixed value plus the grid points (and weights) to interpolate over.
+	 */
+	class GridBeliefMDP
+	{
+		public int numPoints = 0, numChoices = 0, numSuccs = 0, numInterps = 0;
+		public int[] choiceStarts;
+		public double[] choiceRewards;
+		public int[] succStarts;
+		public double[] succProbs;
+		public double[] succValues;
+		public int[] interpStarts;
+		public int[] interpPoints;
+		public double[] interpWeights;
+		public GridBeliefMDP(boolean rewards)
+		{
+			choiceStarts = new int[2];
+			choiceRewards = rewards ? new double[1] : null;
+			succStarts = new int[2];
+			succProbs = new double[1];
+			succValues = new double[1];
+			interpStarts = new int[2];
+			interpPoints = new int[1];
+			interpWeights = new double[1];
+		}
+		public void addPoint()
+		{
+			if (numPoints + 2 > choiceStarts.length) {
+				choiceStarts = Arrays.copyOf(choiceStarts, 2 * choiceStarts.length);
+			}
+			choiceStarts[++numPoints] = numChoices;
+		}
+		public void addChoice(double reward)
+		{
+			if (numChoices + 2 > succStarts.length) {
+				succStarts = Arrays.copyOf(succStarts, 2 * succStarts.length);
+				if (choiceRewards != null) {
+					choiceRewards = Arrays.copyOf(choiceRewards, succStarts.length);
+				}
+			}
+			if (choiceRewards != null) {
+				choiceRewards[numChoices] = reward;
+			}
+			choiceStarts[numPoints] = ++numChoices;
+			succStarts[numChoices] = numSuccs;
+		}
+		public void addSuccessor(double prob, double value)
+		{
+			if (numSuccs + 2 > interpStarts.length) {
+				interpStarts = Arrays.copyOf(interpStarts, 2 * interpStarts.length);
+				succProbs = Arrays.copyOf(succProbs, interpStarts.length);
+				succValues = Arrays.copyOf(succValues, interpStarts.length);
+			}
+			succProbs[numSuccs] = prob;
+			succValues[numSuccs] = value;
+			succStarts[numChoices] = ++numSuccs;
+			interpStarts[numSuccs] = numInterps;
+		}
+		public void addInterpolation(int point, double weight)
+		{
+			if (numInterps + 1 > interpPoints.length) {
+				interpPoints = Arrays.copyOf(interpPoints, 2 * interpPoints.length);
+				interpWeights = Arrays.copyOf(interpWeights, interpPoints.length);
+			}
+			interpPoints[numInterps] = point;
+			interpWeights[numInterps] = weight;
+			interpStarts[numSuccs] = ++numInterps;
+		}
+		public void addAll(GridBeliefMDP other)
+		{
+			for (int p = 0; p < other.numPoints; p++) {
+				addPoint();
+				for (int c = other.choiceStarts[p]; c < other.choiceStarts[p + 1]; c++) {
+					addChoice(other.choiceRewards == null ? 0.0 : other.choiceRewards[c]);
+					for (int e = other.succStarts[c]; e < other.succStarts[c + 1]; e++) {
+						addSuccessor(other.succProbs[e], other.succValues[e]);
+						for (int k = other.interpStarts[e]; k < other.interpStarts[e + 1]; k++) {
+							addInterpolation(other.interpPoints[k], other.interpWeights[k]);
+						}
+					}
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Value backup function for belief state value iteration:
 	 * mapping from a state and its definition (reward + transitions)
@@ -179,21 +269,18 @@ public class POMDPModelChecker extends ProbModelChecker
 		}
 
 		// Initialise the grid points (just for unknown beliefs)
-		List<Belief> gridPoints = initialiseGridPoints(pomdp, unknownObs);
-		mainLog.println("Grid statistics: resolution=" + gridResolution + ", points=" + gridPoints.size());
+		BeliefGrid grid = new BeliefGrid(pomdp, unknownObs, gridResolution);
+		mainLog.println("Grid statistics: resolution=" + gridResolution + ", points=" + grid.getNumPoints());
 		// Construct grid belief "MDP"
+		// (successors are interpolated over the grid, except for known ones: 1 for target, 0 otherwise)
 		mainLog.println("Building belief space approximation...");
-		List<BeliefMDPState> beliefMDP = buildBeliefMDP(pomdp, null, gridPoints);
+		GridBeliefMDP beliefMDP = buildGridBeliefMDP(pomdp, null, grid, belief -> targetObs.get(belief.so) ? 1.0 : 0.0);
 		
-		// Initialise hashmaps for storing values for the unknown belief states
-		HashMap<Belief, Double> vhash = new HashMap<>();
-		HashMap<Belief, Double> vhash_backUp = new HashMap<>();
-		for (Belief belief : gridPoints) {
-			vhash.put(belief, 0.0);
-			vhash_backUp.put(belief, 0.0);
-		}
+		// Initialise arrays for storing values for the unknown belief states
+		double[] gridValues = new double[grid.getNumPoints()];
+		double[] gridValuesBackUp = new double[grid.getNumPoints()];
 		// Define value function for the full set of belief states
-		Function<Belief, Double> values = belief -> approximateReachProb(belief, vhash_backUp, targetObs, unknownObs);
+		Function<Belief, Double> values = belief -> approximateReachProb(belief, grid, gridValuesBackUp, targetObs, unknownObs);
 		// Define value backup function
 		BeliefMDPBackUp backup = (belief, beliefState) -> approximateReachProbBackup(belief, beliefState, values, min);
 		
@@ -204,19 +291,11 @@ public class POMDPModelChecker extends ProbModelChecker
 		boolean done = false;
 		while (!done && iters < maxIters) {
 			// Iterate over all (unknown) grid points
-			int unK = gridPoints.size();
-			for (int b = 0; b < unK; b++) {
-				Belief belief = gridPoints.get(b);
-				Pair<Double, Integer> valChoice = backup.apply(belief, beliefMDP.get(b));
-				vhash.put(belief, valChoice.first);
-			}
+			backUpGridValues(beliefMDP, gridValuesBackUp, gridValues, min);
 			// Check termination
-			done = PrismUtils.doublesAreClose(vhash, vhash_backUp, termCritParam, termCrit == TermCrit.RELATIVE);
+			done = PrismUtils.doublesAreClose(gridValues, gridValuesBackUp, termCritParam, termCrit == TermCrit.RELATIVE);
 			// back up	
-			Set<Map.Entry<Belief, Double>> entries = vhash.entrySet();
-			for (Map.Entry<Belief, Double> entry : entries) {
-				vhash_backUp.put(entry.getKey(), entry.getValue());
-			}
+			System.arraycopy(gridValues, 0, gridValuesBackUp, 0, gridValues.length);
 			iters++;
 		}
 		// Non-convergence is an error (usually)
@@ -233,7 +312,7 @@ public class POMDPModelChecker extends ProbModelChecker
 		// Also get (approximate) accuracy of result from value iteration
 		Belief initialBelief = Belief.pointDistribution(sInit, pomdp);
 		double outerBound = values.apply(initialBelief);
-		double outerBoundMaxDiff = PrismUtils.measureSupNorm(vhash, vhash_backUp, termCrit == TermCrit.RELATIVE);
+		double outerBoundMaxDiff = PrismUtils.measureSupNorm(gridValues, gridValuesBackUp, termCrit == TermCrit.RELATIVE);
 		Accuracy outerBoundAcc = AccuracyFactory.valueIteration(termCritParam, outerBoundMaxDiff, termCrit == TermCrit.RELATIVE);
 		// Print result
 		mainLog.println("Outer bound: " + outerBound + " (" + outerBoundAcc.toString(outerBound) + ")");
@@ -385,21 +464,18 @@ public class POMDPModelChecker extends ProbModelChecker
 		unknownObs.andNot(infObs);
 
 		// Initialise the grid points (just for unknown beliefs)
-		List<Belief> gridPoints = initialiseGridPoints(pomdp, unknownObs);
-		mainLog.println("Grid statistics: resolution=" + gridResolution + ", points=" + gridPoints.size());
+		BeliefGrid grid = new BeliefGrid(pomdp, unknownObs, gridResolution);
+		mainLog.println("Grid statistics: resolution=" + gridResolution + ", points=" + grid.getNumPoints());
 		// Construct grid belief "MDP"
+		// (successors are interpolated over the grid, except for known ones: 0 for target, +Inf otherwise)
 		mainLog.println("Building belief space approximation...");
-		List<BeliefMDPState> beliefMDP = buildBeliefMDP(pomdp, mdpRewards, gridPoints);
+		GridBeliefMDP beliefMDP = buildGridBeliefMDP(pomdp, mdpRewards, grid, belief -> targetObs.get(belief.so) ? 0.0 : Double.POSITIVE_INFINITY);
 		
-		// Initialise hashmaps for storing values for the unknown belief states
-		HashMap<Belief, Double> vhash = new HashMap<>();
-		HashMap<Belief, Double> vhash_backUp = new HashMap<>();
-		for (Belief belief : gridPoints) {
-			vhash.put(belief, 0.0);
-			vhash_backUp.put(belief, 0.0);
-		}
+		// Initialise arrays for storing values for the unknown belief states
+		double[] gridValues = new double[grid.getNumPoints()];
+		double[] gridValuesBackUp = new double[grid.getNumPoints()];
 		// Define value function for the full set of belief states
-		Function<Belief, Double> values = belief -> approximateReachReward(belief, vhash_backUp, targetObs, infObs);
+		Function<Belief, Double> values = belief -> approximateReachReward(belief, grid, gridValuesBackUp, targetObs, infObs);
 		// Define value backup function
 		BeliefMDPBackUp backup = (belief, beliefState) -> approximateReachRewardBackup(belief, beliefState, values, min);
 		
@@ -410,19 +486,11 @@ public class POMDPModelChecker extends ProbModelChecker
 		boolean done = false;
 		while (!done && iters < maxIters) {
 			// Iterate over all (unknown) grid points
-			int unK = gridPoints.size();
-			for (int b = 0; b < unK; b++) {
-				Belief belief = gridPoints.get(b);
-				Pair<Double, Integer> valChoice = backup.apply(belief, beliefMDP.get(b));
-				vhash.put(belief, valChoice.first);
-			}
+			backUpGridValues(beliefMDP, gridValuesBackUp, gridValues, min);
 			// Check termination
-			done = PrismUtils.doublesAreClose(vhash, vhash_backUp, termCritParam, termCrit == TermCrit.RELATIVE);
+			done = PrismUtils.doublesAreClose(gridValues, gridValuesBackUp, termCritParam, termCrit == TermCrit.RELATIVE);
 			// back up	
-			Set<Map.Entry<Belief, Double>> entries = vhash.entrySet();
-			for (Map.Entry<Belief, Double> entry : entries) {
-				vhash_backUp.put(entry.getKey(), entry.getValue());
-			}
+			System.arraycopy(gridValues, 0, gridValuesBackUp, 0, gridValues.length);
 			iters++;
 		}
 		// Non-convergence is an error (usually)
@@ -439,7 +507,7 @@ public class POMDPModelChecker extends ProbModelChecker
 		// Also get (approximate) accuracy of result from value iteration
 		Belief initialBelief = Belief.pointDistribution(sInit, pomdp);
 		double outerBound = values.apply(initialBelief);
-		double outerBoundMaxDiff = PrismUtils.measureSupNorm(vhash, vhash_backUp, termCrit == TermCrit.RELATIVE);
+		double outerBoundMaxDiff = PrismUtils.measureSupNorm(gridValues, gridValuesBackUp, termCrit == TermCrit.RELATIVE);
 		Accuracy outerBoundAcc = AccuracyFactory.valueIteration(termCritParam, outerBoundMaxDiff, termCrit == TermCrit.RELATIVE);
 		// Print result
 		mainLog.println("Outer bound: " + outerBound + " (" + outerBoundAcc.toString(outerBound) + ")");
@@ -573,46 +641,56 @@ public class POMDPModelChecker extends ProbModelChecker
 	}
 	
 	/**
-	 * Construct a list of beliefs for a grid-based approximation of the belief space.
-	 * Only beliefs with observable values from {@code unknownObs) are added.
+	 * Construct (part of) a belief MDP, just for the points of a grid, stored in array form.
+	 * Successor beliefs whose observation is in the grid are interpolated over grid points;
+	 * for the others, the value is given by {@code knownValues}.
+	 * If provided, also construct a list of rewards for each choice.
+	 * The grid points are processed in parallel, if requested.
 	 */
-	protected List<Belief> initialiseGridPoints(POMDP pomdp, BitSet unknownObs)
+	protected GridBeliefMDP buildGridBeliefMDP(POMDP pomdp, MDPRewards mdpRewards, BeliefGrid grid, ToDoubleFunction<Belief> knownValues) throws PrismException
 	{
-		List<Belief> gridPoints = new ArrayList<>();
-		ArrayList<ArrayList<Double>> assignment;
+		List<Belief> gridPoints = grid.getPoints();
+		int numPoints = gridPoints.size();
 		int numUnobservations = pomdp.getNumUnobservations();
-		int numStates = pomdp.getNumStates();
-		for (int so = unknownObs.nextSetBit(0); so >= 0; so = unknownObs.nextSetBit(so + 1)) {
-			ArrayList<Integer> unobservsForObserv = new ArrayList<>();
-			for (int s = 0; s < numStates; s++) {
-				if (so == pomdp.getObservation(s)) {
-					unobservsForObserv.add(pomdp.getUnobservation(s));
-				}
-			}
-			assignment = fullAssignment(unobservsForObserv.size(), gridResolution);
-			for (ArrayList<Double> inner : assignment) {
-				double[] bu = new double[numUnobservations];
-				int k = 0;
-				for (int unobservForObserv : unobservsForObserv) {
-					bu[unobservForObserv] = inner.get(k);
-					k++;
+		GridBeliefMDP[] pointMDPs = new GridBeliefMDP[numPoints];
+		ParallelIteration.ChunkOperation buildChunk = (points, from, to) -> {
+			int[] indices = new int[numUnobservations];
+			double[] weights = new double[numUnobservations];
+			for (int p = from; p < to; p++) {
+				GridBeliefMDP pointMDP = new GridBeliefMDP(mdpRewards != null);
+				pointMDP.addPoint();
+				BeliefMDPState beliefMDPState = buildBeliefMDPState(pomdp, mdpRewards, gridPoints.get(p));
+				int numChoices = beliefMDPState.trans.size();
+				for (int i = 0; i < numChoices; i++) {
+					pointMDP.addChoice(mdpRewards != null ? beliefMDPState.rewards.get(i) : 0.0);
+					for (Map.Entry<Belief, Double> entry : beliefMDPState.trans.get(i).entrySet()) {
+						Belief nextBelief = entry.getKey();
+						if (grid.containsObservation(nextBelief.so)) {
+							pointMDP.addSuccessor(entry.getValue(), 0.0);
+							int count = grid.interpolate(nextBelief, indices, weights);
+							for (int k = 0; k < count; k++) {
+								pointMDP.addInterpolation(indices[k], weights[k]);
+							}
+						} else {
+							pointMDP.addSuccessor(entry.getValue(), knownValues.applyAsDouble(nextBelief));
+						}
+					}
 				}
-				gridPoints.add(new Belief(so, bu));
+				pointMDPs[p] = pointMDP;
 			}
+			return true;
+		};
+		int[] points = IntStream.range(0, numPoints).toArray();
+		if (numIterationThreads > 1) {
+			new ParallelIteration(numIterationThreads).forEachChunk(points, buildChunk);
+		} else {
+			buildChunk.apply(points, 0, numPoints);
 		}
-		return gridPoints;
-	}
-	
-	/**
-	 * Construct (part of) a belief MDP, just for the set of passed in belief states.
-	 * If provided, also construct a list of rewards for each state.
-	 * It is stored as a list (over source beliefs) of BeliefMDPState objects.
-	 */
-	protected List<BeliefMDPState> buildBeliefMDP(POMDP pomdp, MDPRewards mdpRewards, List<Belief> beliefs)
-	{
-		List<BeliefMDPState> beliefMDP = new ArrayList<>();
-		for (Belief belief: beliefs) {
-			beliefMDP.add(buildBeliefMDPState(pomdp, mdpRewards, belief));
+		// Concatenate the grid points' definitions
+		GridBeliefMDP beliefMDP = new GridBeliefMDP(mdpRewards != null);
+		for (int p = 0; p < numPoints; p++) {
+			beliefMDP.addAll(pointMDPs[p]);
+			pointMDPs[p] = null;
 		}
 		return beliefMDP;
 	}
@@ -698,10 +776,54 @@ public class POMDPModelChecker extends ProbModelChecker
 		return new Pair<Double, Integer>(chosenValue, chosenActionIndex);
 	}
 	
+	/**
+	 * Perform a backup step of (approximate) value iteration for all points of a grid-based belief MDP,
+	 * computing values {@code gridValues} from the previous ones {@code gridValuesOld}.
+	 * This works for both probabilistic and reward reachability.
+	 * The grid points are processed in parallel, if requested.
+	 */
+	protected void backUpGridValues(GridBeliefMDP beliefMDP, double[] gridValuesOld, double[] gridValues, boolean min) throws PrismException
+	{
+		int[] choiceStarts = beliefMDP.choiceStarts;
+		double[] choiceRewards = beliefMDP.choiceRewards;
+		int[] succStarts = beliefMDP.succStarts;
+		double[] succProbs = beliefMDP.succProbs;
+		double[] succValues = beliefMDP.succValues;
+		int[] interpStarts = beliefMDP.interpStarts;
+		int[] interpPoints = beliefMDP.interpPoints;
+		double[] interpWeights = beliefMDP.interpWeights;
+		ParallelIteration.ChunkOperation backUpChunk = (points, from, to) -> {
+			for (int p = from; p < to; p++) {
+				// (same as approximateReachProbBackup/approximateReachRewardBackup)
+				double chosenValue = min ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+				for (int c = choiceStarts[p]; c < choiceStarts[p + 1]; c++) {
+					double value = choiceRewards == null ? 0.0 : choiceRewards[c];
+					for (int e = succStarts[c]; e < succStarts[c + 1]; e++) {
+						double nextBeliefValue = succValues[e];
+						for (int k = interpStarts[e]; k < interpStarts[e + 1]; k++) {
+							nextBeliefValue += interpWeights[k] * gridValuesOld[interpPoints[k]];
+						}
+						value += succProbs[e] * nextBeliefValue;
+					}
+					if ((min && chosenValue - value > 1.0e-6) || (!min && value - chosenValue > 1.0e-6)) {
+						chosenValue = value;
+					}
+				}
+				gridValues[p] = chosenValue;
+			}
+			return true;
+		};
+		if (numIterationThreads > 1) {
+			new ParallelIteration(numIterationThreads).forEachChunk(IntStream.range(0, beliefMDP.numPoints).toArray(), backUpChunk);
+		} else {
+			backUpChunk.apply(null, 0, beliefMDP.numPoints);
+		}
+	}
+	
 	/**
 	 * Compute the grid-based approximate value for a belief for probabilistic reachability
 	 */
-	protected double approximateReachProb(Belief belief, HashMap<Belief, Double> gridValues, BitSet targetObs, BitSet unknownObs)
+	protected double approximateReachProb(Belief belief, BeliefGrid grid, double[] gridValues, BitSet targetObs, BitSet unknownObs)
 	{
 		// 1 for target states
 		if (targetObs.get(belief.so)) {
@@ -713,14 +835,14 @@ public class POMDPModelChecker extends ProbModelChecker
 		}
 		// Otherwise approximate vie interpolation over grid points
 		else {
-			return interpolateOverGrid(belief, gridValues);
+			return interpolateOverGrid(belief, grid, gridValues);
 		}
 	}
 	
 	/**
 	 * Compute the grid-based approximate value for a belief for reward reachability
 	 */
-	protected double approximateReachReward(Belief belief, HashMap<Belief, Double> gridValues, BitSet targetObs, BitSet infObs)
+	protected double approximateReachReward(Belief belief, BeliefGrid grid, double[] gridValues, BitSet targetObs, BitSet infObs)
 	{
 		// 0 for target states
 		if (targetObs.get(belief.so)) {
@@ -732,24 +854,22 @@ public class POMDPModelChecker extends ProbModelChecker
 		}
 		// Otherwise approximate vie interpolation over grid points
 		else {
-			return interpolateOverGrid(belief, gridValues);
+			return interpolateOverGrid(belief, grid, gridValues);
 		}
 	}
 	
 	/**
 	 * Approximate the value for a belief {@code belief} by interpolating over values {@code gridValues}
-	 * for a representative set of beliefs whose convex hull is the full belief space.
+	 * for the points of a grid {@code grid} whose convex hull is the full belief space.
 	 */
-	protected double interpolateOverGrid(Belief belief, HashMap<Belief, Double> gridValues)
+	protected double interpolateOverGrid(Belief belief, BeliefGrid grid, double[] gridValues)
 	{
-		ArrayList<double[]> subSimplex = new ArrayList<>();
-		double[] lambdas = new double[belief.bu.length];
-		getSubSimplexAndLambdas(belief.bu, subSimplex, lambdas, gridResolution);
+		int[] indices = new int[belief.bu.length];
+		double[] weights = new double[belief.bu.length];
+		int count = grid.interpolate(belief, indices, weights);
 		double val = 0;
-		for (int j = 0; j < lambdas.length; j++) {
-			if (lambdas[j] >= 1e-6) {
-				val += lambdas[j] * gridValues.get(new Belief(belief.so, subSimplex.get(j)));
-			}
+		for (int j = 0; j < count; j++) {
+			val += weights[j] * gridValues[indices[j]];
 		}
 		return val;
 	}
@@ -835,183 +955,6 @@ public class POMDPModelChecker extends ProbModelChecker
 		return psm;
 	}
 	
-	protected ArrayList<ArrayList<Integer>> assignGPrime(int startIndex, int min, int max, int length)
-	{
-		ArrayList<ArrayList<Integer>> result = new ArrayList<ArrayList<Integer>>();
-		if (startIndex == length - 1) {
-			for (int i = min; i <= max; i++) {
-				ArrayList<Integer> innerList = new ArrayList<>();
-				innerList.add(i);
-				result.add(innerList);
-			}
-		} else {
-			for (int i = min; i <= max; i++) {
-				ArrayList<ArrayList<Integer>> nextResult = assignGPrime(startIndex + 1, 0, i, length);
-				for (ArrayList<Integer> nextReulstInner : nextResult) {
-					ArrayList<Integer> innerList = new ArrayList<>();
-					innerList.add(i);
-					for (Integer a : nextReulstInner) {
-						innerList.add(a);
-					}
-					result.add(innerList);
-				}
-			}
-		}
-
-		return result;
-	}
-
-	private ArrayList<ArrayList<Double>> fullAssignment(int length, int resolution)
-	{
-		ArrayList<ArrayList<Integer>> GPrime = assignGPrime(0, resolution, resolution, length);
-		ArrayList<ArrayList<Double>> result = new ArrayList<ArrayList<Double>>();
-		for (ArrayList<Integer> GPrimeInner : GPrime) {
-			ArrayList<Double> innerList = new ArrayList<>();
-			int i;
-			for (i = 0; i < length - 1; i++) {
-				int temp = GPrimeInner.get(i) - GPrimeInner.get(i + 1);
-				innerList.add((double) temp / resolution);
-			}
-			innerList.add((double) GPrimeInner.get(i) / resolution);
-			result.add(innerList);
-		}
-		return result;
-	}
-
-	private int[] getSortedPermutation(double[] inputArray)
-	{
-		int n = inputArray.length;
-		double[] inputCopy = new double[n];
-		int[] permutation = new int[n];
-		int iState = 0, iIteration = 0;
-		int iNonZeroEntry = 0, iZeroEntry = n - 1;
-		boolean bDone = false;
-
-		for (iState = n - 1; iState >= 0; iState--) {
-			if (inputArray[iState] == 0.0) {
-				inputCopy[iZeroEntry] = 0.0;
-				permutation[iZeroEntry] = iState;
-				iZeroEntry--;
-			}
-
-		}
-
-		for (iState = 0; iState < n; iState++) {
-			if (inputArray[iState] != 0.0) {
-				inputCopy[iNonZeroEntry] = inputArray[iState];
-				permutation[iNonZeroEntry] = iState;
-				iNonZeroEntry++;
-			}
-		}
-
-		while (!bDone) {
-			bDone = true;
-			for (iState = 0; iState < iNonZeroEntry - iIteration - 1; iState++) {
-				if (inputCopy[iState] < inputCopy[iState + 1]) {
-					swap(inputCopy, iState, iState + 1);
-					swap(permutation, iState, iState + 1);
-					bDone = false;
-				}
-			}
-			iIteration++;
-		}
-
-		return permutation;
-	}
-
-	private void swap(int[] aiArray, int i, int j)
-	{
-		int temp = aiArray[i];
-		aiArray[i] = aiArray[j];
-		aiArray[j] = temp;
-	}
-
-	private void swap(double[] aiArray, int i, int j)
-	{
-		double temp = aiArray[i];
-		aiArray[i] = aiArray[j];
-		aiArray[j] = temp;
-	}
-
-	protected boolean getSubSimplexAndLambdas(double[] b, ArrayList<double[]> subSimplex, double[] lambdas, int resolution)
-	{
-		int n = b.length;
-		int M = resolution;
-
-		double[] X = new double[n];
-		int[] V = new int[n];
-		double[] D = new double[n];
-		for (int i = 0; i < n; i++) {
-			X[i] = 0;
-			for (int j = i; j < n; j++) {
-				X[i] += M * b[j];
-			}
-			X[i] = Math.round(X[i] * 1e6) / 1e6;
-			V[i] = (int) Math.floor(X[i]);
-			D[i] = X[i] - V[i];
-		}
-
-		int[] P = getSortedPermutation(D);
-		//		mainLog.println("X: "+ Arrays.toString(X));
-		//		mainLog.println("V: "+ Arrays.toString(V));
-		//		mainLog.println("D: "+ Arrays.toString(D));
-		//		mainLog.println("P: "+ Arrays.toString(P));
-
-		ArrayList<int[]> Qs = new ArrayList<>();
-		for (int i = 0; i < n; i++) {
-			int[] Q = new int[n];
-			if (i == 0) {
-				for (int j = 0; j < n; j++) {
-					Q[j] = V[j];
-				}
-				Qs.add(Q);
-			} else {
-				for (int j = 0; j < n; j++) {
-					if (j == P[i - 1]) {
-						Q[j] = Qs.get(i - 1)[j] + 1;
-					} else {
-						Q[j] = Qs.get(i - 1)[j];
-					}
-
-				}
-				Qs.add(Q);
-			}
-			//			mainLog.println(Arrays.toString(Q));
-		}
-
-		for (int[] Q : Qs) {
-			double[] node = new double[n];
-			int i;
-			for (i = 0; i < n - 1; i++) {
-				int temp = Q[i] - Q[i + 1];
-				node[i] = (double) temp / M;
-			}
-			node[i] = (double) Q[i] / M;
-			subSimplex.add(node);
-		}
-
-		double sum = 0;
-		for (int i = 1; i < n; i++) {
-			double lambda = D[P[i - 1]] - D[P[i]];
-			lambdas[i] = lambda;
-			sum = sum + lambda;
-		}
-		lambdas[0] = 1 - sum;
-
-		for (int i = 0; i < n; i++) {
-			double sum2 = 0;
-			for (int j = 0; j < n; j++) {
-				sum2 += lambdas[j] * subSimplex.get(j)[i];
-			}
-			//			mainLog.println("b["+i+"]: "+b[i]+"  b^[i]:"+sum2);
-			if (Math.abs(b[i] - sum2) > 1e-4) {
-				return false;
-			}
-
-		}
-		return true;
-	}
-
 	public static boolean isTargetBelief(double[] belief, BitSet target)
 	{
 		 double prob=0;
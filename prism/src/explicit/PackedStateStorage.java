@@ -0,0 +1,484 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import parser.State;
+import parser.VarList;
+
+/**
+ * Class storing an indexed set of states, each packed into a fixed number
+ * of bits (and thus 64-bit words) using the variable ranges from a {@link VarList}.
+ * <br>
+ * The layout of packed states is given by a {@link StatePacker}.
+ * Packed states are stored contiguously in an arena of longs (either on the Java heap
+ * or in direct, off-heap memory), indexed by an open-addressing hash table of state indices.
+ * This avoids the per-state object overhead of {@link IndexedSet}.
+ * <br>
+ * Since an unsigned, word-by-word comparison of two packed states matches {@link State#compareTo(State)},
+ * sorting permutations are built directly from the packed representation.
+ */
+public class PackedStateStorage implements StateStorage<State>
+{
+	/** Number of words in each chunk of the arena (must be a power of 2) */
+	private static final int CHUNK_BITS = 16;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** Maximum load factor for the hash table */
+	private static final double MAX_LOAD = 0.7;
+
+	/** Layout of packed states */
+	protected StatePacker packer;
+	/** Number of words used by a state */
+	protected int numWords;
+
+	// Storage of packed states
+	protected boolean offHeap;
+	protected long[][] chunks;
+	protected LongBuffer[] chunksOffHeap;
+	protected int numChunks;
+	protected int numStates;
+
+	// Hash table: entries are (state index + 1), 0 means empty
+	protected int[] table;
+	protected int tableMask;
+
+	// Misc
+	protected int indexOfLastAdd;
+	protected long[] scratch;
+
+	/**
+	 * Check whether states over the variables in {@code varList} can be packed,
+	 * i.e., all variables are bounded integers or Booleans.
+	 */
+	public static boolean canPack(VarList varList)
+	{
+		return StatePacker.canPack(varList);
+	}
+
+	/**
+	 * Create an empty packed state storage for states over the variables in {@code varList},
+	 * which are assumed to be packable (see {@link #canPack(VarList)}).
+	 * @param varList Variable info
+	 * @param offHeap Store packed states outside of the Java heap?
+	 */
+	public PackedStateStorage(VarList varList, boolean offHeap)
+	{
+		// Compute the layout of variables within words
+		packer = new StatePacker(varList);
+		numWords = packer.getNumWords();
+		// Create storage
+		this.offHeap = offHeap;
+		if (offHeap) {
+			chunksOffHeap = new LongBuffer[16];
+		} else {
+			chunks = new long[16][];
+		}
+		numChunks = 0;
+		numStates = 0;
+		table = new int[1024];
+		tableMask = table.length - 1;
+		indexOfLastAdd = -1;
+		scratch = new long[numWords];
+	}
+
+	/**
+	 * Get the number of bits used to store each state (excluding padding).
+	 */
+	public int getNumBitsPerState()
+	{
+		return packer.getNumBits();
+	}
+
+	/**
+	 * Get the number of 64-bit words used to store each state.
+	 */
+	public int getNumWordsPerState()
+	{
+		return numWords;
+	}
+
+	/**
+	 * Get the (average) number of bytes currently used per state,
+	 * including the allocated, but unused, storage and the hash table.
+	 */
+	public double getNumBytesPerState()
+	{
+		if (numStates == 0) {
+			return 0.0;
+		}
+		long bytes = ((long) numChunks * CHUNK_SIZE + table.length / 2) * 8;
+		return (double) bytes / numStates;
+	}
+
+	/**
+	 * Get a short description of the storage, for display in the log.
+	 */
+	public String getStorageInfo()
+	{
+		String s = (offHeap ? "bit-packed, off-heap" : "bit-packed") + ", ";
+		s += packer.getNumBits() + " bits/state (" + numWords + (numWords == 1 ? " word" : " words") + "), ";
+		s += String.format("%.1f", getNumBytesPerState()) + " bytes/state";
+		return s;
+	}
+
+	/**
+	 * Get (a decoded copy of) the state with index {@code i}.
+	 */
+	public State getState(int i)
+	{
+		long words[] = new long[numWords];
+		long base = (long) i * numWords;
+		for (int w = 0; w < numWords; w++) {
+			words[w] = getWord(base + w);
+		}
+		return packer.unpack(words, 0);
+	}
+
+	// Methods for StateStorage
+
+	@Override
+	public int get(State state)
+	{
+		pack(state, scratch);
+		return lookup(scratch, hash(scratch));
+	}
+
+	@Override
+	public boolean add(State state)
+	{
+		pack(state, scratch);
+		int h = hash(scratch);
+		int i = lookup(scratch, h);
+		if (i != -1) {
+			indexOfLastAdd = i;
+			return false;
+		}
+		// Grow the hash table if needed (before inserting)
+		if (numStates + 1 > table.length * MAX_LOAD) {
+			rehash(table.length * 2);
+		}
+		// Append to arena and insert into hash table
+		i = numStates;
+		ensureCapacity((long) (i + 1) * numWords);
+		long base = (long) i * numWords;
+		for (int w = 0; w < numWords; w++) {
+			setWord(base + w, scratch[w]);
+		}
+		insert(i, h);
+		numStates++;
+		indexOfLastAdd = i;
+		return true;
+	}
+
+	@Override
+	public void clear()
+	{
+		chunks = offHeap ? null : new long[16][];
+		chunksOffHeap = offHeap ? new LongBuffer[16] : null;
+		numChunks = 0;
+		numStates = 0;
+		table = new int[1024];
+		tableMask = table.length - 1;
+		indexOfLastAdd = -1;
+	}
+
+	@Override
+	public boolean contains(State state)
+	{
+		return get(state) != -1;
+	}
+
+	@Override
+	public int getIndexOfLastAdd()
+	{
+		return indexOfLastAdd;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return numStates == 0;
+	}
+
+	@Override
+	public int size()
+	{
+		return numStates;
+	}
+
+	/**
+	 * Get access to the set of map entries.
+	 * Note: this is created on demand and is not backed by the underlying storage.
+	 */
+	@Override
+	public Set<Map.Entry<State, Integer>> getEntrySet()
+	{
+		Map<State, Integer> map = new LinkedHashMap<>();
+		for (int i = 0; i < numStates; i++) {
+			map.put(getState(i), i);
+		}
+		return map.entrySet();
+	}
+
+	@Override
+	public ArrayList<State> toArrayList()
+	{
+		ArrayList<State> list = new ArrayList<State>(numStates);
+		toArrayList(list);
+		return list;
+	}
+
+	@Override
+	public void toArrayList(ArrayList<State> list)
+	{
+		for (int i = 0; i < numStates; i++) {
+			list.add(getState(i));
+		}
+	}
+
+	@Override
+	public ArrayList<State> toPermutedArrayList(int permut[])
+	{
+		ArrayList<State> list = new ArrayList<State>(numStates);
+		toPermutedArrayList(permut, list);
+		return list;
+	}
+
+	@Override
+	public void toPermutedArrayList(int permut[], ArrayList<State> list)
+	{
+		for (int i = 0; i < numStates; i++) {
+			list.add(null);
+		}
+		for (int i = 0; i < numStates; i++) {
+			list.set(permut[i], getState(i));
+		}
+	}
+
+	/**
+	 * Build sort permutation. This returns a permutation (integer array) mapping
+	 * current indices to new indices under the ordering of {@link State#compareTo(State)}.
+	 */
+	@Override
+	public int[] buildSortingPermutation()
+	{
+		// Sort state indices (merge sort, using the packed representation)
+		int[] order = new int[numStates];
+		for (int i = 0; i < numStates; i++) {
+			order[i] = i;
+		}
+		int[] tmp = new int[numStates];
+		for (int width = 1; width < numStates; width *= 2) {
+			for (int lo = 0; lo < numStates - width; lo += 2 * width) {
+				int mid = lo + width;
+				int hi = Math.min(lo + 2 * width, numStates);
+				int i = lo, j = mid, k = lo;
+				while (i < mid && j < hi) {
+					tmp[k++] = compareStates(order[i], order[j]) <= 0 ? order[i++] : order[j++];
+				}
+				while (i < mid) {
+					tmp[k++] = order[i++];
+				}
+				while (j < hi) {
+					tmp[k++] = order[j++];
+				}
+				System.arraycopy(tmp, lo, order, lo, hi - lo);
+			}
+		}
+		// Invert to get permutation
+		int[] perm = tmp;
+		for (int i = 0; i < numStates; i++) {
+			perm[order[i]] = i;
+		}
+		return perm;
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = 0; i < numStates; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(getState(i)).append("=").append(i);
+		}
+		return sb.append("}").toString();
+	}
+
+	// Packing/hashing
+
+	/**
+	 * Pack a state into an array of words.
+	 */
+	protected void pack(State state, long[] words)
+	{
+		packer.pack(state, words, 0);
+	}
+
+	/**
+	 * Compute a hash code for a packed state.
+	 */
+	protected int hash(long[] words)
+	{
+		return packer.hash(words, 0);
+	}
+
+	/**
+	 * Find the index of a packed state, with hash code {@code h}, or -1 if not present.
+	 */
+	protected int lookup(long[] words, int h)
+	{
+		int pos = h & tableMask;
+		while (true) {
+			int entry = table[pos];
+			if (entry == 0) {
+				return -1;
+			}
+			if (equalsStored(entry - 1, words)) {
+				return entry - 1;
+			}
+			pos = (pos + 1) & tableMask;
+		}
+	}
+
+	/**
+	 * Insert state index {@code i}, with hash code {@code h}, into the hash table.
+	 */
+	protected void insert(int i, int h)
+	{
+		int pos = h & tableMask;
+		while (table[pos] != 0) {
+			pos = (pos + 1) & tableMask;
+		}
+		table[pos] = i + 1;
+	}
+
+	/**
+	 * Rebuild the hash table with a new size (a power of 2).
+	 */
+	protected void rehash(int newSize)
+	{
+		if (newSize <= 0) {
+			throw new IllegalStateException("Too many states for packed state storage");
+		}
+		table = new int[newSize];
+		tableMask = newSize - 1;
+		long[] words = new long[numWords];
+		for (int i = 0; i < numStates; i++) {
+			long base = (long) i * numWords;
+			for (int w = 0; w < numWords; w++) {
+				words[w] = getWord(base + w);
+			}
+			insert(i, hash(words));
+		}
+	}
+
+	/**
+	 * Check whether the stored state with index {@code i} equals a packed state.
+	 */
+	protected boolean equalsStored(int i, long[] words)
+	{
+		long base = (long) i * numWords;
+		for (int w = 0; w < numWords; w++) {
+			if (getWord(base + w) != words[w]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compare stored states with indices {@code i} and {@code j},
+	 * treating words as unsigned (which matches {@link State#compareTo(State)}).
+	 */
+	protected int compareStates(int i, int j)
+	{
+		long baseI = (long) i * numWords;
+		long baseJ = (long) j * numWords;
+		for (int w = 0; w < numWords; w++) {
+			int c = Long.compareUnsigned(getWord(baseI + w), getWord(baseJ + w));
+			if (c != 0) {
+				return c;
+			}
+		}
+		return 0;
+	}
+
+	// Arena access
+
+	private long getWord(long pos)
+	{
+		int chunk = (int) (pos >>> CHUNK_BITS);
+		int offset = (int) (pos & CHUNK_MASK);
+		return offHeap ? chunksOffHeap[chunk].get(offset) : chunks[chunk][offset];
+	}
+
+	private void setWord(long pos, long word)
+	{
+		int chunk = (int) (pos >>> CHUNK_BITS);
+		int offset = (int) (pos & CHUNK_MASK);
+		if (offHeap) {
+			chunksOffHeap[chunk].put(offset, word);
+		} else {
+			chunks[chunk][offset] = word;
+		}
+	}
+
+	/**
+	 * Make sure that the arena can store at least {@code numWordsNeeded} words.
+	 */
+	private void ensureCapacity(long numWordsNeeded)
+	{
+		while ((long) numChunks * CHUNK_SIZE < numWordsNeeded) {
+			if (offHeap) {
+				if (numChunks == chunksOffHeap.length) {
+					LongBuffer[] newChunks = new LongBuffer[numChunks * 2];
+					System.arraycopy(chunksOffHeap, 0, newChunks, 0, numChunks);
+					chunksOffHeap = newChunks;
+				}
+				chunksOffHeap[numChunks] = ByteBuffer.allocateDirect(CHUNK_SIZE * 8).order(ByteOrder.nativeOrder()).asLongBuffer();
+			} else {
+				if (numChunks == chunks.length) {
+					long[][] newChunks = new long[numChunks * 2][];
+					System.arraycopy(chunks, 0, newChunks, 0, numChunks);
+					chunks = newChunks;
+				}
+				chunks[numChunks] = new long[CHUNK_SIZE];
+			}
+			numChunks++;
+		}
+	}
+}
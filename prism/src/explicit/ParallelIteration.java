@@ -0,0 +1,270 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import common.IntSet;
+import prism.PrismException;
+
+/**
+ * Parallel execution of state-wise operations (e.g. one step of value iteration)
+ * over a set of states. The states are split into fixed-size chunks, which are
+ * processed by a fork-join pool; work stealing between the pool's threads
+ * balances the load when states have very different numbers of choices/transitions.
+ * <br><br>
+ * Each chunk is processed in the original iteration order of the states
+ * and the per-chunk results are combined with a logical 'and',
+ * which allows convergence checks to be done in the same pass.
+ */
+public class ParallelIteration
+{
+	/** Default number of states per chunk */
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/** Shared pools, one per number of threads (pool threads are daemons, so no shutdown is needed) */
+	private static final Map<Integer, ForkJoinPool> pools = new HashMap<>();
+
+	/**
+	 * Operation to perform on a chunk of states.
+	 */
+	@FunctionalInterface
+	public interface ChunkOperation
+	{
+		/**
+		 * Process the states {@code states[from]}, ..., {@code states[to-1]};
+		 * return false if, e.g., convergence was not detected for them.
+		 * Use {@link ParallelIteration#iterator(int[], int, int)} to iterate over the states.
+		 */
+		public boolean apply(int[] states, int from, int to) throws PrismException;
+	}
+
+	/** Number of threads */
+	private final int numThreads;
+	/** Number of states per chunk */
+	private final int chunkSize;
+	/** The pool that does the work */
+	private final ForkJoinPool pool;
+
+	/** The state set most recently processed, and its states as an array (to avoid recomputation) */
+	private IntSet lastStates;
+	private int[] lastStatesArray;
+
+	/**
+	 * Create a parallel executor using {@code numThreads} threads and the default chunk size.
+	 */
+	public ParallelIteration(int numThreads)
+	{
+		this(numThreads, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Create a parallel executor using {@code numThreads} threads and {@code chunkSize} states per chunk.
+	 */
+	public ParallelIteration(int numThreads, int chunkSize)
+	{
+		this.numThreads = numThreads;
+		this.chunkSize = chunkSize;
+		this.pool = getPool(numThreads);
+	}
+
+	/**
+	 * Get the (shared) pool for a given number of threads.
+	 */
+	private static synchronized ForkJoinPool getPool(int numThreads)
+	{
+		return pools.computeIfAbsent(numThreads, ForkJoinPool::new);
+	}
+
+	/**
+	 * Get the pool used.
+	 */
+	public ForkJoinPool getPool()
+	{
+		return pool;
+	}
+
+	/**
+	 * Get the number of states per chunk.
+	 */
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * Get the number of threads used.
+	 */
+	public int getNumThreads()
+	{
+		return numThreads;
+	}
+
+	/**
+	 * Apply {@code op} to all of {@code states}, split into chunks processed in parallel.
+	 * Returns the conjunction of the results for each chunk.
+	 * If the state set is small, everything is done (sequentially) in the calling thread.
+	 */
+	public boolean forEachChunk(IntSet states, ChunkOperation op) throws PrismException
+	{
+		return forEachChunk(getStatesArray(states), op);
+	}
+
+	/**
+	 * Apply {@code op} to all of the states in {@code array}, split into chunks processed in parallel.
+	 * Returns the conjunction of the results for each chunk.
+	 * If the array is small, everything is done (sequentially) in the calling thread.
+	 * Unlike {@link #forEachChunk(IntSet, ChunkOperation)}, this stores nothing,
+	 * so it can be called concurrently, including from tasks running in the pool.
+	 */
+	public boolean forEachChunk(int[] array, ChunkOperation op) throws PrismException
+	{
+		if (array.length <= 2 * chunkSize) {
+			return op.apply(array, 0, array.length);
+		}
+		try {
+			ChunkTask task = new ChunkTask(array, 0, array.length, op);
+			// If called from one of the pool's own threads, run the task in that thread directly
+			return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+		} catch (ChunkException e) {
+			throw e.prismException;
+		}
+	}
+
+	/**
+	 * Get an iterator over the states {@code states[from]}, ..., {@code states[to-1]}.
+	 */
+	public static PrimitiveIterator.OfInt iterator(int[] states, int from, int to)
+	{
+		return new ArrayRangeIterator(states, from, to);
+	}
+
+	/**
+	 * Get the contents of a state set as an array, reusing the previous one if the set is the same.
+	 */
+	private int[] getStatesArray(IntSet states)
+	{
+		if (states != lastStates) {
+			lastStatesArray = states.stream().toArray();
+			lastStates = states;
+		}
+		return lastStatesArray;
+	}
+
+	/**
+	 * Unchecked wrapper for a PrismException thrown while processing a chunk.
+	 */
+	@SuppressWarnings("serial")
+	private static class ChunkException extends RuntimeException
+	{
+		private final PrismException prismException;
+
+		public ChunkException(PrismException prismException)
+		{
+			super(prismException);
+			this.prismException = prismException;
+		}
+	}
+
+	/**
+	 * Fork-join task for the range [from,to) of a state array,
+	 * which is split in two until it is no bigger than a chunk.
+	 */
+	@SuppressWarnings("serial")
+	private class ChunkTask extends RecursiveTask<Boolean>
+	{
+		private final int[] states;
+		private final int from;
+		private final int to;
+		private final ChunkOperation op;
+
+		public ChunkTask(int[] states, int from, int to, ChunkOperation op)
+		{
+			this.states = states;
+			this.from = from;
+			this.to = to;
+			this.op = op;
+		}
+
+		@Override
+		protected Boolean compute()
+		{
+			if (to - from <= chunkSize) {
+				try {
+					return op.apply(states, from, to);
+				} catch (PrismException e) {
+					throw new ChunkException(e);
+				}
+			}
+			int mid = (from + to) >>> 1;
+			ChunkTask left = new ChunkTask(states, from, mid, op);
+			left.fork();
+			boolean right = new ChunkTask(states, mid, to, op).compute();
+			// Always join, so that all chunks are processed, even if the result is already known
+			boolean leftResult = left.join();
+			return leftResult && right;
+		}
+	}
+
+	/**
+	 * Iterator over the range [from,to) of an int array.
+	 */
+	private static class ArrayRangeIterator implements PrimitiveIterator.OfInt
+	{
+		private final int[] array;
+		private final int to;
+		private int next;
+
+		public ArrayRangeIterator(int[] array, int from, int to)
+		{
+			this.array = array;
+			this.next = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return next < to;
+		}
+
+		@Override
+		public int nextInt()
+		{
+			if (next >= to) {
+				throw new NoSuchElementException();
+			}
+			return array[next++];
+		}
+	}
+}
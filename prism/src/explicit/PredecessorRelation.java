@@ -26,30 +26,47 @@
 
 package explicit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Stack;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import prism.PrismComponent;
-import common.IterableBitSet;
 
 /**
  * A class for storing and accessing the predecessor relation of an explicit Model.
  * <p>
  * As Model only provide easy access to successors of states,
  * the predecessor relation is computed and stored for subsequent efficient access.
+ * It is stored in compressed sparse row (CSR) form: the predecessors of
+ * state {@code s} are {@code sources[offsets[s]]}, ..., {@code sources[offsets[s+1]-1]},
+ * in ascending order and without duplicates.
  * <p>
  * Note: Naturally, if the model changes, the predecessor relation
  * has to be recomputed to remain accurate.
  */
 public class PredecessorRelation
 {
+	/** Number of states per chunk when building the relation in parallel */
+	private static final int CHUNK_SIZE = 4096;
+
+	/** Minimum number of states for which the relation is built in parallel */
+	private static final int PARALLEL_THRESHOLD = 8 * CHUNK_SIZE;
+
+	/**
+	 * offsets[s] is the index in {@code sources} of the first predecessor of state s;
+	 * offsets[numStates] is the total number of entries.
+	 */
+	private final int[] offsets;
+
 	/**
-	 * pre[i] provides the list of predecessors of state with index i.
+	 * The predecessors of all states, stored consecutively.
 	 */
-	List<ArrayList<Integer>> pre;
+	private final int[] sources;
 
 	/**
 	 * Constructor. Computes the predecessor relation for the given model
@@ -59,49 +76,128 @@ public class PredecessorRelation
 	 */
 	public PredecessorRelation(Model model)
 	{
-		pre = new ArrayList<ArrayList<Integer>>(model.getNumStates());
-		// construct the (empty) array list for all states
-		for (int s = 0; s < model.getNumStates(); s++) {
-			pre.add(s, new ArrayList<Integer>());
+		int n = model.getNumStates();
+		// Only models that are stored explicitly are known to support concurrent access
+		boolean parallel = n >= PARALLEL_THRESHOLD && model instanceof ModelExplicit && ForkJoinPool.getCommonPoolParallelism() > 1;
+		int numChunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+		// Pass 1: count the predecessors of each state
+		AtomicIntegerArray counts = new AtomicIntegerArray(n);
+		forEachChunk(numChunks, parallel, chunk -> {
+			for (int s = chunk * CHUNK_SIZE, end = Math.min(n, s + CHUNK_SIZE); s < end; s++) {
+				// Use distinct successors, so that s is a predecessor of each successor exactly once
+				SuccessorsIterator it = model.getSuccessors(s).distinct();
+				while (it.hasNext()) {
+					counts.incrementAndGet(it.nextInt());
+				}
+			}
+		});
+
+		// Prefix sum for the offsets; counts then serve as cursors for the next free entry
+		offsets = new int[n + 1];
+		for (int s = 0; s < n; s++) {
+			int count = counts.get(s);
+			counts.set(s, offsets[s]);
+			offsets[s + 1] = Math.addExact(offsets[s], count);
 		}
 
-		compute(model);
+		// Pass 2: store the predecessors
+		sources = new int[offsets[n]];
+		forEachChunk(numChunks, parallel, chunk -> {
+			for (int s = chunk * CHUNK_SIZE, end = Math.min(n, s + CHUNK_SIZE); s < end; s++) {
+				SuccessorsIterator it = model.getSuccessors(s).distinct();
+				while (it.hasNext()) {
+					sources[counts.getAndIncrement(it.nextInt())] = s;
+				}
+			}
+		});
+
+		// In parallel, the order of the entries for each state depends on scheduling,
+		// so sort them to get the same (ascending) order as the sequential construction
+		if (parallel) {
+			forEachChunk(numChunks, true, chunk -> {
+				for (int s = chunk * CHUNK_SIZE, end = Math.min(n, s + CHUNK_SIZE); s < end; s++) {
+					Arrays.sort(sources, offsets[s], offsets[s + 1]);
+				}
+			});
+		}
 	}
 
-	/** Compute the predecessor relation using getSuccessorsIterator. */
-	private void compute(Model model)
+	/**
+	 * Apply {@code action} to the chunk indices 0, ..., numChunks-1,
+	 * either sequentially or in parallel (using the common ForkJoinPool).
+	 */
+	private static void forEachChunk(int numChunks, boolean parallel, IntConsumer action)
 	{
-		int n = model.getNumStates();
-
-		for (int s = 0; s < n; s++) {
-			Iterator<Integer> it = model.getSuccessorsIterator(s);
-			while (it.hasNext()) {
-				Integer successor = it.next();
-
-				// Add the current state s to pre[successor].
-				//
-				// As getSuccessorsIterator guarantees that
-				// there are no duplicates in the successors,
-				// s will be added to successor exactly once.
-				pre.get(successor).add(s);
-			}
+		if (parallel) {
+			IntStream.range(0, numChunks).parallel().forEach(action);
+		} else {
+			IntStream.range(0, numChunks).forEach(action);
 		}
 	}
 
+	/**
+	 * Get the number of predecessors of state {@code s}.
+	 */
+	public int getNumPredecessors(int s)
+	{
+		return offsets[s + 1] - offsets[s];
+	}
+
+	/**
+	 * Get the total number of entries (predecessor/successor pairs) in the relation.
+	 */
+	public int getNumEntries()
+	{
+		return sources.length;
+	}
+
 	/**
 	 * Get an Iterable over the predecessor states of {@code s}.
+	 * <br>
+	 * For performance-critical code, prefer {@link #getPredecessorsIterator(int)}
+	 * or {@link #forEachPredecessor(int, IntConsumer)}, which avoid boxing.
 	 */
 	public Iterable<Integer> getPre(int s)
 	{
-		return pre.get(s);
+		return () -> getPredecessorsIterator(s);
 	}
 
 	/**
 	 * Get an Iterator over the predecessor states of {@code s}.
 	 */
-	public Iterator<Integer> getPredecessorsIterator(int s)
+	public PrimitiveIterator.OfInt getPredecessorsIterator(int s)
+	{
+		return new PrimitiveIterator.OfInt()
+		{
+			int i = offsets[s];
+			final int end = offsets[s + 1];
+
+			@Override
+			public boolean hasNext()
+			{
+				return i < end;
+			}
+
+			@Override
+			public int nextInt()
+			{
+				if (i >= end) {
+					throw new NoSuchElementException();
+				}
+				return sources[i++];
+			}
+		};
+	}
+
+	/**
+	 * Perform the given action for each predecessor state of {@code s} (in ascending order).
+	 */
+	public void forEachPredecessor(int s, IntConsumer action)
 	{
-		return getPre(s).iterator();
+		for (int i = offsets[s], end = offsets[s + 1]; i < end; i++) {
+			action.accept(sources[i]);
+		}
 	}
 
 	/**
@@ -154,37 +250,34 @@ public class PredecessorRelation
 		// all target states are in Pre*
 		result = (BitSet)target.clone();
 
-		// the stack of states whose predecessors have to be considered
-		Stack<Integer> todo = new Stack<Integer>();
+		// the stack of states whose predecessors have to be considered;
+		// each state is pushed at most once (when it is added to result),
+		// so the stack never holds more than numStates entries
+		int[] todo = new int[Math.max(16, target.cardinality())];
+		int todoSize = 0;
 
 		// initial todo: all the target states
-		for (Integer s : IterableBitSet.getSetBits(target)) {
-			todo.add(s);
-		};
-
-		// the set of states that are finished
-		BitSet done = new BitSet();
-
-		while (!todo.isEmpty()) {
-			int s = todo.pop();
-			// already considered?
-			if (done.get(s)) continue;
+		for (int s = target.nextSetBit(0); s >= 0; s = target.nextSetBit(s + 1)) {
+			todo[todoSize++] = s;
+		}
 
-			done.set(s);
+		while (todoSize > 0) {
+			int s = todo[--todoSize];
 
 			// for each predecessor in the graph
-			for (int p : getPre(s)) {
+			for (int i = offsets[s], end = offsets[s + 1]; i < end; i++) {
+				int p = sources[i];
 				if (absorbing != null && absorbing.get(p)) {
 					// predecessor is absorbing, thus the edge is considered to not exist
 					continue;
 				}
-				if (remain == null || remain.get(p)) {
-					// can reach result (and is in remain)
+				if ((remain == null || remain.get(p)) && !result.get(p)) {
+					// can reach result (and is in remain): add to result and stack
 					result.set(p);
-					if (!done.get(p)) {
-						// add to stack
-						todo.add(p);
+					if (todoSize == todo.length) {
+						todo = Arrays.copyOf(todo, Math.min(offsets.length - 1, 2 * todo.length));
 					}
+					todo[todoSize++] = p;
 				}
 			}
 		}
@@ -78,6 +78,8 @@ public class ProbModelChecker extends NonProbModelChecker
 	protected double termCritParam = 1e-8;
 	// Max iterations for numerical solution
 	protected int maxIters = 100000;
+	// Number of threads for (Jacobi/power-style) iterative numerical methods
+	protected int numIterationThreads = 1;
 	// Resolution for POMDP fixed grid approximation algorithm
 	protected int gridResolution = 10;
 	// Use precomputation algorithms in model checking?
@@ -94,6 +96,10 @@ public class ProbModelChecker extends NonProbModelChecker
 	protected SolnMethod solnMethod = SolnMethod.VALUE_ITERATION;
 	// Is non-convergence of an iterative method an error?
 	protected boolean errorOnNonConverge = true;
+	// Solution vectors from previous computations, used for warm starts (optional)
+	protected WarmStartVectors warmStartVectors = null;
+	// SCC decompositions of models analysed repeatedly (optional)
+	protected SCCCache sccCache = null;
 	// Adversary export
 	protected boolean exportAdv = false;
 	protected String exportAdvFilename;
@@ -224,6 +230,8 @@ public class ProbModelChecker extends NonProbModelChecker
 			setTermCritParam(settings.getDouble(PrismSettings.PRISM_TERM_CRIT_PARAM));
 			// PRISM_MAX_ITERS
 			setMaxIters(settings.getInteger(PrismSettings.PRISM_MAX_ITERS));
+			// PRISM_ITERATION_THREADS
+			setNumIterationThreads(settings.getInteger(PrismSettings.PRISM_ITERATION_THREADS));
 			// PRISM_GRID_RESOLUTION
 			setGridResolution(settings.getInteger(PrismSettings.PRISM_GRID_RESOLUTION));
 			// PRISM_PRECOMPUTATION
@@ -263,6 +271,7 @@ public class ProbModelChecker extends NonProbModelChecker
 		setTermCrit(other.getTermCrit());
 		setTermCritParam(other.getTermCritParam());
 		setMaxIters(other.getMaxIters());
+		setNumIterationThreads(other.getNumIterationThreads());
 		setGridResolution(other.getGridResolution());
 		setPrecomp(other.getPrecomp());
 		setProb0(other.getProb0());
@@ -270,6 +279,8 @@ public class ProbModelChecker extends NonProbModelChecker
 		setValIterDir(other.getValIterDir());
 		setSolnMethod(other.getSolnMethod());
 		setErrorOnNonConverge(other.geterrorOnNonConverge());
+		setWarmStartVectors(other.getWarmStartVectors());
+		setSCCCache(other.getSCCCache());
 	}
 
 	/**
@@ -283,6 +294,7 @@ public class ProbModelChecker extends NonProbModelChecker
 		mainLog.print("termCrit = " + termCrit + " ");
 		mainLog.print("termCritParam = " + termCritParam + " ");
 		mainLog.print("maxIters = " + maxIters + " ");
+		mainLog.print("numIterationThreads = " + numIterationThreads + " ");
 		mainLog.print("gridResolution = " + gridResolution + " ");
 		mainLog.print("precomp = " + precomp + " ");
 		mainLog.print("prob0 = " + prob0 + " ");
@@ -354,6 +366,14 @@ public class ProbModelChecker extends NonProbModelChecker
 		this.maxIters = maxIters;
 	}
 
+	/**
+	 * Set number of threads for (Jacobi/power-style) iterative numerical methods.
+	 */
+	public void setNumIterationThreads(int numIterationThreads)
+	{
+		this.numIterationThreads = numIterationThreads;
+	}
+
 	/**
 	 * Set resolution for POMDP fixed grid approximation algorithm.
 	 */
@@ -418,6 +438,24 @@ public class ProbModelChecker extends NonProbModelChecker
 		this.errorOnNonConverge = errorOnNonConverge;
 	}
 
+	/**
+	 * Set the store of solution vectors used to warm-start iterative methods
+	 * (and which is updated with new solutions); null means no warm starts.
+	 */
+	public void setWarmStartVectors(WarmStartVectors warmStartVectors)
+	{
+		this.warmStartVectors = warmStartVectors;
+	}
+
+	/**
+	 * Set the store of SCC decompositions to re-use (and add to) for models
+	 * that are analysed repeatedly; null means they are always recomputed.
+	 */
+	public void setSCCCache(SCCCache sccCache)
+	{
+		this.sccCache = sccCache;
+	}
+
 	public void setExportAdv(boolean exportAdv)
 	{
 		this.exportAdv = exportAdv;
@@ -460,6 +498,11 @@ public class ProbModelChecker extends NonProbModelChecker
 		return maxIters;
 	}
 
+	public int getNumIterationThreads()
+	{
+		return numIterationThreads;
+	}
+
 	public int getGridResolution()
 	{
 		return gridResolution;
@@ -503,6 +546,22 @@ public class ProbModelChecker extends NonProbModelChecker
 		return errorOnNonConverge;
 	}
 
+	/**
+	 * Get the store of solution vectors used to warm-start iterative methods (null if none).
+	 */
+	public WarmStartVectors getWarmStartVectors()
+	{
+		return warmStartVectors;
+	}
+
+	/**
+	 * Get the store of SCC decompositions that are re-used (null if none).
+	 */
+	public SCCCache getSCCCache()
+	{
+		return sccCache;
+	}
+
 	// Model checking functions
 
 	@Override
@@ -615,7 +674,7 @@ public class ProbModelChecker extends NonProbModelChecker
 
 		// For =? properties, just return values; otherwise compare against bound
 		if (!opInfo.isNumeric()) {
-			probs.applyPredicate(v -> opInfo.apply((double) v, probs.getAccuracy()));
+			probs.applyDoublePredicate(v -> opInfo.apply(v, probs.getAccuracy()));
 		}
 		return probs;
 	}
@@ -690,7 +749,7 @@ public class ProbModelChecker extends NonProbModelChecker
 
 		if (negated) {
 			// Subtract from 1 for negation
-			probs.applyFunction(TypeDouble.getInstance(), v -> 1.0 - (double) v);
+			probs.applyDoubleFunction(v -> 1.0 - v, null);
 		}
 
 		return probs;
@@ -918,7 +977,7 @@ public class ProbModelChecker extends NonProbModelChecker
 
 		// For =? properties, just return values; otherwise compare against bound
 		if (!opInfo.isNumeric()) {
-			rews.applyPredicate(v -> opInfo.apply((double) v, rews.getAccuracy()));
+			rews.applyDoublePredicate(v -> opInfo.apply(v, rews.getAccuracy()));
 		}
 		return rews;
 	}
@@ -1202,7 +1261,7 @@ public class ProbModelChecker extends NonProbModelChecker
 
 		// For =? properties, just return values; otherwise compare against bound
 		if (!opInfo.isNumeric()) {
-			probs.applyPredicate(v -> opInfo.apply((double) v, probs.getAccuracy()));
+			probs.applyDoublePredicate(v -> opInfo.apply(v, probs.getAccuracy()));
 		}
 		return probs;
 	}
@@ -0,0 +1,120 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import prism.PrismComponent;
+import prism.PrismException;
+
+/**
+ * SCC decompositions (see {@link SCCConsumerStore}) of models that are analysed
+ * repeatedly, e.g., when kept resident in memory by a server, so that they are only computed once.
+ * Decompositions are associated with model objects (by identity, not by equality),
+ * which are only weakly referenced. Only the most recently used {@link #MAX_ENTRIES} are kept.
+ * <br><br>
+ * Stored decompositions are shared, so should not be modified.
+ */
+public class SCCCache
+{
+	/** Maximum number of SCC decompositions stored */
+	public static final int MAX_ENTRIES = 4;
+
+	/** Stored decompositions, most recently used first */
+	private final LinkedList<Entry> entries = new LinkedList<>();
+
+	private static final class Entry
+	{
+		private final WeakReference<Model> model;
+		private final SCCConsumerStore sccs;
+
+		private Entry(Model model, SCCConsumerStore sccs)
+		{
+			this.model = new WeakReference<>(model);
+			this.sccs = sccs;
+		}
+	}
+
+	/**
+	 * Get the SCC decomposition of {@code model}, computing (and storing) it if needed.
+	 */
+	public SCCConsumerStore getSCCs(PrismComponent parent, Model model) throws PrismException
+	{
+		SCCConsumerStore sccs = get(model);
+		if (sccs == null) {
+			sccs = new SCCConsumerStore();
+			SCCComputer sccComputer = SCCComputer.createSCCComputer(parent, model, sccs);
+			sccComputer.computeSCCs();
+			put(model, sccs);
+		}
+		return sccs;
+	}
+
+	/**
+	 * Get the stored SCC decomposition of {@code model}, or null if there is none.
+	 */
+	public synchronized SCCConsumerStore get(Model model)
+	{
+		Iterator<Entry> it = entries.iterator();
+		while (it.hasNext()) {
+			Entry entry = it.next();
+			Model m = entry.model.get();
+			if (m == null) {
+				it.remove();
+			} else if (m == model) {
+				it.remove();
+				entries.addFirst(entry);
+				return entry.sccs;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Store the (finished) SCC decomposition {@code sccs} of {@code model}.
+	 */
+	public synchronized void put(Model model, SCCConsumerStore sccs)
+	{
+		// Compute BSCCs now, since this is otherwise done lazily (and the store is shared)
+		sccs.getBSCCs();
+		entries.removeIf(entry -> entry.model.get() == model);
+		entries.addFirst(new Entry(model, sccs));
+		while (entries.size() > MAX_ENTRIES) {
+			entries.removeLast();
+		}
+	}
+
+	/**
+	 * Discard all stored decompositions.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+	}
+}
@@ -34,6 +34,7 @@ import java.util.function.IntPredicate;
 
 import prism.PrismComponent;
 import prism.PrismException;
+import prism.PrismSettings;
 
 /**
  * Abstract class for (explicit) classes that compute (B)SCCs,
@@ -46,12 +47,14 @@ public abstract class SCCComputer extends PrismComponent
 
 	// Method used for finding (B)SCCs
 	public enum SCCMethod {
-		TARJAN;
+		TARJAN, PARALLEL;
 		public String fullName()
 		{
 			switch (this) {
 			case TARJAN:
 				return "Tarjan";
+			case PARALLEL:
+				return "Parallel";
 			default:
 				return this.toString();
 			}
@@ -63,8 +66,25 @@ public abstract class SCCComputer extends PrismComponent
 	 */
 	public static SCCComputer createSCCComputer(PrismComponent parent, Model model, SCCConsumer consumer) throws PrismException
 	{
-		// Only one algorithm implemented currently
-		return new SCCComputerTarjan(parent, model, consumer);
+		SCCMethod sccMethod = SCCMethod.TARJAN;
+		if (parent != null && parent.getSettings() != null && parent.getSettings().getString(PrismSettings.PRISM_SCC_METHOD_EXPLICIT).equals("Parallel")) {
+			sccMethod = SCCMethod.PARALLEL;
+		}
+		return createSCCComputer(parent, sccMethod, model, consumer);
+	}
+
+	/**
+	 * Static method to create a new SCCComputer object, using the requested method.
+	 */
+	public static SCCComputer createSCCComputer(PrismComponent parent, SCCMethod sccMethod, Model model, SCCConsumer consumer) throws PrismException
+	{
+		switch (sccMethod) {
+		case PARALLEL:
+			return new SCCComputerParallel(parent, model, consumer);
+		case TARJAN:
+		default:
+			return new SCCComputerTarjan(parent, model, consumer);
+		}
 	}
 
 	/**
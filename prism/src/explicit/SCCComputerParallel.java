@@ -0,0 +1,398 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import prism.PrismComponent;
+import prism.PrismException;
+import prism.PrismNotSupportedException;
+
+/**
+ * Parallel SCC computation operating on a Model object, using the forward-backward
+ * algorithm (Fleischer, Hendrickson and Pinar) with trimming (McLendon et al.).
+ * <br><br>
+ * For a set of states, trivial SCCs (states with no predecessors or no successors in the set)
+ * are first removed ("trimmed"). Then, the SCC of a random pivot state is the intersection
+ * of its forward and backward reachable sets, and the remaining states split into three
+ * independent subproblems (forward only, backward only, neither), which are solved in parallel
+ * in the common fork-join pool. Random pivots give an expected O(m log n) running time.
+ * <br><br>
+ * Since SCCs are found in an arbitrary order, they are reported to the consumer (sequentially)
+ * at the end, in a reverse topological order (an SCC is reported after all SCCs reachable from it,
+ * as for Tarjan's algorithm), which is independent of the thread scheduling.
+ */
+public class SCCComputerParallel extends SCCComputer
+{
+	/** Value of {@code part} for states that are not relevant or already assigned to an SCC */
+	private static final int DONE = -1;
+
+	/* The model to compute (B)SCCs for */
+	private Model model;
+	/* Number of nodes (model states) */
+	private int numNodes;
+
+	/* Successor and predecessor relation (restricted to relevant states, without self-loops) in CSR format */
+	private int[] succStarts;
+	private int[] succs;
+	private int[] predStarts;
+	private int[] preds;
+	/* Nodes with a self-loop */
+	private BitSet hasSelfloop;
+
+	/* Subproblem (partition) that each node currently belongs to, or DONE */
+	private int[] part;
+	/* (Raw) SCC index of each node, or -1 if not (yet) known */
+	private int[] sccOf;
+	/* Degrees of nodes within their partition (used for trimming) */
+	private int[] inDegree;
+	private int[] outDegree;
+	/* Counters for fresh partition/SCC indices */
+	private final AtomicInteger nextPart = new AtomicInteger(1);
+	private final AtomicInteger nextSCC = new AtomicInteger(0);
+
+	/**
+	 * Build (B)SCC computer for a given model.
+	 */
+	public SCCComputerParallel(PrismComponent parent, Model model, SCCConsumer consumer) throws PrismException
+	{
+		super(parent, consumer);
+		this.model = model;
+		this.numNodes = model.getNumStates();
+	}
+
+	// Methods for SCCComputer interface
+
+	@Override
+	public void computeSCCs(boolean filterTrivialSCCs, IntPredicate restrict) throws PrismException
+	{
+		consumer.notifyStart(model);
+		buildGraph(restrict);
+		// Find SCCs, in parallel
+		sccOf = new int[numNodes];
+		Arrays.fill(sccOf, -1);
+		inDegree = new int[numNodes];
+		outDegree = new int[numNodes];
+		int[] relevant = new int[numNodes];
+		int numRelevant = 0;
+		for (int s = 0; s < numNodes; s++) {
+			if (part[s] == 0) {
+				relevant[numRelevant++] = s;
+			}
+		}
+		ForkJoinPool.commonPool().invoke(new ForwardBackwardTask(Arrays.copyOf(relevant, numRelevant), 0));
+		inDegree = outDegree = part = null;
+		// Report SCCs, in reverse topological order
+		reportSCCs(filterTrivialSCCs);
+		succStarts = succs = predStarts = preds = sccOf = null;
+		consumer.notifyDone();
+	}
+
+	/**
+	 * Store the successor/predecessor relation of the model, restricted to relevant states,
+	 * in CSR format, and initialise {@code part} (0 for relevant states, DONE otherwise).
+	 */
+	private void buildGraph(IntPredicate restrict) throws PrismException
+	{
+		part = new int[numNodes];
+		for (int s = 0; s < numNodes; s++) {
+			part[s] = (restrict == null || restrict.test(s)) ? 0 : DONE;
+		}
+		hasSelfloop = new BitSet();
+		succStarts = new int[numNodes + 1];
+		predStarts = new int[numNodes + 1];
+		long numEdges = 0;
+		for (int s = 0; s < numNodes; s++) {
+			if (part[s] == DONE) {
+				continue;
+			}
+			SuccessorsIterator it = model.getSuccessors(s);
+			while (it.hasNext()) {
+				int t = it.nextInt();
+				if (t == s) {
+					hasSelfloop.set(s);
+				} else if (part[t] != DONE) {
+					succStarts[s + 1]++;
+					predStarts[t + 1]++;
+					numEdges++;
+				}
+			}
+		}
+		if (numEdges > Integer.MAX_VALUE - 8) {
+			throw new PrismNotSupportedException("Too many transitions (" + numEdges + ") for parallel SCC computation");
+		}
+		for (int s = 0; s < numNodes; s++) {
+			succStarts[s + 1] += succStarts[s];
+			predStarts[s + 1] += predStarts[s];
+		}
+		succs = new int[(int) numEdges];
+		preds = new int[(int) numEdges];
+		int[] predNext = Arrays.copyOf(predStarts, numNodes);
+		for (int s = 0, k = 0; s < numNodes; s++) {
+			if (part[s] == DONE) {
+				continue;
+			}
+			SuccessorsIterator it = model.getSuccessors(s);
+			while (it.hasNext()) {
+				int t = it.nextInt();
+				if (t != s && part[t] != DONE) {
+					succs[k++] = t;
+					preds[predNext[t]++] = s;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Task to compute the SCCs of a set of states, all of which are in partition {@code myPart}.
+	 * Each task only modifies the entries of {@code part}, {@code sccOf}, etc. for its own states.
+	 * Other tasks never use the (fresh) partition indices of this task, so reading their entries
+	 * concurrently (to check whether a state belongs to this task) is safe.
+	 */
+	private class ForwardBackwardTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] states;
+		private final int myPart;
+
+		public ForwardBackwardTask(int[] states, int myPart)
+		{
+			this.states = states;
+			this.myPart = myPart;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int[] remaining = trim();
+			if (remaining.length == 0) {
+				return;
+			}
+			int pivot = remaining[ThreadLocalRandom.current().nextInt(remaining.length)];
+			int fwdPart = nextPart.getAndIncrement();
+			int bwdPart = nextPart.getAndIncrement();
+			int restPart = nextPart.getAndIncrement();
+			// Forward search from pivot (within partition)
+			int[] fwd = new int[remaining.length];
+			int numFwd = 0;
+			fwd[numFwd++] = pivot;
+			part[pivot] = fwdPart;
+			for (int i = 0; i < numFwd; i++) {
+				int s = fwd[i];
+				for (int k = succStarts[s], stop = succStarts[s + 1]; k < stop; k++) {
+					int t = succs[k];
+					if (part[t] == myPart) {
+						part[t] = fwdPart;
+						fwd[numFwd++] = t;
+					}
+				}
+			}
+			// Backward search from pivot (within partition): states also found forwards form the SCC
+			int scc = nextSCC.getAndIncrement();
+			int[] bwd = new int[remaining.length];
+			int numBwd = 0;
+			int[] queue = new int[remaining.length];
+			int queueSize = 0;
+			queue[queueSize++] = pivot;
+			part[pivot] = DONE;
+			sccOf[pivot] = scc;
+			for (int i = 0; i < queueSize; i++) {
+				int s = queue[i];
+				for (int k = predStarts[s], stop = predStarts[s + 1]; k < stop; k++) {
+					int t = preds[k];
+					if (part[t] == fwdPart) {
+						part[t] = DONE;
+						sccOf[t] = scc;
+						queue[queueSize++] = t;
+					} else if (part[t] == myPart) {
+						part[t] = bwdPart;
+						bwd[numBwd++] = t;
+						queue[queueSize++] = t;
+					}
+				}
+			}
+			// Split remaining states into the three subproblems
+			int numFwdRest = 0;
+			for (int i = 0; i < numFwd; i++) {
+				if (part[fwd[i]] == fwdPart) {
+					fwd[numFwdRest++] = fwd[i];
+				}
+			}
+			int[] rest = queue;
+			int numRest = 0;
+			for (int s : remaining) {
+				if (part[s] == myPart) {
+					part[s] = restPart;
+					rest[numRest++] = s;
+				}
+			}
+			invokeAll(new ForwardBackwardTask(Arrays.copyOf(fwd, numFwdRest), fwdPart),
+					new ForwardBackwardTask(Arrays.copyOf(bwd, numBwd), bwdPart),
+					new ForwardBackwardTask(Arrays.copyOf(rest, numRest), restPart));
+		}
+
+		/**
+		 * Repeatedly remove states with no predecessors or no successors within the partition,
+		 * each of which is a (singleton) SCC. Returns the states that remain.
+		 */
+		private int[] trim()
+		{
+			int[] worklist = new int[states.length];
+			int worklistSize = 0;
+			for (int s : states) {
+				int in = 0, out = 0;
+				for (int k = predStarts[s], stop = predStarts[s + 1]; k < stop; k++) {
+					if (part[preds[k]] == myPart) {
+						in++;
+					}
+				}
+				for (int k = succStarts[s], stop = succStarts[s + 1]; k < stop; k++) {
+					if (part[succs[k]] == myPart) {
+						out++;
+					}
+				}
+				inDegree[s] = in;
+				outDegree[s] = out;
+				if (in == 0 || out == 0) {
+					worklist[worklistSize++] = s;
+				}
+			}
+			// (each state is added to the worklist at most once, when its in- or out-degree first becomes 0)
+			for (int i = 0; i < worklistSize; i++) {
+				int s = worklist[i];
+				part[s] = DONE;
+				sccOf[s] = nextSCC.getAndIncrement();
+				for (int k = succStarts[s], stop = succStarts[s + 1]; k < stop; k++) {
+					int t = succs[k];
+					if (part[t] == myPart && --inDegree[t] == 0 && outDegree[t] > 0) {
+						worklist[worklistSize++] = t;
+					}
+				}
+				for (int k = predStarts[s], stop = predStarts[s + 1]; k < stop; k++) {
+					int t = preds[k];
+					if (part[t] == myPart && --outDegree[t] == 0 && inDegree[t] > 0) {
+						worklist[worklistSize++] = t;
+					}
+				}
+			}
+			if (worklistSize == 0) {
+				return states;
+			}
+			int[] remaining = new int[states.length - worklistSize];
+			int numRemaining = 0;
+			for (int s : states) {
+				if (part[s] == myPart) {
+					remaining[numRemaining++] = s;
+				}
+			}
+			return remaining;
+		}
+	}
+
+	/**
+	 * Report the computed SCCs to the consumer, in reverse topological order
+	 * (i.e., bottom SCCs first). SCCs are numbered in order of their smallest state
+	 * and ties are broken by this numbering, so the order is deterministic.
+	 */
+	private void reportSCCs(boolean filterTrivialSCCs) throws PrismException
+	{
+		// Renumber SCCs in order of their smallest state
+		int[] canonical = new int[nextSCC.get()];
+		Arrays.fill(canonical, -1);
+		int numSCCs = 0;
+		for (int s = 0; s < numNodes; s++) {
+			if (sccOf[s] != -1) {
+				if (canonical[sccOf[s]] == -1) {
+					canonical[sccOf[s]] = numSCCs++;
+				}
+				sccOf[s] = canonical[sccOf[s]];
+			}
+		}
+		canonical = null;
+		// Group states by SCC (in increasing order)
+		int[] sccStarts = new int[numSCCs + 1];
+		for (int s = 0; s < numNodes; s++) {
+			if (sccOf[s] != -1) {
+				sccStarts[sccOf[s] + 1]++;
+			}
+		}
+		for (int c = 0; c < numSCCs; c++) {
+			sccStarts[c + 1] += sccStarts[c];
+		}
+		int[] sccStates = new int[sccStarts[numSCCs]];
+		int[] sccNext = Arrays.copyOf(sccStarts, numSCCs);
+		for (int s = 0; s < numNodes; s++) {
+			if (sccOf[s] != -1) {
+				sccStates[sccNext[sccOf[s]]++] = s;
+			}
+		}
+		sccNext = null;
+		// Count edges leaving each SCC, then repeatedly report SCCs with none left
+		int[] outEdges = new int[numSCCs];
+		for (int s = 0; s < numNodes; s++) {
+			for (int k = succStarts[s], stop = succStarts[s + 1]; k < stop; k++) {
+				if (sccOf[succs[k]] != sccOf[s]) {
+					outEdges[sccOf[s]]++;
+				}
+			}
+		}
+		int[] queue = new int[numSCCs];
+		int queueSize = 0;
+		for (int c = 0; c < numSCCs; c++) {
+			if (outEdges[c] == 0) {
+				queue[queueSize++] = c;
+			}
+		}
+		for (int i = 0; i < queueSize; i++) {
+			int c = queue[i];
+			int start = sccStarts[c], end = sccStarts[c + 1];
+			if (!(filterTrivialSCCs && end - start == 1 && !hasSelfloop.get(sccStates[start]))) {
+				consumer.notifyStartSCC();
+				for (int j = start; j < end; j++) {
+					consumer.notifyStateInSCC(sccStates[j]);
+				}
+				consumer.notifyEndSCC();
+			}
+			for (int j = start; j < end; j++) {
+				int s = sccStates[j];
+				for (int k = predStarts[s], stop = predStarts[s + 1]; k < stop; k++) {
+					int t = preds[k];
+					if (sccOf[t] != c && --outEdges[sccOf[t]] == 0) {
+						queue[queueSize++] = sccOf[t];
+					}
+				}
+			}
+		}
+	}
+}
@@ -27,10 +27,8 @@
 
 package explicit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.function.IntPredicate;
 
 import prism.PrismComponent;
@@ -38,6 +36,10 @@ import prism.PrismException;
 
 /**
  * Tarjan's SCC algorithm operating on a Model object.
+ * <br>
+ * The depth-first search is iterative (with an explicit stack), rather than recursive,
+ * so there is no risk of stack overflow for models with long paths, and all per-state
+ * information is stored in primitive arrays.
  */
 public class SCCComputerTarjan extends SCCComputer
 {
@@ -48,12 +50,21 @@ public class SCCComputerTarjan extends SCCComputer
 
 	/* Next index to give to a node */
 	private int index = 0;
-	/* Stack of nodes */
-	private List<Integer> stack = new LinkedList<Integer>();
-	/* List of nodes in the graph. Invariant: {@code nodeList.get(i).id == i} */
-	private ArrayList<Node> nodeList;
+	/* DFS index of each node (-1 if not yet visited) */
+	private int[] nodeIndex;
+	/* Lowlink of each node */
+	private int[] lowlink;
+	/* Tarjan's stack of nodes, and its size */
+	private int[] stack;
+	private int stackSize = 0;
 	/* Nodes currently on the stack. */
 	private BitSet onStack;
+	/* DFS (call) stack: nodes and their successor iterators, and its size */
+	private int[] dfsNodes;
+	private SuccessorsIterator[] dfsSuccessors;
+	private int dfsSize = 0;
+	/* Nodes with a self-loop (only known once the node has been fully explored) */
+	private BitSet hasSelfloop;
 	/** Should we filter trivial SCCs? */
 	private boolean filterTrivialSCCs;
 	private IntPredicate restrict;
@@ -66,11 +77,6 @@ public class SCCComputerTarjan extends SCCComputer
 		super(parent, consumer);
 		this.model = model;
 		this.numNodes = model.getNumStates();
-		this.nodeList = new ArrayList<Node>(numNodes);
-		for (int i = 0; i < numNodes; i++) {
-			nodeList.add(new Node(i));
-		}
-		onStack = new BitSet();
 	}
 
 	// Methods for SCCComputer interface
@@ -93,81 +99,120 @@ public class SCCComputerTarjan extends SCCComputer
 	 */
 	public void tarjan() throws PrismException
 	{
+		index = 0;
+		nodeIndex = new int[numNodes];
+		Arrays.fill(nodeIndex, -1);
+		lowlink = new int[numNodes];
+		stack = new int[numNodes];
+		stackSize = 0;
+		onStack = new BitSet();
+		hasSelfloop = new BitSet();
+		// (DFS stack grows on demand, since paths are usually much shorter than numNodes)
+		dfsNodes = new int[Math.min(numNodes, 1024)];
+		dfsSuccessors = new SuccessorsIterator[dfsNodes.length];
+		dfsSize = 0;
 		for (int i = 0; i < numNodes; i++) {
 			if (restrict != null && !restrict.test(i))
 				continue; // skip state if not one of the relevant states
-			if (nodeList.get(i).lowlink == -1)
+			if (nodeIndex[i] == -1)
 				tarjan(i);
 		}
-
+		// Free memory
+		nodeIndex = lowlink = stack = dfsNodes = null;
+		dfsSuccessors = null;
 	}
 
-	private void tarjan(int i) throws PrismException
+	/**
+	 * Depth-first search from node {@code root}, reporting all SCCs
+	 * that are completed during the search (in the same order as
+	 * the standard recursive formulation of the algorithm would).
+	 */
+	private void tarjan(int root) throws PrismException
 	{
-		final Node v = nodeList.get(i);
-		v.index = index;
-		v.lowlink = index;
-		index++;
-		stack.add(0, i);
-		onStack.set(i);
+		visit(root);
+		while (dfsSize > 0) {
+			final int v = dfsNodes[dfsSize - 1];
+			final SuccessorsIterator it = dfsSuccessors[dfsSize - 1];
+			boolean descended = false;
+			while (it.hasNext()) {
+				int e = it.nextInt();
+
+				if (e == v) {
+					hasSelfloop.set(v);
+					continue;
+				}
 
-		boolean hadSelfloop = false;
-		SuccessorsIterator it = model.getSuccessors(i);
-		while (it.hasNext()) {
-			int e = it.nextInt();
+				if (restrict != null && !restrict.test(e)) {
+					continue; // ignore edge to state that is not relevant
+				}
 
-			if (e == i) {
-				hadSelfloop = true;
+				if (nodeIndex[e] == -1) {
+					// "recursive call": lowlink of v is updated when e is finished
+					visit(e);
+					descended = true;
+					break;
+				} else if (onStack.get(e)) {
+					lowlink[v] = Math.min(lowlink[v], nodeIndex[e]);
+				}
+			}
+			if (descended) {
 				continue;
 			}
-
-			if (restrict != null && !restrict.test(e)) {
-				continue; // ignore edge to state that is not relevant
+			// All successors of v explored: "return" to the parent of v
+			dfsSuccessors[--dfsSize] = null;
+			if (dfsSize > 0) {
+				int parent = dfsNodes[dfsSize - 1];
+				lowlink[parent] = Math.min(lowlink[parent], lowlink[v]);
 			}
-
-			Node n = nodeList.get(e);
-			if (n.index == -1) {
-				tarjan(e);
-				v.lowlink = Math.min(v.lowlink, n.lowlink);
-			} else if (onStack.get(e)) {
-				v.lowlink = Math.min(v.lowlink, n.index);
+			if (lowlink[v] == nodeIndex[v]) {
+				finishSCC(v);
 			}
 		}
-		if (v.lowlink == v.index) {
-			// this is a singleton SCC if the top of the stack equals i
-			boolean singletonSCC = (stack.get(0) == i);
-			if (singletonSCC && filterTrivialSCCs) {
-				if (!hadSelfloop) { // singleton SCC & no selfloop -> trivial
-					stack.remove(0);
-					onStack.set(i, false);
-					return;
-				}
-			}
+	}
 
-			int n;
-			consumer.notifyStartSCC();
-			do {
-				n = stack.remove(0);
-				onStack.set(n, false);
-				consumer.notifyStateInSCC(n);
-			} while (n != i);
-			consumer.notifyEndSCC();
+	/**
+	 * Start exploring node {@code i}, i.e., push it onto both stacks.
+	 */
+	private void visit(int i)
+	{
+		nodeIndex[i] = index;
+		lowlink[i] = index;
+		index++;
+		stack[stackSize++] = i;
+		onStack.set(i);
+		if (dfsSize == dfsNodes.length) {
+			int newLength = (int) Math.min((long) dfsNodes.length * 2, numNodes);
+			dfsNodes = Arrays.copyOf(dfsNodes, newLength);
+			dfsSuccessors = Arrays.copyOf(dfsSuccessors, newLength);
 		}
+		dfsNodes[dfsSize] = i;
+		dfsSuccessors[dfsSize] = model.getSuccessors(i);
+		dfsSize++;
 	}
 
 	/**
-	 * A small class wrapping a node.
-	 * It carries extra information necessary for Tarjan's algorithm.
+	 * Pop the SCC with root {@code i} from the stack and notify the consumer
+	 * (unless it is trivial and these are being filtered).
 	 */
-	protected static class Node
+	private void finishSCC(int i) throws PrismException
 	{
-		public int lowlink = -1;
-		public int index = -1;
-		public int id;
-
-		public Node(int id)
-		{
-			this.id = id;
+		// this is a singleton SCC if the top of the stack equals i
+		boolean singletonSCC = (stack[stackSize - 1] == i);
+		if (singletonSCC && filterTrivialSCCs) {
+			if (!hasSelfloop.get(i)) { // singleton SCC & no selfloop -> trivial
+				stackSize--;
+				onStack.set(i, false);
+				return;
+			}
 		}
+
+		int n;
+		consumer.notifyStartSCC();
+		do {
+			n = stack[--stackSize];
+			onStack.set(n, false);
+			consumer.notifyStateInSCC(n);
+		} while (n != i);
+		consumer.notifyEndSCC();
 	}
 }
@@ -0,0 +1,314 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import parser.State;
+import parser.VarList;
+
+/**
+ * Class storing a set of states, each identified by an integer slot, from which
+ * states can also be removed. The slots of removed states are reused by later additions,
+ * so the range of slots in use stays close to the number of states stored.
+ * This allows information about states to be kept in primitive arrays indexed by slot,
+ * e.g., for the changing set of states in fast adaptive uniformisation.
+ * <br>
+ * Where possible (see {@link StatePacker#canPack(VarList)}), states are stored packed
+ * into 64-bit words, indexed by an open-addressing hash table of slots;
+ * otherwise, {@link State} objects are stored in a hash map.
+ */
+public class SlotStateStorage
+{
+	/** Maximum load factor for the hash table */
+	private static final double MAX_LOAD = 0.7;
+
+	/** Number of slots ever used, i.e., all slots in use are below this */
+	private int numSlots;
+	/** Number of states stored */
+	private int numStates;
+	/** Is each slot in use? */
+	private boolean used[];
+	/** Stack of free slots (below numSlots) */
+	private int freeSlots[];
+	private int numFreeSlots;
+
+	// Packed storage (if packer != null)
+
+	/** Layout of packed states */
+	private StatePacker packer;
+	/** Number of words used by a state */
+	private int numWords;
+	/** Packed states, numWords words per slot */
+	private long words[];
+	/** Hash code of the state in each slot */
+	private int hashes[];
+	/** Hash table: entries are (slot + 1), 0 means empty */
+	private int table[];
+	private int tableMask;
+	/** Packed state used for lookups */
+	private long scratch[];
+
+	// Object storage (if packer == null)
+
+	/** State in each slot */
+	private State states[];
+	/** Slot of each state */
+	private HashMap<State, Integer> slots;
+
+	/**
+	 * Create an empty storage for states over the variables in {@code varList}.
+	 * States are stored packed if {@code pack} is true and the variables allow it.
+	 * @param varList Variable info
+	 * @param pack Store states in packed form, if possible?
+	 */
+	public SlotStateStorage(VarList varList, boolean pack)
+	{
+		int initSize = 1024;
+		used = new boolean[initSize];
+		freeSlots = new int[initSize];
+		if (pack && StatePacker.canPack(varList)) {
+			packer = new StatePacker(varList);
+			numWords = packer.getNumWords();
+			words = new long[initSize * numWords];
+			hashes = new int[initSize];
+			table = new int[2 * initSize];
+			tableMask = table.length - 1;
+			scratch = new long[numWords];
+		} else {
+			states = new State[initSize];
+			slots = new HashMap<>();
+		}
+	}
+
+	/**
+	 * Are states stored in packed form?
+	 */
+	public boolean isPacked()
+	{
+		return packer != null;
+	}
+
+	/**
+	 * Get the number of states stored.
+	 */
+	public int size()
+	{
+		return numStates;
+	}
+
+	/**
+	 * Get the number of slots ever used: all slots in use are below this number.
+	 */
+	public int getNumSlots()
+	{
+		return numSlots;
+	}
+
+	/**
+	 * Is slot {@code slot} in use?
+	 */
+	public boolean isUsed(int slot)
+	{
+		return slot < numSlots && used[slot];
+	}
+
+	/**
+	 * Get the slot of a state, or -1 if it is not stored.
+	 */
+	public int get(State state)
+	{
+		if (packer == null) {
+			Integer slot = slots.get(state);
+			return slot == null ? -1 : slot;
+		}
+		packer.pack(state, scratch, 0);
+		return lookup(scratch, packer.hash(scratch, 0));
+	}
+
+	/**
+	 * Add a state, which must not already be stored, and return its slot.
+	 * This is a free slot, if there is one, otherwise a new one.
+	 */
+	public int add(State state)
+	{
+		int slot = numFreeSlots > 0 ? freeSlots[--numFreeSlots] : numSlots++;
+		if (slot == used.length) {
+			int newSize = 2 * used.length;
+			used = Arrays.copyOf(used, newSize);
+			freeSlots = Arrays.copyOf(freeSlots, newSize);
+			if (packer == null) {
+				states = Arrays.copyOf(states, newSize);
+			} else {
+				words = Arrays.copyOf(words, newSize * numWords);
+				hashes = Arrays.copyOf(hashes, newSize);
+			}
+		}
+		if (packer == null) {
+			states[slot] = state;
+			slots.put(state, slot);
+		} else {
+			packer.pack(state, words, slot * numWords);
+			hashes[slot] = packer.hash(words, slot * numWords);
+			if (numStates + 1 > table.length * MAX_LOAD) {
+				rehash(2 * table.length);
+			}
+			insert(slot);
+		}
+		used[slot] = true;
+		numStates++;
+		return slot;
+	}
+
+	/**
+	 * Remove the state in slot {@code slot}, which must be in use, freeing the slot.
+	 */
+	public void remove(int slot)
+	{
+		if (packer == null) {
+			slots.remove(states[slot]);
+			states[slot] = null;
+		} else {
+			delete(slot);
+		}
+		used[slot] = false;
+		freeSlots[numFreeSlots++] = slot;
+		numStates--;
+	}
+
+	/**
+	 * Get the state in slot {@code slot}, which must be in use.
+	 * For packed storage, this is a new (decoded) copy. This method can be called
+	 * concurrently by several threads, as long as the storage is not modified.
+	 */
+	public State getState(int slot)
+	{
+		return packer == null ? states[slot] : packer.unpack(words, slot * numWords);
+	}
+
+	/**
+	 * Get a short description of the storage, for display in the log.
+	 */
+	public String getStorageInfo()
+	{
+		if (packer == null) {
+			return "state objects";
+		}
+		return "bit-packed, " + packer.getNumBits() + " bits/state (" + numWords + (numWords == 1 ? " word" : " words") + ")";
+	}
+
+	// Hash table (packed storage)
+
+	/**
+	 * Find the slot of a packed state, with hash code {@code h}, or -1 if not present.
+	 */
+	private int lookup(long packed[], int h)
+	{
+		int pos = h & tableMask;
+		while (true) {
+			int entry = table[pos];
+			if (entry == 0) {
+				return -1;
+			}
+			if (hashes[entry - 1] == h && equalsStored(entry - 1, packed)) {
+				return entry - 1;
+			}
+			pos = (pos + 1) & tableMask;
+		}
+	}
+
+	/**
+	 * Insert slot {@code slot} into the hash table.
+	 */
+	private void insert(int slot)
+	{
+		int pos = hashes[slot] & tableMask;
+		while (table[pos] != 0) {
+			pos = (pos + 1) & tableMask;
+		}
+		table[pos] = slot + 1;
+	}
+
+	/**
+	 * Delete slot {@code slot} from the hash table, moving back later entries
+	 * of the same probe sequence (so that no tombstones are needed).
+	 */
+	private void delete(int slot)
+	{
+		int pos = hashes[slot] & tableMask;
+		while (table[pos] != slot + 1) {
+			pos = (pos + 1) & tableMask;
+		}
+		int next = pos;
+		while (true) {
+			next = (next + 1) & tableMask;
+			if (table[next] == 0) {
+				break;
+			}
+			int home = hashes[table[next] - 1] & tableMask;
+			// Move the entry at next back to pos, unless its home position lies cyclically in (pos, next]
+			boolean inRange = pos <= next ? (pos < home && home <= next) : (pos < home || home <= next);
+			if (!inRange) {
+				table[pos] = table[next];
+				pos = next;
+			}
+		}
+		table[pos] = 0;
+	}
+
+	/**
+	 * Rebuild the hash table with a new size (a power of 2).
+	 */
+	private void rehash(int newSize)
+	{
+		if (newSize <= 0) {
+			throw new IllegalStateException("Too many states for slot state storage");
+		}
+		table = new int[newSize];
+		tableMask = newSize - 1;
+		for (int slot = 0; slot < numSlots; slot++) {
+			if (used[slot]) {
+				insert(slot);
+			}
+		}
+	}
+
+	/**
+	 * Check whether the state stored in slot {@code slot} equals a packed state.
+	 */
+	private boolean equalsStored(int slot, long packed[])
+	{
+		int base = slot * numWords;
+		for (int w = 0; w < numWords; w++) {
+			if (words[base + w] != packed[w]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
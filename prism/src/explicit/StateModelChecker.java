@@ -59,6 +59,7 @@ import parser.ast.ExpressionLabel;
 import parser.ast.ExpressionLiteral;
 import parser.ast.ExpressionObs;
 import parser.ast.ExpressionProp;
+import parser.ast.ExpressionReward;
 import parser.ast.ExpressionUnaryOp;
 import parser.ast.ExpressionVar;
 import parser.ast.LabelList;
@@ -68,6 +69,7 @@ import parser.ast.Property;
 import parser.type.TypeBool;
 import parser.type.TypeDouble;
 import parser.type.TypeInt;
+import parser.visitor.ASTTraverse;
 import parser.visitor.ASTTraverseModify;
 import parser.visitor.ReplaceLabels;
 import prism.Accuracy;
@@ -126,6 +128,10 @@ public class StateModelChecker extends PrismComponent
 
 	// Do bisimulation minimisation before model checking?
 	protected boolean doBisim = false;
+	// Do bisimulation minimisation automatically, when preserved by a property and the model shrinks enough?
+	protected boolean doBisimAuto = false;
+	// Max ratio of minimised/original states for automatic bisimulation minimisation
+	protected double bisimAutoRatio = 0.8;
 
 	// Do topological value iteration?
 	protected boolean doTopologicalValueIteration = false;
@@ -172,6 +178,8 @@ public class StateModelChecker extends PrismComponent
 			setDoIntervalIteration(settings.getBoolean(PrismSettings.PRISM_INTERVAL_ITER));
 			setDoTopologicalValueIteration(settings.getBoolean(PrismSettings.PRISM_TOPOLOGICAL_VI));
 			setDoPmaxQuotient(settings.getBoolean(PrismSettings.PRISM_PMAX_QUOTIENT));
+			setDoBisimAuto(settings.getBoolean(PrismSettings.PRISM_BISIM_AUTO));
+			setBisimAutoRatio(settings.getDouble(PrismSettings.PRISM_BISIM_AUTO_RATIO));
 		}
 	}
 
@@ -241,6 +249,8 @@ public class StateModelChecker extends PrismComponent
 		setGenStrat(other.getGenStrat());
 		setRestrictStratToReach(other.getRestrictStratToReach());
 		setDoBisim(other.getDoBisim());
+		setDoBisimAuto(other.getDoBisimAuto());
+		setBisimAutoRatio(other.getBisimAutoRatio());
 		setDoIntervalIteration(other.getDoIntervalIteration());
 		setDoPmaxQuotient(other.getDoPmaxQuotient());
 	}
@@ -335,6 +345,25 @@ public class StateModelChecker extends PrismComponent
 		this.doBisim = doBisim;
 	}
 
+	/**
+	 * Specify whether or not to do bisimulation minimisation automatically before model checking,
+	 * for properties that it preserves, if the number of states is reduced enough
+	 * (see {@link #setBisimAutoRatio(double)}).
+	 */
+	public void setDoBisimAuto(boolean doBisimAuto)
+	{
+		this.doBisimAuto = doBisimAuto;
+	}
+
+	/**
+	 * Specify the maximum ratio of minimised to original number of states
+	 * for automatic bisimulation minimisation to be used.
+	 */
+	public void setBisimAutoRatio(double bisimAutoRatio)
+	{
+		this.bisimAutoRatio = bisimAutoRatio;
+	}
+
 	/**
 	 * Specify whether or not to do topological value iteration.
 	 */
@@ -438,6 +467,22 @@ public class StateModelChecker extends PrismComponent
 		return doBisim;
 	}
 
+	/**
+	 * Whether or not to do bisimulation minimisation automatically before model checking.
+	 */
+	public boolean getDoBisimAuto()
+	{
+		return doBisimAuto;
+	}
+
+	/**
+	 * Get the maximum ratio of minimised to original number of states for automatic bisimulation minimisation.
+	 */
+	public double getBisimAutoRatio()
+	{
+		return bisimAutoRatio;
+	}
+
 	/**
 	 * Whether or not to do topological value iteration.
 	 */
@@ -561,15 +606,19 @@ public class StateModelChecker extends PrismComponent
 		expr = ExpressionFilter.addDefaultFilterIfNeeded(expr, model.getNumInitialStates() == 1);
 
 		// If required, do bisimulation minimisation
-		if (doBisim) {
+		boolean bisimAuto = !doBisim && doBisimAuto && isPreservedByBisimulation(model, expr);
+		if (doBisim || bisimAuto) {
 			mainLog.println("\nPerforming bisimulation minimisation...");
 			ArrayList<String> propNames = new ArrayList<String>();
 			ArrayList<BitSet> propBSs = new ArrayList<BitSet>();
 			Expression exprNew = checkMaximalPropositionalFormulas(model, expr.deepCopy(), propNames, propBSs);
 			Bisimulation bisim = new Bisimulation(this);
-			model = bisim.minimise(model, propNames, propBSs);
-			mainLog.println("Modified property: " + exprNew);
-			expr = exprNew;
+			Model modelNew = bisim.minimise(model, propNames, propBSs, bisimAuto ? bisimAutoRatio : 1.0);
+			if (modelNew != null) {
+				model = modelNew;
+				mainLog.println("Modified property: " + exprNew);
+				expr = exprNew;
+			}
 		}
 
 		// Do model checking and store result vector
@@ -593,6 +642,63 @@ public class StateModelChecker extends PrismComponent
 		return result;
 	}
 
+	/**
+	 * Check whether model checking {@code expr} on {@code model} gives the same result
+	 * on its bisimulation quotient, and this can safely be done automatically, i.e.,
+	 * the model is a DTMC, CTMC or MDP, the property does not involve rewards or multiple objectives,
+	 * and nothing (vectors, strategies, etc.) needs to be reported for individual states.
+	 */
+	protected boolean isPreservedByBisimulation(Model model, Expression expr)
+	{
+		switch (model.getModelType()) {
+		case DTMC:
+		case CTMC:
+		case MDP:
+			break;
+		default:
+			return false;
+		}
+		if (storeVector || genStrat || exportProductVector || exportProductStates || exportProductTrans || exportTarget) {
+			return false;
+		}
+		try {
+			expr.accept(new ASTTraverse()
+			{
+				public void visitPost(ExpressionFilter e) throws PrismLangException
+				{
+					switch (e.getOperatorType()) {
+					case PRINT:
+					case PRINTALL:
+					case STORE:
+					case ARGMIN:
+					case ARGMAX:
+						throw new PrismLangException("Filter returning states", e);
+					default:
+					}
+				}
+
+				public void visitPost(ExpressionReward e) throws PrismLangException
+				{
+					throw new PrismLangException("Rewards", e);
+				}
+
+				public void visitPost(ExpressionProp e) throws PrismLangException
+				{
+					throw new PrismLangException("Property reference", e);
+				}
+
+				public void visitPost(ExpressionFunc e) throws PrismLangException
+				{
+					if (e.getNameCode() == ExpressionFunc.MULTI)
+						throw new PrismLangException("Multi-objective", e);
+				}
+			});
+		} catch (PrismLangException e) {
+			return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Model check an expression and return a vector result values over all states.
 	 * Information about states and model constants should be attached to the model.
@@ -747,12 +853,44 @@ public class StateModelChecker extends PrismComponent
 		}
 
 		// Apply operation
-		res1.applyFunction(expr.getType(), (v1, v2) -> expr.apply(v1, v2, EvalMode.FP), res2, statesOfInterest);
+		// (arithmetic producing doubles is done directly on the double storage, without boxing)
+		StateValues.DoubleBinaryFunction doubleFunc = null;
+		if (expr.getType() instanceof TypeDouble && isNumerical(res1) && isNumerical(res2)) {
+			switch (expr.getOperator()) {
+			case ExpressionBinaryOp.PLUS:
+				doubleFunc = (v1, v2) -> v1 + v2;
+				break;
+			case ExpressionBinaryOp.MINUS:
+				doubleFunc = (v1, v2) -> v1 - v2;
+				break;
+			case ExpressionBinaryOp.TIMES:
+				doubleFunc = (v1, v2) -> v1 * v2;
+				break;
+			case ExpressionBinaryOp.DIVIDE:
+				doubleFunc = (v1, v2) -> v1 / v2;
+				break;
+			default:
+				break;
+			}
+		}
+		if (doubleFunc != null) {
+			res1.applyDoubleFunction(doubleFunc, res2, statesOfInterest);
+		} else {
+			res1.applyFunction(expr.getType(), (v1, v2) -> expr.apply(v1, v2, EvalMode.FP), res2, statesOfInterest);
+		}
 		res2.clear();
 
 		return res1;
 	}
 
+	/**
+	 * Is a vector numerical, i.e. storing int or double values?
+	 */
+	private static boolean isNumerical(StateValues sv)
+	{
+		return sv.getType() instanceof TypeInt || sv.getType() instanceof TypeDouble;
+	}
+
 	/**
 	 * Model check a unary operator.
 	 * @param statesOfInterest the states of interest, see checkExpression()
@@ -1075,7 +1213,7 @@ public class StateModelChecker extends PrismComponent
 		case MIN:
 			// Compute min
 			// Store as object/vector
-			resObj = expr.apply(vals.filtered(bsFilter));
+			resObj = vals.applyFilter(expr, bsFilter);
 			resVals = StateValues.createFromSingleValue(expr.getType(), resObj, model);
 			// Create explanation of result and print some details to log
 			resultExpl = "Minimum value over " + filterStatesString;
@@ -1087,7 +1225,7 @@ public class StateModelChecker extends PrismComponent
 		case MAX:
 			// Compute max
 			// Store as object/vector
-			resObj = expr.apply(vals.filtered(bsFilter));
+			resObj = vals.applyFilter(expr, bsFilter);
 			resVals = StateValues.createFromSingleValue(expr.getType(), resObj, model);
 			// Create explanation of result and print some details to log
 			resultExpl = "Maximum value over " + filterStatesString;
@@ -1098,7 +1236,7 @@ public class StateModelChecker extends PrismComponent
 			break;
 		case ARGMIN:
 			// Compute/display min
-			resObj = ExpressionFilter.applyMin(vals.filtered(bsFilter), vals.getType());
+			resObj = vals.minOverBitSet(bsFilter);
 			mainLog.print("\nMinimum value over " + filterStatesString + ": " + resObj);
 			// Find states that (are close to) selected value
 			bsMatch = vals.getBitSetFromCloseValue(resObj);
@@ -1112,7 +1250,7 @@ public class StateModelChecker extends PrismComponent
 			break;
 		case ARGMAX:
 			// Compute/display max
-			resObj = ExpressionFilter.applyMax(vals.filtered(bsFilter), vals.getType());
+			resObj = vals.maxOverBitSet(bsFilter);
 			mainLog.print("\nMaximum value over " + filterStatesString + ": " + resObj);
 			// Find states that (are close to) selected value
 			bsMatch = vals.getBitSetFromCloseValue(resObj);
@@ -1127,7 +1265,7 @@ public class StateModelChecker extends PrismComponent
 		case COUNT:
 			// Compute count
 			// Store as object/vector
-			resObj = expr.apply(vals.filtered(bsFilter));
+			resObj = vals.applyFilter(expr, bsFilter);
 			resVals =  StateValues.createFromSingleValue(expr.getType(), resObj, model);
 			// Create explanation of result and print some details to log
 			resultExpl = filterTrue ? "Count of satisfying states" : "Count of satisfying states also in filter";
@@ -1136,7 +1274,7 @@ public class StateModelChecker extends PrismComponent
 		case SUM:
 			// Compute sum
 			// Store as object/vector
-			resObj = expr.apply(vals.filtered(bsFilter));
+			resObj = vals.applyFilter(expr, bsFilter);
 			resVals = StateValues.createFromSingleValue(expr.getType(), resObj, model);
 			// Create explanation of result and print some details to log
 			resultExpl = "Sum over " + filterStatesString;
@@ -1145,7 +1283,7 @@ public class StateModelChecker extends PrismComponent
 		case AVG:
 			// Compute average
 			// Store as object/vector
-			resObj = expr.apply(vals.filtered(bsFilter));
+			resObj = vals.applyFilter(expr, bsFilter);
 			resVals = StateValues.createFromSingleValue(expr.getType(), resObj, model);
 			// Create explanation of result and print some details to log
 			resultExpl = "Average over " + filterStatesString;
@@ -1166,7 +1304,7 @@ public class StateModelChecker extends PrismComponent
 			break;
 		case RANGE:
 			// Find range of values
-			resObj = expr.apply(vals.filtered(bsFilter));
+			resObj = vals.applyFilter(expr, bsFilter);
 			// Leave result vector unchanged: for a range, result is only available from Result object
 			resVals = vals;
 			// Set vals to null to stop it being cleared below
@@ -1186,7 +1324,7 @@ public class StateModelChecker extends PrismComponent
 			resVals = StateValues.createFromSingleValue(expr.getType(), resObj, model);
 			// Create explanation of result and print some details to log
 			resultExpl = "Property " + (b ? "" : "not ") + "satisfied in ";
-			mainLog.print("\nProperty satisfied in " + ExpressionFilter.applyCount(vals.filtered(bsFilter), vals.getType()));
+			mainLog.print("\nProperty satisfied in " + vals.countOverBitSet(bsFilter));
 			if (filterInit) {
 				if (filterInitSingle) {
 					resultExpl += "the initial state";
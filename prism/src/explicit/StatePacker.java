@@ -0,0 +1,182 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import parser.State;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.DeclarationType;
+
+/**
+ * Layout for packing states over the variables of a {@link VarList} into a fixed number
+ * of bits (and thus 64-bit words), using the range of each variable.
+ * <br>
+ * Variables are packed in order, starting from the most significant bits of the first word,
+ * and never straddle two words, so an unsigned, word-by-word comparison of two packed states
+ * matches {@link State#compareTo(State)}.
+ */
+public class StatePacker
+{
+	// Variable info
+	protected int numVars;
+	protected String[] varNames;
+	protected int[] varLow;
+	protected int[] varHigh;
+	protected boolean[] varIsBool;
+	/** Word (within a state) in which each variable is stored */
+	protected int[] varWord;
+	/** Offset of each variable's bits from the least significant bit of its word */
+	protected int[] varShift;
+	/** Number of bits used by each variable */
+	protected int[] varBits;
+	/** Number of bits used by a state (excluding padding) */
+	protected int numBits;
+	/** Number of words used by a state */
+	protected int numWords;
+
+	/**
+	 * Check whether states over the variables in {@code varList} can be packed,
+	 * i.e., all variables are bounded integers or Booleans.
+	 */
+	public static boolean canPack(VarList varList)
+	{
+		int n = varList.getNumVars();
+		for (int i = 0; i < n; i++) {
+			DeclarationType declType = varList.getDeclarationType(i);
+			if (!(declType instanceof DeclarationInt || declType instanceof DeclarationBool)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compute the layout for packing states over the variables in {@code varList},
+	 * which are assumed to be packable (see {@link #canPack(VarList)}).
+	 */
+	public StatePacker(VarList varList)
+	{
+		numVars = varList.getNumVars();
+		varNames = new String[numVars];
+		varLow = new int[numVars];
+		varHigh = new int[numVars];
+		varIsBool = new boolean[numVars];
+		varWord = new int[numVars];
+		varShift = new int[numVars];
+		varBits = new int[numVars];
+		numBits = 0;
+		int word = 0;
+		int used = 0;
+		for (int i = 0; i < numVars; i++) {
+			varNames[i] = varList.getName(i);
+			varLow[i] = varList.getLow(i);
+			varHigh[i] = varList.getHigh(i);
+			varIsBool[i] = varList.getDeclarationType(i) instanceof DeclarationBool;
+			// (range computed as a long, since it may exceed 2^31)
+			long range = (long) varHigh[i] - varLow[i] + 1;
+			varBits[i] = Math.max(1, 64 - Long.numberOfLeadingZeros(range - 1));
+			// Variables never straddle two words
+			if (used + varBits[i] > 64) {
+				word++;
+				used = 0;
+			}
+			varWord[i] = word;
+			varShift[i] = 64 - used - varBits[i];
+			used += varBits[i];
+			numBits += varBits[i];
+		}
+		numWords = Math.max(1, word + 1);
+	}
+
+	/**
+	 * Get the number of bits used to store each state (excluding padding).
+	 */
+	public int getNumBits()
+	{
+		return numBits;
+	}
+
+	/**
+	 * Get the number of 64-bit words used to store each state.
+	 */
+	public int getNumWords()
+	{
+		return numWords;
+	}
+
+	/**
+	 * Pack a state into the words {@code offset}, ..., {@code offset + getNumWords() - 1} of an array.
+	 * Throws an IllegalArgumentException if a variable value is out of range.
+	 */
+	public void pack(State state, long[] words, int offset)
+	{
+		for (int w = 0; w < numWords; w++) {
+			words[offset + w] = 0;
+		}
+		for (int v = 0; v < numVars; v++) {
+			Object o = state.varValues[v];
+			long val;
+			if (varIsBool[v]) {
+				val = ((Boolean) o) ? 1 : 0;
+			} else {
+				int intVal = ((Integer) o).intValue();
+				if (intVal < varLow[v] || intVal > varHigh[v]) {
+					throw new IllegalArgumentException("Value " + intVal + " out of range for variable " + varNames[v]);
+				}
+				val = (long) intVal - varLow[v];
+			}
+			words[offset + varWord[v]] |= (val & ((1L << varBits[v]) - 1)) << varShift[v];
+		}
+	}
+
+	/**
+	 * Unpack (a new copy of) the state stored in words {@code offset}, ... of an array.
+	 */
+	public State unpack(long[] words, int offset)
+	{
+		State state = new State(numVars);
+		for (int v = 0; v < numVars; v++) {
+			long val = (words[offset + varWord[v]] >>> varShift[v]) & ((1L << varBits[v]) - 1);
+			state.varValues[v] = varIsBool[v] ? Boolean.valueOf(val != 0) : Integer.valueOf((int) (val + varLow[v]));
+		}
+		return state;
+	}
+
+	/**
+	 * Compute a hash code for the packed state stored in words {@code offset}, ... of an array.
+	 */
+	public int hash(long[] words, int offset)
+	{
+		long h = 0;
+		for (int w = 0; w < numWords; w++) {
+			h = (h ^ words[offset + w]) * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 32;
+		}
+		return (int) h;
+	}
+}
@@ -49,6 +49,7 @@ import prism.AccuracyFactory;
 import prism.PrismException;
 import prism.PrismLangException;
 import prism.PrismLog;
+import prism.PrismUtils;
 import prism.ResultTesting;
 import prism.StateVector;
 
@@ -56,7 +57,9 @@ import prism.StateVector;
  * Class for explicit-state storage of a state-indexed vector of values.
  * <br><br>
  * The values can be of any supported {@link Type}.
- * They are stored as the corresponding {@link Object}
+ * Boolean, integer and double values are stored in specialised (unboxed)
+ * storage, i.e., a {@link BitSet}, an {@code int} array or a {@code double} array.
+ * Values of other types are stored as the corresponding {@link Object}
  * as specified by the return type of {@link Type#castValueTo(Object)}.
  */
 public class StateValues implements StateVector, Iterable<Object>
@@ -79,6 +82,10 @@ public class StateValues implements StateVector, Iterable<Object>
 	
 	/** Specialised storage for boolean values */
 	protected BitSet valuesB;
+	/** Specialised storage for integer values */
+	protected int[] valuesI;
+	/** Specialised storage for double values */
+	protected double[] valuesD;
 	/** General purpose storage for other value types */
 	protected Object[] valuesO;
 	
@@ -114,6 +121,24 @@ public class StateValues implements StateVector, Iterable<Object>
 		public Object apply(int i) throws PrismException;
 	}
 	
+	@FunctionalInterface
+	public interface DoublePredicate
+	{
+		public boolean test(double v) throws PrismException;
+	}
+	
+	@FunctionalInterface
+	public interface DoubleUnaryFunction
+	{
+		public double apply(double v) throws PrismException;
+	}
+	
+	@FunctionalInterface
+	public interface DoubleBinaryFunction
+	{
+		public double apply(double v1, double v2) throws PrismException;
+	}
+	
 	// Constructors
 
 	/**
@@ -125,6 +150,8 @@ public class StateValues implements StateVector, Iterable<Object>
 		type = null;
 		size = 0;
 		valuesB = null;
+		valuesI = null;
+		valuesD = null;
 		valuesO = null;
 	}
 
@@ -170,6 +197,8 @@ public class StateValues implements StateVector, Iterable<Object>
 		this.size = model.getNumStates();
 		this.statesList = model.getStatesList();
 		this.valuesB = null;
+		this.valuesI = null;
+		this.valuesD = null;
 		this.valuesO = null;
 	}
 
@@ -182,6 +211,8 @@ public class StateValues implements StateVector, Iterable<Object>
 		this.size = statesList.size();
 		this.statesList = statesList;
 		this.valuesB = null;
+		this.valuesI = null;
+		this.valuesD = null;
 		this.valuesO = null;
 	}
 
@@ -213,10 +244,12 @@ public class StateValues implements StateVector, Iterable<Object>
 			} else {
 				valuesB = new BitSet();
 			}
+		} else if (type instanceof TypeInt) {
+			Arrays.fill(valuesI, (int) value);
+		} else if (type instanceof TypeDouble) {
+			Arrays.fill(valuesD, ((Number) value).doubleValue());
 		} else {
-			for (int i = 0; i < size; i++) {
-				valuesO[i] = value;
-			}
+			Arrays.fill(valuesO, value);
 		}
 	}
 	
@@ -230,6 +263,14 @@ public class StateValues implements StateVector, Iterable<Object>
 			if (valuesB == null) {
 				valuesB = new BitSet();
 			}
+		} else if (typeNew instanceof TypeInt) {
+			if (valuesI == null) {
+				valuesI = new int[size];
+			}
+		} else if (typeNew instanceof TypeDouble) {
+			if (valuesD == null) {
+				valuesD = new double[size];
+			}
 		} else {
 			if (valuesO == null) {
 				valuesO = new Object[size];
@@ -243,12 +284,39 @@ public class StateValues implements StateVector, Iterable<Object>
 	private void clearOldStorage()
 	{
 		if (type != null) {
-			if (type instanceof TypeBool) {
-				valuesO = null;
-			} else {
+			if (!(type instanceof TypeBool)) {
 				valuesB = null;
 			}
+			if (!(type instanceof TypeInt)) {
+				valuesI = null;
+			}
+			if (!(type instanceof TypeDouble)) {
+				valuesD = null;
+			}
+			if (type instanceof TypeBool || type instanceof TypeInt || type instanceof TypeDouble) {
+				valuesO = null;
+			}
+		}
+	}
+	
+	/**
+	 * Convert the storage of an integer-valued vector to doubles.
+	 * Throws an exception if the vector is not numerical (int or double).
+	 */
+	private void convertToDoubleStorage() throws PrismException
+	{
+		if (type instanceof TypeDouble) {
+			return;
+		}
+		if (!(type instanceof TypeInt)) {
+			throw new PrismException("Cannot apply a numerical function to a vector of type " + type);
 		}
+		valuesD = new double[size];
+		for (int i = 0; i < size; i++) {
+			valuesD[i] = valuesI[i];
+		}
+		type = TypeDouble.getInstance();
+		clearOldStorage();
 	}
 	
 	// Static creation methods
@@ -281,34 +349,44 @@ public class StateValues implements StateVector, Iterable<Object>
 
 	/**
 	 * Create a new state values vector from an existing array of values.
-	 * The array is stored directly, not copied.
+	 * The array is stored directly, not copied, unless the type is one
+	 * with specialised storage (Boolean, int, double), in which case it is copied.
 	 * Also set associated model (whose state space size should match vector size).
 	 */
-	public static StateValues createFromObjectArray(Type type, Object[] array, Model model)
+	public static StateValues createFromObjectArray(Type type, Object[] array, Model model) throws PrismException
 	{
 		StateValues sv = new StateValues();
 		sv.initialise(type, model);
-		sv.valuesO = array;
+		if (type instanceof TypeBool || type instanceof TypeInt || type instanceof TypeDouble) {
+			sv.setFromValueDefinition(i -> array[i]);
+		} else {
+			sv.valuesO = array;
+		}
 		return sv;
 	}
 
 	/**
 	 * Create a new (double-valued) state values vector from an existing array of doubles.
+	 * The array is stored directly, not copied.
 	 * Also set associated model (whose state space size should match vector size).
 	 */
-	public static StateValues createFromDoubleArray(double[] array, Model model) throws PrismException
+	public static StateValues createFromDoubleArray(double[] array, Model model)
 	{
-		return create(TypeDouble.getInstance(), i -> array[i], model);
+		StateValues sv = new StateValues();
+		sv.initialise(TypeDouble.getInstance(), model);
+		sv.valuesD = array;
+		return sv;
 	}
 
 	/**
 	 * Create a new (double-valued) state values vector from an existing array of doubles.
+	 * The array is stored directly, not copied.
 	 */
-	public static StateValues createFromDoubleArray(double[] array, List<State> statesList) throws PrismException
+	public static StateValues createFromDoubleArray(double[] array, List<State> statesList)
 	{
 		StateValues sv = new StateValues();
 		sv.initialise(TypeDouble.getInstance(), statesList);
-		sv.setFromValueDefinition(i -> array[i]);
+		sv.valuesD = array;
 		return sv;
 	}
 
@@ -317,7 +395,7 @@ public class StateValues implements StateVector, Iterable<Object>
 	 * stored in a ModelCheckerResult object. Accuracy information is also extracted.
 	 * Also set associated model (whose state space size should match vector size).
 	 */
-	public static StateValues createFromDoubleArrayResult(ModelCheckerResult res, Model model) throws PrismException
+	public static StateValues createFromDoubleArrayResult(ModelCheckerResult res, Model model)
 	{
 		StateValues sv = createFromDoubleArray(res.soln, model);
 		sv.setAccuracy(res.accuracy);
@@ -346,7 +424,12 @@ public class StateValues implements StateVector, Iterable<Object>
 	 */
 	public static StateValues createFromBitSetAsDoubles(BitSet bitset, Model model) throws PrismException
 	{
-		StateValues sv = create(TypeDouble.getInstance(), i -> bitset.get(i) ? 1.0 : 0.0, model);
+		int n = model.getNumStates();
+		double[] array = new double[n];
+		for (int i = bitset.nextSetBit(0); i >= 0 && i < n; i = bitset.nextSetBit(i + 1)) {
+			array[i] = 1.0;
+		}
+		StateValues sv = createFromDoubleArray(array, model);
 		sv.setAccuracy(AccuracyFactory.doublesFromQualitative());
 		return sv;
 	}
@@ -424,6 +507,8 @@ public class StateValues implements StateVector, Iterable<Object>
 	{
 		// Actually, just set pointers to null and wait for later garbage collection.
 		valuesB = null;
+		valuesI = null;
+		valuesD = null;
 		valuesO = null;
 	}
 	
@@ -434,11 +519,15 @@ public class StateValues implements StateVector, Iterable<Object>
 	 */
 	public void setValue(int i, Object value) throws PrismLangException
 	{
-		if (type instanceof TypeBool) {
-			valuesB.set(i, (boolean) value);
-		} else {
-			valuesO[i] = value;
-		}
+		setValue(i, value, type);
+	}
+
+	/**
+	 * Set the value for state index {@code i} of a double-valued vector to {@code value}.
+	 */
+	public void setDoubleValue(int i, double value)
+	{
+		valuesD[i] = value;
 	}
 
 	/**
@@ -453,6 +542,10 @@ public class StateValues implements StateVector, Iterable<Object>
 	{
 		if (typeOverride instanceof TypeBool) {
 			valuesB.set(i, (boolean) value);
+		} else if (typeOverride instanceof TypeInt) {
+			valuesI[i] = (int) value;
+		} else if (typeOverride instanceof TypeDouble) {
+			valuesD[i] = ((Number) value).doubleValue();
 		} else {
 			valuesO[i] = value;
 		}
@@ -471,6 +564,78 @@ public class StateValues implements StateVector, Iterable<Object>
 		clearOldStorage();
 	}
 	
+	/**
+	 * Modify a numerical (int or double) vector by applying (pointwise) a predicate
+	 * on doubles, i.e., each element of the vector will become the result of applying
+	 * the predicate to itself. Unlike {@link #applyPredicate(Predicate)}, values are not boxed.
+	 * @param predicate Predicate definition
+	 */
+	public void applyDoublePredicate(DoublePredicate predicate) throws PrismException
+	{
+		convertToDoubleStorage();
+		BitSet bs = new BitSet();
+		for (int i = 0; i < size; i++) {
+			if (predicate.test(valuesD[i])) {
+				bs.set(i);
+			}
+		}
+		valuesB = bs;
+		type = TypeBool.getInstance();
+		clearOldStorage();
+	}
+	
+	/**
+	 * Modify a numerical (int or double) vector by applying (pointwise) a unary function
+	 * on doubles, only over the states in {@code subset}. The vector becomes double-valued.
+	 * Unlike {@link #applyFunction(Type, UnaryFunction, BitSet)}, values are not boxed.
+	 * @param func Function definition
+	 * @param subset Subset of states for application (all if null)
+	 */
+	public void applyDoubleFunction(DoubleUnaryFunction func, BitSet subset) throws PrismException
+	{
+		convertToDoubleStorage();
+		if (subset == null) {
+			for (int i = 0; i < size; i++) {
+				valuesD[i] = func.apply(valuesD[i]);
+			}
+		} else {
+			for (int i = subset.nextSetBit(0); i >= 0 && i < size; i = subset.nextSetBit(i + 1)) {
+				valuesD[i] = func.apply(valuesD[i]);
+			}
+		}
+	}
+	
+	/**
+	 * Modify a numerical (int or double) vector by applying (pointwise) a binary function
+	 * on doubles to this and another numerical vector, only over the states in {@code subset}.
+	 * The vector becomes double-valued.
+	 * Unlike {@link #applyFunction(Type, BinaryFunction, StateValues, BitSet)}, values are not boxed.
+	 * @param func Function definition
+	 * @param sv2 Vector 2
+	 * @param subset Subset of states for application (all if null)
+	 */
+	public void applyDoubleFunction(DoubleBinaryFunction func, StateValues sv2, BitSet subset) throws PrismException
+	{
+		convertToDoubleStorage();
+		if (sv2.type instanceof TypeDouble) {
+			double[] valuesD2 = sv2.valuesD;
+			if (subset == null) {
+				for (int i = 0; i < size; i++) {
+					valuesD[i] = func.apply(valuesD[i], valuesD2[i]);
+				}
+			} else {
+				for (int i = subset.nextSetBit(0); i >= 0 && i < size; i = subset.nextSetBit(i + 1)) {
+					valuesD[i] = func.apply(valuesD[i], valuesD2[i]);
+				}
+			}
+		} else {
+			for (FunctionalPrimitiveIterator.OfInt iter = new IterableStateSet(subset, size).iterator(); iter.hasNext();) {
+				int i = iter.nextInt();
+				valuesD[i] = func.apply(valuesD[i], sv2.getDoubleValue(i));
+			}
+		}
+	}
+	
 	/**
 	 * Modify the vector by applying (pointwise) a unary function.
 	 * @param retType Function return type
@@ -727,11 +892,38 @@ public class StateValues implements StateVector, Iterable<Object>
 	{
 		if (type instanceof TypeBool) {
 			return valuesB.get(i);
+		} else if (type instanceof TypeInt) {
+			return valuesI[i];
+		} else if (type instanceof TypeDouble) {
+			return valuesD[i];
 		} else {
 			return valuesO[i];
 		}
 	}
 
+	/**
+	 * Get the value for state index {@code i} of a numerical vector, as a double.
+	 * For int- and double-valued vectors, this avoids boxing.
+	 */
+	public double getDoubleValue(int i)
+	{
+		if (type instanceof TypeDouble) {
+			return valuesD[i];
+		} else if (type instanceof TypeInt) {
+			return valuesI[i];
+		} else {
+			return ((Number) getValue(i)).doubleValue();
+		}
+	}
+
+	/**
+	 * Get the value for state index {@code i} of an int-valued vector.
+	 */
+	public int getIntValue(int i)
+	{
+		return valuesI[i];
+	}
+
 	/**
 	 * Get the value of first vector element that is in the (BitSet) filter.
 	 */
@@ -807,11 +999,148 @@ public class StateValues implements StateVector, Iterable<Object>
 	 */
 	public double[] getDoubleArray()
 	{
-		double[] valuesD = new double[size];
+		if (type instanceof TypeDouble) {
+			return valuesD.clone();
+		}
+		double[] array = new double[size];
 		for (int i = 0; i < size; i++) {
-			valuesD[i] = (double) valuesO[i];
+			array[i] = getDoubleValue(i);
+		}
+		return array;
+	}
+
+	// Methods to compute aggregate values over vectors
+	
+	/**
+	 * Get the minimum value over the states in {@code filter}.
+	 * This is an Integer for int-valued vectors and a Double for double-valued vectors,
+	 * matching {@link ExpressionFilter#applyMin(Iterable, Type)}.
+	 */
+	public Object minOverBitSet(BitSet filter) throws PrismException
+	{
+		if (type instanceof TypeInt) {
+			int min = Integer.MAX_VALUE;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				min = Math.min(min, valuesI[i]);
+			}
+			return min;
+		} else if (type instanceof TypeDouble) {
+			double min = Double.POSITIVE_INFINITY;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				min = Math.min(min, valuesD[i]);
+			}
+			return min;
+		} else {
+			return ExpressionFilter.applyMin(filtered(filter), type);
+		}
+	}
+
+	/**
+	 * Get the maximum value over the states in {@code filter}.
+	 * This is an Integer for int-valued vectors and a Double for double-valued vectors,
+	 * matching {@link ExpressionFilter#applyMax(Iterable, Type)}.
+	 */
+	public Object maxOverBitSet(BitSet filter) throws PrismException
+	{
+		if (type instanceof TypeInt) {
+			int max = Integer.MIN_VALUE;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				max = Math.max(max, valuesI[i]);
+			}
+			return max;
+		} else if (type instanceof TypeDouble) {
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				max = Math.max(max, valuesD[i]);
+			}
+			return max;
+		} else {
+			return ExpressionFilter.applyMax(filtered(filter), type);
+		}
+	}
+
+	/**
+	 * Get the sum of the values over the states in {@code filter}.
+	 * This is an Integer for int-valued vectors and a Double for double-valued vectors,
+	 * matching {@link ExpressionFilter#applySum(Iterable, Type)}.
+	 */
+	public Object sumOverBitSet(BitSet filter) throws PrismException
+	{
+		if (type instanceof TypeInt) {
+			int sum = 0;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				sum += valuesI[i];
+			}
+			return sum;
+		} else if (type instanceof TypeDouble) {
+			double sum = 0.0;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				sum += valuesD[i];
+			}
+			return sum;
+		} else {
+			return ExpressionFilter.applySum(filtered(filter), type);
+		}
+	}
+
+	/**
+	 * Get the average of the values over the states in {@code filter}.
+	 * Matches {@link ExpressionFilter#applyAvg(Iterable, Type)}.
+	 */
+	public Object averageOverBitSet(BitSet filter) throws PrismException
+	{
+		if (type instanceof TypeInt || type instanceof TypeDouble) {
+			int count = 0;
+			double sum = 0.0;
+			for (int i = filter.nextSetBit(0); i >= 0; i = filter.nextSetBit(i + 1)) {
+				count++;
+				sum += getDoubleValue(i);
+			}
+			return sum / count;
+		} else {
+			return ExpressionFilter.applyAvg(filtered(filter), type);
 		}
-		return valuesD;
+	}
+
+	/**
+	 * Get the number of states in {@code filter} for which a Boolean-valued vector is true.
+	 * Matches {@link ExpressionFilter#applyCount(Iterable, Type)}.
+	 */
+	public Object countOverBitSet(BitSet filter) throws PrismException
+	{
+		if (type instanceof TypeBool) {
+			BitSet bs = (BitSet) valuesB.clone();
+			bs.and(filter);
+			return bs.cardinality();
+		} else {
+			return ExpressionFilter.applyCount(filtered(filter), type);
+		}
+	}
+
+	/**
+	 * Apply the operator of filter {@code expr} to the values over the states in {@code filter}.
+	 * This gives the same result as {@link ExpressionFilter#apply(Iterable)}
+	 * applied to {@link #filtered(BitSet)}, but avoids boxing where possible.
+	 */
+	public Object applyFilter(ExpressionFilter expr, BitSet filter) throws PrismException
+	{
+		if (type.equals(expr.getOperand().getType())) {
+			switch (expr.getOperatorType()) {
+			case MIN:
+				return minOverBitSet(filter);
+			case MAX:
+				return maxOverBitSet(filter);
+			case SUM:
+				return sumOverBitSet(filter);
+			case AVG:
+				return averageOverBitSet(filter);
+			case COUNT:
+				return countOverBitSet(filter);
+			default:
+				break;
+			}
+		}
+		return expr.apply(filtered(filter));
 	}
 
 	/**
@@ -859,6 +1188,16 @@ public class StateValues implements StateVector, Iterable<Object>
 	 */
 	public BitSet getBitSetFromCloseValue(Object value, Accuracy accMatch) throws PrismException
 	{
+		if (type instanceof TypeDouble && value instanceof Double && accMatch != null) {
+			double match = (double) value;
+			BitSet bs = new BitSet();
+			for (int i = 0; i < size; i++) {
+				if (PrismUtils.measureSupNormAbs(valuesD[i], match) <= accMatch.getAbsoluteErrorBound(valuesD[i])) {
+					bs.set(i);
+				}
+			}
+			return bs;
+		}
 		return getBitSetFromPredicate(v -> ExpressionFilter.isClose(v, value, getType(), accMatch));
 	}
 
@@ -1026,6 +1365,12 @@ public class StateValues implements StateVector, Iterable<Object>
 		if (valuesB != null) {
 			sv.valuesB = (BitSet) valuesB.clone();
 		}
+		if (valuesI != null) {
+			sv.valuesI = valuesI.clone();
+		}
+		if (valuesD != null) {
+			sv.valuesD = valuesD.clone();
+		}
 		if (valuesO != null) {
 			sv.valuesO = valuesO.clone();
 		}
@@ -1037,6 +1382,10 @@ public class StateValues implements StateVector, Iterable<Object>
 	{
 		if (type instanceof TypeBool) {
 			return valuesB.toString();
+		} else if (type instanceof TypeInt) {
+			return Arrays.toString(valuesI);
+		} else if (type instanceof TypeDouble) {
+			return Arrays.toString(valuesD);
 		} else {
 			return Arrays.toString(valuesO);
 		}
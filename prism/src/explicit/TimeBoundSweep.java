@@ -0,0 +1,185 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The time bounds used in an experiment that sweeps over time-bounded (CSL)
+ * until properties of a CTMC, e.g. P=? [ F<=T "goal" ] for T=1:1000.
+ * When the first time bound of the sweep is needed, {@link CTMCModelChecker}
+ * computes the probabilities for a batch of the following time bounds in a single
+ * uniformisation pass (see {@link #getBatch(double, int)}) and stores them here,
+ * so that model checking the remaining points of the sweep only looks them up.
+ * Stored vectors are keyed by the model and the sets of states defining the computation,
+ * and are discarded once they have been retrieved. Only the vectors for the most
+ * recently used {@link #MAX_KEYS} computations are kept.
+ */
+public class TimeBoundSweep
+{
+	/** Maximum number of (doubles in) solution vectors computed in a single batch */
+	public static final int MAX_BATCH_VALUES = 1 << 23;
+
+	/** Maximum number of computations (keys) for which vectors are stored */
+	public static final int MAX_KEYS = 4;
+
+	/** Time bounds in the sweep, in the order they are needed (no duplicates) */
+	private final double times[];
+
+	/** Key for a set of stored vectors */
+	private static final class Key
+	{
+		private final Model model;
+		private final BitSet remain;
+		private final BitSet target;
+
+		private Key(Model model, BitSet remain, BitSet target)
+		{
+			this.model = model;
+			this.remain = remain == null ? null : (BitSet) remain.clone();
+			this.target = (BitSet) target.clone();
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return model == key.model && Objects.equals(remain, key.remain) && target.equals(key.target);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(System.identityHashCode(model), remain, target);
+		}
+	}
+
+	/** Stored vectors, for each key (in access order) and time bound */
+	private final Map<Key, Map<Double, double[]>> vectors = new LinkedHashMap<Key, Map<Double, double[]>>(MAX_KEYS, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Map<Double, double[]>> eldest)
+		{
+			return size() > MAX_KEYS;
+		}
+	};
+
+	/**
+	 * Create a sweep over the time bounds {@code times},
+	 * listed in the order in which they will be needed.
+	 */
+	public TimeBoundSweep(double times[])
+	{
+		this.times = Arrays.stream(times).distinct().toArray();
+	}
+
+	/**
+	 * Get the number of (distinct) time bounds in the sweep.
+	 */
+	public int getNumTimes()
+	{
+		return times.length;
+	}
+
+	/**
+	 * Is {@code t} one of the time bounds in the sweep?
+	 */
+	public boolean contains(double t)
+	{
+		return indexOf(t) != -1;
+	}
+
+	/**
+	 * Get the time bounds for which to compute vectors (of size {@code numStates})
+	 * in one pass, when time bound {@code t} (which should be in the sweep) is needed:
+	 * {@code t} and the time bounds that follow it in the sweep, as many as fit in
+	 * {@link #MAX_BATCH_VALUES}.
+	 */
+	public double[] getBatch(double t, int numStates)
+	{
+		int start = Math.max(indexOf(t), 0);
+		int size = Math.max(1, Math.min(times.length - start, MAX_BATCH_VALUES / Math.max(numStates, 1)));
+		double batch[] = Arrays.copyOfRange(times, start, start + size);
+		batch[0] = t;
+		return batch;
+	}
+
+	/**
+	 * Get (and remove) the vector stored for time bound {@code t} of a computation
+	 * on {@code model}, specified by the sets {@code remain} (optional: null means "all")
+	 * and {@code target}, or null if there is none.
+	 */
+	public synchronized double[] remove(Model model, BitSet remain, BitSet target, double t)
+	{
+		Key key = new Key(model, remain, target);
+		Map<Double, double[]> map = vectors.get(key);
+		if (map == null) {
+			return null;
+		}
+		double soln[] = map.remove(t);
+		if (map.isEmpty()) {
+			vectors.remove(key);
+		}
+		return soln;
+	}
+
+	/**
+	 * Store the vector {@code soln} for time bound {@code t} of a computation
+	 * on {@code model}, specified by the sets {@code remain} (optional: null means "all")
+	 * and {@code target}.
+	 */
+	public synchronized void put(Model model, BitSet remain, BitSet target, double t, double soln[])
+	{
+		vectors.computeIfAbsent(new Key(model, remain, target), k -> new HashMap<>()).put(t, soln);
+	}
+
+	/**
+	 * Discard all stored vectors.
+	 */
+	public synchronized void clear()
+	{
+		vectors.clear();
+	}
+
+	private int indexOf(double t)
+	{
+		for (int i = 0; i < times.length; i++) {
+			if (times[i] == t) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
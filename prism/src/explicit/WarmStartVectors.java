@@ -0,0 +1,124 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package explicit;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Solution vectors of previous (reachability) computations, used to warm-start
+ * iterative solution methods for models that differ only in the values of
+ * transition probabilities/rates, e.g., when sweeping model constants
+ * (see {@link ModelTemplate}). Vectors are keyed by the sets of states
+ * defining the computation and the size of the model. Only the most
+ * recently used {@link #MAX_ENTRIES} vectors are kept.
+ * <br><br>
+ * Note that warm starts only affect the starting point of the iteration,
+ * so they should only be used when this does not affect the fixed point
+ * that is converged to, e.g., after Prob0/Prob1 precomputation for DTMCs.
+ * Results may still differ from a cold start within the convergence tolerance.
+ */
+public class WarmStartVectors
+{
+	/** Maximum number of vectors stored */
+	public static final int MAX_ENTRIES = 16;
+
+	/** Key for a stored vector */
+	private static final class Key
+	{
+		private final BitSet remain;
+		private final BitSet target;
+		private final int numStates;
+		private final int numTransitions;
+
+		private Key(BitSet remain, BitSet target, Model model)
+		{
+			this.remain = remain == null ? null : (BitSet) remain.clone();
+			this.target = (BitSet) target.clone();
+			this.numStates = model.getNumStates();
+			this.numTransitions = model.getNumTransitions();
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return numStates == key.numStates && numTransitions == key.numTransitions && Objects.equals(remain, key.remain) && target.equals(key.target);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(remain, target, numStates, numTransitions);
+		}
+	}
+
+	/** Stored vectors, in access order */
+	private final Map<Key, double[]> vectors = new LinkedHashMap<Key, double[]>(MAX_ENTRIES, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest)
+		{
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	/**
+	 * Get (a copy of) the vector stored for a computation on {@code model},
+	 * specified by the sets {@code remain} (optional: null means "all") and {@code target},
+	 * or null if there is none.
+	 */
+	public synchronized double[] get(Model model, BitSet remain, BitSet target)
+	{
+		double soln[] = vectors.get(new Key(remain, target, model));
+		return soln == null ? null : soln.clone();
+	}
+
+	/**
+	 * Store (a copy of) the solution vector {@code soln} for a computation on {@code model},
+	 * specified by the sets {@code remain} (optional: null means "all") and {@code target}.
+	 */
+	public synchronized void put(Model model, BitSet remain, BitSet target, double soln[])
+	{
+		if (soln.length == model.getNumStates()) {
+			vectors.put(new Key(remain, target, model), soln.clone());
+		}
+	}
+
+	/**
+	 * Discard all stored vectors.
+	 */
+	public synchronized void clear()
+	{
+		vectors.clear();
+	}
+}
@@ -38,6 +38,13 @@ import prism.PrismLangException;
  * (NAN)are provided. For them, the usual rules apply (INF * INF = INF,
  * MINF&INF=MINF, etc.), with the exception that INF+MINF=0, INF-INF=0, etc
  * rather than NAN.
+ * <br>
+ * Values whose numerator and denominator both fit into a {@code long}
+ * (which includes the special values) are stored as a pair of longs,
+ * and arithmetic on them is done using overflow-checked long operations,
+ * falling back to BigInteger arithmetic if the result is too large.
+ * This is transparent to users of this class: the numerator and denominator
+ * are the same, whichever representation is used.
  *
  * @author Ernst Moritz Hahn <emhahn@cs.ox.ac.uk> (University of Oxford)
  */
@@ -70,10 +77,14 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	/** the BigRational "not a number" */
 	public final static BigRational NAN = new BigRational(BigInteger.ZERO, BigInteger.ZERO);
 
-	/** numerator */
+	/** numerator, if it or the denominator does not fit into a long (null otherwise) */
 	private BigInteger num;
-	/** denominator */
+	/** denominator, if it or the numerator does not fit into a long (null otherwise) */
 	private BigInteger den;
+	/** numerator, if both numerator and denominator fit into a long (num and den are null) */
+	private long lnum;
+	/** denominator, if both numerator and denominator fit into a long (num and den are null) */
+	private long lden;
 
 	// constructors
 
@@ -82,8 +93,8 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigRational()
 	{
-		this.num = BigInteger.ZERO;
-		this.den = BigInteger.ONE;
+		this.lnum = 0;
+		this.lden = 1;
 	}
 
 	/**
@@ -93,8 +104,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigRational(BigInteger num)
 	{
-		this.num = num;
-		this.den = BigInteger.ONE;
+		set(num, BigInteger.ONE);
 	}
 
 	/**
@@ -134,8 +144,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (cancel) {
 			canceled(num, den);
 		} else {
-			this.num = num;
-			this.den = den;
+			set(num, den);
 		}
 	}
 
@@ -157,8 +166,124 @@ public final class BigRational extends Number implements Comparable<BigRational>
 				den = den.negate();
 			}
 		}
-		this.num = num;
-		this.den = den;
+		set(num, den);
+	}
+
+	/**
+	 * Creates a new BigRational with value {@code num} / {@code den},
+	 * with the same semantics as {@link #BigRational(BigInteger, BigInteger, boolean)}.
+	 */
+	private BigRational(long num, long den, boolean cancel)
+	{
+		if (den == 0) {
+			num = Long.signum(num);
+		} else if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+			// negation (and hence cancellation) may overflow
+			if (cancel) {
+				canceled(BigInteger.valueOf(num), BigInteger.valueOf(den));
+			} else {
+				set(BigInteger.valueOf(num), BigInteger.valueOf(den));
+			}
+			return;
+		} else if (cancel) {
+			if (num == 0) {
+				den = 1;
+			} else {
+				long gcd = gcd(num, den);
+				num /= gcd;
+				den /= gcd;
+				if (den < 0) {
+					num = -num;
+					den = -den;
+				}
+			}
+		}
+		this.lnum = num;
+		this.lden = den;
+	}
+
+	/**
+	 * Set the numerator and denominator of this BigRational (without cancellation),
+	 * choosing the representation: longs if both fit, BigIntegers otherwise.
+	 * Long.MIN_VALUE is excluded, so that long values can always be negated.
+	 */
+	private void set(BigInteger num, BigInteger den)
+	{
+		if (fitsLong(num) && fitsLong(den)) {
+			this.num = null;
+			this.den = null;
+			this.lnum = num.longValue();
+			this.lden = den.longValue();
+		} else {
+			this.num = num;
+			this.den = den;
+		}
+	}
+
+	/**
+	 * Copy the numerator and denominator of another BigRational to this one.
+	 */
+	private void set(BigRational other)
+	{
+		this.num = other.num;
+		this.den = other.den;
+		this.lnum = other.lnum;
+		this.lden = other.lden;
+	}
+
+	/**
+	 * Returns true iff {@code value} can be stored as a long (other than Long.MIN_VALUE).
+	 */
+	private static boolean fitsLong(BigInteger value)
+	{
+		return value.bitLength() < 64 && value.longValue() != Long.MIN_VALUE;
+	}
+
+	/**
+	 * Greatest common divisor (non-negative) of two longs, neither of which is Long.MIN_VALUE.
+	 */
+	private static long gcd(long a, long b)
+	{
+		a = Math.abs(a);
+		b = Math.abs(b);
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Returns true iff this BigRational is stored as a pair of longs.
+	 */
+	private boolean isSmall()
+	{
+		return num == null;
+	}
+
+	/**
+	 * Returns the same as {@code BigInteger.valueOf(value).hashCode()}.
+	 */
+	private static int hashLong(long value)
+	{
+		long abs = Math.abs(value);
+		int high = (int) (abs >>> 32);
+		int low = (int) abs;
+		int hash = high == 0 ? low : (int) (31 * high + (low & 0xffffffffL));
+		return hash * Long.signum(value);
+	}
+
+	/**
+	 * Replace instances serialised with BigInteger values only
+	 * by ones with the appropriate representation.
+	 */
+	private Object readResolve()
+	{
+		if (num != null && fitsLong(num) && fitsLong(den)) {
+			return new BigRational(num, den, false);
+		}
+		return this;
 	}
 
 	/**
@@ -170,7 +295,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigRational(long num, long den)
 	{
-		this(BigInteger.valueOf(num), BigInteger.valueOf(den));
+		this(num, den, true);
 	}
 
 	/**
@@ -192,16 +317,13 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	public  BigRational(double value)
 	{
 		if (java.lang.Double.isNaN(value)) {
-			this.num = BigInteger.ZERO;
-			this.den = BigInteger.ZERO;
+			set(NAN);
 		}
 		if (value == java.lang.Double.POSITIVE_INFINITY) {
-			this.num = BigInteger.ONE;
-			this.den = BigInteger.ZERO;
+			set(INF);
 		}
 		if (value == java.lang.Double.NEGATIVE_INFINITY) {
-			this.num = BMONE;
-			this.den = BigInteger.ZERO;
+			set(MINF);
 		}
 		// Test whether value must be an integer
 		if (value <= -0x1.0P52 || value >= 0x1.0P52) {
@@ -213,8 +335,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 				exp += 1;
 			}
 			// No need to cancel as denumerator is one
-			this.num = BigInteger.valueOf((long) value).shiftLeft(exp);
-			this.den = BigInteger.ONE;
+			set(BigInteger.valueOf((long) value).shiftLeft(exp), BigInteger.ONE);
 		} else {
 			// Determine smallest exponent such that value = long_value / 2^exp
 			int exp = 0;
@@ -224,8 +345,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 				exp += 1;
 			}
 			// No need to cancel as exp is the smallest exponent
-			this.num = BigInteger.valueOf((long) value);
-			this.den = BigInteger.ONE.shiftLeft(exp);
+			set(BigInteger.valueOf((long) value), BigInteger.ONE.shiftLeft(exp));
 		}
 	}
 
@@ -239,16 +359,13 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	public BigRational(String string)
 	{
 		if (string.equals("Infinity") || string.equals("+Infinity") || string.equals("Inf") || string.equals("+Inf")) {
-			this.num = BigInteger.ONE;
-			this.den = BigInteger.ZERO;
+			set(INF);
 			return;
 		} else if (string.equals("-Infinity") || string.equals("-Inf")) {
-			this.num = BigInteger.ONE.negate();
-			this.den = BigInteger.ZERO;
+			set(MINF);
 			return;
 		} else if (string.equals("NaN")) {
-			this.num = BigInteger.ZERO;
-			this.den = BigInteger.ZERO;
+			set(NAN);
 			return;
 		}
 		string = string.trim();
@@ -292,9 +409,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			} else { // expo < 0
 				den = ten.pow(-expo);
 			}
-			BigRational result = new BigRational(num, den, true);
-			this.num = result.num;
-			this.den = result.den;
+			set(new BigRational(num, den, true));
 		} else {
 			// fractional
 			if (slashIdx == 0 || slashIdx == string.length()-1) {
@@ -304,9 +419,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			// i.e. a/b/c is interpreted as (a/b)/c
 			BigRational num = new BigRational(string.substring(0, slashIdx));
 			BigRational den = new BigRational(string.substring(slashIdx + 1, string.length()));
-			BigRational r = num.divide(den);
-			this.num = r.num;
-			this.den = r.den;
+			set(num.divide(den));
 			return;
 		}
 	}
@@ -319,8 +432,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	public static BigRational from(Object value)
 	{
 		if (value instanceof BigRational) {
-			BigRational v = (BigRational)value;
-			return new BigRational(v.num, v.den);
+			return ((BigRational) value).cancel();
 		} else if (value instanceof BigInteger) {
 			return new BigRational((BigInteger) value);
 		} else if (value instanceof Integer) {
@@ -348,6 +460,9 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigRational negate()
 	{
+		if (isSmall()) {
+			return new BigRational(-lnum, lden, false);
+		}
 		return new BigRational(num.negate(), den, false);
 	}
 
@@ -358,6 +473,9 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigRational cancel()
 	{
+		if (isSmall()) {
+			return new BigRational(lnum, lden, true);
+		}
 		return new BigRational(this.num, this.den, true);
 	}
 
@@ -377,8 +495,17 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (this.isMInf() || other.isMInf()) {
 			return MINF;
 		}
-		BigInteger num = this.num.multiply(other.den).add(other.num.multiply(this.den));
-		BigInteger den = this.den.multiply(other.den);
+		if (this.isSmall() && other.isSmall()) {
+			try {
+				long num = Math.addExact(Math.multiplyExact(this.lnum, other.lden), Math.multiplyExact(other.lnum, this.lden));
+				long den = Math.multiplyExact(this.lden, other.lden);
+				return new BigRational(num, den, cancel);
+			} catch (ArithmeticException e) {
+				// overflow: use BigIntegers
+			}
+		}
+		BigInteger num = this.getNum().multiply(other.getDen()).add(other.getNum().multiply(this.getDen()));
+		BigInteger den = this.getDen().multiply(other.getDen());
 		return new BigRational(num, den, cancel);
 	}
 
@@ -407,8 +534,17 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (other.isMInf()) {
 			return MINF;
 		}
-		BigInteger num = this.num.multiply(other.den).subtract(other.num.multiply(this.den));
-		BigInteger den = this.den.multiply(other.den);
+		if (this.isSmall() && other.isSmall()) {
+			try {
+				long num = Math.subtractExact(Math.multiplyExact(this.lnum, other.lden), Math.multiplyExact(other.lnum, this.lden));
+				long den = Math.multiplyExact(this.lden, other.lden);
+				return new BigRational(num, den, true);
+			} catch (ArithmeticException e) {
+				// overflow: use BigIntegers
+			}
+		}
+		BigInteger num = this.getNum().multiply(other.getDen()).subtract(other.getNum().multiply(this.getDen()));
+		BigInteger den = this.getDen().multiply(other.getDen());
 		return new BigRational(num, den);
 	}
 
@@ -429,8 +565,17 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (this.isInf() || other.isInf()) {
 			return this.signum() * other.signum() == 1 ? INF : MINF;
 		}
-		BigInteger num = this.num.multiply(other.num);
-		BigInteger den = this.den.multiply(other.den);
+		if (this.isSmall() && other.isSmall()) {
+			try {
+				long num = Math.multiplyExact(this.lnum, other.lnum);
+				long den = Math.multiplyExact(this.lden, other.lden);
+				return new BigRational(num, den, cancel);
+			} catch (ArithmeticException e) {
+				// overflow: use BigIntegers
+			}
+		}
+		BigInteger num = this.getNum().multiply(other.getNum());
+		BigInteger den = this.getDen().multiply(other.getDen());
 		return new BigRational(num, den, cancel);
 	}
 
@@ -488,7 +633,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			}
 		}
 
-		BigRational inverseOther = new BigRational(other.den, other.num, cancel);
+		BigRational inverseOther = other.isSmall() ? new BigRational(other.lden, other.lnum, cancel) : new BigRational(other.den, other.num, cancel);
 		return multiply(inverseOther, cancel);
 	}
 
@@ -525,6 +670,9 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	{
 		if (isInf()) return 1;
 		if (isMInf()) return -1;
+		if (isSmall()) {
+			return Long.signum(lnum) * Long.signum(lden);
+		}
 		return num.signum() * den.signum();
 	}
 
@@ -541,12 +689,12 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (exponent == 0) {
 			return ONE;
 		} else if (exponent > 0) {
-			num = this.num.pow(exponent);
-			den = this.den.pow(exponent);
+			num = this.getNum().pow(exponent);
+			den = this.getDen().pow(exponent);
 		} else { // exponent < 0
 			exponent = -exponent;
-			num = this.den.pow(exponent);
-			den = this.num.pow(exponent);
+			num = this.getDen().pow(exponent);
+			den = this.getNum().pow(exponent);
 		}
 		return new BigRational(num, den, false);
 	}
@@ -575,6 +723,10 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (isMInf()) {
 			return other.isMInf();
 		}
+		if (this.isSmall() || other.isSmall()) {
+			// values fitting into longs are always stored as longs
+			return this.isSmall() && other.isSmall() && this.lnum == other.lnum && this.lden == other.lden;
+		}
 		return this.num.equals(other.num) && this.den.equals(other.den);
 	}
 
@@ -586,6 +738,10 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	@Override
 	public int hashCode()
 	{
+		// same as for the BigInteger representation
+		if (isSmall()) {
+			return 37 * hashLong(lnum) + hashLong(lden);
+		}
 		return 37 * num.hashCode() + den.hashCode();
 	}
 
@@ -613,9 +769,9 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			return 0.0;
 		}
 		BigInteger shiftedNum;
-		int signum = num.signum() * den.signum();
-		BigInteger posNum = num.abs();
-		BigInteger posDen = den.abs();
+		int signum = signum();
+		BigInteger posNum = getNum().abs();
+		BigInteger posDen = getDen().abs();
 		shiftedNum = posNum.shiftLeft(55);
 		BigInteger div = shiftedNum.divide(posDen);
 		if (shiftedNum.remainder(posDen).multiply(BITWO).compareTo(posDen) == 1) {
@@ -654,11 +810,10 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (!isInteger()) {
 			throw new ArithmeticException("Can not convert fractional number to int");
 		}
-		int value = getNum().intValue();
-		if (!getNum().equals(BigInteger.valueOf(value))) {
-			throw new ArithmeticException("Can not convert BigInteger to int, value " + this + " out of range");
+		if (isSmall() && (int) lnum == lnum) {
+			return (int) lnum;
 		}
-		return value;
+		throw new ArithmeticException("Can not convert BigInteger to int, value " + this + " out of range");
 	}
 
 	/**
@@ -691,11 +846,13 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (!isInteger()) {
 			throw new ArithmeticException("Can not convert fractional number to long");
 		}
-		long value = getNum().longValue();
-		if (!getNum().equals(BigInteger.valueOf(value))) {
-			throw new ArithmeticException("Can not convert BigInteger to long, value " + this + " out of range");
+		if (isSmall()) {
+			return lnum;
+		}
+		if (num.equals(BigInteger.valueOf(Long.MIN_VALUE))) {
+			return Long.MIN_VALUE;
 		}
-		return value;
+		throw new ArithmeticException("Can not convert BigInteger to long, value " + this + " out of range");
 	}
 
 	@Override
@@ -748,6 +905,8 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			return "Inf";
 		} else if (isMInf()) {
 			return "-Inf";
+		} else if (isSmall()) {
+			return lden == 1 ? Long.toString(lnum) : lnum + "/" + lden;
 		} else if (den.equals(BigInteger.ONE)) {
 			return num.toString();
 		} else {
@@ -777,7 +936,14 @@ public final class BigRational extends Number implements Comparable<BigRational>
 				return -1;
 			}
 		}
-		return this.num.multiply(other.den).compareTo(other.num.multiply(this.den));
+		if (this.isSmall() && other.isSmall()) {
+			try {
+				return Long.compare(Math.multiplyExact(this.lnum, other.lden), Math.multiplyExact(other.lnum, this.lden));
+			} catch (ArithmeticException e) {
+				// overflow: use BigIntegers
+			}
+		}
+		return this.getNum().multiply(other.getDen()).compareTo(other.getNum().multiply(this.getDen()));
 	}
 
 	/**
@@ -821,7 +987,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigInteger getNum()
 	{
-		return num;
+		return isSmall() ? BigInteger.valueOf(lnum) : num;
 	}
 
 	/**
@@ -831,7 +997,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigInteger getDen()
 	{
-		return den;
+		return isSmall() ? BigInteger.valueOf(lden) : den;
 	}
 
 	/**
@@ -841,6 +1007,9 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public BigRational abs()
 	{
+		if (isSmall()) {
+			return lnum < 0 ? new BigRational(-lnum, lden, true) : this;
+		}
 		if (num.signum() == -1) {
 			return new BigRational(num.negate(), den);
 		} else {
@@ -858,6 +1027,12 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			throw new PrismLangException("Can not compute ceil of " + this);
 		}
 
+		if (isSmall()) {
+			// same rounding (towards zero) as BigInteger.divideAndRemainder
+			long quotient = lnum / lden;
+			return new BigRational(lnum % lden > 0 ? quotient + 1 : quotient);
+		}
+
 		BigInteger[] divideAndRemainder = getNum().divideAndRemainder(getDen());
 
 		switch (divideAndRemainder[1].compareTo(BigInteger.ZERO)) {
@@ -881,6 +1056,12 @@ public final class BigRational extends Number implements Comparable<BigRational>
 			throw new PrismLangException("Can not compute floor of " + this);
 		}
 
+		if (isSmall()) {
+			// same rounding (towards zero) as BigInteger.divideAndRemainder
+			long quotient = lnum / lden;
+			return new BigRational(lnum % lden < 0 ? quotient - 1 : quotient);
+		}
+
 		BigInteger[] divideAndRemainder = getNum().divideAndRemainder(getDen());
 		switch (divideAndRemainder[1].compareTo(BigInteger.ZERO)) {
 		case 0:   // no remainder
@@ -944,7 +1125,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public boolean isZero()
 	{
-		return num.equals(BigInteger.ZERO) && den.equals(BigInteger.ONE);
+		return isSmall() && lnum == 0 && lden == 1;
 	}
 
 	/**
@@ -954,7 +1135,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public boolean isOne()
 	{
-		return num.equals(BigInteger.ONE) && den.equals(BigInteger.ONE);
+		return isSmall() && lnum == 1 && lden == 1;
 	}
 
 	/**
@@ -964,7 +1145,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public boolean isNaN()
 	{
-		return num.equals(BigInteger.ZERO) && den.equals(BigInteger.ZERO);
+		return isSmall() && lnum == 0 && lden == 0;
 	}
 
 	/**
@@ -974,7 +1155,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public boolean isInf()
 	{
-		return num.equals(BigInteger.ONE) && den.equals(BigInteger.ZERO);
+		return isSmall() && lnum == 1 && lden == 0;
 	}
 
 	/**
@@ -984,7 +1165,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public boolean isMInf()
 	{
-		return num.equals(BMONE) && den.equals(BigInteger.ZERO);
+		return isSmall() && lnum == -1 && lden == 0;
 	}
 
 	/**
@@ -1008,7 +1189,7 @@ public final class BigRational extends Number implements Comparable<BigRational>
 	 */
 	public boolean isInteger()
 	{
-		return isRational() && getDen().equals(BigInteger.ONE);
+		return isRational() && (isSmall() ? lden == 1 : den.equals(BigInteger.ONE));
 	}
 
 	/**
@@ -1063,10 +1244,9 @@ public final class BigRational extends Number implements Comparable<BigRational>
 		if (!isInteger()) {
 			throw new PrismLangException("Can not convert fractional number to int");
 		}
-		int value = getNum().intValue();
-		if (!getNum().equals(BigInteger.valueOf(value))) {
-			throw new PrismLangException("Can not convert BigInteger to int, value out of range");
+		if (isSmall() && (int) lnum == lnum) {
+			return (int) lnum;
 		}
-		return value;
+		throw new PrismLangException("Can not convert BigInteger to int, value out of range");
 	}
 }
@@ -28,7 +28,8 @@ package param;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Implements a region representation by a box (hyper-rectangle).
@@ -40,8 +41,8 @@ import java.util.Random;
  * @see BoxRegionFactory
  */
 final class BoxRegion extends Region {
-	/** used to produce random inner points of box regions */
-	static Random random = new Random();
+	/** number of regions of the same size to check at once per thread, if several threads are used */
+	private static final int REGIONS_PER_THREAD = 4;
 	
 	/** regions are only to be split at longest side */
 	static final int SPLIT_LONGEST = 1;
@@ -179,6 +180,23 @@ final class BoxRegion extends Region {
 		return hash;
 	}
 	
+	/**
+	 * Compares the lower bounds of this and another region lexicographically.
+	 * 
+	 * @param other region to compare with
+	 * @return negative, zero or positive, if the lower bounds of this region are smaller, equal or larger
+	 */
+	int compareLowerBounds(BoxRegion other)
+	{
+		for (int dim = 0; dim < lower.length; dim++) {
+			int result = lower[dim].compareTo(other.lower[dim]);
+			if (result != 0) {
+				return result;
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * Gets the central points of the region.
 	 *
@@ -285,73 +303,130 @@ final class BoxRegion extends Region {
 		return result;
 	}
 
-	private RegionValues cmpOp(int op, StateValues op1, StateValues op2) {
+	/**
+	 * Comparison of the values of a single state, prepared so that it can
+	 * be checked for many regions concurrently. Either the result is the same
+	 * in all regions ({@code fixed}), or it is {@code firstValue} in regions
+	 * where {@code first} holds, else {@code secondValue} where {@code second}
+	 * holds, and undecided otherwise.
+	 */
+	private static final class StateComparison {
+		/** result for all regions, or null if it depends on the region */
+		Boolean fixed;
+		/** first (prepared) constraint to check, its strictness, and the result if it holds */
+		Function first;
+		boolean firstStrict;
+		boolean firstValue;
+		/** second (prepared) constraint to check, its strictness, and the result if it holds */
+		Function second;
+		boolean secondStrict;
+		boolean secondValue;
+		/** function to guide splitting if undecided (may be null) */
+		Function splitFunction;
+	}
+
+	/**
+	 * Result of comparing the values of all states in a region.
+	 */
+	private static final class RegionComparison {
+		/** values of the comparison, or null if not decided for all states */
+		StateValues values;
+		/** function to guide splitting if undecided (may be null) */
+		Function splitFunction;
+	}
+
+	/**
+	 * Prepares the comparison of the values of all states,
+	 * computing the required functions once rather than for each region.
+	 */
+	private StateComparison[] prepareCmpOp(int op, StateValues op1, StateValues op2) {
 		ConstraintChecker checker = factory.getConstraintChecker();
+		StateComparison[] comparisons = new StateComparison[op1.getNumStates()];
+		for (int state = 0; state < op1.getNumStates(); state++) {
+			StateValue op1Val = op1.getStateValue(state);
+			StateValue op2Val = op2.getStateValue(state);
+			Function op1ValFn = op1Val instanceof Function ? (Function) op1Val : null;
+			Function op2ValFn = op2Val instanceof Function ? (Function) op2Val : null;
+			StateComparison comparison = new StateComparison();
+			if (op == Region.EQ || op == Region.NE) {
+				if (op1Val instanceof StateBoolean) {
+					comparison.fixed = op1Val.equals(op2Val) == (op == Region.EQ);
+				} else if (op1Val.equals(op2Val)) {
+					comparison.fixed = op == Region.EQ;
+				} else {
+					comparison.first = checker.prepare(op1ValFn.subtract(op2ValFn));
+					comparison.firstStrict = true;
+					comparison.firstValue = op == Region.NE;
+					comparison.second = checker.prepare(op2ValFn.subtract(op1ValFn));
+					comparison.secondStrict = true;
+					comparison.secondValue = op == Region.NE;
+				}
+			} else {
+				boolean strict = op == Region.GT || op == Region.LT;
+				Function cmpTrue = (op == Region.LT || op == Region.LE) ? op2ValFn.subtract(op1ValFn) : op1ValFn.subtract(op2ValFn);
+				Function cmpFalse = (op == Region.LT || op == Region.LE) ? op1ValFn.subtract(op2ValFn) : op2ValFn.subtract(op1ValFn);
+				comparison.first = checker.prepare(cmpTrue);
+				comparison.firstStrict = strict;
+				comparison.firstValue = true;
+				comparison.second = checker.prepare(cmpFalse);
+				comparison.secondStrict = !strict;
+				comparison.secondValue = false;
+				comparison.splitFunction = op2ValFn.subtract(op1ValFn);
+			}
+			comparisons[state] = comparison;
+		}
+		return comparisons;
+	}
+
+	/**
+	 * Compares the values of all states in a given region.
+	 * Safe to be called concurrently for different regions.
+	 */
+	private RegionComparison cmpOp(StateComparison[] comparisons) {
+		ConstraintChecker checker = factory.getConstraintChecker();
+		RegionComparison result = new RegionComparison();
+		StateValues newValues = new StateValues(comparisons.length, factory.getInitialState());
+		for (int state = 0; state < comparisons.length; state++) {
+			StateComparison comparison = comparisons[state];
+			if (comparison.fixed != null) {
+				newValues.setStateValue(state, comparison.fixed);
+			} else if (checker.checkPrepared(this, comparison.first, comparison.firstStrict)) {
+				newValues.setStateValue(state, comparison.firstValue);
+			} else if (checker.checkPrepared(this, comparison.second, comparison.secondStrict)) {
+				newValues.setStateValue(state, comparison.secondValue);
+			} else {
+				result.splitFunction = comparison.splitFunction;
+				return result;
+			}
+		}
+		result.values = newValues;
+		return result;
+	}
+
+	private RegionValues cmpOp(int op, StateValues op1, StateValues op2) {
+		StateComparison[] comparisons = prepareCmpOp(op, op1, op2);
 		RegionsTODO remaining = new RegionsTODO();
 		remaining.add(this);
 		BigRational requiredVolume = this.volume().multiply(BigRational.ONE.subtract(factory.getPrecision()));
 		BigRational doneVolume = BigRational.ZERO;
 		RegionValues result = new RegionValues(factory);
-		Function lastFunction = null;
+		// with several threads, check several regions (of the same size) at once;
+		// results are used in the same order as when checking them one at a time
+		int numThreads = factory.getNumThreads();
+		int batchSize = numThreads == 1 ? 1 : REGIONS_PER_THREAD * numThreads;
 		while (doneVolume.compareTo(requiredVolume) == -1) {
-			BoxRegion region = (BoxRegion) remaining.poll();
-			StateValues newValues = new StateValues(op1.getNumStates(), factory.getInitialState());
-			boolean allDecided = true;
-			for (int state = 0; state < op1.getNumStates(); state++) {
-				StateValue op1Val = op1.getStateValue(state);
-				StateValue op2Val = op2.getStateValue(state);
-				Function op1ValFn = op1Val instanceof Function ? (Function) op1Val : null;
-				Function op2ValFn = op2Val instanceof Function ? (Function) op2Val : null;
-				if (op == Region.EQ) {
-					if (op1Val instanceof StateBoolean) {
-						newValues.setStateValue(state, op1Val.equals(op2Val));						
-					}
-					else if (op1Val.equals(op2Val)) {
-						newValues.setStateValue(state, true);			
-					} else if (checker.check(region, op1ValFn.subtract(op2ValFn), true)) {
-						newValues.setStateValue(state, false);	
-					} else if (checker.check(region, op2ValFn.subtract(op1ValFn), true)) {
-						newValues.setStateValue(state, false);	
-					} else {
-						allDecided = false;
-						break;
-					}
-				} else if (op == Region.NE) {
-					if (op1Val instanceof StateBoolean) {
-						newValues.setStateValue(state, !op1Val.equals(op2Val));
-					} else if (op1Val.equals(op2Val)) {
-						newValues.setStateValue(state, false);
-					} else if (checker.check(region, op1ValFn.subtract(op2ValFn), true)) {
-						newValues.setStateValue(state, true);
-					} else if (checker.check(region, op2ValFn.subtract(op1ValFn), true)) {
-						newValues.setStateValue(state, true);
-					} else {
-						allDecided = false;
-						break;
-					}
+			List<Region> regions = remaining.pollLargest(batchSize);
+			List<RegionComparison> comparisonResults = factory.checkAll(regions, region -> ((BoxRegion) region).cmpOp(comparisons));
+			for (int i = 0; i < regions.size() && doneVolume.compareTo(requiredVolume) == -1; i++) {
+				Region region = regions.get(i);
+				RegionComparison comparison = comparisonResults.get(i);
+				if (comparison.values != null) {
+					result.add(region, comparison.values);
+					doneVolume = doneVolume.add(region.volume());
 				} else {
-					boolean strict = op == Region.GT || op == Region.LT;
-					Function cmpTrue = (op == Region.LT || op == Region.LE) ? op2ValFn.subtract(op1ValFn) : op1ValFn.subtract(op2ValFn);
-					if (checker.check(region, cmpTrue, strict)) {
-						newValues.setStateValue(state, true);
-					} else {
-						Function cmpFalse = (op == Region.LT || op == Region.LE) ? op1ValFn.subtract(op2ValFn) : op2ValFn.subtract(op1ValFn);
-						if (checker.check(region, cmpFalse, !strict)) {
-							newValues.setStateValue(state, false);	
-						} else {
-							allDecided = false;
-							lastFunction = op2ValFn.subtract(op1ValFn);
-							break;
-						}
-					}
+					remaining.addAll(region.split(comparison.splitFunction));
 				}
 			}
-			if (allDecided) {
-				result.add(region, newValues);
-				doneVolume = doneVolume.add(region.volume());
-			} else {
-				remaining.addAll(region.split(lastFunction));
-			}
 		}
 		
 		return result;
@@ -536,7 +611,8 @@ final class BoxRegion extends Region {
 		BigRational[] point = new BigRational[lower.length];
 		BigInteger maxInt = new BigInteger(Long.toString((long) Math.pow(2, 60))); 
 		for (int dim = 0; dim < lower.length; dim++) {
-			BigInteger rndInt = new BigInteger(60, random);
+			// (random points may be produced concurrently, for different regions)
+			BigInteger rndInt = new BigInteger(60, ThreadLocalRandom.current());
 			BigRational rndRat = new BigRational(rndInt, maxInt);
 			rndRat = lower[dim].add(upper[dim].subtract(lower[dim]).multiply(rndRat));
 			point[dim] = rndRat;
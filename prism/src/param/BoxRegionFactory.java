@@ -48,9 +48,10 @@ final class BoxRegionFactory extends RegionFactory {
 	 * @param initialState initial states of model
 	 * @param subsumeRegions whether to subsume regions if possible
 	 * @param splitMethod method to split regions
+	 * @param numThreads number of threads to use for checking regions
 	 */
 	BoxRegionFactory(FunctionFactory functionFactory, ConstraintChecker constraintChecker, BigRational precision,
-			int numStates, int initialState, boolean subsumeRegions, int splitMethod)
+			int numStates, int initialState, boolean subsumeRegions, int splitMethod, int numThreads)
 	{
 		this.functionFactory = functionFactory;
 		this.constraintChecker = constraintChecker;
@@ -59,6 +60,7 @@ final class BoxRegionFactory extends RegionFactory {
 		this.initialState = initialState;
 		this.subsumeRegions = subsumeRegions;
 		this.splitMethod = splitMethod;
+		this.numThreads = numThreads;
 	}
 	
 	@Override
@@ -26,8 +26,10 @@
 
 package param;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import prism.PrismLog;
 
 /**
  * Function factory implementing a cache for functions from other factories.
@@ -36,6 +38,10 @@ import java.util.HashMap;
  * cache for operations on functions, so that if an operation on the same
  * two functions has already been performed before, the result will be
  * looked up instead of being performed again.
+ * The operation caches are bounded, so that entries are evicted once they
+ * are full. All operations of this factory may be used by several threads
+ * at once, provided the same holds for the factory of which functions
+ * are cached.
  * 
  * @author Ernst Moritz Hahn <emhahn@cs.ox.ac.uk> (University of Oxford)
  * @see FunctionFactory
@@ -85,16 +91,15 @@ final class CachedFunctionFactory extends FunctionFactory {
 		}
 	}
 	
+	/** default maximal number of entries of each operation cache */
+	static final int DEFAULT_OP_CACHE_SIZE = 1000000;
+
 	/** function factory of which we cache functions */
 	private FunctionFactory context;
-	/** maps each function from {@code context} to a unique integer */
-	private HashMap<Function, Integer> functionToNumber;
-	/** maps each integer to function from {@code context}, cf. also {@code functionToNumber} */
-	private ArrayList<Function> functions;
-	/** list of all function of this function factory */ 
-	private ArrayList<CachedFunction> cachedFunctions;
+	/** maps each function from {@code context} to its unique cached function */
+	private ConcurrentHashMap<Function, CachedFunction> functionToCached;
 	/** next new function will be assigned this number */
-	private int nextFunctionNumber;
+	private AtomicInteger nextFunctionNumber;
 	/** function representing one (1) */
 	private CachedFunction one;
 	/** function representing zero (0) */
@@ -102,31 +107,47 @@ final class CachedFunctionFactory extends FunctionFactory {
 	/** true iff operation cache is to be used */
 	private boolean useOpCache;
 	/** cache for additions (and indirectly subtractions) */		
-	private HashMap<OpCacheKey, CachedFunction> addCache;
+	private OperationCache<OpCacheKey, CachedFunction> addCache;
 	/** cache for multiplications (and indirectly divisions) */	
-	private HashMap<OpCacheKey, CachedFunction> multCache;
+	private OperationCache<OpCacheKey, CachedFunction> multCache;
 	/** cache for star operation */
-	private HashMap<CachedFunction, CachedFunction> starCache;
+	private OperationCache<CachedFunction, CachedFunction> starCache;
 	
 	/**
 	 * Constructs a new cached function factory.
-	 * Will cache functions of the given {@code context}.
+	 * Will cache functions of the given {@code context}, using operation
+	 * caches of default size with LRU eviction.
 	 * 
 	 * @param context function factory to cache functions of
 	 */
 	public CachedFunctionFactory(FunctionFactory context) {
+		this(context, DEFAULT_OP_CACHE_SIZE, OperationCache.EvictionPolicy.LRU);
+	}
+	
+	/**
+	 * Constructs a new cached function factory.
+	 * Will cache functions of the given {@code context}. Each of the caches
+	 * for addition, multiplication and star operation will contain at most
+	 * {@code opCacheSize} entries. If {@code opCacheSize} is 0, no operation
+	 * cache will be used.
+	 * 
+	 * @param context function factory to cache functions of
+	 * @param opCacheSize maximal number of entries of each operation cache
+	 * @param opCachePolicy policy to evict entries from full operation caches
+	 */
+	public CachedFunctionFactory(FunctionFactory context, int opCacheSize, OperationCache.EvictionPolicy opCachePolicy) {
 		super(context.parameterNames, context.lowerBounds, context.upperBounds);
 		this.context = context;
-		functionToNumber = new HashMap<Function, Integer>();
-		cachedFunctions = new ArrayList<CachedFunction>();
-		functions = new ArrayList<Function>();
-		nextFunctionNumber = 0;
+		functionToCached = new ConcurrentHashMap<Function, CachedFunction>();
+		nextFunctionNumber = new AtomicInteger();
 		one = makeUnique(context.getOne());
 		zero = makeUnique(context.getZero());
-		addCache = new HashMap<OpCacheKey, CachedFunction>();
-		multCache = new HashMap<OpCacheKey, CachedFunction>();
-		starCache = new HashMap<CachedFunction, CachedFunction>();
-		useOpCache = true;
+		useOpCache = opCacheSize > 0;
+		if (useOpCache) {
+			addCache = new OperationCache<OpCacheKey, CachedFunction>(opCacheSize, opCachePolicy);
+			multCache = new OperationCache<OpCacheKey, CachedFunction>(opCacheSize, opCachePolicy);
+			starCache = new OperationCache<CachedFunction, CachedFunction>(opCacheSize, opCachePolicy);
+		}
 	}
 	
 	/**
@@ -140,38 +161,36 @@ final class CachedFunctionFactory extends FunctionFactory {
 	}
 	
 	/**
-	 * Returns the unique integer representing the given function.
+	 * Returns the unique cached function representing the given function.
 	 * In case the function already exists in the function cache, returns
-	 * the assigned integer. Otherwise, inserts function in the cache and
-	 * returns the newly assigned integer.
+	 * the cached function assigned to it. Otherwise, inserts function in the
+	 * cache, assigning it a new unique integer.
 	 * 
-	 * @param function function to return unique integer of
-	 * @return unique integer representing function
+	 * @param function function to return unique cached function of
+	 * @return unique cached function representing function
 	 */
 	private CachedFunction makeUnique(Function function)
 	{
-		Integer number = functionToNumber.get(function);
-		if (number != null) {
-			return cachedFunctions.get(number);
-		} else {
-			CachedFunction cachedFunction = new CachedFunction(this, nextFunctionNumber);
-			functionToNumber.put(function, nextFunctionNumber);
-			cachedFunctions.add(cachedFunction);
-			functions.add(function);
-			nextFunctionNumber++;
+		CachedFunction cachedFunction = functionToCached.get(function);
+		if (cachedFunction != null) {
 			return cachedFunction;
 		}
+		return functionToCached.computeIfAbsent(function, fn -> new CachedFunction(this, nextFunctionNumber.getAndIncrement(), fn));
 	}
 	
 	/**
-	 * Returns integer with the given unique number.
+	 * Print statistics about the operation caches to the given log.
 	 * 
-	 * @param number number of function to return
-	 * @return function with the given number
+	 * @param log log to print statistics to
 	 */
-	Function getFunction(int number)
+	void printOpCacheStats(PrismLog log)
 	{
-		return functions.get(number);
+		log.println("Cached functions: " + functionToCached.size());
+		if (useOpCache) {
+			log.println("Addition cache: " + addCache);
+			log.println("Multiplication cache: " + multCache);
+			log.println("Star cache: " + starCache);
+		}
 	}
 	
 	@Override
@@ -188,7 +207,7 @@ final class CachedFunctionFactory extends FunctionFactory {
 
 	private Function getFunctionFromCache(Function cached)
 	{
-		return functions.get(((CachedFunction) cached).getNumber());
+		return ((CachedFunction) cached).getFunction();
 	}
 	
 	Function add(Function cached1, Function cached2)
@@ -247,7 +266,7 @@ final class CachedFunctionFactory extends FunctionFactory {
 	Function star(Function cached) {
 		Function result;
 		if (useOpCache) {
-			result = starCache.get(cached);
+			result = starCache.get((CachedFunction) cached);
 			if (result != null) {
 				return result;
 			}
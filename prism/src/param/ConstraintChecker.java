@@ -27,7 +27,9 @@
 package param;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Checks if functions are (strictly) larger than zero in whole region.
@@ -36,11 +38,14 @@ import java.util.HashMap;
  * is unlikely but not impossible that there are other points in the
  * region which are below (or equal) to zero. Derived classes might
  * use a constraint solver to guarantee validity of this check.
+ * <br>
+ * Checks may be performed concurrently, as long as the functions checked
+ * have been prepared beforehand, see {@link #prepare(Function)}.
  * 
  * @author Ernst Moritz Hahn <emhahn@cs.ox.ac.uk> (University of Oxford)
  */
 class ConstraintChecker {
-	private boolean usedUnsoundCheck = false;
+	private volatile boolean usedUnsoundCheck = false;
 
 	/**
 	 * Class to store keys for the cache of the decision procedure.
@@ -100,8 +105,8 @@ class ConstraintChecker {
 
 	/** number of random points to evaluate in decision procedure */
 	private int numRandomPoints;
-	/** decision cache */
-	protected HashMap<DecisionEntryKey,ArrayList<DecisionEntryValue>> decisions;
+	/** decision cache (entries can be added and looked up concurrently) */
+	protected ConcurrentHashMap<DecisionEntryKey,Queue<DecisionEntryValue>> decisions;
 	
 	/**
 	 * Constructs a new constraint checker.
@@ -110,7 +115,7 @@ class ConstraintChecker {
 	 */
 	ConstraintChecker(int numRandomPoints) {
 		this.numRandomPoints = numRandomPoints;
-		decisions = new HashMap<DecisionEntryKey,ArrayList<DecisionEntryValue>>();
+		decisions = new ConcurrentHashMap<DecisionEntryKey,Queue<DecisionEntryValue>>();
 	}
 
 	/**
@@ -165,10 +170,37 @@ class ConstraintChecker {
 	 * @return true iff function values are (strictly) larger than zero in whole region 
 	 */
 	boolean check(Region region, Function constraint, boolean strict)
+	{
+		return checkPrepared(region, prepare(constraint), strict);
+	}
+
+	/**
+	 * Prepares a constraint to be checked by {@link #checkPrepared}.
+	 * This might have to create new functions, so it must not be called
+	 * concurrently with other operations of the function factory.
+	 * 
+	 * @param constraint constraint to prepare
+	 * @return prepared constraint
+	 */
+	Function prepare(Function constraint)
+	{
+		return constraint.isConstant() ? constraint : constraint.toConstraint();
+	}
+
+	/**
+	 * Checks whether a constraint prepared by {@link #prepare} holds in given region.
+	 * Can be called concurrently for different regions and constraints.
+	 * 
+	 * @param region region for which to check validity of constraint
+	 * @param constr prepared constraint to check (whether >=/> 0)
+	 * @param strict true iff ">" shold be checked rathern than ">="
+	 * @return true iff function values are (strictly) larger than zero in whole region 
+	 */
+	boolean checkPrepared(Region region, Function constr, boolean strict)
 	{
 		// handle case where the constraint is a constant number
-		if (constraint.isConstant()) {
-			BigRational value = constraint.asBigRational();
+		if (constr.isConstant()) {
+			BigRational value = constr.asBigRational();
 
 			if (value.isNaN())
 				return false;
@@ -180,11 +212,10 @@ class ConstraintChecker {
 			}
 		}
 
-		Function constr = constraint.toConstraint();
 		DecisionEntryKey key = new DecisionEntryKey();
 		key.constraint = constr;
 		key.strict = strict;
-		ArrayList<DecisionEntryValue> entries = decisions.get(key);
+		Queue<DecisionEntryValue> entries = decisions.get(key);
 		if (entries != null) {
 			for (DecisionEntryValue entry : entries) {
 				if (entry.region.contains(region)) {
@@ -202,11 +233,7 @@ class ConstraintChecker {
 			result = mainCheck(region, constr, strict);
 		}
 
-		entries = decisions.get(key);
-		if (entries == null) {
-			entries = new ArrayList<DecisionEntryValue>();
-			decisions.put(key, entries);
-		}
+		entries = decisions.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<DecisionEntryValue>());
 		DecisionEntryValue entry = new DecisionEntryValue();
 		entry.region = region;
 		entry.result = result;
@@ -27,8 +27,8 @@
 package param;
 
 import java.math.BigInteger;
-import java.util.HashMap;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Ernst Moritz Hahn <emhahn@cs.ox.ac.uk> (University of Oxford)
@@ -127,7 +127,7 @@ class DagFunctionFactory extends FunctionFactory {
 	}
 	
 	private Point randomPosition;
-	private HashMap<DagOperator,DagOperator> polynomials;
+	private ConcurrentHashMap<DagOperator,DagOperator> polynomials;
 	private DagOperator zeroOp;
 	private DagOperator oneOp;
 	private DagFunction[] parameters;
@@ -136,7 +136,7 @@ class DagFunctionFactory extends FunctionFactory {
 	private DagFunction nan;
 	private DagFunction inf;
 	private DagFunction minf;
-	private HashMap<DagFunction,DagFunction> functions;
+	private ConcurrentHashMap<DagFunction,DagFunction> functions;
 //	private boolean negateToInner;
 	
 	public DagFunctionFactory(String[] parameterNames, BigRational[] lowerBounds, BigRational[] upperBounds, double maxProbWrong, boolean negateToInner) {
@@ -150,8 +150,8 @@ class DagFunctionFactory extends FunctionFactory {
 		}
 		randomPosition = new Point(randomPosArr);
 
-		polynomials = new HashMap<DagOperator,DagOperator>();
-		functions = new HashMap<DagFunction,DagFunction>();
+		polynomials = new ConcurrentHashMap<DagOperator,DagOperator>();
+		functions = new ConcurrentHashMap<DagFunction,DagFunction>();
 		zeroOp = new Number(BigInteger.ZERO);
 		polynomials.put(zeroOp,zeroOp);
 		oneOp = new Number(BigInteger.ONE);
@@ -202,21 +202,13 @@ class DagFunctionFactory extends FunctionFactory {
 	}
 	
 	private DagOperator makeUnique(DagOperator op) {
-		DagOperator foundOp = polynomials.get(op);
-		if (foundOp == null) {
-			foundOp = op;
-			polynomials.put(foundOp, foundOp);
-		}
-		return foundOp;
+		DagOperator foundOp = polynomials.putIfAbsent(op, op);
+		return foundOp != null ? foundOp : op;
 	}
 	
 	private DagFunction makeUnique(DagFunction fn) {
-		DagFunction foundFn = functions.get(fn);
-		if (foundFn == null) {
-			foundFn = fn;
-			functions.put(foundFn, foundFn);
-		}
-		return foundFn;
+		DagFunction foundFn = functions.putIfAbsent(fn, fn);
+		return foundFn != null ? foundFn : fn;
 	}
 	
 	@Override
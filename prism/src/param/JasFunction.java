@@ -50,10 +50,10 @@ import edu.jas.ufd.Quotient;
 final class JasFunction extends Function {
 	/** JAS object the function is wrapping */
 	private Quotient<BigInteger> jas;
-	/** numerator of function (stored if needed) */
-	Polynomial num;
-	/** denominator of function (stored if needed) */
-	Polynomial den;
+	/** numerator of function (stored if needed, possibly by concurrent evaluations) */
+	volatile Polynomial num;
+	/** denominator of function (stored if needed, possibly by concurrent evaluations) */
+	volatile Polynomial den;
 	/** type of function (rational function, infinity, etc.) */
 	int type;
 	final static int NORMAL = 0;
@@ -0,0 +1,250 @@
+//==============================================================================
+//
+//	Copyright (c) 2013-
+//	Authors:
+//	* Ernst Moritz Hahn <emhahn@cs.ox.ac.uk> (University of Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package param;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache for results of operations on functions.
+ * The cache is split into a number of segments, each of which is locked
+ * separately, so that it can be used by several threads at once. Once a
+ * segment is full, adding a new entry evicts either the least recently
+ * used entry of this segment or the one inserted first, depending on the
+ * eviction policy. Hits, misses and evictions are counted.
+ *
+ * @param <K> type of keys
+ * @param <V> type of cached values
+ * @see CachedFunctionFactory
+ */
+final class OperationCache<K, V>
+{
+	/**
+	 * Policy used to decide which entry to remove when the cache is full.
+	 */
+	enum EvictionPolicy
+	{
+		/** remove least recently used entry */
+		LRU,
+		/** remove least recently inserted entry */
+		FIFO
+	}
+
+	/** maximal number of segments the cache is split into */
+	private static final int MAX_SEGMENTS = 16;
+
+	/**
+	 * Segment of the cache.
+	 * Must only be accessed while holding its lock.
+	 */
+	private static final class Segment<K, V> extends LinkedHashMap<K, V>
+	{
+		private static final long serialVersionUID = 1L;
+		/** maximal number of entries of this segment */
+		private final int capacity;
+		/** counter of evictions of the cache this segment belongs to */
+		private final LongAdder evictions;
+
+		Segment(int capacity, boolean accessOrder, LongAdder evictions)
+		{
+			super(16, 0.75f, accessOrder);
+			this.capacity = capacity;
+			this.evictions = evictions;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<K, V> eldest)
+		{
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	/** segments of the cache, number is a power of two */
+	private final Segment<K, V>[] segments;
+	/** maximal number of entries of the whole cache */
+	private final int maxSize;
+	/** eviction policy used */
+	private final EvictionPolicy policy;
+	/** number of successful lookups */
+	private final LongAdder hits = new LongAdder();
+	/** number of unsuccessful lookups */
+	private final LongAdder misses = new LongAdder();
+	/** number of entries removed because the cache was full */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructs a new operation cache.
+	 *
+	 * @param maxSize maximal number of entries, must be positive
+	 * @param policy policy deciding which entries to remove if cache is full
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	OperationCache(int maxSize, EvictionPolicy policy)
+	{
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("operation cache size must be positive");
+		}
+		this.maxSize = maxSize;
+		this.policy = policy;
+		int numSegments = 1;
+		while (numSegments < MAX_SEGMENTS && numSegments * 2 <= maxSize) {
+			numSegments *= 2;
+		}
+		segments = new Segment[numSegments];
+		for (int i = 0; i < numSegments; i++) {
+			// distribute entries such that the capacities sum up to maxSize
+			int capacity = maxSize / numSegments + (i < maxSize % numSegments ? 1 : 0);
+			segments[i] = new Segment<>(capacity, policy == EvictionPolicy.LRU, evictions);
+		}
+	}
+
+	/**
+	 * Returns segment responsible for the given key.
+	 *
+	 * @param key key to return segment of
+	 * @return segment responsible for {@code key}
+	 */
+	private Segment<K, V> segmentFor(Object key)
+	{
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		hash *= 0x9E3779B9;
+		return segments[(hash >>> 16) & (segments.length - 1)];
+	}
+
+	/**
+	 * Returns value cached for the given key.
+	 *
+	 * @param key key to look up
+	 * @return cached value, or {@code null} if not in cache
+	 */
+	V get(K key)
+	{
+		Segment<K, V> segment = segmentFor(key);
+		V value;
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+		if (value != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Stores a value for the given key, possibly evicting another entry.
+	 *
+	 * @param key key to store value for
+	 * @param value value to store
+	 */
+	void put(K key, V value)
+	{
+		Segment<K, V> segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+	}
+
+	/**
+	 * Returns the number of entries currently in the cache.
+	 *
+	 * @return number of entries in cache
+	 */
+	int size()
+	{
+		int size = 0;
+		for (Segment<K, V> segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the maximal number of entries of the cache.
+	 *
+	 * @return maximal number of entries
+	 */
+	int getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * Returns the eviction policy used.
+	 *
+	 * @return eviction policy used
+	 */
+	EvictionPolicy getPolicy()
+	{
+		return policy;
+	}
+
+	/**
+	 * Returns the number of successful lookups so far.
+	 *
+	 * @return number of cache hits
+	 */
+	long getHits()
+	{
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the number of unsuccessful lookups so far.
+	 *
+	 * @return number of cache misses
+	 */
+	long getMisses()
+	{
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the number of entries removed so far because the cache was full.
+	 *
+	 * @return number of evictions
+	 */
+	long getEvictions()
+	{
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString()
+	{
+		return size() + "/" + maxSize + " entries, " + getHits() + " hits, " + getMisses() + " misses, " + getEvictions() + " evictions";
+	}
+}
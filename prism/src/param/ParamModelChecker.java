@@ -140,6 +140,7 @@ final public class ParamModelChecker extends PrismComponent
 	private int numRandomPoints;
 	private Lumper.BisimType bisimType;
 	private boolean simplifyRegions;
+	private int numThreads = 1;
 
 	private ModelBuilder modelBuilder;
 	
@@ -191,6 +192,7 @@ final public class ParamModelChecker extends PrismComponent
 			throw new PrismException("unknown bisimulation type " + bisimTypeString);							
 		}
 		simplifyRegions = settings.getBoolean(PrismSettings.PRISM_PARAM_SUBSUME_REGIONS);
+		numThreads = settings.getInteger(PrismSettings.PRISM_PARAM_THREADS);
 		}
 	}
 	
@@ -231,7 +233,7 @@ final public class ParamModelChecker extends PrismComponent
 		functionFactory = paramModel.getFunctionFactory();
 		constraintChecker = new ConstraintChecker(numRandomPoints);
 		regionFactory = new BoxRegionFactory(functionFactory, constraintChecker, precision,
-				model.getNumStates(), model.getFirstInitialState(), simplifyRegions, splitMethod);
+				model.getNumStates(), model.getFirstInitialState(), simplifyRegions, splitMethod, numThreads);
 		valueComputer = new ValueComputer(this, mode, paramModel, regionFactory, precision, eliminationOrder, bisimType);
 		
 		long timer = 0;
@@ -255,6 +257,9 @@ final public class ParamModelChecker extends PrismComponent
 		RegionValues vals = checkExpression(paramModel, expr, needStates);
 		timer = System.currentTimeMillis() - timer;
 		mainLog.println("\nTime for model checking: " + timer / 1000.0 + " seconds.");
+		if (verbosity > 5 && functionFactory instanceof CachedFunctionFactory) {
+			((CachedFunctionFactory) functionFactory).printOpCacheStats(mainLog);
+		}
 
 		if (constraintChecker.unsoundCheckWasUsed()) {
 			mainLog.printWarning("Computation of Boolean values / parameter regions used heuristic sampling, results are potentially inaccurate.");
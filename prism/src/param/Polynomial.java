@@ -50,7 +50,9 @@ final class Polynomial {
 	 * entries in exponents in this array, followed by the entries for
 	 * the next term (if any). */
 	private int[] exponents;
-	private HashMap<Point,BigRational> pointsSeen;
+	/** values at points at which the polynomial has been evaluated, separately
+	 * for each thread, so that polynomials can be evaluated concurrently */
+	private ThreadLocal<HashMap<Point,BigRational>> pointsSeen;
 	/** current size of the polynomial. used during its construction. */
 	private int size;
 	
@@ -65,7 +67,7 @@ final class Polynomial {
 		coefficients = new BigInteger[numTerms];
 		exponents = new int[numTerms * numVariables];
 		this.numVariables = numVariables;
-		this.pointsSeen = new HashMap<Point,BigRational>();
+		this.pointsSeen = ThreadLocal.withInitial(HashMap::new);
 		this.size = 0;
 	}
 	
@@ -193,6 +195,7 @@ final class Polynomial {
 	BigRational evaluate(Point point, boolean cancel)
 	{
 		long time = System.currentTimeMillis();
+		HashMap<Point,BigRational> pointsSeen = this.pointsSeen.get();
 		BigRational result = pointsSeen.get(point);
 		if (result != null) {
 			if (!cancel) {
@@ -26,6 +26,15 @@
 
 package param;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import explicit.ParallelIteration;
+
 /**
  * Class to produce new regions of a given subclass of {@code Region}.
  * 
@@ -47,6 +56,8 @@ abstract class RegionFactory {
 	 * that is if they can be represented by a single larger region
 	 * and are assigned the same values */
 	protected boolean subsumeRegions;
+	/** number of threads to use for checking regions */
+	protected int numThreads = 1;
 
 	/**
 	 * Covers the whole parameter space with the values specified.
@@ -181,4 +192,59 @@ abstract class RegionFactory {
 	{
 		return subsumeRegions;
 	}
+
+	/**
+	 * Returns number of threads to use for checking regions.
+	 * 
+	 * @return number of threads to use for checking regions
+	 */
+	int getNumThreads()
+	{
+		return numThreads;
+	}
+
+	/**
+	 * Applies {@code check} to each of the given regions (or other objects)
+	 * and returns the results, in the same order. If more than one thread
+	 * is to be used, this is done concurrently, so {@code check} may only
+	 * use operations that are safe to use concurrently, such as evaluating
+	 * functions or checking prepared constraints (see {@code ConstraintChecker}),
+	 * but not creating new functions.
+	 * 
+	 * @param regions regions to check
+	 * @param check check to apply to each region
+	 * @return results of the checks, in the order of {@code regions}
+	 */
+	<R, T> List<T> checkAll(List<R> regions, java.util.function.Function<R, T> check)
+	{
+		List<T> results = new ArrayList<T>(regions.size());
+		if (numThreads == 1 || regions.size() == 1) {
+			for (R region : regions) {
+				results.add(check.apply(region));
+			}
+			return results;
+		}
+		ForkJoinPool pool = new ParallelIteration(numThreads).getPool();
+		List<Callable<T>> tasks = new ArrayList<Callable<T>>(regions.size());
+		for (R region : regions) {
+			tasks.add(() -> check.apply(region));
+		}
+		try {
+			for (Future<T> future : pool.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Checking of parameter regions was interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		return results;
+	}
 }
@@ -26,6 +26,7 @@
 
 package param;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
@@ -38,7 +39,13 @@ final class RegionsTODO {
 
 		@Override
 		public int compare(Region reg1, Region reg2) {
-			return reg1.volume().compareTo(reg2.volume()) * -1;
+			int result = reg1.volume().compareTo(reg2.volume()) * -1;
+			// order regions of the same volume by position, so that the order
+			// in which they are polled does not depend on the order of insertion
+			if (result == 0 && reg1 instanceof BoxRegion && reg2 instanceof BoxRegion) {
+				result = ((BoxRegion) reg1).compareLowerBounds((BoxRegion) reg2);
+			}
+			return result;
 		}
 	}
 
@@ -72,4 +79,25 @@ final class RegionsTODO {
 		Region result = regions.poll();
 		return result;
 	}
+
+	/**
+	 * Removes and returns up to {@code max} regions with the largest volume
+	 * (all of the same volume), in the order in which {@code poll()} would return them.
+	 * As splitting a region only produces smaller ones, these are the regions
+	 * that would be polled next if they were checked one at a time.
+	 * 
+	 * @param max maximal number of regions to return
+	 * @return list of regions of the largest volume
+	 */
+	List<Region> pollLargest(int max)
+	{
+		List<Region> result = new ArrayList<Region>();
+		Region first = regions.poll();
+		result.add(first);
+		BigRational volume = first.volume();
+		while (result.size() < max && !regions.isEmpty() && regions.peek().volume().equals(volume)) {
+			result.add(regions.poll());
+		}
+		return result;
+	}
 }
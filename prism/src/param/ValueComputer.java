@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map.Entry;
 
 import common.IterableBitSet;
@@ -350,14 +351,14 @@ final class ValueComputer extends PrismComponent
 				values = resultCacheEntry.getValues();
 				compare = resultCacheEntry.getCompare();
 			}
-			boolean ok = true;
-			Function choiceValue = null;
+			// check optimality of the scheduler in the region (possibly concurrently for different constraints)
+			List<Function> prepared = new ArrayList<Function>(compare.length);
 			for (Function entry : compare) {
-				choiceValue = entry;
-				if (!constraintChecker.check(currentRegion, entry, false)) {
-					ok = false;
-				}
+				prepared.add(constraintChecker.prepare(entry));
 			}
+			List<Boolean> checks = regionFactory.checkAll(prepared, entry -> constraintChecker.checkPrepared(currentRegion, entry, false));
+			boolean ok = !checks.contains(false);
+			Function choiceValue = compare.length == 0 ? null : compare[compare.length - 1];
 			if (ok) {
 				volume = volume.add(currentRegion.volume());
 				result.add(currentRegion, values);
@@ -29,6 +29,7 @@ package parser.ast;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 
 import param.BigRational;
@@ -1348,7 +1349,60 @@ public class ModulesFile extends ASTElement implements ModelInfo, RewardGenerato
 	{
 		return constantList.isDefinedConstant(name);
 	}
-	
+
+	/**
+	 * Get the names of all constants that (may) affect the structure of the model,
+	 * i.e., its reachable states and the targets of its transitions, rather than
+	 * just the values of transition probabilities/rates (or rewards).
+	 * These are the constants used in variable declarations, the initial states,
+	 * guards, update assignments, labels, observables and invariants,
+	 * plus any constants used to define them.
+	 * Assumes that tidyUp() has been called (so formulas have been expanded).
+	 * Note that changing the other constants can still remove transitions
+	 * (if a probability becomes 0), which needs to be checked separately.
+	 */
+	public Set<String> getStructuralConstants()
+	{
+		Set<String> structural = new HashSet<>();
+		for (int i = 0; i < getNumVars(); i++) {
+			structural.addAll(getVarDeclaration(i).getAllConstants());
+		}
+		if (initStates != null) {
+			structural.addAll(initStates.getAllConstants());
+		}
+		for (int m = 0; m < getNumModules(); m++) {
+			Module module = getModule(m);
+			if (module.getInvariant() != null) {
+				structural.addAll(module.getInvariant().getAllConstants());
+			}
+			for (Command command : module.getCommands()) {
+				structural.addAll(command.getGuard().getAllConstants());
+				for (Update update : command.getUpdates().getUpdates()) {
+					structural.addAll(update.getAllConstants());
+				}
+			}
+		}
+		structural.addAll(labelList.getAllConstants());
+		for (int i = 0; i < getNumObservableVarLists(); i++) {
+			structural.addAll(getObservableVarList(i).getAllConstants());
+		}
+		for (int i = 0; i < getNumObservableDefinitions(); i++) {
+			structural.addAll(getObservableDefinition(i).getAllConstants());
+		}
+		// Constants used to define structural constants are also structural
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < constantList.size(); i++) {
+				Expression defn = constantList.getConstant(i);
+				if (defn != null && structural.contains(constantList.getConstantName(i))) {
+					changed |= structural.addAll(defn.getAllConstants());
+				}
+			}
+		}
+		return structural;
+	}
+
 	/**
 	 * Get access to the values that have been provided for undefined constants in the model 
 	 * (e.g. via the method {@link #setUndefinedConstants(Values)}).
@@ -396,4 +396,16 @@ public interface ModelGenerator extends ModelInfo
 		// Undefined by default
 		throw new PrismException("Observation not defined");
 	}
+
+	/**
+	 * Create an independent copy of this model generator, which can be used
+	 * concurrently with this one (e.g., from a separate thread during model construction).
+	 * The copy uses the same constant values, but does not share any exploration state.
+	 * Returns null if this is not supported (which is the default).
+	 */
+	public default ModelGenerator createCopy() throws PrismException
+	{
+		// Not supported by default
+		return null;
+	}
 }
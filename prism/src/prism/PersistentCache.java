@@ -0,0 +1,400 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package prism;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import explicit.BinaryModelFile;
+import param.BigRational;
+
+/**
+ * Persistent (on-disk) cache of built explicit-state models and of model checking results,
+ * which can be shared between PRISM runs, including concurrent ones.
+ * <br><br>
+ * The cache is content-addressed: each entry is a file in a single directory, named by a hash
+ * (see {@link #hash(String...)}) of a key describing everything that the entry depends on
+ * (e.g. the model, property, constant values and settings). Models are stored as binary model
+ * files (see {@link BinaryModelFile}) and results in a small binary format, optionally
+ * including the vector of results for all states.
+ * <br><br>
+ * The total size of the cache is bounded: when it is exceeded after adding an entry,
+ * the least recently used entries are deleted (the modification time of an entry's
+ * file is updated each time it is used). Entries are written to a temporary file and then
+ * moved into place atomically, so that other processes only ever see complete entries.
+ */
+public class PersistentCache extends PrismComponent
+{
+	/** File name extension for cached models */
+	public static final String MODEL_EXTENSION = "." + BinaryModelFile.EXTENSION;
+	/** File name extension for cached results */
+	public static final String RESULT_EXTENSION = ".res";
+
+	/** Version number of the format for cached results */
+	private static final int RESULT_FORMAT_VERSION = 1;
+
+	// Codes for the types of result values
+	private static final byte TYPE_BOOLEAN = 0;
+	private static final byte TYPE_INTEGER = 1;
+	private static final byte TYPE_DOUBLE = 2;
+	private static final byte TYPE_BIG_RATIONAL = 3;
+
+	/** Directory where cache entries are stored */
+	private final File dir;
+	/** Maximum total size of cache entries (bytes) */
+	private final long maxSize;
+
+	/**
+	 * A cached model checking result,
+	 * optionally with the vector of results for all states.
+	 */
+	public static class CachedResult
+	{
+		/** The result */
+		public final Result result;
+		/** The vector of results for all states (null if not stored) */
+		public final double vector[];
+
+		public CachedResult(Result result, double vector[])
+		{
+			this.result = result;
+			this.vector = vector;
+		}
+	}
+
+	/**
+	 * Create a cache, stored in directory {@code dir} (created if needed),
+	 * whose total size is bounded by {@code maxSize} bytes.
+	 */
+	public PersistentCache(PrismComponent parent, File dir, long maxSize) throws PrismException
+	{
+		super(parent);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new PrismException("Could not create cache directory \"" + dir + "\"");
+		}
+		this.dir = dir;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the directory where cache entries are stored.
+	 */
+	public File getDirectory()
+	{
+		return dir;
+	}
+
+	/**
+	 * Get the maximum total size of cache entries (bytes).
+	 */
+	public long getMaxSize()
+	{
+		return maxSize;
+	}
+
+	/**
+	 * Compute a key for a cache entry, i.e., a (SHA-256) hash, as a hex string, of some strings
+	 * describing everything that the entry depends on. Null strings are allowed.
+	 */
+	public static String hash(String... parts)
+	{
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String part : parts) {
+				// Prefix each part with its length, so that the concatenation is unambiguous
+				byte bytes[] = part == null ? new byte[0] : part.getBytes(StandardCharsets.UTF_8);
+				digest.update((byte) (part == null ? 0 : 1));
+				digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) ':');
+				digest.update(bytes);
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest()) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is always available
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Get the cached model for key {@code key}, or null if there is none.
+	 */
+	public BinaryModelFile getModel(String key)
+	{
+		File file = getFile(key, MODEL_EXTENSION);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			BinaryModelFile binaryModelFile = BinaryModelFile.open(file);
+			touch(file);
+			return binaryModelFile;
+		} catch (PrismException e) {
+			// Discard unreadable (e.g. out-of-date) entries
+			mainLog.printWarning("Discarding invalid model cache entry \"" + file + "\": " + e.getMessage());
+			file.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Store a model, with key {@code key}, in the cache.
+	 * Returns false if this is not possible for this model (e.g. its type is not supported).
+	 * @param model The model
+	 * @param modelInfo Info about the variables and labels of the model
+	 */
+	public boolean putModel(String key, explicit.Model model, ModelInfo modelInfo) throws PrismException
+	{
+		File tmpFile = createTempFile(key);
+		try {
+			BinaryModelFile.write(this, model, modelInfo, null, tmpFile);
+		} catch (PrismNotSupportedException e) {
+			tmpFile.delete();
+			return false;
+		}
+		commit(tmpFile, getFile(key, MODEL_EXTENSION));
+		return true;
+	}
+
+	/**
+	 * Get the cached result for key {@code key}, or null if there is none.
+	 */
+	public CachedResult getResult(String key)
+	{
+		File file = getFile(key, RESULT_EXTENSION);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != RESULT_FORMAT_VERSION) {
+				throw new IOException("unsupported format version");
+			}
+			Result result = new Result(readValue(in));
+			if (in.readBoolean()) {
+				Accuracy.AccuracyLevel level = Accuracy.AccuracyLevel.valueOf(in.readUTF());
+				double errorBound = in.readDouble();
+				Accuracy.AccuracyType type = Accuracy.AccuracyType.valueOf(in.readUTF());
+				result.setAccuracy(new Accuracy(level, errorBound, type));
+			}
+			if (in.readBoolean()) {
+				result.setExplanation(in.readUTF());
+			}
+			double vector[] = null;
+			int n = in.readInt();
+			if (n >= 0) {
+				vector = new double[n];
+				for (int i = 0; i < n; i++) {
+					vector[i] = in.readDouble();
+				}
+			}
+			touch(file);
+			return new CachedResult(result, vector);
+		} catch (IOException | IllegalArgumentException e) {
+			// Discard unreadable (e.g. out-of-date) entries
+			mainLog.printWarning("Discarding invalid result cache entry \"" + file + "\": " + e.getMessage());
+			file.delete();
+			return null;
+		}
+	}
+
+	/**
+	 * Store a result, with key {@code key}, in the cache.
+	 * Returns false if this is not possible for this result (e.g. its type is not supported).
+	 * @param result The result
+	 * @param vector Optionally, the vector of results for all states (null if not needed)
+	 */
+	public boolean putResult(String key, Result result, double vector[]) throws PrismException
+	{
+		if (!isSupportedValue(result.getResult())) {
+			return false;
+		}
+		File tmpFile = createTempFile(key);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+			out.writeInt(RESULT_FORMAT_VERSION);
+			writeValue(out, result.getResult());
+			Accuracy accuracy = result.getAccuracy();
+			out.writeBoolean(accuracy != null);
+			if (accuracy != null) {
+				out.writeUTF(accuracy.getLevel().name());
+				out.writeDouble(accuracy.getErrorBound());
+				out.writeUTF(accuracy.getType().name());
+			}
+			out.writeBoolean(result.getExplanation() != null);
+			if (result.getExplanation() != null) {
+				out.writeUTF(result.getExplanation());
+			}
+			out.writeInt(vector == null ? -1 : vector.length);
+			if (vector != null) {
+				for (double d : vector) {
+					out.writeDouble(d);
+				}
+			}
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new PrismException("Could not write to cache directory \"" + dir + "\": " + e.getMessage());
+		}
+		commit(tmpFile, getFile(key, RESULT_EXTENSION));
+		return true;
+	}
+
+	/**
+	 * Can a result value of this kind be stored in the cache?
+	 */
+	private static boolean isSupportedValue(Object value)
+	{
+		return value instanceof Boolean || value instanceof Integer || value instanceof Double || value instanceof BigRational;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException
+	{
+		if (value instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(TYPE_INTEGER);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Double) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble((Double) value);
+		} else {
+			out.writeByte(TYPE_BIG_RATIONAL);
+			out.writeUTF(value.toString());
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException
+	{
+		byte type = in.readByte();
+		switch (type) {
+		case TYPE_BOOLEAN:
+			return in.readBoolean();
+		case TYPE_INTEGER:
+			return in.readInt();
+		case TYPE_DOUBLE:
+			return in.readDouble();
+		case TYPE_BIG_RATIONAL:
+			return new BigRational(in.readUTF());
+		default:
+			throw new IOException("unknown result type " + type);
+		}
+	}
+
+	/**
+	 * Get the file for the cache entry with key {@code key} and file name extension {@code extension}.
+	 */
+	private File getFile(String key, String extension)
+	{
+		return new File(dir, key + extension);
+	}
+
+	/**
+	 * Create a temporary file (in the cache directory) to write a new entry to.
+	 */
+	private File createTempFile(String key) throws PrismException
+	{
+		try {
+			return Files.createTempFile(dir.toPath(), key, ".tmp").toFile();
+		} catch (IOException e) {
+			throw new PrismException("Could not write to cache directory \"" + dir + "\": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Move a completely written entry into place (atomically, if possible) and then, if needed, evict old entries.
+	 */
+	private void commit(File tmpFile, File file) throws PrismException
+	{
+		Path tmpPath = tmpFile.toPath();
+		try {
+			try {
+				Files.move(tmpPath, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				Files.move(tmpPath, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new PrismException("Could not write to cache directory \"" + dir + "\": " + e.getMessage());
+		}
+		evict();
+	}
+
+	/**
+	 * Mark a cache entry as (most recently) used.
+	 */
+	private static void touch(File file)
+	{
+		file.setLastModified(System.currentTimeMillis());
+	}
+
+	/**
+	 * Delete the least recently used entries, until the total size of the cache is within bounds.
+	 */
+	public synchronized void evict()
+	{
+		File files[] = dir.listFiles((d, name) -> name.endsWith(MODEL_EXTENSION) || name.endsWith(RESULT_EXTENSION));
+		if (files == null) {
+			return;
+		}
+		// (take a snapshot of sizes/times, since other processes may be using the cache)
+		long sizes[] = new long[files.length];
+		long times[] = new long[files.length];
+		Integer order[] = new Integer[files.length];
+		long totalSize = 0;
+		for (int i = 0; i < files.length; i++) {
+			sizes[i] = files[i].length();
+			times[i] = files[i].lastModified();
+			order[i] = i;
+			totalSize += sizes[i];
+		}
+		if (totalSize <= maxSize) {
+			return;
+		}
+		Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+		for (int j = 0; j < order.length && totalSize > maxSize; j++) {
+			if (files[order[j]].delete()) {
+				totalSize -= sizes[order[j]];
+			}
+		}
+	}
+}
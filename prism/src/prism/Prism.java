@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import common.iterable.Range;
 import dv.DoubleVector;
@@ -61,11 +62,14 @@ import parser.PrismParser;
 import parser.State;
 import parser.Values;
 import parser.ast.Expression;
+import parser.ast.ExpressionFilter;
+import parser.ast.ExpressionTemporal;
 import parser.ast.ForLoop;
 import parser.ast.LabelList;
 import parser.ast.ModulesFile;
 import parser.ast.PropertiesFile;
 import parser.ast.Property;
+import parser.visitor.ASTTraverse;
 import prism.Accuracy.AccuracyLevel;
 import pta.DigitalClocks;
 import pta.PTAModelChecker;
@@ -254,7 +258,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	//------------------------------------------------------------------------------
 
 	private enum ModelSource {
-		PRISM_MODEL, MODEL_GENERATOR, EXPLICIT_FILES, BUILT_MODEL
+		PRISM_MODEL, MODEL_GENERATOR, EXPLICIT_FILES, BINARY_FILE, BUILT_MODEL
 	}
 
 	// Info about currently loaded model, if any
@@ -277,6 +281,17 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	// Built model storage - symbolic or explicit - at most one is non-null
 	private Model currentModel = null;
 	private explicit.Model currentModelExpl = null;
+	// Explicit model whose structure can be re-used by the next build, since only
+	// constants affecting probabilities/rates have changed (null if none),
+	// and a template for doing so, once created (null if none)
+	private explicit.Model reusableModelExpl = null;
+	private explicit.ModelTemplate currentModelTemplate = null;
+	// Solution vectors of previous computations on models with the same structure (for warm starts)
+	private explicit.WarmStartVectors warmStartVectors = new explicit.WarmStartVectors();
+	// SCC decompositions of explicit models that are analysed repeatedly (null if not stored)
+	private explicit.SCCCache sccCache = null;
+	// Time bounds of the current experiment sweep over CTMC time-bounded properties (null if none)
+	private explicit.TimeBoundSweep timeBoundSweep = null;
 	// Are we doing digital clocks translation for PTAs?
 	boolean digital = false;
 
@@ -290,6 +305,15 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	private List<File> explicitFilesStateRewardsFiles = new ArrayList<>();
 	private int explicitFilesNumStates = -1;
 
+	// Info for binary file load
+	private explicit.BinaryModelFile binaryModelFile = null;
+
+	// Persistent (on-disk) cache of built models and results (null if not yet created)
+	private PersistentCache persistentCache = null;
+	// Settings that do not affect results, so are not part of keys for the persistent cache
+	private static final Set<String> SETTINGS_NOT_IN_CACHE_KEYS = Set.of(PrismSettings.PRISM_CACHE_DIR, PrismSettings.PRISM_CACHE_SIZE,
+			PrismSettings.PRISM_VERBOSE, PrismSettings.PRISM_CONSTRUCT_THREADS, PrismSettings.PRISM_EXPERIMENT_THREADS, PrismSettings.PRISM_REUSE_MODEL_STRUCTURE);
+
 	// Has the CUDD library been initialised yet?
 	private boolean cuddStarted = false;
 
@@ -327,6 +351,31 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		this(mainLog);
 	}
 
+	/**
+	 * Construct a new Prism object, sending output to {@code mainLog}, with a copy of the settings
+	 * and (non-export) options of this one, e.g. for use in a separate thread.
+	 * The new object does not initialise any libraries (in particular, not CUDD),
+	 * so it should only be used with the explicit engine or the simulator,
+	 * and not be closed down (this object remains responsible for that).
+	 * @param mainLog PrismLog where all output will be sent.
+	 */
+	public Prism copyForConcurrentUse(PrismLog mainLog)
+	{
+		Prism prism = new Prism(mainLog);
+		prism.settings.copyFrom(settings);
+		prism.doReach = doReach;
+		prism.bsccComp = bsccComp;
+		prism.checkZeroLoops = checkZeroLoops;
+		prism.construction = construction;
+		prism.ordering = ordering;
+		prism.reachMethod = reachMethod;
+		prism.doBisim = doBisim;
+		prism.genStrat = genStrat;
+		prism.restrictStratToReach = restrictStratToReach;
+		prism.storeVector = storeVector;
+		return prism;
+	}
+
 	/**
 	 * Read in PRISM settings from the default file (see PrismSettings.getLocationForSettingsFile()).
 	 * If no file exists, attempt to create a new one with default settings.
@@ -644,6 +693,15 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		this.doBisim = doBisim;
 	}
 
+	/**
+	 * Specify whether or not to store (and re-use) SCC decompositions of explicit models,
+	 * e.g., when they are kept in memory and analysed repeatedly.
+	 */
+	public void setCacheSCCs(boolean cacheSCCs)
+	{
+		sccCache = cacheSCCs ? new explicit.SCCCache() : null;
+	}
+
 	public void setDoReach(boolean b) throws PrismException
 	{
 		doReach = b;
@@ -1733,8 +1791,17 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 			return;
 		}
 
-		// Clear any existing built model(s)
+		// Clear any existing built model(s), but, if possible, keep the
+		// (explicit) model structure for re-use when the model is next built
+		explicit.Model reusable = null;
+		explicit.ModelTemplate template = null;
+		if (canReuseModelStructure(definedMFConstants, exact)) {
+			reusable = currentModelExpl != null ? currentModelExpl : reusableModelExpl;
+			template = currentModelTemplate;
+		}
 		clearBuiltModel();
+		reusableModelExpl = reusable;
+		currentModelTemplate = template;
 		// Store constants here and in ModulesFile
 		currentDefinedMFConstants = definedMFConstants;
 		currentDefinedMFConstantsAreExact = exact;
@@ -1759,6 +1826,42 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		}
 	}
 
+	/**
+	 * Check whether the structure of the current explicit model (if any) can be re-used
+	 * after changing the values of the currently loaded PRISM model's undefined constants
+	 * to {@code definedMFConstants}, i.e., only constants not affecting the structure change.
+	 */
+	private boolean canReuseModelStructure(Values definedMFConstants, boolean exact)
+	{
+		if (!settings.getBoolean(PrismSettings.PRISM_REUSE_MODEL_STRUCTURE) || !getExplicit()) {
+			return false;
+		}
+		if (currentModelSource != ModelSource.PRISM_MODEL || currentModulesFile == null || digital) {
+			return false;
+		}
+		if (currentModelExpl == null && reusableModelExpl == null) {
+			return false;
+		}
+		if (currentDefinedMFConstants == null || definedMFConstants == null || currentDefinedMFConstantsAreExact != exact) {
+			return false;
+		}
+		if (currentDefinedMFConstants.getNumValues() != definedMFConstants.getNumValues()) {
+			return false;
+		}
+		Set<String> structuralConstants = currentModulesFile.getStructuralConstants();
+		for (int i = 0; i < definedMFConstants.getNumValues(); i++) {
+			String name = definedMFConstants.getName(i);
+			int j = currentDefinedMFConstants.getIndexOf(name);
+			if (j == -1) {
+				return false;
+			}
+			if (structuralConstants.contains(name) && !definedMFConstants.getValue(i).equals(currentDefinedMFConstants.getValue(j))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Load a (built) model, with an accompanying (parsed) PRISM model.
 	 * These will be stored and used for subsequent model checking etc.
@@ -1841,6 +1944,41 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		currentDefinedMFConstants = null;
 	}
 
+	/**
+	 * Load a binary model file (see {@link explicit.BinaryModelFile}) for subsequent model checking.
+	 * The file is memory-mapped, rather than read, when the model is "built".
+	 * Binary model files are only supported by the explicit engine,
+	 * so this switches to that engine if needed.
+	 * @param file The binary model file
+	 */
+	public void loadModelFromBinaryFile(File file) throws PrismException
+	{
+		currentModelSource = ModelSource.BINARY_FILE;
+		// Clear any existing built model(s)
+		clearBuiltModel();
+		// Open file and construct ModelInfo
+		binaryModelFile = explicit.BinaryModelFile.open(file);
+		currentModelInfo = binaryModelFile.getModelInfo();
+		currentModulesFile = null;
+		currentModelGenerator = null;
+		currentRewardGenerator = binaryModelFile.getRewardGenerator();
+		// Reset dependent info
+		currentModelType = currentModelInfo.getModelType();
+		currentDefinedMFConstants = null;
+
+		// Switch to the explicit engine, if needed
+		if (!getExplicit()) {
+			mainLog.println("\nSwitching to explicit engine, which supports binary model files...");
+			engineOld = getEngine();
+			engineSwitched = true;
+			try {
+				setEngine(Prism.EXPLICIT);
+			} catch (PrismException e) {
+				// Won't happen
+			}
+		}
+	}
+
 	/**
 	 * Get the type of the currently stored model.
 	 * @return
@@ -1883,6 +2021,7 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 				throw new PrismException("There is no currently loaded model generator");
 			case BUILT_MODEL:
 			case EXPLICIT_FILES:
+			case BINARY_FILE:
 				buildModelIfRequired();
 				if (currentModelGenerator != null) {
 					return currentModelGenerator;
@@ -1980,6 +2119,9 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		long l; // timer
 
 		// Clear any existing built model(s)
+		// (but keep hold of any model structure that can be re-used)
+		explicit.Model reusable = reusableModelExpl;
+		explicit.ModelTemplate template = currentModelTemplate;
 		clearBuiltModel();
 
 		try {
@@ -2005,9 +2147,39 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 					if (currentModulesFile.getSystemDefn() != null) {
 						throw new PrismNotSupportedException("Explicit engine does not currently support the system...endsystem construct");
 					}
-					ConstructModel constructModel = new ConstructModel(this);
-					constructModel.setFixDeadlocks(getFixDeadlocks());
-					currentModelExpl = constructModel.constructModel(currentModelGenerator);
+					// If only constants affecting probabilities/rates have changed, re-use the model structure
+					if (reusable != null || template != null) {
+						mainLog.println("Re-using model structure (only constants affecting probabilities/rates have changed)...");
+						if (template == null) {
+							template = explicit.ModelTemplate.create(reusable, currentModelGenerator);
+						}
+						currentModelExpl = template == null ? null : template.instantiate(currentModelGenerator);
+						if (currentModelExpl == null) {
+							mainLog.println("Model structure could not be re-used: building model from scratch");
+							template = null;
+						}
+					}
+					// Otherwise, if possible, load the model from the persistent cache
+					PersistentCache cache = currentModelExpl == null ? getPersistentCache() : null;
+					String cacheKey = cache == null ? null : getModelCacheKey();
+					if (cache != null) {
+						explicit.BinaryModelFile cached = cache.getModel(cacheKey);
+						if (cached != null) {
+							mainLog.println("Loading model from cache (" + cache.getDirectory() + ")...");
+							explicit.ModelExplicit cachedModel = cached.getModel();
+							cachedModel.setConstantValues(new Values(currentModelGenerator.getConstantValues()));
+							currentModelExpl = cachedModel;
+						}
+					}
+					if (currentModelExpl == null) {
+						ConstructModel constructModel = new ConstructModel(this);
+						constructModel.setFixDeadlocks(getFixDeadlocks());
+						currentModelExpl = constructModel.constructModel(currentModelGenerator);
+						if (cache != null) {
+							storeModelInCache(cache, cacheKey);
+						}
+					}
+					currentModelTemplate = template;
 					currentModel = null;
 				}
 				// if (...) ... currentModel = buildModelExplicit(currentModulesFile);
@@ -2040,11 +2212,22 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 					currentRewardGenerator = efrg4e;
 				}
 				break;
+			case BINARY_FILE:
+				if (!getExplicit()) {
+					throw new PrismNotSupportedException("Binary model files are only supported by the explicit engine");
+				}
+				currentModelExpl = binaryModelFile.getModel();
+				currentModelGenerator = new ModelModelGenerator(currentModelExpl, currentModelInfo);
+				break;
 			default:
 				throw new PrismException("Don't know how to build model from source " + currentModelSource);
 			}
 			l = System.currentTimeMillis() - l;
 			mainLog.println("\nTime for model construction: " + l / 1000.0 + " seconds.");
+			// Solution vectors from previous models are only kept if the structure was re-used
+			if (currentModelTemplate == null) {
+				warmStartVectors.clear();
+			}
 
 			// For digital clocks, do some extra checks on the built model
 			if (digital) {
@@ -2857,6 +3040,26 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		}
 	}
 
+	/**
+	 * Export the currently loaded model, including its states, labels and rewards,
+	 * to a binary model file (see {@link explicit.BinaryModelFile}),
+	 * which can be loaded again later using {@link #loadModelFromBinaryFile(File)}.
+	 * This is only supported by the explicit engine.
+	 * @param file File to export to
+	 */
+	public void exportToBinaryFile(File file) throws PrismException
+	{
+		if (!getExplicit()) {
+			throw new PrismNotSupportedException("Binary model export is only supported by the explicit engine");
+		}
+
+		// Build model, if necessary
+		buildModelIfRequired();
+
+		mainLog.println("\nExporting model in binary format to file \"" + file + "\"...");
+		explicit.BinaryModelFile.write(this, currentModelExpl, currentModelInfo, currentRewardGenerator, file);
+	}
+
 	/**
 	 * Export the currently loaded model's states to a file
 	 * @param exportType Type of export; one of: <ul>
@@ -2968,6 +3171,15 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 			fauMC = new FastAdaptiveUniformisationModelChecker(this, currentModulesFile, propertiesFile);
 			return fauMC.check(prop.getExpression());
 		}
+		// If possible, retrieve the result from the persistent cache
+		PersistentCache cache = canCacheResult(prop) ? getPersistentCache() : null;
+		String resultCacheKey = cache == null ? null : getResultCacheKey(propertiesFile, prop);
+		if (cache != null) {
+			res = getCachedResult(cache, resultCacheKey, prop.getExpression());
+			if (res != null) {
+				return res;
+			}
+		}
 		// Heuristic choices of engine/method
 		if (settings.getString(PrismSettings.PRISM_HEURISTIC).equals("Speed")) {
 			mainLog.printWarning("Switching to sparse engine and (backwards) Gauss Seidel (default for heuristic=speed).");
@@ -3055,10 +3267,162 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 			}
 		}
 
+		// Store the result in the persistent cache (unless it comes with a strategy/counterexample)
+		if (cache != null && res.getStrategy() == null && res.getCounterexample() == null) {
+			storeResultInCache(cache, resultCacheKey, res);
+		}
+
 		// Return result
 		return res;
 	}
 
+	/**
+	 * Get the persistent (on-disk) cache of built models and results,
+	 * as specified by the current settings, or null if caching is disabled.
+	 */
+	public PersistentCache getPersistentCache() throws PrismException
+	{
+		String dir = settings.getString(PrismSettings.PRISM_CACHE_DIR);
+		if ("".equals(dir)) {
+			return null;
+		}
+		long maxSize = settings.getInteger(PrismSettings.PRISM_CACHE_SIZE) * (1L << 20);
+		if (persistentCache == null || !persistentCache.getDirectory().equals(new File(dir)) || persistentCache.getMaxSize() != maxSize) {
+			persistentCache = new PersistentCache(this, new File(dir), maxSize);
+		}
+		return persistentCache;
+	}
+
+	/**
+	 * Get the key identifying the currently loaded PRISM model (for its current
+	 * constant values and any settings affecting its construction) in the persistent cache.
+	 */
+	private String getModelCacheKey()
+	{
+		return PersistentCache.hash("model", getVersion(), currentModulesFile.toString(), String.valueOf(currentModulesFile.getConstantValues()),
+				String.valueOf(currentDefinedMFConstantsAreExact), String.valueOf(getFixDeadlocks()), String.valueOf(getDoProbChecks()),
+				String.valueOf(getSumRoundOff()));
+	}
+
+	/**
+	 * Get the key identifying the result of checking a property on the currently loaded
+	 * PRISM model (for the current constant values and settings) in the persistent cache.
+	 */
+	private String getResultCacheKey(PropertiesFile propertiesFile, Property prop)
+	{
+		return PersistentCache.hash("result", getModelCacheKey(), propertiesFile.toString(), String.valueOf(propertiesFile.getConstantValues()),
+				prop.toString(), settings.getValuesString(SETTINGS_NOT_IN_CACHE_KEYS), String.valueOf(doBisim));
+	}
+
+	/**
+	 * Can the result of checking a property on the currently loaded model be
+	 * stored in/retrieved from the persistent cache? This is not the case if
+	 * model checking has side effects other than computing the result, such as
+	 * generating a strategy, exporting to files or printing values.
+	 */
+	private boolean canCacheResult(Property prop)
+	{
+		if (currentModelSource != ModelSource.PRISM_MODEL || digital || genStrat) {
+			return false;
+		}
+		if (exportTarget || exportProductTrans || exportProductStates || exportProductVector) {
+			return false;
+		}
+		// Vectors of results can only be retrieved for the explicit engine
+		if (storeVector && !getExplicit()) {
+			return false;
+		}
+		if (!settings.getString(PrismSettings.PRISM_EXPORT_ADV).equals("None") || settings.getBoolean(PrismSettings.PRISM_EXPORT_ITERATIONS)
+				|| !"".equals(settings.getString(PrismSettings.PRISM_EXPORT_PARETO_FILENAME))) {
+			return false;
+		}
+		return !containsPrintFilter(prop.getExpression());
+	}
+
+	/**
+	 * Test if an expression contains a filter that prints or stores values (e.g. filter(print, ...)).
+	 */
+	private static boolean containsPrintFilter(Expression expr)
+	{
+		try {
+			ASTTraverse astt = new ASTTraverse()
+			{
+				public void visitPost(ExpressionFilter e) throws PrismLangException
+				{
+					switch (e.getOperatorType()) {
+					case PRINT:
+					case PRINTALL:
+					case STORE:
+						throw new PrismLangException("Found one", e);
+					default:
+					}
+				}
+			};
+			expr.accept(astt);
+		} catch (PrismLangException e) {
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Retrieve a result from the persistent cache (or return null if not present).
+	 * If results vectors are being stored, this is also retrieved (building the model if needed).
+	 */
+	private Result getCachedResult(PersistentCache cache, String key, Expression expr) throws PrismException
+	{
+		PersistentCache.CachedResult cached = cache.getResult(key);
+		if (cached == null || (storeVector && cached.vector == null)) {
+			return null;
+		}
+		Result res = cached.result;
+		if (storeVector) {
+			buildModelIfRequired();
+			if (cached.vector.length != currentModelExpl.getNumStates()) {
+				return null;
+			}
+			res.setVector(explicit.StateValues.createFromDoubleArray(cached.vector, currentModelExpl));
+		}
+		mainLog.println("\nRetrieved result from cache (" + cache.getDirectory() + ")");
+		// Print result to log (as done by the model checkers)
+		String resultString = "Result";
+		if (!("Result".equals(expr.getResultName())))
+			resultString += " (" + expr.getResultName().toLowerCase() + ")";
+		resultString += ": " + res.getResultAndAccuracy();
+		mainLog.print("\n" + resultString + "\n");
+		return res;
+	}
+
+	/**
+	 * Store a result (and, if available, its vector of results) in the persistent cache.
+	 * Failures are reported as warnings, since caching is not essential.
+	 */
+	private void storeResultInCache(PersistentCache cache, String key, Result res)
+	{
+		double vector[] = null;
+		if (res.getVector() instanceof explicit.StateValues) {
+			vector = ((explicit.StateValues) res.getVector()).getDoubleArray();
+		}
+		try {
+			cache.putResult(key, res, vector);
+		} catch (PrismException e) {
+			mainLog.printWarning("Could not store result in cache: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Store the current (explicit) model in the persistent cache.
+	 * Failures are reported as warnings, since caching is not essential.
+	 */
+	private void storeModelInCache(PersistentCache cache, String key)
+	{
+		try {
+			cache.putModel(key, currentModelExpl, currentModelInfo);
+		} catch (PrismException e) {
+			mainLog.printWarning("Could not store model in cache: " + e.getMessage());
+		}
+	}
+
 	/**
 	 * Perform model checking of a property on the currently loaded PTA PRISM model and return result.
 	 * @param propertiesFile Parent property file of property (for labels/constants/...)
@@ -3307,6 +3671,70 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		getSimulator().modelCheckExperiment(propertiesFile, undefinedConstants, results, expr, initialState, maxPathLength, simMethod);
 	}
 
+	/**
+	 * Prepare for an experiment that model checks property {@code prop} for each of the
+	 * property constant values given by {@code undefinedConstants} (e.g. P=? [ F<=T "goal" ] for T=1:1000).
+	 * If the model is a CTMC and the property contains time-bounded until operators,
+	 * their time bounds for all iterations are collected so that, with the explicit engine,
+	 * the probabilities for all of them can be computed in a single uniformisation pass,
+	 * rather than separately for each call to {@link #modelCheck(PropertiesFile, Property)}.
+	 * This should be followed by a call to {@link #endTimeBoundSweep()} after the experiment.
+	 * Note: the undefined constants of {@code propertiesFile} are left set to arbitrary values.
+	 * @param propertiesFile Properties file containing property to check
+	 * @param prop The property to check
+	 * @param undefinedConstants Details of constant ranges defining the experiment
+	 * @param exact Should the constant values be treated as exact (see {@link PropertiesFile#setSomeUndefinedConstants(Values, boolean)})
+	 */
+	public void startTimeBoundSweep(PropertiesFile propertiesFile, Property prop, UndefinedConstants undefinedConstants, boolean exact) throws PrismException
+	{
+		timeBoundSweep = null;
+		if (currentModelType != ModelType.CTMC || undefinedConstants.getNumPropertyIterations() < 2) {
+			return;
+		}
+		// Not applicable if the model changes (bisimulation) or is not solved by uniformisation
+		if (doBisim || settings.getBoolean(PrismSettings.PRISM_BISIM_AUTO) || settings.getBoolean(PrismSettings.PRISM_EXACT_ENABLED)
+				|| settings.getString(PrismSettings.PRISM_TRANSIENT_METHOD).equals("Fast adaptive uniformisation")) {
+			return;
+		}
+		// Collect the (upper) time bounds of U<=t operators, for each iteration
+		List<Double> times = new ArrayList<>();
+		for (int i = 0; i < undefinedConstants.getNumPropertyIterations(); i++) {
+			propertiesFile.setSomeUndefinedConstants(undefinedConstants.getPFConstantValues(), exact);
+			Values constantValues = new Values();
+			if (currentModelInfo != null) {
+				constantValues.addValues(currentModelInfo.getConstantValues());
+			}
+			constantValues.addValues(propertiesFile.getConstantValues());
+			prop.getExpression().accept(new ASTTraverse()
+			{
+				public void visitPost(ExpressionTemporal e) throws PrismLangException
+				{
+					if (e.getUpperBound() != null && e.getLowerBound() == null) {
+						try {
+							times.add(e.getUpperBound().evaluateDouble(constantValues));
+						} catch (PrismLangException ex) {
+							// Ignore bounds that cannot be evaluated; they will be reported during model checking
+						}
+					}
+				}
+			});
+			undefinedConstants.iterateProperty();
+		}
+		timeBoundSweep = new explicit.TimeBoundSweep(times.stream().mapToDouble(Double::doubleValue).toArray());
+		if (timeBoundSweep.getNumTimes() < 2) {
+			timeBoundSweep = null;
+		}
+	}
+
+	/**
+	 * Finish an experiment started with {@link #startTimeBoundSweep(PropertiesFile, Property, UndefinedConstants, boolean)},
+	 * discarding any stored results.
+	 */
+	public void endTimeBoundSweep()
+	{
+		timeBoundSweep = null;
+	}
+
 	/**
 	 * Perform model checking on the currently loaded model using exact methods
 	 * (currently, this is done via the parametric model checking functionality)
@@ -3895,14 +4323,17 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 	 * Clear the built model if needed (free/deallocate memory etc).
 	 * This resets {@code currentModel} and {@code currentModelExpl} to {@code null}.
 	 * Also clear objects that connect to a build model, notably strategies.
+	 * The model will be rebuilt if subsequently required.
 	 */
-	private void clearBuiltModel()
+	public void clearBuiltModel()
 	{
 		if (currentModel != null) {
 			currentModel.clear();
 			currentModel = null;
 		}
 		currentModelExpl = null;
+		reusableModelExpl = null;
+		currentModelTemplate = null;
 		clearStrategy();
 	}
 
@@ -3989,6 +4420,15 @@ public class Prism extends PrismComponent implements PrismSettingsListener
 		mc.setGenStrat(genStrat);
 		mc.setRestrictStratToReach(restrictStratToReach);
 		mc.setDoBisim(doBisim);
+		if (timeBoundSweep != null && mc instanceof CTMCModelChecker) {
+			((CTMCModelChecker) mc).setTimeBoundSweep(timeBoundSweep);
+		}
+		if (settings.getBoolean(PrismSettings.PRISM_WARM_START) && mc instanceof explicit.ProbModelChecker) {
+			((explicit.ProbModelChecker) mc).setWarmStartVectors(warmStartVectors);
+		}
+		if (sccCache != null && mc instanceof explicit.ProbModelChecker) {
+			((explicit.ProbModelChecker) mc).setSCCCache(sccCache);
+		}
 
 		return mc;
 	}
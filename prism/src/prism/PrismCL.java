@@ -27,10 +27,12 @@
 package prism;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
@@ -38,6 +40,12 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import common.StackTraceHelper;
 import csv.CsvFormatException;
@@ -74,6 +82,7 @@ public class PrismCL implements PrismModelListener
 	private boolean importstates = false;
 	private boolean importlabels = false;
 	private boolean importstaterewards = false;
+	private boolean importbinary = false;
 	private boolean importinitdist = false;
 	private boolean importresults = false;
 	private boolean steadystate = false;
@@ -83,6 +92,7 @@ public class PrismCL implements PrismModelListener
 	private boolean exporttransrewards = false;
 	private boolean exportstates = false;
 	private boolean exportmodellabels = false;
+	private boolean exportbinary = false;
 	private boolean exportmodelproplabels = false;
 	private boolean exportproplabels = false;
 	private boolean exportspy = false;
@@ -112,6 +122,10 @@ public class PrismCL implements PrismModelListener
 	private boolean test = false;
 	private boolean testExitsOnFail = true;
 
+	// resident server mode (port, memory bound in bytes for resident models)
+	private int serverPort = -1;
+	private long serverMemory = -1;
+
 	// property info
 	private List<Object> propertyIndices = null;
 	private String propertyString = "";
@@ -144,6 +158,7 @@ public class PrismCL implements PrismModelListener
 	private String exportTransRewardsFilename = null;
 	private String exportStatesFilename = null;
 	private String exportModelLabelsFilename = null;
+	private String exportBinaryFilename = null;
 	private String exportPropLabelsFilename = null;
 	private String exportSpyFilename = null;
 	private String exportDotFilename = null;
@@ -264,6 +279,13 @@ public class PrismCL implements PrismModelListener
 		// Initialise
 		initialise(args);
 
+		// Run as a resident model checking server
+		if (serverPort >= 0) {
+			runServer();
+			closeDown();
+			return;
+		}
+
 		// Import (and optionally re-export) results
 		if (importresults) {
 			importResults();
@@ -324,6 +346,21 @@ public class PrismCL implements PrismModelListener
 			results[i] = new ResultsCollection(undefinedConstants[i], propertiesToCheck.get(i).getExpression().getResultName());
 		}
 
+		// if requested (and possible), run the model iterations concurrently
+		int experimentThreads = prism.getSettings().getInteger(PrismSettings.PRISM_EXPERIMENT_THREADS);
+		if (experimentThreads > 1 && undefinedMFConstants.getNumModelIterations() > 1) {
+			String unsupported = getConcurrentExperimentUnsupportedReason();
+			if (unsupported == null) {
+				runModelIterationsConcurrently(Math.min(experimentThreads, undefinedMFConstants.getNumModelIterations()));
+				if (exportresults) {
+					exportResults();
+				}
+				closeDown();
+				return;
+			}
+			mainLog.printWarning("Running model iterations sequentially since " + unsupported);
+		}
+
 		// iterate through as many models as necessary
 		for (i = 0; i < undefinedMFConstants.getNumModelIterations(); i++) {
 
@@ -398,6 +435,14 @@ public class PrismCL implements PrismModelListener
 				}
 				// otherwise, treat each case individually
 				else {
+					// (but for sweeps over CTMC time bounds, we can compute all of them in one pass)
+					if (!simulate && !param && propertiesFile != null) {
+						try {
+							prism.startTimeBoundSweep(propertiesFile, propertiesToCheck.get(j), undefinedConstants[j], exactConstants);
+						} catch (PrismException e) {
+							error(e.getMessage());
+						}
+					}
 					for (k = 0; k < undefinedConstants[j].getNumPropertyIterations(); k++) {
 
 						try {
@@ -497,6 +542,7 @@ public class PrismCL implements PrismModelListener
 						// iterate to next property
 						undefinedConstants[j].iterateProperty();
 					}
+					prism.endTimeBoundSweep();
 				}
 
 				// in case of build failure during model checking, store as result for any further properties and continue
@@ -535,6 +581,360 @@ public class PrismCL implements PrismModelListener
 		closeDown();
 	}
 
+	/**
+	 * Check whether the model iterations of the current experiment can be run concurrently.
+	 * Returns null if so, and otherwise a (lower case) explanation why not.
+	 */
+	private String getConcurrentExperimentUnsupportedReason()
+	{
+		if (modulesFile == null) {
+			return "the model is not a PRISM model";
+		}
+		if (numPropertiesToCheck == 0) {
+			return "there are no properties to check";
+		}
+		if (param) {
+			return "parametric model checking is not supported";
+		}
+		if (!simulate && prism.getEngine() != Prism.EXPLICIT) {
+			return "only the explicit engine and the simulator are supported";
+		}
+		if (simulate) {
+			for (int j = 0; j < numPropertiesToCheck; j++) {
+				if (undefinedConstants[j].getNumPropertyIterations() > 1) {
+					return "simulation experiments over property constants are not supported";
+				}
+			}
+		}
+		if (simpath || steadystate || dotransient) {
+			return "only model checking of properties is supported";
+		}
+		if (anyModelExports() || exportstrat || exportvector || prism.getExportPrismConst() || prism.getExportTarget() || prism.getExportProductTrans()
+				|| prism.getExportProductStates() || prism.getExportProductVector()) {
+			return "exports (other than of results) are not supported";
+		}
+		return null;
+	}
+
+	/**
+	 * Run as a resident model checking server (see {@link PrismServer}), until it is shut down.
+	 */
+	private void runServer()
+	{
+		long maxMemory = serverMemory > 0 ? serverMemory : Runtime.getRuntime().maxMemory() / 2;
+		if (!prism.getExplicit()) {
+			mainLog.println("\nNote: The server always builds models using the explicit engine.");
+		}
+		try {
+			new PrismServer(prism, serverPort, maxMemory).run();
+		} catch (PrismException e) {
+			errorAndExit(e.getMessage());
+		}
+	}
+
+	/**
+	 * Run all model iterations of the current experiment concurrently, using {@code numThreads} threads.
+	 * Each thread uses its own Prism object (see {@link Prism#copyForConcurrentUse(PrismLog)})
+	 * and its own copies of the (already parsed) model/properties files.
+	 * Log output and results are passed on in the order of the model iterations, as they become available,
+	 * so the results (and the log, apart from timings) are the same as when running sequentially.
+	 */
+	private void runModelIterationsConcurrently(int numThreads)
+	{
+		// Enumerate the values of the model constants and, for each property, those of the property constants
+		int numModelIterations = undefinedMFConstants.getNumModelIterations();
+		List<Values> mfValuesList = new ArrayList<>(numModelIterations);
+		for (int i = 0; i < numModelIterations; i++) {
+			mfValuesList.add(undefinedMFConstants.getMFConstantValues());
+			undefinedMFConstants.iterateModel();
+		}
+		List<List<Values>> pfValuesLists = new ArrayList<>(numPropertiesToCheck);
+		for (int j = 0; j < numPropertiesToCheck; j++) {
+			List<Values> pfValuesList = new ArrayList<>();
+			for (int k = 0; k < undefinedConstants[j].getNumPropertyIterations(); k++) {
+				pfValuesList.add(undefinedConstants[j].getPFConstantValues());
+				undefinedConstants[j].iterateProperty();
+			}
+			pfValuesLists.add(pfValuesList);
+		}
+
+		mainLog.println("\nRunning " + numModelIterations + " model iterations using " + numThreads + " threads...");
+		BlockingQueue<ExperimentWorker> workers = new ArrayBlockingQueue<>(numThreads);
+		try {
+			for (int t = 0; t < numThreads; t++) {
+				workers.add(new ExperimentWorker(pfValuesLists));
+			}
+		} catch (PrismException e) {
+			errorAndExit(e.getMessage());
+		}
+		ModelBuildThrottle throttle = new ModelBuildThrottle();
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		List<Future<ModelIterationResults>> futures = new ArrayList<>(numModelIterations);
+		for (Values mfValues : mfValuesList) {
+			futures.add(executor.submit(() -> {
+				ExperimentWorker worker = workers.take();
+				try {
+					throttle.acquire();
+					long modelSize = 0;
+					try {
+						ModelIterationResults iterationResults = worker.run(mfValues);
+						modelSize = iterationResults.modelSize;
+						return iterationResults;
+					} finally {
+						throttle.release(modelSize);
+					}
+				} finally {
+					workers.put(worker);
+				}
+			}));
+		}
+		executor.shutdown();
+
+		// Process the results of each model iteration, in order
+		try {
+			for (int i = 0; i < numModelIterations; i++) {
+				definedMFConstants = mfValuesList.get(i);
+				ModelIterationResults iterationResults = futures.get(i).get();
+				if (iterationResults.constantsError != null) {
+					mainLog.print(iterationResults.log);
+					error(iterationResults.constantsError.getMessage());
+					for (int j = 0; j < numPropertiesToCheck; j++) {
+						results[j].setMultipleErrors(definedMFConstants, null, iterationResults.constantsError);
+					}
+					continue;
+				}
+				for (PropertyResult propertyResult : iterationResults.propertyResults) {
+					mainLog.print(propertyResult.log);
+					int j = propertyResult.propertyIndex;
+					if (propertyResult.buildException != null) {
+						results[j].setMultipleErrors(definedMFConstants, null, propertyResult.buildException);
+						if (test) {
+							doResultTest(propertiesToCheck.get(j), new Result(propertyResult.buildException), propertyResult.mfConstants, propertyResult.pfConstants);
+						}
+					} else {
+						results[j].setResult(definedMFConstants, propertyResult.pfValues, propertyResult.result.getResult());
+						if (test) {
+							doResultTest(propertiesToCheck.get(j), propertyResult.result, propertyResult.mfConstants, propertyResult.pfConstants);
+						}
+					}
+				}
+				mainLog.print(iterationResults.log);
+				mainLog.flush();
+			}
+		} catch (InterruptedException e) {
+			errorAndExit("Interrupted while running experiment");
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * Version of {@link #processSimulationOptions(Expression)} that can be called from experiment worker threads.
+	 */
+	private synchronized SimulationMethod processSimulationOptionsConcurrently(Expression expr) throws PrismException
+	{
+		return processSimulationOptions(expr);
+	}
+
+	/**
+	 * Storage for the results of checking all properties for one model iteration of an experiment.
+	 */
+	private static class ModelIterationResults
+	{
+		// Error when setting the model constants (if any)
+		PrismException constantsError;
+		// Results for each property/property constant values, in order
+		List<PropertyResult> propertyResults = new ArrayList<>();
+		// Log output after the last result
+		String log;
+		// (Rough) size, in bytes, of the model built
+		long modelSize;
+	}
+
+	/**
+	 * Storage for the result of checking a property (for one set of constant values) in an experiment.
+	 */
+	private static class PropertyResult
+	{
+		// Log output up to and including model checking
+		String log;
+		// Index of property (in propertiesToCheck)
+		int propertyIndex;
+		// Values for the property constants
+		Values pfValues;
+		// Result, or, in case of a build failure, the exception (for all property constant values)
+		Result result;
+		PrismException buildException;
+		// All model/properties file constant values, for result testing
+		Values mfConstants;
+		Values pfConstants;
+	}
+
+	/**
+	 * Per-thread state for running model iterations concurrently: a separate Prism object,
+	 * which logs to a buffer, and copies of the model/properties files.
+	 */
+	private class ExperimentWorker implements PrismModelListener
+	{
+		private final ByteArrayOutputStream logBuffer = new ByteArrayOutputStream();
+		private final PrismLog log = new PrismPrintStreamLog(new PrintStream(logBuffer, true));
+		private final Prism prism;
+		private final ModulesFile modulesFile;
+		private final PropertiesFile propertiesFile;
+		private final List<Property> properties = new ArrayList<>();
+		private final List<List<Values>> pfValuesLists;
+		private PrismException buildException;
+
+		public ExperimentWorker(List<List<Values>> pfValuesLists) throws PrismException
+		{
+			this.pfValuesLists = pfValuesLists;
+			prism = PrismCL.this.prism.copyForConcurrentUse(log);
+			prism.addModelListener(this);
+			modulesFile = (ModulesFile) PrismCL.this.modulesFile.deepCopy();
+			prism.loadPRISMModel(modulesFile);
+			propertiesFile = (PropertiesFile) PrismCL.this.propertiesFile.deepCopy();
+			propertiesFile.setModelInfo(modulesFile);
+			for (Property prop : propertiesToCheck) {
+				int p = 0;
+				while (PrismCL.this.propertiesFile.getPropertyObject(p) != prop) {
+					p++;
+				}
+				properties.add(propertiesFile.getPropertyObject(p));
+			}
+			// Discard any output so far
+			takeLog();
+		}
+
+		/**
+		 * Check all properties for the model with constant values {@code mfValues}.
+		 */
+		public ModelIterationResults run(Values mfValues)
+		{
+			ModelIterationResults iterationResults = new ModelIterationResults();
+			try {
+				prism.setPRISMModelConstants(mfValues, exactConstants);
+			} catch (PrismException e) {
+				iterationResults.constantsError = e;
+				iterationResults.log = takeLog();
+				return iterationResults;
+			}
+			buildException = null;
+			for (int j = 0; j < properties.size() && buildException == null; j++) {
+				Property prop = properties.get(j);
+				for (Values pfValues : pfValuesLists.get(j)) {
+					PropertyResult propertyResult = new PropertyResult();
+					propertyResult.propertyIndex = j;
+					propertyResult.pfValues = pfValues;
+					try {
+						propertiesFile.setSomeUndefinedConstants(pfValues, exactConstants);
+						if (simulate) {
+							SimulationMethod simMethod = processSimulationOptionsConcurrently(prop.getExpression());
+							propertyResult.result = prism.modelCheckSimulator(propertiesFile, prop.getExpression(), pfValues, null, simMaxPath, simMethod);
+						} else {
+							propertyResult.result = prism.modelCheck(propertiesFile, prop);
+						}
+					} catch (PrismException e) {
+						log.println("\nError: " + e.getMessage() + ".");
+						propertyResult.result = new Result(e);
+					}
+					propertyResult.mfConstants = copyValues(modulesFile.getConstantValues());
+					propertyResult.pfConstants = copyValues(propertiesFile.getConstantValues());
+					if (buildException != null) {
+						// Build failure: store as result for all property constant values, and for any further properties
+						propertyResult.buildException = buildException;
+						propertyResult.pfConstants = null;
+						propertyResult.log = takeLog();
+						iterationResults.propertyResults.add(propertyResult);
+						for (int j2 = j + 1; j2 < properties.size(); j2++) {
+							PropertyResult further = new PropertyResult();
+							further.propertyIndex = j2;
+							further.buildException = buildException;
+							further.mfConstants = propertyResult.mfConstants;
+							further.pfConstants = copyValues(propertiesFile.getConstantValues());
+							further.log = "";
+							iterationResults.propertyResults.add(further);
+						}
+						break;
+					}
+					Object cex = propertyResult.result.getCounterexample();
+					if (cex != null) {
+						log.println("\nCounterexample/witness:");
+						log.println(cex);
+					}
+					propertyResult.log = takeLog();
+					iterationResults.propertyResults.add(propertyResult);
+				}
+			}
+			// Estimate the size of the model built (if any), then free it
+			explicit.Model model = prism.getBuiltModelExplicit();
+			if (model != null) {
+				iterationResults.modelSize = 64L * model.getNumStates() + 16L * model.getNumTransitions();
+			}
+			prism.clearBuiltModel();
+			iterationResults.log = takeLog();
+			return iterationResults;
+		}
+
+		/**
+		 * Get the log output since the last call, and clear it.
+		 */
+		private String takeLog()
+		{
+			log.flush();
+			String s = logBuffer.toString();
+			logBuffer.reset();
+			return s;
+		}
+
+		private Values copyValues(Values values)
+		{
+			return values == null ? null : new Values(values);
+		}
+
+		@Override
+		public void notifyModelBuildSuccessful()
+		{
+		}
+
+		@Override
+		public void notifyModelBuildFailed(PrismException e)
+		{
+			buildException = e;
+		}
+	}
+
+	/**
+	 * Limits how many models are built (and stored) at once when running model iterations concurrently.
+	 * A new model iteration is only started if none is in progress or if the free heap space
+	 * is at least twice the (estimated) size of the largest model built so far.
+	 */
+	private static class ModelBuildThrottle
+	{
+		private int numActive = 0;
+		private long maxModelSize = 0;
+
+		public synchronized void acquire() throws InterruptedException
+		{
+			while (numActive > 0 && getFreeHeap() < 2 * maxModelSize) {
+				wait();
+			}
+			numActive++;
+		}
+
+		public synchronized void release(long modelSize)
+		{
+			numActive--;
+			maxModelSize = Math.max(maxModelSize, modelSize);
+			notifyAll();
+		}
+
+		private static long getFreeHeap()
+		{
+			Runtime runtime = Runtime.getRuntime();
+			return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+		}
+	}
+
 	/**
 	 * Import results from a data frame in a CSV file.
 	 */
@@ -650,6 +1050,9 @@ public class PrismCL implements PrismModelListener
 				String prismppParamsList[] = ("? " + prismppParams).split(" ");
 				modulesFile = prism.importPrismPreprocFile(new File(modelFilename), prismppParamsList);
 				prism.loadPRISMModel(modulesFile);
+			} else if (importbinary) {
+				mainLog.print("\nImporting binary model file \"" + modelFilename + "\"...\n");
+				prism.loadModelFromBinaryFile(new File(modelFilename));
 			} else if (importtrans) {
 				mainLog.print("\nImporting model from \"" + modelFilename + "\"");
 				if (importstates) {
@@ -752,25 +1155,34 @@ public class PrismCL implements PrismModelListener
 		}
 	}
 
+	/**
+	 * Are any exports of the (built) model requested?
+	 */
+	private boolean anyModelExports()
+	{
+		return exporttrans ||
+		       exportstaterewards ||
+		       exporttransrewards ||
+		       exportstates ||
+		       exportspy ||
+		       exportdot ||
+		       exporttransdot ||
+		       exporttransdotstates ||
+		       exportmodeldotview ||
+		       exportmodellabels ||
+		       exportproplabels ||
+		       exportbinary ||
+		       exportsccs ||
+		       exportbsccs ||
+		       exportmecs;
+	}
+
 	// do any exporting requested
 
 	private void doExports()
 	{
 		if (param || prism.getSettings().getBoolean(PrismSettings.PRISM_EXACT_ENABLED)) {
-			if (exporttrans ||
-			    exportstaterewards ||
-			    exporttransrewards ||
-			    exportstates ||
-			    exportspy ||
-			    exportdot ||
-			    exporttransdot ||
-			    exporttransdotstates ||
-			    exportmodeldotview ||
-				exportmodellabels ||
-				exportproplabels ||
-			    exportsccs ||
-			    exportbsccs ||
-			    exportmecs) {
+			if (anyModelExports()) {
 				mainLog.printWarning("Skipping exports in parametric / exact model checking mode, currently not supported.");
 				return;
 			}
@@ -835,6 +1247,17 @@ public class PrismCL implements PrismModelListener
 			}
 		}
 
+		// export model to binary file
+		if (exportbinary) {
+			try {
+				prism.exportToBinaryFile(new File(exportBinaryFilename));
+			}
+			// in case of error, report it and proceed
+			catch (PrismException e) {
+				error(e);
+			}
+		}
+
 		// export to spy file
 		if (exportspy) {
 			try {
@@ -1329,6 +1752,33 @@ public class PrismCL implements PrismModelListener
 					test = true;
 					testExitsOnFail = false;
 				}
+				// resident model checking server
+				else if (sw.equals("server")) {
+					if (i < args.length - 1) {
+						try {
+							serverPort = Integer.parseInt(args[++i]);
+							if (serverPort < 0 || serverPort > 65535)
+								throw new NumberFormatException();
+						} catch (NumberFormatException e) {
+							errorAndExit("Invalid port number for -" + sw + " switch");
+						}
+					} else {
+						errorAndExit("No port number specified for -" + sw + " switch");
+					}
+				}
+				else if (sw.equals("servermem")) {
+					if (i < args.length - 1) {
+						try {
+							serverMemory = Long.parseLong(args[++i]) * (1L << 20);
+							if (serverMemory <= 0)
+								throw new NumberFormatException();
+						} catch (NumberFormatException e) {
+							errorAndExit("Invalid value for -" + sw + " switch");
+						}
+					} else {
+						errorAndExit("No value specified for -" + sw + " switch");
+					}
+				}
 
 				// DD Debugging options
 				else if (sw.equals("dddebug")) {
@@ -1998,7 +2448,7 @@ public class PrismCL implements PrismModelListener
 		if (filenameArgs.size() > 2) {
 			errorAndExit("Invalid argument syntax");
 		}
-		if (importtrans) {
+		if (importtrans || importbinary) {
 			if (filenameArgs.size() > 1) {
 				errorAndExit("Two models provided (" + filenameArgs.get(0) + ", " + modelFilename + ")");
 			} else if (filenameArgs.size() == 1) {
@@ -2007,7 +2457,7 @@ public class PrismCL implements PrismModelListener
 		} else {
 			if (filenameArgs.size() > 0) {
 				modelFilename = filenameArgs.get(0);
-				if (modelFilename.endsWith(".all")) {
+				if (modelFilename.endsWith(".all") || modelFilename.endsWith(".pbin")) {
 					processImportModelSwitch(modelFilename);
 				}
 			}
@@ -2062,12 +2512,22 @@ public class PrismCL implements PrismModelListener
 				importLabelsFilename = basename + ".lab";
 			} else if (ext.equals("srew")) {
 				getStateRewardsFilenames(basename, true);
+			} else if (ext.equals("pbin")) {
+				importbinary = true;
+				modelFilename = basename + ".pbin";
 			}
 			// Unknown extension
 			else {
 				throw new PrismException("Unknown extension \"" + ext + "\" for -importmodel switch");
 			}
 		}
+		// A binary model file contains everything, so cannot be combined with other files
+		if (importbinary) {
+			if (exts.length > 1) {
+				throw new PrismException("A binary model file (.pbin) cannot be imported together with other files");
+			}
+			return;
+		}
 		// Check at least the transition matrix was imported
 		if (!importtrans) {
 			throw new PrismException("You must import the transition matrix when using -importmodel (use option \"tra\" or \"all\")");
@@ -2215,6 +2675,12 @@ public class PrismCL implements PrismModelListener
 			} else if (ext.equals("dot")) {
 				exporttransdotstates = true;
 				exportTransDotStatesFilename = basename.equals("stdout") ? "stdout" : basename + ".dot";
+			} else if (ext.equals("pbin")) {
+				if (basename.equals("stdout")) {
+					throw new PrismException("Cannot export a binary model file to stdout");
+				}
+				exportbinary = true;
+				exportBinaryFilename = basename + ".pbin";
 			}
 			// Unknown extension
 			else {
@@ -2385,8 +2851,8 @@ public class PrismCL implements PrismModelListener
 	{
 		int j;
 
-		// make sure a model file is specified
-		if (modelFilename == null) {
+		// make sure a model file is specified (unless running as a server)
+		if (modelFilename == null && serverPort < 0) {
 			mainLog.println("Usage: " + Prism.getCommandLineName() + " [options] <model-file> [<properties-file>] [more-options]");
 			mainLog.println("\nFor more information, type: prism -help");
 			exit();
@@ -2468,6 +2934,8 @@ public class PrismCL implements PrismModelListener
 				exportModelLabelsFilename = exportModelLabelsFilename.replaceFirst("modelFileBasename", modelFileBasename);
 			if (exporttransdotstates)
 				exportTransDotStatesFilename = exportTransDotStatesFilename.replaceFirst("modelFileBasename", modelFileBasename);
+			if (exportbinary)
+				exportBinaryFilename = exportBinaryFilename.replaceFirst("modelFileBasename", modelFileBasename);
 		}
 	}
 
@@ -2623,10 +3091,12 @@ public class PrismCL implements PrismModelListener
 		mainLog.println("-javaparams <x>................. Pass additional command-line arguments to Java");
 		mainLog.println("-timeout <n> ................... Exit after a time-out of <n> seconds if not already terminated");
 		mainLog.println("-ng ............................ Run PRISM in Nailgun server mode; subsequent calls are then made via \"ngprism\"");
+		mainLog.println("-server <port> ................. Run PRISM as a resident model checking server on local port <port>");
+		mainLog.println("-servermem <n> ................. Memory (in MB) for models kept resident by the server [default: half of heap]");
 		mainLog.println();
 		mainLog.println("IMPORT OPTIONS:");
 		mainLog.println("-importpepa .................... Model description is in PEPA, not the PRISM language");
-		mainLog.println("-importmodel <files> ........... Import the model directly from text file(s)");
+		mainLog.println("-importmodel <files> ........... Import the model directly from text or binary file(s)");
 		mainLog.println("-importtrans <file> ............ Import the transition matrix directly from a text file");
 		mainLog.println("-importstates <file>............ Import the list of states directly from a text file");
 		mainLog.println("-importlabels <file>............ Import the list of labels directly from a text file");
@@ -2679,6 +3149,8 @@ public class PrismCL implements PrismModelListener
 		mainLog.println("-simvar <n> .................... Set the minimum number of samples to know the variance is null or not");
 		mainLog.println("-simmaxrwd <x> ................. Set the maximum reward -- useful to display the CI/ACI methods progress");
 		mainLog.println("-simpathlen <n> ................ Set the maximum path length for the simulator");
+		mainLog.println("-simthreads <n> ................ Set the number of threads used to generate sample paths [default: 1]");
+		mainLog.println("-simseed <n> ................... Set the random seed for the simulator (0 = different each time) [default: 0]");
 
 		mainLog.println();
 		mainLog.println("You can also use \"prism -help xxx\" for help on some switches -xxx with non-obvious syntax.");
@@ -2706,6 +3178,21 @@ public class PrismCL implements PrismModelListener
 			mainLog.println(" -const a=1:2:50,b=5.6");
 			mainLog.println(" -const a=1:2:50 -const b=5.6");
 		}
+		// -server
+		else if (sw.equals("server")) {
+			mainLog.println("Switch: -server <port>\n");
+			mainLog.println("Run PRISM as a server that keeps parsed/built models (and results) in memory and answers");
+			mainLog.println("queries via HTTP on local port <port>. Other switches set the options used for all queries.");
+			mainLog.println("Models are built with the explicit engine. Requests (GET or POST, URL-encoded parameters):");
+			mainLog.println(" * /check?model=<file>&property=<props>[&const=<vals>][&log=true] - check properties");
+			mainLog.println("   (or use properties=<file> to check those in a file; <vals> as for -const, single values only)");
+			mainLog.println(" * /export?model=<file>&type=<type>[&const=<vals>] - export model (trans, states, labels, bsccs)");
+			mainLog.println(" * /status - list resident models and cache statistics");
+			mainLog.println(" * /clear - discard all resident models");
+			mainLog.println(" * /shutdown - stop the server");
+			mainLog.println("\nExample:");
+			mainLog.println(" curl 'http://localhost:8080/check?model=die.pm&property=P=?+[+F+s=7+]'");
+		}
 		// -simpath
 		else if (sw.equals("simpath")) {
 			mainLog.println("Switch: -simpath <options> <file>\n");
@@ -2722,6 +3209,9 @@ public class PrismCL implements PrismModelListener
 			mainLog.println("Possible extensions are: .tra, .sta, .lab, .srew");
 			mainLog.println("Use extension .all to import all, e.g.:");
 			mainLog.println("\n -importmodel in.all\n");
+			mainLog.println("Alternatively, use extension .pbin to import a binary model file, previously");
+			mainLog.println("created with -exportmodel (explicit engine only), which includes all of the above, e.g.:");
+			mainLog.println("\n -importmodel in.pbin\n");
 		}
 		// -importresults
 		else if (sw.equals("importresults")) {
@@ -2762,11 +3252,13 @@ public class PrismCL implements PrismModelListener
 			mainLog.println("Export the built model to file(s) (or to the screen if <file>=\"stdout\").");
 			mainLog.println("Use a list of file extensions to indicate which files should be generated, e.g.:");
 			mainLog.println("\n -exportmodel out.tra,sta\n");
-			mainLog.println("Possible extensions are: .tra, .srew, .trew, .sta, .lab, .dot");
+			mainLog.println("Possible extensions are: .tra, .srew, .trew, .sta, .lab, .dot, .pbin");
 			mainLog.println("Use extension .all to export all (except .dot) and .rew to export both .srew/.trew, e.g.:");
 			mainLog.println("\n -exportmodel out.all\n");
 			mainLog.println("Omit the file basename to use the basename of the model file, e.g.:");
 			mainLog.println("\n -exportmodel .all\n");
+			mainLog.println("Extension .pbin exports the model, states, labels and rewards to a single binary file,");
+			mainLog.println("which can be imported again with -importmodel (explicit engine only).");
 			mainLog.println("If provided, <options> is a comma-separated list of options taken from:");
 			mainLog.println(" * mrmc - export data in MRMC format");
 			mainLog.println(" * matlab - export data in Matlab format");
@@ -0,0 +1,593 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package prism;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import parser.Values;
+import parser.ast.ModulesFile;
+import parser.ast.PropertiesFile;
+import parser.ast.Property;
+
+/**
+ * Resident model checking server: keeps parsed and built (explicit-state) models,
+ * and the results of checking properties on them, in memory, and answers queries
+ * via a simple HTTP interface on a local port. This avoids the cost of starting PRISM,
+ * and of parsing/building models, for each of many queries against the same few models.
+ * <br><br>
+ * Requests are HTTP GET or POST requests, with parameters given in the query string
+ * and/or (for POST) as a form-encoded body. Responses are plain text.
+ * <ul>
+ * <li> {@code /check?model=<file>&property=<props>[&const=<vals>][&log=true]}:
+ *      check properties {@code <props>} (or those in the file given by parameter {@code properties})
+ *      on a PRISM model, with constants defined as for the {@code -const} switch (single values only)
+ * <li> {@code /export?model=<file>&type=<type>[&const=<vals>]}:
+ *      export the built model, where {@code <type>} is one of trans, states, labels, bsccs
+ * <li> {@code /status}: list the resident models and cache statistics
+ * <li> {@code /clear}: discard all resident models
+ * <li> {@code /shutdown}: stop the server
+ * </ul>
+ * Models are built using the explicit engine, and PRISM settings (those in effect when
+ * the server is created) apply to all requests. Model files are identified by their path
+ * and modification time, so changes to them are picked up. Built models are kept (together
+ * with their predecessor relations, SCC decompositions and results) until the total of their
+ * estimated sizes exceeds a memory bound, at which point the least recently used ones are discarded.
+ * Requests for different models are processed concurrently; those for the same model are serialised.
+ */
+public class PrismServer extends PrismComponent
+{
+	/** Maximum number of parsed model files kept */
+	public static final int MAX_PARSED_MODELS = 64;
+	/** Maximum number of results kept for each resident model */
+	public static final int MAX_RESULTS_PER_MODEL = 1024;
+
+	/** PRISM object whose settings are used for all resident models */
+	private final Prism prism;
+	/** Port to listen on (on the loopback interface) */
+	private final int port;
+	/** Memory bound (bytes) for the (estimated) total size of resident models */
+	private final long maxMemory;
+
+	private HttpServer server;
+	private ExecutorService executor;
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	/** Parsed model files, keyed by path/modification time, least recently used first */
+	private final Map<String, ModulesFile> parsedModels = new LinkedHashMap<String, ModulesFile>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ModulesFile> eldest)
+		{
+			return size() > MAX_PARSED_MODELS;
+		}
+	};
+	/** Resident models, keyed by path/modification time/constant values, least recently used first */
+	private final LinkedHashMap<String, ResidentModel> residentModels = new LinkedHashMap<>(16, 0.75f, true);
+
+	// Statistics
+	private final AtomicLong numRequests = new AtomicLong();
+	private final AtomicLong modelHits = new AtomicLong();
+	private final AtomicLong modelMisses = new AtomicLong();
+	private final AtomicLong resultHits = new AtomicLong();
+	private final AtomicLong resultMisses = new AtomicLong();
+	private final AtomicLong numEvictions = new AtomicLong();
+
+	/**
+	 * Handler for one kind of request: returns the response text for the request parameters.
+	 */
+	@FunctionalInterface
+	private interface RequestHandler
+	{
+		public String handle(Map<String, String> params) throws PrismException;
+	}
+
+	/**
+	 * Create a server, to listen on local port {@code port}.
+	 * @param prism PRISM object whose settings are used (and copied) for all requests
+	 * @param port Port number
+	 * @param maxMemory Memory bound (bytes) for the (estimated) total size of resident models
+	 */
+	public PrismServer(Prism prism, int port, long maxMemory)
+	{
+		super(prism);
+		this.prism = prism;
+		this.port = port;
+		this.maxMemory = maxMemory;
+	}
+
+	/**
+	 * Start the server, then wait until it is shut down (via a {@code /shutdown} request).
+	 */
+	public void run() throws PrismException
+	{
+		start();
+		try {
+			stopped.await();
+		} catch (InterruptedException e) {
+			stop();
+		}
+	}
+
+	/**
+	 * Start the server (without waiting).
+	 */
+	public void start() throws PrismException
+	{
+		try {
+			server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		} catch (IOException e) {
+			throw new PrismException("Could not start server on port " + port + ": " + e.getMessage());
+		}
+		server.createContext("/check", exchange -> handle(exchange, this::check));
+		server.createContext("/export", exchange -> handle(exchange, this::export));
+		server.createContext("/status", exchange -> handle(exchange, params -> getStatus()));
+		server.createContext("/clear", exchange -> handle(exchange, params -> clear()));
+		server.createContext("/shutdown", exchange -> {
+			handle(exchange, params -> "Shutting down\n");
+			new Thread(this::stop).start();
+		});
+		executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+		server.setExecutor(executor);
+		server.start();
+		mainLog.println("\nPRISM server listening on http://" + server.getAddress().getHostString() + ":" + getPort() + "/");
+		mainLog.println("Memory for resident models: " + PrismUtils.convertBytesToMemoryString(maxMemory));
+		mainLog.flush();
+	}
+
+	/**
+	 * Stop the server.
+	 */
+	public void stop()
+	{
+		if (server != null) {
+			server.stop(0);
+			executor.shutdown();
+		}
+		stopped.countDown();
+	}
+
+	/**
+	 * Get the port that the server is listening on.
+	 */
+	public int getPort()
+	{
+		return server == null ? port : server.getAddress().getPort();
+	}
+
+	// Request handling
+
+	/**
+	 * Handle an HTTP request: parse its parameters, pass them to {@code handler},
+	 * and send back the response (or an error).
+	 */
+	private void handle(HttpExchange exchange, RequestHandler handler) throws IOException
+	{
+		numRequests.incrementAndGet();
+		int status;
+		String response;
+		try {
+			Map<String, String> params = new HashMap<>();
+			parseParameters(exchange.getRequestURI().getRawQuery(), params);
+			if ("POST".equals(exchange.getRequestMethod())) {
+				try (InputStream in = exchange.getRequestBody()) {
+					parseParameters(new String(in.readAllBytes(), StandardCharsets.UTF_8), params);
+				}
+			}
+			response = handler.handle(params);
+			status = 200;
+		} catch (PrismException e) {
+			response = "Error: " + e.getMessage() + "\n";
+			status = 400;
+		} catch (RuntimeException | StackOverflowError | OutOfMemoryError e) {
+			response = "Error: " + e + "\n";
+			status = 500;
+		}
+		byte bytes[] = response.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	/**
+	 * Parse URL-encoded parameters ({@code name=value&...}) into {@code params}.
+	 */
+	private static void parseParameters(String s, Map<String, String> params) throws PrismException
+	{
+		if (s == null || s.isEmpty()) {
+			return;
+		}
+		try {
+			for (String param : s.split("&")) {
+				int i = param.indexOf('=');
+				String name = URLDecoder.decode(i < 0 ? param : param.substring(0, i), "UTF-8");
+				String value = i < 0 ? "" : URLDecoder.decode(param.substring(i + 1), "UTF-8");
+				params.put(name, value);
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new PrismException("Could not decode request parameters: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Get a required request parameter.
+	 */
+	private static String getParameter(Map<String, String> params, String name) throws PrismException
+	{
+		String value = params.get(name);
+		if (value == null || value.isEmpty()) {
+			throw new PrismException("Missing parameter \"" + name + "\"");
+		}
+		return value;
+	}
+
+	/**
+	 * Handle a {@code /check} request.
+	 */
+	private String check(Map<String, String> params) throws PrismException
+	{
+		String constSwitch = params.getOrDefault("const", "");
+		ResidentModel model = getResidentModel(getParameter(params, "model"), constSwitch);
+		try {
+			return model.check(params.get("property"), params.get("properties"), constSwitch, "true".equals(params.get("log")));
+		} finally {
+			evict();
+		}
+	}
+
+	/**
+	 * Handle an {@code /export} request.
+	 */
+	private String export(Map<String, String> params) throws PrismException
+	{
+		ResidentModel model = getResidentModel(getParameter(params, "model"), params.getOrDefault("const", ""));
+		try {
+			return model.export(getParameter(params, "type"));
+		} finally {
+			evict();
+		}
+	}
+
+	/**
+	 * Handle a {@code /status} request.
+	 */
+	private String getStatus() throws PrismException
+	{
+		// Copy the resident models (without affecting their LRU order),
+		// then query them after releasing the lock
+		List<Map.Entry<String, ResidentModel>> entries;
+		synchronized (this) {
+			entries = new ArrayList<>(residentModels.entrySet());
+		}
+		StringBuilder sb = new StringBuilder();
+		long totalSize = 0;
+		for (Map.Entry<String, ResidentModel> entry : entries) {
+			totalSize += entry.getValue().size;
+		}
+		sb.append("Requests: ").append(numRequests.get()).append("\n");
+		sb.append("Resident models: ").append(entries.size());
+		sb.append(" (").append(PrismUtils.convertBytesToMemoryString(totalSize)).append(" of ");
+		sb.append(PrismUtils.convertBytesToMemoryString(maxMemory)).append(")\n");
+		sb.append("Model cache: ").append(modelHits.get()).append(" hits, ").append(modelMisses.get()).append(" misses, ");
+		sb.append(numEvictions.get()).append(" evictions\n");
+		sb.append("Result cache: ").append(resultHits.get()).append(" hits, ").append(resultMisses.get()).append(" misses\n");
+		// Most recently used first
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			Map.Entry<String, ResidentModel> entry = entries.get(i);
+			sb.append("\n").append(entry.getKey()).append(": ").append(entry.getValue().getInfo());
+		}
+		return sb.append("\n").toString();
+	}
+
+	/**
+	 * Handle a {@code /clear} request.
+	 */
+	private synchronized String clear()
+	{
+		int n = residentModels.size();
+		residentModels.clear();
+		parsedModels.clear();
+		return "Discarded " + n + " resident model" + (n == 1 ? "" : "s") + "\n";
+	}
+
+	// Caching
+
+	/**
+	 * Get the resident model for a PRISM model file and (model) constant values,
+	 * creating it if needed (the model itself is only built when it is first used).
+	 */
+	private ResidentModel getResidentModel(String modelFilename, String constSwitch) throws PrismException
+	{
+		File file;
+		try {
+			file = new File(modelFilename).getCanonicalFile();
+		} catch (IOException e) {
+			throw new PrismException("Invalid model file \"" + modelFilename + "\": " + e.getMessage());
+		}
+		if (!file.isFile()) {
+			throw new PrismException("File \"" + modelFilename + "\" not found");
+		}
+		String fileKey = file.getPath() + "@" + file.lastModified();
+		ModulesFile modulesFile = getParsedModel(file, fileKey);
+		UndefinedConstants undefinedMFConstants = new UndefinedConstants(modulesFile, null);
+		undefinedMFConstants.defineUsingConstSwitch(constSwitch);
+		if (undefinedMFConstants.getNumModelIterations() > 1) {
+			throw new PrismException("Ranges of constant values are not supported by the server");
+		}
+		Values mfValues = undefinedMFConstants.getMFConstantValues();
+		String key = fileKey + (mfValues.getNumValues() > 0 ? " (" + mfValues + ")" : "");
+		synchronized (this) {
+			ResidentModel model = residentModels.get(key);
+			if (model != null) {
+				modelHits.incrementAndGet();
+				return model;
+			}
+		}
+		// Set up new model outside of lock (only the first of any concurrent requests is kept)
+		ResidentModel newModel = new ResidentModel((ModulesFile) modulesFile.deepCopy(), mfValues);
+		synchronized (this) {
+			ResidentModel model = residentModels.putIfAbsent(key, newModel);
+			if (model != null) {
+				modelHits.incrementAndGet();
+				return model;
+			}
+			modelMisses.incrementAndGet();
+			return newModel;
+		}
+	}
+
+	/**
+	 * Get a parsed model file (parsing it if needed); this should not be modified.
+	 */
+	private ModulesFile getParsedModel(File file, String key) throws PrismException
+	{
+		synchronized (this) {
+			ModulesFile modulesFile = parsedModels.get(key);
+			if (modulesFile != null) {
+				return modulesFile;
+			}
+		}
+		ModulesFile modulesFile;
+		try {
+			modulesFile = prism.parseModelFile(file);
+		} catch (FileNotFoundException e) {
+			throw new PrismException("File \"" + file + "\" not found");
+		}
+		synchronized (this) {
+			parsedModels.put(key, modulesFile);
+		}
+		return modulesFile;
+	}
+
+	/**
+	 * Discard the least recently used resident models until their total (estimated) size
+	 * is within the memory bound (always keeping the most recently used one).
+	 */
+	private synchronized void evict()
+	{
+		long totalSize = 0;
+		for (ResidentModel model : residentModels.values()) {
+			totalSize += model.size;
+		}
+		Iterator<ResidentModel> it = residentModels.values().iterator();
+		while (totalSize > maxMemory && residentModels.size() > 1) {
+			ResidentModel model = it.next();
+			totalSize -= model.size;
+			it.remove();
+			numEvictions.incrementAndGet();
+		}
+	}
+
+	/**
+	 * A model kept resident in memory: a separate Prism object (logging to a buffer)
+	 * with the model loaded and, once used, built, plus the results of previous queries.
+	 */
+	private class ResidentModel
+	{
+		private final ByteArrayOutputStream logBuffer = new ByteArrayOutputStream();
+		private final PrismLog log = new PrismPrintStreamLog(new PrintStream(logBuffer, true));
+		private final Prism prism;
+		private final ModulesFile modulesFile;
+		/** Results of previous queries, keyed by properties file/index/constants, least recently used first */
+		private final Map<String, Result> results = new LinkedHashMap<String, Result>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Result> eldest)
+			{
+				return size() > MAX_RESULTS_PER_MODEL;
+			}
+		};
+		/** (Rough) size, in bytes, of the built model and associated data (0 if not built) */
+		private volatile long size = 0;
+
+		public ResidentModel(ModulesFile modulesFile, Values mfValues) throws PrismException
+		{
+			this.modulesFile = modulesFile;
+			prism = PrismServer.this.prism.copyForConcurrentUse(log);
+			prism.setEngine(Prism.EXPLICIT);
+			prism.setCacheSCCs(true);
+			prism.loadPRISMModel(modulesFile);
+			prism.setPRISMModelConstants(mfValues);
+		}
+
+		/**
+		 * Check the properties given as a string ({@code propertyString}) or in a file ({@code propertiesFilename}),
+		 * for the property constants defined in {@code constSwitch}, and return the results (and optionally the log).
+		 */
+		public synchronized String check(String propertyString, String propertiesFilename, String constSwitch, boolean showLog) throws PrismException
+		{
+			takeLog();
+			PropertiesFile propertiesFile;
+			if (propertyString != null) {
+				propertiesFile = prism.parsePropertiesString(propertyString);
+			} else if (propertiesFilename != null) {
+				try {
+					propertiesFile = prism.parsePropertiesFile(new File(propertiesFilename));
+				} catch (FileNotFoundException e) {
+					throw new PrismException("File \"" + propertiesFilename + "\" not found");
+				}
+			} else {
+				throw new PrismException("Missing parameter \"property\" (or \"properties\")");
+			}
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < propertiesFile.getNumProperties(); i++) {
+				Property prop = propertiesFile.getPropertyObject(i);
+				sb.append(prop).append("\n");
+				try {
+					UndefinedConstants undefinedConstants = new UndefinedConstants(modulesFile, propertiesFile, prop);
+					undefinedConstants.defineUsingConstSwitch(constSwitch);
+					if (undefinedConstants.getNumPropertyIterations() > 1) {
+						throw new PrismException("Ranges of constant values are not supported by the server");
+					}
+					Values pfValues = undefinedConstants.getPFConstantValues();
+					propertiesFile.setSomeUndefinedConstants(pfValues);
+					String key = propertiesFile + "\n" + i + "\n" + pfValues;
+					Result res = results.get(key);
+					if (res != null) {
+						resultHits.incrementAndGet();
+					} else {
+						resultMisses.incrementAndGet();
+						res = prism.modelCheck(propertiesFile, prop);
+						results.put(key, res);
+					}
+					sb.append("Result: ").append(res.getResultAndAccuracy()).append("\n");
+				} catch (PrismException e) {
+					sb.append("Error: ").append(e.getMessage()).append("\n");
+				}
+			}
+			updateSize();
+			String logText = takeLog();
+			return showLog ? sb.append("\n").append(logText).toString() : sb.toString();
+		}
+
+		/**
+		 * Export the built model, in the form {@code type} (trans, states, labels or bsccs).
+		 */
+		public synchronized String export(String type) throws PrismException
+		{
+			takeLog();
+			File file = null;
+			try {
+				file = File.createTempFile("prism-server", ".txt");
+				switch (type) {
+				case "trans":
+					prism.exportTransToFile(true, Prism.EXPORT_PLAIN, file);
+					break;
+				case "states":
+					prism.exportStatesToFile(Prism.EXPORT_PLAIN, file);
+					break;
+				case "labels":
+					prism.exportLabelsToFile(null, Prism.EXPORT_PLAIN, file);
+					break;
+				case "bsccs":
+					prism.exportBSCCsToFile(Prism.EXPORT_PLAIN, file);
+					break;
+				default:
+					throw new PrismException("Unknown export type \"" + type + "\" (should be one of: trans, states, labels, bsccs)");
+				}
+				return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				throw new PrismException("Could not export model: " + e.getMessage());
+			} finally {
+				if (file != null) {
+					file.delete();
+				}
+				updateSize();
+				takeLog();
+			}
+		}
+
+		/**
+		 * Get a one-line summary of the model.
+		 */
+		public synchronized String getInfo() throws PrismException
+		{
+			explicit.Model model = prism.getBuiltModelExplicit();
+			if (model == null) {
+				return "not built";
+			}
+			return model.getModelType() + ", " + model.getNumStates() + " states, " + model.getNumTransitions() + " transitions, "
+					+ results.size() + " results (" + PrismUtils.convertBytesToMemoryString(size) + ")";
+		}
+
+		/**
+		 * Update the (rough) size estimate for the built model and associated data.
+		 */
+		private void updateSize()
+		{
+			explicit.Model model = prism.getBuiltModelExplicit();
+			if (model == null) {
+				size = 0;
+				return;
+			}
+			long numStates = model.getNumStates();
+			long numTransitions = model.getNumTransitions();
+			long newSize = 64L * numStates + 16L * numTransitions;
+			if (model.hasStoredPredecessorRelation()) {
+				newSize += 4L * numStates + 4L * numTransitions;
+			}
+			size = newSize;
+		}
+
+		/**
+		 * Get the log output since the last call, and clear it.
+		 */
+		private String takeLog()
+		{
+			log.flush();
+			String s = logBuffer.toString();
+			logBuffer.reset();
+			return s;
+		}
+	}
+}
@@ -85,6 +85,15 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_PROB1							= "prism.prob1";
 	public static final	String PRISM_PRE_REL					= "prism.preRel";
 	public static final	String PRISM_FIX_DEADLOCKS					= "prism.fixDeadlocks";
+	public static final	String PRISM_STATE_STORAGE					= "prism.stateStorage";
+	public static final	String PRISM_CONSTRUCT_THREADS				= "prism.constructThreads";
+	public static final	String PRISM_EXPERIMENT_THREADS				= "prism.experimentThreads";
+	public static final	String PRISM_REUSE_MODEL_STRUCTURE			= "prism.reuseModelStructure";
+	public static final	String PRISM_WARM_START						= "prism.warmStart";
+	public static final	String PRISM_CACHE_DIR						= "prism.cacheDir";
+	public static final	String PRISM_CACHE_SIZE						= "prism.cacheSize";
+	public static final	String PRISM_MODEL_STORAGE					= "prism.modelStorage";
+	public static final	String PRISM_COMPILE_EXPRESSIONS			= "prism.compileExpressions";
 	public static final	String PRISM_DO_PROB_CHECKS					= "prism.doProbChecks";
 	public static final	String PRISM_SUM_ROUND_OFF					= "prism.sumRoundOff";
 	public static final	String PRISM_COMPACT						= "prism.compact";
@@ -92,6 +101,8 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_LIN_EQ_METHOD_PARAM			= "prism.linEqMethodParam";//"prism.overRelaxation";
 	public static final String PRISM_TOPOLOGICAL_VI					= "prism.topologicalVI";
 	public static final	String PRISM_PMAX_QUOTIENT					= "prism.pmaxQuotient";
+	public static final	String PRISM_BISIM_AUTO						= "prism.bisimAuto";
+	public static final	String PRISM_BISIM_AUTO_RATIO				= "prism.bisimAutoRatio";
 	public static final	String PRISM_INTERVAL_ITER					= "prism.intervalIter";
 	public static final	String PRISM_INTERVAL_ITER_OPTIONS			= "prism.intervalIterOptions";
 	public static final	String PRISM_MDP_SOLN_METHOD				= "prism.mdpSolnMethod";
@@ -99,6 +110,7 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_TERM_CRIT						= "prism.termCrit";//"prism.termination";
 	public static final	String PRISM_TERM_CRIT_PARAM				= "prism.termCritParam";//"prism.terminationEpsilon";
 	public static final	String PRISM_MAX_ITERS						= "prism.maxIters";//"prism.maxIterations";
+	public static final	String PRISM_ITERATION_THREADS				= "prism.iterationThreads";
 	public static final String PRISM_EXPORT_ITERATIONS				= "prism.exportIterations";
 	public static final	String PRISM_GRID_RESOLUTION				= "prism.gridResolution";
 	public static final String PRISM_EXPORT_MODEL_PRECISION         = "prism.exportModelPrecision";
@@ -116,6 +128,7 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_EXTRA_DD_INFO					= "prism.extraDDInfo";
 	public static final	String PRISM_EXTRA_REACH_INFO				= "prism.extraReachInfo";
 	public static final String PRISM_SCC_METHOD						= "prism.sccMethod";
+	public static final String PRISM_SCC_METHOD_EXPLICIT				= "prism.sccMethodExplicit";
 	public static final String PRISM_SYMM_RED_PARAMS					= "prism.symmRedParams";
 	public static final	String PRISM_EXACT_ENABLED					= "prism.exact.enabled";
 	public static final String PRISM_PTA_METHOD					= "prism.ptaMethod";
@@ -144,12 +157,16 @@ public class PrismSettings implements Observer
 	public static final	String PRISM_PARAM_RANDOM_POINTS			= "prism.param.randomPoints";
 	public static final	String PRISM_PARAM_SUBSUME_REGIONS			= "prism.param.subsumeRegions";
 	public static final String PRISM_PARAM_DAG_MAX_ERROR			= "prism.param.functionDagMaxError";
+	public static final	String PRISM_PARAM_THREADS					= "prism.param.threads";
+	public static final	String PRISM_PARAM_OP_CACHE_SIZE			= "prism.param.opCacheSize";
+	public static final	String PRISM_PARAM_OP_CACHE_POLICY			= "prism.param.opCachePolicy";
 
 	public static final String PRISM_FAU_EPSILON					= "prism.fau.epsilon";
 	public static final String PRISM_FAU_DELTA						= "prism.fau.delta";
 	public static final String PRISM_FAU_INTERVALS					= "prism.fau.intervals";
 	public static final String PRISM_FAU_INITIVAL					= "prism.fau.initival";
 	public static final String PRISM_FAU_ARRAYTHRESHOLD				= "prism.fau.arraythreshold";
+	public static final String PRISM_FAU_THREADS					= "prism.fau.threads";
 
 	//Simulator
 	public static final String SIMULATOR_DEFAULT_NUM_SAMPLES		= "simulator.defaultNumSamples";
@@ -165,6 +182,8 @@ public class PrismSettings implements Observer
 	public static final	String SIMULATOR_NEW_PATH_ASK_VIEW			= "simulator.newPathAskView";
 	public static final	String SIMULATOR_RENDER_ALL_VALUES			= "simulator.renderAllValues";
 	public static final String SIMULATOR_NETWORK_FILE				= "simulator.networkFile";
+	public static final String SIMULATOR_THREADS					= "simulator.threads";
+	public static final String SIMULATOR_SEED						= "simulator.seed";
 	
 	//GUI Model
 	public static final	String MODEL_AUTO_PARSE						= "model.autoParse";
@@ -260,6 +279,10 @@ public class PrismSettings implements Observer
 																			"Use topological value iteration in iterative numerical methods."},
 			{ BOOLEAN_TYPE,		PRISM_PMAX_QUOTIENT,				"For Pmax computations, compute in the MEC quotient",				"4.3.1",		false,																		"",
 																				"For Pmax computations, compute in the MEC quotient."},
+			{ BOOLEAN_TYPE,		PRISM_BISIM_AUTO,					"Automatic bisimulation minimisation",				"4.7",		false,																		"",
+																			"Minimise DTMCs, CTMCs and MDPs (explicit engine) by bisimulation before numerical solution of properties it preserves, if this reduces the number of states enough." },
+			{ DOUBLE_TYPE,		PRISM_BISIM_AUTO_RATIO,				"Automatic bisimulation reduction ratio",				"4.7",		Double.valueOf(0.8),														"0,1",
+																			"Maximum ratio of minimised to original number of states for automatic bisimulation minimisation to be used (minimisation is abandoned once exceeded)." },
 			{ BOOLEAN_TYPE,		PRISM_INTERVAL_ITER,				"Use interval iteration",				"4.3.1",		false,																		"",
 																				"Use interval iteration (from above and below) in iterative numerical methods."},
 			{ STRING_TYPE,		PRISM_INTERVAL_ITER_OPTIONS,				"Interval iteration options",				"4.3.1",		"",																		"",
@@ -274,6 +297,8 @@ public class PrismSettings implements Observer
 																			"Epsilon value to use for checking termination of iterative numerical methods." },
 			{ INTEGER_TYPE,		PRISM_MAX_ITERS,						"Termination max. iterations",			"2.1",			Integer.valueOf(10000),															"0,",																						
 																			"Maximum number of iterations to perform if iterative methods do not converge." },
+			{ INTEGER_TYPE,		PRISM_ITERATION_THREADS,				"Iteration threads",					"4.7",			Integer.valueOf(1),																"1,",
+																			"Number of threads to use for (Jacobi/power-style) value iteration in the explicit engine, and for solving independent SCCs in topological value iteration. Results are unchanged, up to floating-point error." },
 			{ BOOLEAN_TYPE,		PRISM_EXPORT_ITERATIONS,				"Export iterations (debug/visualisation)",			"4.3.1",			false,														"",
 																			"Export solution vectors for iteration algorithms to iterations.html"},
 			{ INTEGER_TYPE,		PRISM_GRID_RESOLUTION,					"Fixed grid resolution",			    "4.5",			Integer.valueOf(10),															"1,",																						
@@ -295,6 +320,24 @@ public class PrismSettings implements Observer
 																			"Constrain to fair adversaries when model checking MDPs." },
 			{ BOOLEAN_TYPE,		PRISM_FIX_DEADLOCKS,					"Automatically fix deadlocks",			"4.0.3",		Boolean.valueOf(true),															"",																							
 																			"Automatically fix deadlocks, where necessary, when constructing probabilistic models." },
+			{ CHOICE_TYPE,		PRISM_STATE_STORAGE,					"Explicit state storage",				"4.7",			"Default",																	"Default,Bit-packed,Bit-packed (off-heap)",
+																			"How to store reachable states during explicit-state model construction (bit-packed storage uses less memory, where the model allows it)." },
+			{ INTEGER_TYPE,		PRISM_CONSTRUCT_THREADS,				"Model construction threads",			"4.7",			Integer.valueOf(1),																"1,",
+																			"Number of threads to use for state space exploration during explicit-state model construction." },
+			{ INTEGER_TYPE,		PRISM_EXPERIMENT_THREADS,				"Experiment threads",					"4.7",			Integer.valueOf(1),																"1,",
+																			"Number of threads to use for running the model iterations of an experiment (with the explicit engine or simulator) concurrently." },
+			{ BOOLEAN_TYPE,		PRISM_REUSE_MODEL_STRUCTURE,			"Re-use model structure",				"4.7",			Boolean.valueOf(true),															"",
+																			"When only constants that affect transition probabilities/rates change (e.g. in an experiment), re-use the structure of the previously built explicit-state model, rather than rebuilding it." },
+			{ BOOLEAN_TYPE,		PRISM_WARM_START,						"Warm-start iterative methods",			"4.7",			Boolean.valueOf(false),															"",
+																			"When the model structure is re-used, start iterative numerical methods (explicit engine, DTMC/CTMC reachability) from the previous solution, rather than from scratch." },
+			{ STRING_TYPE,		PRISM_CACHE_DIR,						"Cache directory",						"4.7",			"",																	"",
+																			"Directory for a persistent cache of built (explicit) models and model checking results, shared between runs (if empty, no cache is used)." },
+			{ INTEGER_TYPE,		PRISM_CACHE_SIZE,						"Cache size (MB)",						"4.7",			Integer.valueOf(1024),															"1,",
+																			"Maximum total size of the persistent cache (in MB); least recently used entries are deleted when this is exceeded." },
+			{ CHOICE_TYPE,		PRISM_MODEL_STORAGE,					"Explicit model storage",				"4.7",			"Default",																	"Default,Off-heap",
+																			"How to store the transition matrix of explicit-state DTMCs, CTMCs and MDPs once constructed (off-heap storage is outside of the Java heap and allows more than 2^31 transitions)." },
+			{ BOOLEAN_TYPE,		PRISM_COMPILE_EXPRESSIONS,				"Compile model expressions",			"4.7",			Boolean.valueOf(true),															"",
+																			"Compile guards, probabilities/rates, updates, rewards and labels to specialised evaluators, rather than interpreting them, during model exploration." },
 			{ BOOLEAN_TYPE,		PRISM_DO_PROB_CHECKS,					"Do probability/rate checks",			"2.1",			Boolean.valueOf(true),															"",																							
 																			"Perform sanity checks on model probabilities/rates when constructing probabilistic models." },
 			{ DOUBLE_TYPE,		PRISM_SUM_ROUND_OFF,					"Probability sum threshold",					"2.1",			Double.valueOf(1.0E-5),													"0.0,",
@@ -303,6 +346,8 @@ public class PrismSettings implements Observer
 																			"Use steady-state detection during CTMC transient probability computation." },
 			{ CHOICE_TYPE,		PRISM_SCC_METHOD,						"SCC decomposition method",				"3.2",			"Lockstep",																	"Xie-Beerel,Lockstep,SCC-Find",																
 																			"Which algorithm to use for (symbolic) decomposition of a graph into strongly connected components (SCCs)." },
+			{ CHOICE_TYPE,		PRISM_SCC_METHOD_EXPLICIT,				"SCC decomposition method (explicit)",	"4.7",			"Tarjan",																	"Tarjan,Parallel",
+																			"Which algorithm to use for (explicit-state) decomposition of a graph into strongly connected components (SCCs): Tarjan's (sequential) algorithm or the parallel forward-backward algorithm." },
 			{ STRING_TYPE,		PRISM_SYMM_RED_PARAMS,					"Symmetry reduction parameters",		"3.2",			"",																	"",																
 																			"Parameters for symmetry reduction (format: \"i j\" where i and j are the number of modules before and after the symmetric ones; empty string means symmetry reduction disabled)." },
 			{ STRING_TYPE,		PRISM_AR_OPTIONS,						"Abstraction refinement options",		"3.3",			"",																	"",																
@@ -383,6 +428,12 @@ public class PrismSettings implements Observer
 																			"Subsume adjacent regions during parametric model checking." },
 			{ DOUBLE_TYPE,		PRISM_PARAM_DAG_MAX_ERROR,				"Parametric model checking max. DAG error",	"4.1",			Double.valueOf(1E-100),															"",
 																			"Maximal error probability (i.e. maximum probability of of a wrong result) in DAG function representation used for parametric model checking." },
+			{ INTEGER_TYPE,		PRISM_PARAM_THREADS,					"Parametric model checking threads",	"4.7",			Integer.valueOf(1),																"1,",
+																			"Number of threads to use for checking parameter regions (including the evaluation at random points) during parametric model checking." },
+			{ INTEGER_TYPE,		PRISM_PARAM_OP_CACHE_SIZE,				"Parametric model checking operation cache size",	"4.7",			Integer.valueOf(1000000),														"0,",
+																			"Maximal number of entries of each of the caches for operations (addition, multiplication, star) on functions used by the JAS-cached function representation. Use 0 to disable the operation caches." },
+			{ CHOICE_TYPE,		PRISM_PARAM_OP_CACHE_POLICY,			"Parametric model checking operation cache policy",	"4.7",			"LRU",																		"LRU,FIFO",
+																			"Policy for evicting entries from full operation caches of the JAS-cached function representation: least recently used (LRU) or least recently inserted (FIFO)." },
 			
 			// FAST ADAPTIVE UNIFORMISATION																
 			{ DOUBLE_TYPE,      PRISM_FAU_EPSILON,						"FAU epsilon",		 					"4.1",   	 	Double.valueOf(1E-6),     													"",
@@ -395,6 +446,8 @@ public class PrismSettings implements Observer
 																			"For fast adaptive uniformisation (FAU), the time period is split into this number of of intervals." },
 			{ DOUBLE_TYPE,      PRISM_FAU_INITIVAL,						"FAU initial time interval",			"4.1",   	 	Double.valueOf(1.0),     														"",	
 																			"For fast adaptive uniformisation (FAU), the length of initial time interval to analyse." },
+			{ INTEGER_TYPE,     PRISM_FAU_THREADS,						"FAU threads",							"4.7",			Integer.valueOf(1),																"1,",
+																			"For fast adaptive uniformisation (FAU), the number of threads to use for exploring the transitions of newly relevant states and for iterations over the fixed-size data structure." },
 		},
 		{
 			{ INTEGER_TYPE,		SIMULATOR_DEFAULT_NUM_SAMPLES,			"Default number of samples",			"4.0",		Integer.valueOf(1000),			"1,",
@@ -422,7 +475,11 @@ public class PrismSettings implements Observer
 			{ CHOICE_TYPE,		SIMULATOR_RENDER_ALL_VALUES,			"Path render style",					"3.2",		"Render all values",		"Render changes,Render all values",
 																			"Display style for paths in the simulator user interface: only show variable values when they change, or show all values regardless." },
 			{ FILE_TYPE,		SIMULATOR_NETWORK_FILE,					"Network profile",						"2.1",		new File(""),				"",
-																			"File specifying the network profile used by the distributed PRISM simulator." }
+																			"File specifying the network profile used by the distributed PRISM simulator." },
+			{ INTEGER_TYPE,		SIMULATOR_THREADS,						"Sampling threads",						"4.7",		Integer.valueOf(1),				"1,",
+																			"Number of threads used to generate sample paths for approximate (simulation-based) model checking." },
+			{ INTEGER_TYPE,		SIMULATOR_SEED,							"Random seed",							"4.7",		Integer.valueOf(0),				"",
+																			"Seed for the random number generator used for approximate (simulation-based) model checking. Results are reproducible for a fixed (non-zero) seed and number of sampling threads; 0 means use a different seed each time." }
 		},
 		{
 			{ BOOLEAN_TYPE,		MODEL_AUTO_PARSE,						"Auto parse",							"2.1",			Boolean.valueOf(true),															"",																							"Parse PRISM models automatically as they are loaded/edited in the text editor." },
@@ -598,6 +655,29 @@ public class PrismSettings implements Observer
 		// (that way, we get a fresh set of Setting objects)
 		this();
 		// Then, copy across options
+		copyFrom(settings);
+	}
+
+	/**
+	 * Get a string describing the values of all (non-GUI) settings, except those with keys
+	 * in {@code exclude}, in a fixed order, e.g., for use as part of a cache key.
+	 */
+	public synchronized String getValuesString(Set<String> exclude)
+	{
+		StringBuilder sb = new StringBuilder();
+		for (String key : new TreeSet<>(data.keySet())) {
+			if ((key.startsWith("prism.") || key.startsWith("simulator.")) && !exclude.contains(key)) {
+				sb.append(key).append('=').append(data.get(key).getValue()).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Set all options to the values of those in another PrismSettings object.
+	 */
+	public synchronized void copyFrom(PrismSettings settings)
+	{
 		for (Map.Entry<String,Setting> e : settings.data.entrySet()) {
 			try {
 				set(e.getKey(), e.getValue().getValue());
@@ -1132,6 +1212,26 @@ public class PrismSettings implements Observer
 			set(PRISM_PMAX_QUOTIENT, true);
 		}
 
+		// Automatic bisimulation minimisation
+		else if (sw.equals("bisimauto")) {
+			set(PRISM_BISIM_AUTO, true);
+		}
+		else if (sw.equals("bisimautoratio")) {
+			if (i < args.length - 1) {
+				try {
+					d = Double.parseDouble(args[++i]);
+					if (d < 0 || d > 1)
+						throw new NumberFormatException("");
+					set(PRISM_BISIM_AUTO, true);
+					set(PRISM_BISIM_AUTO_RATIO, d);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+
 		// Topological VI
 		else if (sw.equals("topological")) {
 			set(PRISM_TOPOLOGICAL_VI, true);
@@ -1187,6 +1287,21 @@ public class PrismSettings implements Observer
 				throw new PrismException("No value specified for -" + sw + " switch");
 			}
 		}
+		// Number of threads for value iteration
+		else if (sw.equals("iterthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_ITERATION_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
 		// export iterations
 		else if (sw.equals("exportiterations")) {
 			set(PRISM_EXPORT_ITERATIONS, true);
@@ -1249,6 +1364,136 @@ public class PrismSettings implements Observer
 		else if (sw.equals("nofixdl")) {
 			set(PRISM_FIX_DEADLOCKS, false);
 		}
+		// State storage for explicit model construction
+		else if (sw.equals("statestorage")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("default"))
+					set(PRISM_STATE_STORAGE, "Default");
+				else if (s.equals("packed"))
+					set(PRISM_STATE_STORAGE, "Bit-packed");
+				else if (s.equals("packedoffheap"))
+					set(PRISM_STATE_STORAGE, "Bit-packed (off-heap)");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: default, packed, packedoffheap)");
+			} else {
+				throw new PrismException("No parameter specified for -" + sw + " switch");
+			}
+		}
+		// Storage of explicit models
+		else if (sw.equals("modelstorage")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("default"))
+					set(PRISM_MODEL_STORAGE, "Default");
+				else if (s.equals("offheap"))
+					set(PRISM_MODEL_STORAGE, "Off-heap");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: default, offheap)");
+			} else {
+				throw new PrismException("No parameter specified for -" + sw + " switch");
+			}
+		}
+		// Number of threads for explicit model construction
+		else if (sw.equals("constructthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_CONSTRUCT_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// Number of threads for running experiments
+		else if (sw.equals("experimentthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_EXPERIMENT_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// Re-use of model structure on/off
+		else if (sw.equals("reusestructure")) {
+			set(PRISM_REUSE_MODEL_STRUCTURE, true);
+		}
+		else if (sw.equals("noreusestructure")) {
+			set(PRISM_REUSE_MODEL_STRUCTURE, false);
+		}
+		// Persistent cache of models/results
+		else if (sw.equals("cachedir")) {
+			if (i < args.length - 1) {
+				set(PRISM_CACHE_DIR, args[++i]);
+			} else {
+				throw new PrismException("No directory specified for -" + sw + " switch");
+			}
+		}
+		else if (sw.equals("cachesize")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_CACHE_SIZE, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// Warm starts on/off
+		else if (sw.equals("warmstart")) {
+			set(PRISM_WARM_START, true);
+		}
+		else if (sw.equals("nowarmstart")) {
+			set(PRISM_WARM_START, false);
+		}
+		// Expression compilation on/off
+		else if (sw.equals("compileexprs")) {
+			set(PRISM_COMPILE_EXPRESSIONS, true);
+		}
+		else if (sw.equals("nocompileexprs")) {
+			set(PRISM_COMPILE_EXPRESSIONS, false);
+		}
+		// Number of threads for sampling
+		else if (sw.equals("simthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(SIMULATOR_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		// Random seed for sampling
+		else if (sw.equals("simseed")) {
+			if (i < args.length - 1) {
+				try {
+					set(SIMULATOR_SEED, Integer.parseInt(args[++i]));
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
 		// Fairness on/off
 		else if (sw.equals("fair")) {
 			set(PRISM_FAIRNESS, true);
@@ -1289,8 +1534,12 @@ public class PrismSettings implements Observer
 					set(PRISM_SCC_METHOD, "Lockstep");
 				else if (s.equals("sccfind"))
 					set(PRISM_SCC_METHOD, "SCC-Find");
+				else if (s.equals("tarjan"))
+					set(PRISM_SCC_METHOD_EXPLICIT, "Tarjan");
+				else if (s.equals("parallel"))
+					set(PRISM_SCC_METHOD_EXPLICIT, "Parallel");
 				else
-					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: xiebeerel, lockstep, sccfind)");
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: xiebeerel, lockstep, sccfind, tarjan, parallel)");
 			} else {
 				throw new PrismException("No parameter specified for -" + sw + " switch");
 			}
@@ -1645,6 +1894,47 @@ public class PrismSettings implements Observer
 			boolean b = Boolean.parseBoolean(args[++i]);
 			set(PRISM_PARAM_SUBSUME_REGIONS, b);
 		}
+		else if (sw.equals("paramthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_PARAM_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		else if (sw.equals("paramopcachesize")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 0)
+						throw new NumberFormatException("");
+					set(PRISM_PARAM_OP_CACHE_SIZE, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
+		else if (sw.equals("paramopcachepolicy")) {
+			if (i < args.length - 1) {
+				s = args[++i];
+				if (s.equals("lru"))
+					set(PRISM_PARAM_OP_CACHE_POLICY, "LRU");
+				else if (s.equals("fifo"))
+					set(PRISM_PARAM_OP_CACHE_POLICY, "FIFO");
+				else
+					throw new PrismException("Unrecognised option for -" + sw + " switch (options are: lru, fifo)");
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
 		else if (sw.equals("paramdagmaxerror")) {
 			try {
 				d = Double.parseDouble(args[++i]);
@@ -1732,6 +2022,21 @@ public class PrismSettings implements Observer
 				throw new PrismException("No value specified for -" + sw + " switch");
 			}
 		}
+		// Number of threads for fast adaptive uniformisation
+		else if (sw.equals("fauthreads")) {
+			if (i < args.length - 1) {
+				try {
+					j = Integer.parseInt(args[++i]);
+					if (j < 1)
+						throw new NumberFormatException("");
+					set(PRISM_FAU_THREADS, j);
+				} catch (NumberFormatException e) {
+					throw new PrismException("Invalid value for -" + sw + " switch");
+				}
+			} else {
+				throw new PrismException("No value specified for -" + sw + " switch");
+			}
+		}
 
 		// HIDDEN OPTIONS
 		
@@ -1862,6 +2167,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-absolute (or -abs) ............ Use absolute error for detecting convergence");
 		mainLog.println("-epsilon <x> (or -e <x>) ....... Set value of epsilon (for convergence check) [default: 1e-6]");
 		mainLog.println("-maxiters <n> .................. Set max number of iterations [default: 10000]");
+		mainLog.println("-iterthreads <n> ............... Number of threads for explicit-engine value iteration [default: 1]");
 		mainLog.println("-gridresolution <n> .............Set resolution for fixed grid approximation (POMDP) [default: 10]");
 		
 		mainLog.println();
@@ -1874,11 +2180,20 @@ public class PrismSettings implements Observer
 		mainLog.println("-nofair ........................ Don't use fairness (for model checking of MDPs) [default]");
 		mainLog.println("-fixdl ......................... Automatically put self-loops in deadlock states [default]");
 		mainLog.println("-nofixdl ....................... Do not automatically put self-loops in deadlock states");
+		mainLog.println("-statestorage <name> ........... Explicit state storage (default, packed, packedoffheap) [default: default]");
+		mainLog.println("-constructthreads <n> .......... Number of threads for explicit model construction [default: 1]");
+		mainLog.println("-experimentthreads <n> ......... Number of threads for running experiment model iterations [default: 1]");
+		mainLog.println("-noreusestructure .............. Rebuild the model, rather than re-use its structure, when only probabilities/rates change");
+		mainLog.println("-warmstart ..................... Warm-start iterative methods from previous solutions when re-using model structure");
+		mainLog.println("-cachedir <dir> ................ Use a persistent cache of built models/results in directory <dir>");
+		mainLog.println("-cachesize <n> ................. Maximum size of the persistent cache in MB [default: 1024]");
+		mainLog.println("-modelstorage <name> ........... Explicit model storage (default, offheap) [default: default]");
+		mainLog.println("-nocompileexprs ................ Interpret, rather than compile, model expressions during exploration");
 		mainLog.println("-noprobchecks .................. Disable checks on model probabilities/rates");
 		mainLog.println("-sumroundoff <x> ............... Set probability sum threshold [default: 1-e5]");
 		mainLog.println("-zerorewardcheck ............... Check for absence of zero-reward loops");
 		mainLog.println("-nossdetect .................... Disable steady-state detection for CTMC transient computations");
-		mainLog.println("-sccmethod <name> .............. Specify (symbolic) SCC computation method (xiebeerel, lockstep, sccfind)");
+		mainLog.println("-sccmethod <name> .............. Specify SCC computation method: symbolic (xiebeerel, lockstep, sccfind) or explicit (tarjan, parallel)");
 		mainLog.println("-symm <string> ................. Symmetry reduction options string");
 		mainLog.println("-aroptions <string> ............ Abstraction-refinement engine options string");
 		mainLog.println("-pathviaautomata ............... Handle all path formulas via automata constructions");
@@ -1889,6 +2204,8 @@ public class PrismSettings implements Observer
 		mainLog.println("-ltl2dasyntax <x> .............. Specify output format for -ltl2datool switch (lbt, spin, spot, rabinizer)");
 		mainLog.println("-exportiterations .............. Export vectors for iteration algorithms to file");
 		mainLog.println("-pmaxquotient .................. For Pmax computations in MDPs, compute in the MEC quotient");
+		mainLog.println("-bisimauto ..................... Minimise the model by bisimulation first, if it shrinks enough (explicit engine)");
+		mainLog.println("-bisimautoratio <x> ............ Max. ratio of minimised/original states for -bisimauto [default: 0.8]");
 		
 		mainLog.println();
 		mainLog.println("MULTI-OBJECTIVE MODEL CHECKING:");
@@ -1924,6 +2241,9 @@ public class PrismSettings implements Observer
 		mainLog.println("-paramrandompoints <n> ......... Set number of random points to evaluate per region [default: 5]");
 		mainLog.println("-paramsubsumeregions <b> ....... Subsume adjacent regions during analysis [default: true]");
 		mainLog.println("-paramdagmaxerror <b> .......... Maximal error probability allowed for DAG function representation [default: 1E-100]");
+		mainLog.println("-paramthreads <n> .............. Number of threads for checking parameter regions [default: 1]");
+		mainLog.println("-paramopcachesize <n> .......... Max entries of each function operation cache, 0 to disable [default: 1000000]");
+		mainLog.println("-paramopcachepolicy <name> ..... Set eviction policy of function operation caches (lru,fifo) [default: lru]");
 		mainLog.println();
 		mainLog.println("FAST ADAPTIVE UNIFORMISATION (FAU) OPTIONS:");
 		mainLog.println("-fauepsilon <x> ................ Set probability threshold of birth process in FAU [default: 1e-6]");
@@ -1931,6 +2251,7 @@ public class PrismSettings implements Observer
 		mainLog.println("-fauarraythreshold <x> ......... Set threshold when to switch to sparse matrix in FAU [default: 100]");
 		mainLog.println("-fauintervals <x> .............. Set number of intervals to divide time intervals into for FAU [default: 1]");
 		mainLog.println("-fauinitival <x> ............... Set length of additional initial time interval for FAU [default: 1.0]");
+		mainLog.println("-fauthreads <n> ................ Number of threads for state exploration and iterations in FAU [default: 1]");
 	}
 
 	/**
@@ -26,6 +26,8 @@
 
 package pta;
 
+import java.util.Arrays;
+
 /**
  * Implementation of the difference-bound matrix (DBM) data structure.
  * 
@@ -37,13 +39,16 @@ public class DBM extends Zone
 {
 	/* Parent PTA */
 	protected PTA pta;
+	/* Number of rows/columns of the DBM, i.e. numClocks+1 */
+	protected int dim;
 	/*
 	 * Canonical zone representation: DBM
-	 * (numClocks+1)^2 matrix d, indexed 1...numClocks for clocks in PTA and 0 for special zero clock.
-	 * Each entry d[i][j] gives the bound for clock difference xi-xj.
+	 * (numClocks+1)^2 matrix d, indexed 1...numClocks for clocks in PTA and 0 for special zero clock,
+	 * stored row by row in a single array, i.e. entry (i,j) is d[i*dim+j].
+	 * Each entry (i,j) gives the bound for clock difference xi-xj.
 	 * Difference bounds are encoded as a single integer; see help class DB for details.
 	 */
-	protected int d[][];
+	protected int d[];
 
 	/**
 	 * Construct an empty DBM (don't use this).
@@ -51,7 +56,18 @@ public class DBM extends Zone
 	public DBM(PTA pta)
 	{
 		this.pta = pta;
-		this.d = new int[pta.numClocks + 1][pta.numClocks + 1];
+		this.dim = pta.numClocks + 1;
+		this.d = new int[dim * dim];
+	}
+
+	/**
+	 * Construct a DBM with the given matrix (stored row by row), which is not copied.
+	 */
+	private DBM(PTA pta, int d[])
+	{
+		this.pta = pta;
+		this.dim = pta.numClocks + 1;
+		this.d = d;
 	}
 
 	// Methods required for Zone interface
@@ -73,31 +89,17 @@ public class DBM extends Zone
 	{
 		// Check if this causes inconsistency (i.e. zone emptiness)
 		// and, if so, flag this by setting d[0][0] to -1;
-		if (DB.add(d[y][x], db) < DB.LEQ_ZERO)
-			d[0][0] = DB.LEQ_MINUS_ONE;
+		if (DB.add(d[y * dim + x], db) < DB.LEQ_ZERO)
+			d[0] = DB.LEQ_MINUS_ONE;
 		// Now add the constraint (if it is tighter than existing one)
-		else if (db < d[x][y]) {
-			int i, j, n, dTmp;
+		else if (db < d[x * dim + y]) {
 			// Store new constraint
-			d[x][y] = db;
-			// Partial re-canonicalisation
+			d[x * dim + y] = db;
+			// Incremental re-canonicalisation: only paths via x or y can have got shorter.
 			// Note we do 2 (separate) outer iterations of Floyd-Warshall,
 			// unlike the incorrect formulation in the DBM algorithm notes.
-			n = pta.numClocks;
-			for (i = 0; i < n + 1; i++) {
-				for (j = 0; j < n + 1; j++) {
-					dTmp = DB.add(d[i][x], d[x][j]);
-					if (dTmp < d[i][j])
-						d[i][j] = dTmp;
-				}
-			}
-			for (i = 0; i < n + 1; i++) {
-				for (j = 0; j < n + 1; j++) {
-					dTmp = DB.add(d[i][y], d[y][j]);
-					if (dTmp < d[i][j])
-						d[i][j] = dTmp;
-				}
-			}
+			closeVia(x);
+			closeVia(y);
 		}
 	}
 
@@ -123,13 +125,14 @@ public class DBM extends Zone
 	 */
 	public void intersect(Zone z)
 	{
-		int i, j, n;
+		int i, j, db;
 		DBM dbm = (DBM) z;
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				if (i != j && !DB.isInfty(dbm.d[i][j]))
-					addConstraint(i, j, dbm.d[i][j]);
+		for (i = 0; i < dim; i++) {
+			for (j = 0; j < dim; j++) {
+				db = dbm.d[i * dim + j];
+				// (addConstraint ignores constraints that are not tighter)
+				if (i != j && !DB.isInfty(db))
+					addConstraint(i, j, db);
 			}
 		}
 	}
@@ -139,10 +142,9 @@ public class DBM extends Zone
 	 */
 	public void up(Iterable<Constraint> constraints)
 	{
-		int i, n;
-		n = pta.numClocks;
-		for (i = 1; i < n + 1; i++) {
-			d[i][0] = DB.INFTY;
+		int i;
+		for (i = 1; i < dim; i++) {
+			d[i * dim] = DB.INFTY;
 		}
 		if (constraints != null) {
 			for (Constraint c : constraints) {
@@ -156,13 +158,12 @@ public class DBM extends Zone
 	 */
 	public void down(Iterable<Constraint> constraints)
 	{
-		int i, j, n;
-		n = pta.numClocks;
-		for (i = 1; i < n + 1; i++) {
-			d[0][i] = DB.LEQ_ZERO;
-			for (j = 1; j < n + 1; j++) {
-				if (d[j][i] < d[0][i])
-					d[0][i] = d[j][i];
+		int i, j;
+		for (i = 1; i < dim; i++) {
+			d[i] = DB.LEQ_ZERO;
+			for (j = 1; j < dim; j++) {
+				if (d[j * dim + i] < d[i])
+					d[i] = d[j * dim + i];
 			}
 		}
 		if (constraints != null) {
@@ -177,12 +178,11 @@ public class DBM extends Zone
 	 */
 	public void free(int x)
 	{
-		int i, n;
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
+		int i;
+		for (i = 0; i < dim; i++) {
 			if (i != x) {
-				d[x][i] = DB.INFTY;
-				d[i][x] = d[i][0];
+				d[x * dim + i] = DB.INFTY;
+				d[i * dim + x] = d[i * dim];
 			}
 		}
 	}
@@ -192,11 +192,12 @@ public class DBM extends Zone
 	 */
 	public void reset(int x, int v)
 	{
-		int i, n;
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			d[x][i] = DB.add(DB.createLeq(v), d[0][i]);
-			d[i][x] = DB.add(d[i][0], DB.createLeq(-v));
+		int i, leqV, leqMinusV;
+		leqV = DB.createLeq(v);
+		leqMinusV = DB.createLeq(-v);
+		for (i = 0; i < dim; i++) {
+			d[x * dim + i] = DB.add(leqV, d[i]);
+			d[i * dim + x] = DB.add(d[i * dim], leqMinusV);
 		}
 	}
 
@@ -218,20 +219,24 @@ public class DBM extends Zone
 	 */
 	public void cClosure(int c)
 	{
-		int i, j, n;
+		int i, leqC, ltMinusC;
+		boolean changed = false;
 		if (isEmpty())
 			return;
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				if (!DB.isInfty(d[i][j]) && DB.createLeq(c) < d[i][j]) {
-					d[i][j] = DB.INFTY;
-				} else if (!DB.isInfty(d[i][j]) && d[i][j] < DB.createLt(-c)) {
-					d[i][j] = DB.createLt(-c);
-				}
+		leqC = DB.createLeq(c);
+		ltMinusC = DB.createLt(-c);
+		for (i = 0; i < d.length; i++) {
+			if (!DB.isInfty(d[i]) && leqC < d[i]) {
+				d[i] = DB.INFTY;
+				changed = true;
+			} else if (!DB.isInfty(d[i]) && d[i] < ltMinusC) {
+				d[i] = ltMinusC;
+				changed = true;
 			}
 		}
-		canonicalise();
+		// Bounds only get looser, so nothing to do if none changed
+		if (changed)
+			canonicalise();
 	}
 
 	// Zone operations (create new zone)
@@ -243,21 +248,20 @@ public class DBM extends Zone
 	{
 		DBMList list = new DBMList(pta);
 		DBM dbmNew;
-		int i, j, n;
+		int i, j;
 		// Special case: complement of empty DBM is True
 		if (isEmpty()) {
 			list.addDBM(createTrue(pta));
 			return list;
 		}
-		n = d.length - 1;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
+		for (i = 0; i < dim; i++) {
+			for (j = 0; j < dim; j++) {
 				if (i == j)
 					continue;
-				if (DB.isInfty(d[i][j]))
+				if (DB.isInfty(d[i * dim + j]))
 					continue;
-				dbmNew = (DBM) new DBMFactory().createTrue(pta);
-				dbmNew.addConstraint(j, i, DB.dual(d[i][j]));
+				dbmNew = createTrue(pta);
+				dbmNew.addConstraint(j, i, DB.dual(d[i * dim + j]));
 				if (!dbmNew.isEmpty()) {
 					list.addDBM(dbmNew);
 				}
@@ -275,7 +279,7 @@ public class DBM extends Zone
 	{
 		// Internally, inconsistency is flagged by setting d[0][0] to -1.
 		// (Note: strictly speaking "<0" checks that the difference bound is less than "<0".)
-		return d[0][0] < 0;
+		return d[0] < 0;
 	}
 
 	/**
@@ -283,7 +287,7 @@ public class DBM extends Zone
 	 */
 	public boolean isSatisfied(Constraint c)
 	{
-		return DB.add(c.db, d[c.y][c.x]) > 0;
+		return DB.add(c.db, d[c.y * dim + c.x]) > 0;
 	}
 
 	/**
@@ -291,14 +295,11 @@ public class DBM extends Zone
 	 */
 	public boolean includes(DBM dbm)
 	{
-		int i, j, n;
-		int[][] d2 = dbm.d;
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				if (d[i][j] < d2[i][j])
-					return false;
-			}
+		int i;
+		int[] d2 = dbm.d;
+		for (i = 0; i < d.length; i++) {
+			if (d[i] < d2[i])
+				return false;
 		}
 		return true;
 	}
@@ -308,7 +309,7 @@ public class DBM extends Zone
 	 */
 	public int getClockMin(int x)
 	{
-		return -DB.getSignedDiff(d[0][x]);
+		return -DB.getSignedDiff(d[x]);
 	}
 	
 	/**
@@ -316,7 +317,7 @@ public class DBM extends Zone
 	 */
 	public int getClockMax(int x)
 	{
-		return DB.getSignedDiff(d[x][0]);
+		return DB.getSignedDiff(d[x * dim]);
 	}
 	
 	/**
@@ -324,7 +325,7 @@ public class DBM extends Zone
 	 */
 	public boolean clockIsUnbounded(int x)
 	{
-		return DB.isInfty(d[x][0]);
+		return DB.isInfty(d[x * dim]);
 	}
 	
 	/**
@@ -332,10 +333,9 @@ public class DBM extends Zone
 	 */
 	public boolean allClocksAreUnbounded()
 	{
-		int i, n;
-		n = pta.numClocks;
-		for (i = 1; i < n + 1; i++) {
-			if (!DB.isInfty(d[i][0])) {
+		int i;
+		for (i = 1; i < dim; i++) {
+			if (!DB.isInfty(d[i * dim])) {
 				return false;
 			}
 		}
@@ -349,16 +349,7 @@ public class DBM extends Zone
 	 */
 	public DBM deepCopy()
 	{
-		int i, j, n;
-		DBM copy = new DBM(pta);
-		n = pta.numClocks;
-		copy.d = new int[n + 1][n + 1];
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				copy.d[i][j] = d[i][j];
-			}
-		}
-		return copy;
+		return new DBM(pta, d.clone());
 	}
 
 	/**
@@ -373,35 +364,18 @@ public class DBM extends Zone
 
 	public int hashCode()
 	{
-		int n = pta.numClocks + 1;
 		int hash = 0;
-		for (int i = 0; i < n; i++) {
-			for (int j = 0; j < n; j++) {
-				hash = (hash * 7) + d[i][j];
-			}
+		for (int i = 0; i < d.length; i++) {
+			hash = (hash * 7) + d[i];
 		}
 		return hash;
 	}
 
 	public boolean equals(Object o)
 	{
-		DBM dbm;
-		int i, j, n;
-		if (o == null)
+		if (!(o instanceof DBM))
 			return false;
-		try {
-			dbm = (DBM) o;
-		} catch (ClassCastException e) {
-			return false;
-		}
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				if (d[i][j] != dbm.d[i][j])
-					return false;
-			}
-		}
-		return true;
+		return Arrays.equals(d, ((DBM) o).d);
 	}
 
 	// To string methods
@@ -416,25 +390,24 @@ public class DBM extends Zone
 	 */
 	public String toStringTextual()
 	{
-		int i, j, n;
+		int i, j;
 		boolean first = true;
 		String s = "", s2;
-		n = pta.numClocks;
 		// Trivial case - empty
 		if (isEmpty())
 			return "empty";
 		// Generate textual description for each difference (pair)
-		for (i = 0; i < n + 1; i++) {
-			for (j = i + 1; j < n + 1; j++) {
+		for (i = 0; i < dim; i++) {
+			for (j = i + 1; j < dim; j++) {
 				s2 = null;
-				if (!DB.isInfty(d[i][j])) {
-					if (!DB.isInfty(d[j][i])) {
-						s2 = DB.constraintPairToString(i, j, d[i][j], d[j][i], pta);
+				if (!DB.isInfty(d[i * dim + j])) {
+					if (!DB.isInfty(d[j * dim + i])) {
+						s2 = DB.constraintPairToString(i, j, d[i * dim + j], d[j * dim + i], pta);
 					} else {
-						s2 = DB.constraintToString(i, j, d[i][j], pta);
+						s2 = DB.constraintToString(i, j, d[i * dim + j], pta);
 					}
-				} else if (!DB.isInfty(d[j][i])) {
-					s2 = DB.constraintToString(j, i, d[j][i], pta);
+				} else if (!DB.isInfty(d[j * dim + i])) {
+					s2 = DB.constraintToString(j, i, d[j * dim + i], pta);
 				}
 				if (s2 != null) {
 					if (!first)
@@ -456,16 +429,15 @@ public class DBM extends Zone
 	 */
 	public String toStringDBM()
 	{
-		int i, j, n;
+		int i, j;
 		String s = "[ ";
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
+		for (i = 0; i < dim; i++) {
+			for (j = 0; j < dim; j++) {
 				if (j > 0)
 					s += " ";
-				s += DB.toString(d[i][j]);
+				s += DB.toString(d[i * dim + j]);
 			}
-			if (i < n)
+			if (i < dim - 1)
 				s += ", ";
 		}
 		s += " ]";
@@ -479,15 +451,28 @@ public class DBM extends Zone
 	 */
 	private void canonicalise()
 	{
-		int k, i, j, db, n;
-		n = pta.numClocks;
-		for (k = 0; k < n + 1; k++) {
-			for (i = 0; i < n + 1; i++) {
-				for (j = 0; j < n + 1; j++) {
-					db = DB.add(d[i][k], d[k][j]);
-					if (db < d[i][j])
-						d[i][j] = db;
-				}
+		for (int k = 0; k < dim; k++) {
+			closeVia(k);
+		}
+	}
+
+	/**
+	 * Single (outer) iteration of Floyd-Warshall, i.e. shorten all paths via clock k.
+	 */
+	private void closeVia(int k)
+	{
+		int i, j, iRow, kRow, dik, db;
+		kRow = k * dim;
+		for (i = 0; i < dim; i++) {
+			iRow = i * dim;
+			dik = d[iRow + k];
+			// Nothing gets shorter via an infinite bound
+			if (DB.isInfty(dik))
+				continue;
+			for (j = 0; j < dim; j++) {
+				db = DB.add(dik, d[kRow + j]);
+				if (db < d[iRow + j])
+					d[iRow + j] = db;
 			}
 		}
 	}
@@ -499,14 +484,8 @@ public class DBM extends Zone
 	 */
 	public static DBM createZero(PTA pta)
 	{
-		int i, j, n;
 		DBM dbm = new DBM(pta);
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				dbm.d[i][j] = DB.LEQ_ZERO;
-			}
-		}
+		Arrays.fill(dbm.d, DB.LEQ_ZERO);
 		return dbm;
 	}
 
@@ -515,18 +494,13 @@ public class DBM extends Zone
 	 */
 	public static DBM createTrue(PTA pta)
 	{
-		int i, j, n;
+		int i;
 		DBM dbm = new DBM(pta);
-		n = pta.numClocks;
-		for (i = 0; i < n + 1; i++) {
-			for (j = 0; j < n + 1; j++) {
-				if (i == j)
-					dbm.d[i][j] = DB.LEQ_ZERO;
-				else if (i == 0)
-					dbm.d[i][j] = DB.LEQ_ZERO;
-				else
-					dbm.d[i][j] = DB.INFTY;
-			}
+		// First row (0-xj <= 0) and diagonal are <=0, all else unbounded
+		Arrays.fill(dbm.d, DB.INFTY);
+		for (i = 0; i < dbm.dim; i++) {
+			dbm.d[i] = DB.LEQ_ZERO;
+			dbm.d[i * dbm.dim + i] = DB.LEQ_ZERO;
 		}
 		return dbm;
 	}
@@ -44,6 +44,9 @@ public class ForwardsReach
 	protected BitSet target; // Bit set specifying target states
 	protected List<Integer> initialStates; // Initial states
 
+	// Options
+	protected boolean zoneSubsumption = true; // Map zones to stored ones including them?
+
 	// Constructors
 
 	public ForwardsReach()
@@ -56,6 +59,18 @@ public class ForwardsReach
 		this.mainLog = log;
 	}
 
+	// Setters for options
+
+	/**
+	 * Set whether, during forwards reachability, a zone that is included in an already stored zone
+	 * (for the same location) is mapped to the latter, and a larger zone replaces an unexplored one,
+	 * rather than only identical zones being merged. Default: true.
+	 */
+	public void setZoneSubsumption(boolean zoneSubsumption)
+	{
+		this.zoneSubsumption = zoneSubsumption;
+	}
+
 	// Accessors for other info generated during construction of reachability graph
 
 	public BitSet getTarget()
@@ -88,12 +103,10 @@ public class ForwardsReach
 	throws PrismException
 	{
 		LocZone init, lz, lz2;
-		LinkedList<LocZone> X;
-		StateStorage<LocZone> Yset;
-		//LocZoneSetOld Zset;
+		PassedWaitingList Yset;
 		ReachabilityGraph graph;
 		int src, dest, count, dests[];
-		boolean canDiverge;
+		boolean canDiverge, subsume;
 		long timer;
 
 		// Store target info
@@ -113,8 +126,8 @@ public class ForwardsReach
 		
 		// Initialise data structures
 		graph = new ReachabilityGraph(pta);
-		Yset = new IndexedSet<LocZone>();
-		X = new LinkedList<LocZone>();
+		// (passed/waiting list: Y, with its unexplored part X)
+		Yset = new PassedWaitingList();
 		target = new BitSet();
 
 		// Build initial symbolic state (NB: assume initial location = 0)
@@ -122,14 +135,13 @@ public class ForwardsReach
 
 		// Reachability loop
 		Yset.add(init);
-		X.add(init);
 		src = -1;
 		// While there are unexplored symbolic states (in X)...
-		while (!X.isEmpty()) {
+		while (!Yset.waitingIsEmpty()) {
 			// Pick next state to explore
-			// X is a list containing states in order found
+			// X contains states in order found
 			// (so we know index of lz is src+1)
-			lz = X.removeFirst();
+			lz = Yset.removeWaiting();
 			src++;
 			// Compute timed post for this zone (NB: do this before checking if target)
 			lz = lz.deepCopy();
@@ -194,11 +206,13 @@ public class ForwardsReach
 					lz2 = lz.deepCopy();
 					lz2.dPost(edge);
 					lz2.cClosure(pta);
-					// If non-empty, create edge, also adding state to X if new 
+					// If non-empty, create edge, also adding state to X if new
+					// (or mapping it to a stored state with a larger zone).
+					// Subsumption could change which states are targets if there is
+					// a target constraint, so in that case only for non-target locations.
 					if (!lz2.zone.isEmpty()) {
-						if (Yset.add(lz2)) {
-							X.add(lz2);
-						}
+						subsume = zoneSubsumption && (targetConstraint == null || !targetLocs.get(lz2.loc));
+						Yset.add(lz2, subsume);
 						dest = Yset.getIndexOfLastAdd();
 						enabled = true;
 						dests[count] = dest;
@@ -252,6 +266,9 @@ public class ForwardsReach
 		mainLog.println("Graph constructed in " + (timer / 1000.0) + " secs.");
 		mainLog.print("Graph: " + graph.states.size() + " symbolic states");
 		mainLog.println(" (" + initialStates.size() + " initial, " + target.cardinality() + " target)");
+		if (zoneSubsumption) {
+			mainLog.println("Zone subsumption: " + Yset.getNumSubsumed() + " zones included in stored ones, " + Yset.getNumReplaced() + " unexplored zones enlarged");
+		}
 
 		// Print a warning if there are no target states
 		if (target.cardinality() == 0)
@@ -0,0 +1,187 @@
+//==============================================================================
+//	
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <david.parker@comlab.ox.ac.uk> (University of Oxford)
+//	
+//------------------------------------------------------------------------------
+//	
+//	This file is part of PRISM.
+//	
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//	
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//	
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//	
+//==============================================================================
+
+package pta;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Passed/waiting list of symbolic states (location/zone pairs) for forwards reachability.
+ * States are indexed (from 0) in the order they are first stored, and are explored in this order,
+ * so the waiting states are exactly those with index greater or equal to that of the next state to explore.
+ * 
+ * When storing a state, it is first looked up exactly (hashing on location and clock bounds).
+ * If it is not present and zone subsumption is requested, the zones stored for the same location
+ * are checked for inclusion: a state whose zone is included in a stored one is mapped to the latter,
+ * and a waiting state whose zone is included in the new one is replaced by it (keeping its index).
+ * All zones are assumed to be DBMs.
+ */
+public class PassedWaitingList
+{
+	// All stored states, by index
+	private ArrayList<LocZone> states;
+	// Exact lookup of states (location and clock bounds) to indices
+	private HashMap<LocZone, Integer> index;
+	// Indices of stored states, for each location
+	private HashMap<Integer, ArrayList<Integer>> locStates;
+	// Index of next state to explore
+	private int next;
+	// Index of state that most recent store was mapped to
+	private int indexOfLastAdd;
+	// Number of stores mapped to a stored state with a larger zone
+	private int numSubsumed;
+	// Number of waiting states replaced by a state with a larger zone
+	private int numReplaced;
+
+	public PassedWaitingList()
+	{
+		states = new ArrayList<LocZone>();
+		index = new HashMap<LocZone, Integer>();
+		locStates = new HashMap<Integer, ArrayList<Integer>>();
+		next = 0;
+		indexOfLastAdd = -1;
+		numSubsumed = 0;
+		numReplaced = 0;
+	}
+
+	/**
+	 * Store a state, with zone subsumption, and add it to the waiting list if it is new.
+	 * Returns true if a new index was created. The index that the state has been mapped to
+	 * can be obtained with {@link #getIndexOfLastAdd()}.
+	 */
+	public boolean add(LocZone lz)
+	{
+		return add(lz, true);
+	}
+
+	/**
+	 * Store a state, and add it to the waiting list if it is new.
+	 * Returns true if a new index was created. The index that the state has been mapped to
+	 * can be obtained with {@link #getIndexOfLastAdd()}.
+	 * @param lz The state to store (not copied)
+	 * @param subsume Whether to apply zone subsumption (otherwise only an identical state is reused)
+	 */
+	public boolean add(LocZone lz, boolean subsume)
+	{
+		Integer i = index.get(lz);
+		if (i != null) {
+			indexOfLastAdd = i;
+			return false;
+		}
+		ArrayList<Integer> list = locStates.get(lz.loc);
+		if (list == null) {
+			list = new ArrayList<Integer>();
+			locStates.put(lz.loc, list);
+		}
+		if (subsume) {
+			DBM dbm = (DBM) lz.zone;
+			// Is the new zone included in a stored one?
+			for (int j : list) {
+				if (((DBM) states.get(j).zone).includes(dbm)) {
+					indexOfLastAdd = j;
+					numSubsumed++;
+					return false;
+				}
+			}
+			// Does the new zone include a waiting one? If so, replace it
+			for (int j : list) {
+				if (j >= next && dbm.includes((DBM) states.get(j).zone)) {
+					index.remove(states.get(j));
+					states.set(j, lz);
+					index.put(lz, j);
+					indexOfLastAdd = j;
+					numReplaced++;
+					return false;
+				}
+			}
+		}
+		indexOfLastAdd = states.size();
+		states.add(lz);
+		index.put(lz, indexOfLastAdd);
+		list.add(indexOfLastAdd);
+		return true;
+	}
+
+	/**
+	 * Is the waiting list empty?
+	 */
+	public boolean waitingIsEmpty()
+	{
+		return next == states.size();
+	}
+
+	/**
+	 * Remove the next state from the waiting list and return it.
+	 * Its index is the number of states removed from the waiting list before.
+	 */
+	public LocZone removeWaiting()
+	{
+		return states.get(next++);
+	}
+
+	public int getIndexOfLastAdd()
+	{
+		return indexOfLastAdd;
+	}
+
+	/**
+	 * Get the number of stored states.
+	 */
+	public int size()
+	{
+		return states.size();
+	}
+
+	/**
+	 * Get the number of stores mapped to a stored state with a larger zone.
+	 */
+	public int getNumSubsumed()
+	{
+		return numSubsumed;
+	}
+
+	/**
+	 * Get the number of waiting states replaced by a state with a larger zone.
+	 */
+	public int getNumReplaced()
+	{
+		return numReplaced;
+	}
+
+	/**
+	 * Get a list of all stored states, by index.
+	 */
+	public ArrayList<LocZone> toArrayList()
+	{
+		return new ArrayList<LocZone>(states);
+	}
+
+	public String toString()
+	{
+		return states.toString();
+	}
+}
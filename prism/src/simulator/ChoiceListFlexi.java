@@ -28,6 +28,7 @@ package simulator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import parser.State;
 import parser.VarList;
@@ -37,6 +38,7 @@ import parser.ast.Update;
 import prism.ModelType;
 import prism.PrismException;
 import prism.PrismLangException;
+import simulator.ExpressionCompiler.UpdateEvaluator;
 
 /**
  * A mutable implementation of {@link simulator.Choice},
@@ -63,6 +65,9 @@ public class ChoiceListFlexi implements Choice
 	// denoting when it can be taken.
 	protected Expression clockGuard;
 
+	// Compiled versions of the Update objects (optional, may be null)
+	protected Map<Update,UpdateEvaluator> compiledUpdates;
+
 	/**
 	 * Create empty choice.
 	 */
@@ -93,6 +98,7 @@ public class ChoiceListFlexi implements Choice
 			probability.add(p);
 		}
 		clockGuard = ch.clockGuard;
+		compiledUpdates = ch.compiledUpdates;
 	}
 
 	// Set methods
@@ -107,6 +113,16 @@ public class ChoiceListFlexi implements Choice
 		this.moduleOrActionIndex = moduleOrActionIndex;
 	}
 
+	/**
+	 * Set the compiled versions of the Update objects used by this choice,
+	 * which are then used in place of Update.update() to compute target states
+	 * (null means Update objects are just interpreted).
+	 */
+	public void setCompiledUpdates(Map<Update,UpdateEvaluator> compiledUpdates)
+	{
+		this.compiledUpdates = compiledUpdates;
+	}
+
 	/**
 	 * Set the clock guard
 	 */
@@ -248,14 +264,18 @@ public class ChoiceListFlexi implements Choice
 	public State computeTarget(int i, State currentState) throws PrismLangException
 	{
 		State newState = new State(currentState);
-		for (Update up : updates.get(i))
-			up.update(currentState, newState);
+		computeTarget(i, currentState, newState);
 		return newState;
 	}
 
 	@Override
 	public void computeTarget(int i, State currentState, State newState) throws PrismLangException
 	{
+		if (compiledUpdates != null) {
+			for (Update up : updates.get(i))
+				compiledUpdates.get(up).update(currentState, newState);
+			return;
+		}
 		for (Update up : updates.get(i))
 			up.update(currentState, newState);
 	}
@@ -0,0 +1,690 @@
+//==============================================================================
+//
+//	Copyright (c) 2002-
+//	Authors:
+//	* Dave Parker <d.a.parker@cs.bham.ac.uk> (University of Birmingham/Oxford)
+//
+//------------------------------------------------------------------------------
+//
+//	This file is part of PRISM.
+//
+//	PRISM is free software; you can redistribute it and/or modify
+//	it under the terms of the GNU General Public License as published by
+//	the Free Software Foundation; either version 2 of the License, or
+//	(at your option) any later version.
+//
+//	PRISM is distributed in the hope that it will be useful,
+//	but WITHOUT ANY WARRANTY; without even the implied warranty of
+//	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+//	GNU General Public License for more details.
+//
+//	You should have received a copy of the GNU General Public License
+//	along with PRISM; if not, write to the Free Software Foundation,
+//	Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+//
+//==============================================================================
+
+package simulator;
+
+import common.SafeCast;
+import parser.State;
+import parser.Values;
+import parser.ast.Expression;
+import parser.ast.ExpressionBinaryOp;
+import parser.ast.ExpressionFunc;
+import parser.ast.ExpressionITE;
+import parser.ast.ExpressionLiteral;
+import parser.ast.ExpressionUnaryOp;
+import parser.ast.ExpressionVar;
+import parser.ast.Update;
+import parser.type.Type;
+import parser.type.TypeBool;
+import parser.type.TypeDouble;
+import parser.type.TypeInt;
+import prism.PrismLangException;
+import prism.PrismUtils;
+
+/**
+ * Compiler from (constant-expanded, type-checked) expressions to trees of specialised
+ * evaluator objects, which work directly on the values stored in a {@link State}
+ * and pass intermediate results around as primitives, rather than walking the AST
+ * and boxing every intermediate value as {@link Expression#evaluate} does.
+ * <br>
+ * Only floating point evaluation is supported. Constructs that are not handled by the
+ * compiler (e.g. clocks, labels, properties, exact arithmetic) are delegated,
+ * on a per-subexpression basis, to the usual interpreter, so compilation never fails.
+ * The resulting evaluators are stateless and can be shared between threads.
+ */
+public class ExpressionCompiler
+{
+	/** Compiled expression of type bool */
+	@FunctionalInterface
+	public interface BooleanEvaluator
+	{
+		public boolean evaluate(State state) throws PrismLangException;
+	}
+
+	/** Compiled expression of type int */
+	@FunctionalInterface
+	public interface IntEvaluator
+	{
+		public int evaluate(State state) throws PrismLangException;
+	}
+
+	/** Compiled expression of type double */
+	@FunctionalInterface
+	public interface DoubleEvaluator
+	{
+		public double evaluate(State state) throws PrismLangException;
+	}
+
+	/** Compiled update, i.e., a list of assignments to variables */
+	@FunctionalInterface
+	public interface UpdateEvaluator
+	{
+		/**
+		 * Execute the update, based on the variable values in {@code oldState},
+		 * applying changes to {@code newState} (which should initially equal {@code oldState}).
+		 */
+		public void update(State oldState, State newState) throws PrismLangException;
+	}
+
+	/** Constant values, used when falling back to the interpreter (may be null) */
+	private Values constantValues;
+
+	// Stats
+	private int numCompiled = 0;
+	private int numInterpreted = 0;
+
+	/**
+	 * Create an expression compiler.
+	 * @param constantValues Values for constants, used for any interpreted subexpressions (may be null)
+	 */
+	public ExpressionCompiler(Values constantValues)
+	{
+		this.constantValues = constantValues;
+	}
+
+	/**
+	 * Get the number of expression nodes that have been compiled so far.
+	 */
+	public int getNumCompiled()
+	{
+		return numCompiled;
+	}
+
+	/**
+	 * Get the number of (maximal) subexpressions so far that are left to the interpreter.
+	 */
+	public int getNumInterpreted()
+	{
+		return numInterpreted;
+	}
+
+	/**
+	 * Compile an expression to be evaluated as a boolean.
+	 */
+	public BooleanEvaluator compileBoolean(Expression expr)
+	{
+		if (expr.getType() instanceof TypeBool) {
+			try {
+				BooleanEvaluator eval = compileBool(expr);
+				if (eval != null) {
+					return eval;
+				}
+			} catch (PrismLangException e) {
+				// Fall through to interpreter
+			}
+		}
+		return interpretBoolean(expr);
+	}
+
+	/**
+	 * Compile an expression to be evaluated as an integer.
+	 */
+	public IntEvaluator compileInt(Expression expr)
+	{
+		if (expr.getType() instanceof TypeInt) {
+			try {
+				IntEvaluator eval = compileI(expr);
+				if (eval != null) {
+					return eval;
+				}
+			} catch (PrismLangException e) {
+				// Fall through to interpreter
+			}
+		}
+		return interpretInt(expr);
+	}
+
+	/**
+	 * Compile an expression to be evaluated as a double.
+	 */
+	public DoubleEvaluator compileDouble(Expression expr)
+	{
+		if (expr.getType() instanceof TypeInt || expr.getType() instanceof TypeDouble) {
+			try {
+				DoubleEvaluator eval = compileD(expr);
+				if (eval != null) {
+					return eval;
+				}
+			} catch (PrismLangException e) {
+				// Fall through to interpreter
+			}
+		}
+		return interpretDouble(expr);
+	}
+
+	/**
+	 * Compile an update, i.e., a list of assignments {@code (x'=e) & ...}.
+	 * The result behaves as {@link Update#update(State, State)}.
+	 */
+	public UpdateEvaluator compileUpdate(Update update)
+	{
+		int n = update.getNumElements();
+		UpdateEvaluator[] elems = new UpdateEvaluator[n];
+		for (int i = 0; i < n; i++) {
+			elems[i] = compileAssignment(update, i);
+		}
+		switch (n) {
+		case 0:
+			return (oldState, newState) -> {};
+		case 1:
+			return elems[0];
+		default:
+			return (oldState, newState) -> {
+				for (UpdateEvaluator elem : elems) {
+					elem.update(oldState, newState);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Compile the {@code i}th assignment of an update.
+	 */
+	private UpdateEvaluator compileAssignment(Update update, int i)
+	{
+		Type varType = update.getType(i);
+		Expression expr = update.getExpression(i);
+		int v = update.getVarIndex(i);
+		if (v >= 0 && varType instanceof TypeInt && expr.getType() instanceof TypeInt) {
+			IntEvaluator eval = compileInt(expr);
+			return (oldState, newState) -> newState.varValues[v] = eval.evaluate(oldState);
+		}
+		if (v >= 0 && varType instanceof TypeBool && expr.getType() instanceof TypeBool) {
+			BooleanEvaluator eval = compileBoolean(expr);
+			return (oldState, newState) -> newState.varValues[v] = eval.evaluate(oldState);
+		}
+		numInterpreted++;
+		return (oldState, newState) -> update.getElement(i).update(oldState, newState);
+	}
+
+	// Fallbacks to the interpreter
+
+	private BooleanEvaluator interpretBoolean(Expression expr)
+	{
+		numInterpreted++;
+		return state -> expr.evaluateBoolean(constantValues, state);
+	}
+
+	private IntEvaluator interpretInt(Expression expr)
+	{
+		numInterpreted++;
+		return state -> expr.evaluateInt(constantValues, state);
+	}
+
+	private DoubleEvaluator interpretDouble(Expression expr)
+	{
+		numInterpreted++;
+		return state -> expr.evaluateDouble(constantValues, state);
+	}
+
+	// Compilation of individual expression nodes.
+	// Each method returns null if the node (but not necessarily its children) cannot be compiled,
+	// and assumes that the (static) type of the expression is the one requested.
+
+	/**
+	 * Compile a boolean-typed expression (or return null if not possible).
+	 */
+	private BooleanEvaluator compileBool(Expression expr) throws PrismLangException
+	{
+		if (expr instanceof ExpressionLiteral) {
+			numCompiled++;
+			boolean b = expr.evaluateBoolean();
+			return b ? state -> true : state -> false;
+		}
+		if (expr instanceof ExpressionVar) {
+			int v = ((ExpressionVar) expr).getIndex();
+			if (v < 0) {
+				return null;
+			}
+			numCompiled++;
+			return state -> {
+				Object o = state.varValues[v];
+				if (o == null) {
+					throw new PrismLangException("Could not evaluate variable", expr);
+				}
+				return (Boolean) o;
+			};
+		}
+		if (expr instanceof ExpressionUnaryOp) {
+			ExpressionUnaryOp e = (ExpressionUnaryOp) expr;
+			switch (e.getOperator()) {
+			case ExpressionUnaryOp.NOT:
+				numCompiled++;
+				BooleanEvaluator op = compileBoolean(e.getOperand());
+				return state -> !op.evaluate(state);
+			case ExpressionUnaryOp.PARENTH:
+				return compileBoolean(e.getOperand());
+			default:
+				return null;
+			}
+		}
+		if (expr instanceof ExpressionITE) {
+			ExpressionITE e = (ExpressionITE) expr;
+			numCompiled++;
+			BooleanEvaluator cond = compileBoolean(e.getOperand1());
+			BooleanEvaluator op1 = compileBoolean(e.getOperand2());
+			BooleanEvaluator op2 = compileBoolean(e.getOperand3());
+			return state -> cond.evaluate(state) ? op1.evaluate(state) : op2.evaluate(state);
+		}
+		if (expr instanceof ExpressionBinaryOp) {
+			return compileBinaryOpBool((ExpressionBinaryOp) expr);
+		}
+		return null;
+	}
+
+	/**
+	 * Compile a boolean-typed binary operator (or return null if not possible).
+	 */
+	private BooleanEvaluator compileBinaryOpBool(ExpressionBinaryOp e) throws PrismLangException
+	{
+		Expression e1 = e.getOperand1();
+		Expression e2 = e.getOperand2();
+		Type t1 = e1.getType();
+		Type t2 = e2.getType();
+		int op = e.getOperator();
+		switch (op) {
+		case ExpressionBinaryOp.IMPLIES:
+		case ExpressionBinaryOp.IFF:
+		case ExpressionBinaryOp.OR:
+		case ExpressionBinaryOp.AND: {
+			numCompiled++;
+			BooleanEvaluator b1 = compileBoolean(e1);
+			BooleanEvaluator b2 = compileBoolean(e2);
+			switch (op) {
+			case ExpressionBinaryOp.IMPLIES:
+				return state -> !b1.evaluate(state) || b2.evaluate(state);
+			case ExpressionBinaryOp.IFF:
+				return state -> b1.evaluate(state) == b2.evaluate(state);
+			case ExpressionBinaryOp.OR:
+				return state -> b1.evaluate(state) || b2.evaluate(state);
+			default:
+				return state -> b1.evaluate(state) && b2.evaluate(state);
+			}
+		}
+		case ExpressionBinaryOp.EQ:
+		case ExpressionBinaryOp.NE:
+			if (t1 instanceof TypeBool && t2 instanceof TypeBool) {
+				numCompiled++;
+				BooleanEvaluator b1 = compileBoolean(e1);
+				BooleanEvaluator b2 = compileBoolean(e2);
+				if (op == ExpressionBinaryOp.EQ) {
+					return state -> b1.evaluate(state) == b2.evaluate(state);
+				} else {
+					return state -> b1.evaluate(state) != b2.evaluate(state);
+				}
+			}
+			return compileRelOpBool(op, e1, e2);
+		case ExpressionBinaryOp.GT:
+		case ExpressionBinaryOp.GE:
+		case ExpressionBinaryOp.LT:
+		case ExpressionBinaryOp.LE:
+			return compileRelOpBool(op, e1, e2);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Compile a numerical comparison ({@code =, !=, >, >=, <, <=}) of {@code e1} and {@code e2}
+	 * (or return null if not possible).
+	 */
+	private BooleanEvaluator compileRelOpBool(int op, Expression e1, Expression e2) throws PrismLangException
+	{
+		Type t1 = e1.getType();
+		Type t2 = e2.getType();
+		if (t1 instanceof TypeInt && t2 instanceof TypeInt) {
+			numCompiled++;
+			IntEvaluator i1 = compileInt(e1);
+			IntEvaluator i2 = compileInt(e2);
+			switch (op) {
+			case ExpressionBinaryOp.EQ:
+				return state -> i1.evaluate(state) == i2.evaluate(state);
+			case ExpressionBinaryOp.NE:
+				return state -> i1.evaluate(state) != i2.evaluate(state);
+			case ExpressionBinaryOp.GT:
+				return state -> i1.evaluate(state) > i2.evaluate(state);
+			case ExpressionBinaryOp.GE:
+				return state -> i1.evaluate(state) >= i2.evaluate(state);
+			case ExpressionBinaryOp.LT:
+				return state -> i1.evaluate(state) < i2.evaluate(state);
+			default:
+				return state -> i1.evaluate(state) <= i2.evaluate(state);
+			}
+		}
+		if (isNumeric(t1) && isNumeric(t2)) {
+			numCompiled++;
+			DoubleEvaluator d1 = compileDouble(e1);
+			DoubleEvaluator d2 = compileDouble(e2);
+			switch (op) {
+			// (In)equality is as for Double.equals(), like the interpreter
+			case ExpressionBinaryOp.EQ:
+				return state -> Double.compare(d1.evaluate(state), d2.evaluate(state)) == 0;
+			case ExpressionBinaryOp.NE:
+				return state -> Double.compare(d1.evaluate(state), d2.evaluate(state)) != 0;
+			case ExpressionBinaryOp.GT:
+				return state -> d1.evaluate(state) > d2.evaluate(state);
+			case ExpressionBinaryOp.GE:
+				return state -> d1.evaluate(state) >= d2.evaluate(state);
+			case ExpressionBinaryOp.LT:
+				return state -> d1.evaluate(state) < d2.evaluate(state);
+			default:
+				return state -> d1.evaluate(state) <= d2.evaluate(state);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Compile an int-typed expression (or return null if not possible).
+	 */
+	private IntEvaluator compileI(Expression expr) throws PrismLangException
+	{
+		if (expr instanceof ExpressionLiteral) {
+			numCompiled++;
+			int i = expr.evaluateInt();
+			return state -> i;
+		}
+		if (expr instanceof ExpressionVar) {
+			int v = ((ExpressionVar) expr).getIndex();
+			if (v < 0) {
+				return null;
+			}
+			numCompiled++;
+			return state -> {
+				Object o = state.varValues[v];
+				if (o == null) {
+					throw new PrismLangException("Could not evaluate variable", expr);
+				}
+				return (Integer) o;
+			};
+		}
+		if (expr instanceof ExpressionUnaryOp) {
+			ExpressionUnaryOp e = (ExpressionUnaryOp) expr;
+			switch (e.getOperator()) {
+			case ExpressionUnaryOp.MINUS:
+				numCompiled++;
+				IntEvaluator op = compileInt(e.getOperand());
+				return state -> {
+					try {
+						return Math.negateExact(op.evaluate(state));
+					} catch (ArithmeticException ex) {
+						throw new PrismLangException(ex.getMessage(), expr);
+					}
+				};
+			case ExpressionUnaryOp.PARENTH:
+				return compileInt(e.getOperand());
+			default:
+				return null;
+			}
+		}
+		if (expr instanceof ExpressionITE) {
+			ExpressionITE e = (ExpressionITE) expr;
+			numCompiled++;
+			BooleanEvaluator cond = compileBoolean(e.getOperand1());
+			IntEvaluator op1 = compileInt(e.getOperand2());
+			IntEvaluator op2 = compileInt(e.getOperand3());
+			return state -> cond.evaluate(state) ? op1.evaluate(state) : op2.evaluate(state);
+		}
+		if (expr instanceof ExpressionBinaryOp) {
+			ExpressionBinaryOp e = (ExpressionBinaryOp) expr;
+			if (!(e.getOperand1().getType() instanceof TypeInt && e.getOperand2().getType() instanceof TypeInt)) {
+				return null;
+			}
+			int op = e.getOperator();
+			if (op != ExpressionBinaryOp.PLUS && op != ExpressionBinaryOp.MINUS && op != ExpressionBinaryOp.TIMES) {
+				return null;
+			}
+			numCompiled++;
+			IntEvaluator i1 = compileInt(e.getOperand1());
+			IntEvaluator i2 = compileInt(e.getOperand2());
+			return state -> {
+				try {
+					switch (op) {
+					case ExpressionBinaryOp.PLUS:
+						return Math.addExact(i1.evaluate(state), i2.evaluate(state));
+					case ExpressionBinaryOp.MINUS:
+						return Math.subtractExact(i1.evaluate(state), i2.evaluate(state));
+					default:
+						return Math.multiplyExact(i1.evaluate(state), i2.evaluate(state));
+					}
+				} catch (ArithmeticException ex) {
+					throw new PrismLangException(ex.getMessage(), expr);
+				}
+			};
+		}
+		if (expr instanceof ExpressionFunc) {
+			return compileFuncInt((ExpressionFunc) expr);
+		}
+		return null;
+	}
+
+	/**
+	 * Compile an int-typed function (or return null if not possible).
+	 */
+	private IntEvaluator compileFuncInt(ExpressionFunc e) throws PrismLangException
+	{
+		switch (e.getNameCode()) {
+		case ExpressionFunc.MIN:
+		case ExpressionFunc.MAX: {
+			int n = e.getNumOperands();
+			IntEvaluator[] ops = new IntEvaluator[n];
+			for (int i = 0; i < n; i++) {
+				if (!(e.getOperand(i).getType() instanceof TypeInt)) {
+					return null;
+				}
+				ops[i] = compileInt(e.getOperand(i));
+			}
+			numCompiled++;
+			if (e.getNameCode() == ExpressionFunc.MIN) {
+				return state -> {
+					int res = ops[0].evaluate(state);
+					for (int i = 1; i < n; i++) {
+						res = Math.min(res, ops[i].evaluate(state));
+					}
+					return res;
+				};
+			} else {
+				return state -> {
+					int res = ops[0].evaluate(state);
+					for (int i = 1; i < n; i++) {
+						res = Math.max(res, ops[i].evaluate(state));
+					}
+					return res;
+				};
+			}
+		}
+		case ExpressionFunc.FLOOR:
+		case ExpressionFunc.CEIL:
+		case ExpressionFunc.ROUND: {
+			int code = e.getNameCode();
+			DoubleEvaluator op = compileDouble(e.getOperand(0));
+			numCompiled++;
+			return state -> {
+				double d = op.evaluate(state);
+				try {
+					switch (code) {
+					case ExpressionFunc.FLOOR:
+						return SafeCast.toIntExact(Math.floor(d));
+					case ExpressionFunc.CEIL:
+						return SafeCast.toIntExact(Math.ceil(d));
+					default:
+						return SafeCast.toIntExact(Math.round(d));
+					}
+				} catch (ArithmeticException ex) {
+					throw new PrismLangException("Error evaluating " + e.getName() + ":" + ex.getMessage(), e);
+				}
+			};
+		}
+		case ExpressionFunc.MOD: {
+			IntEvaluator op1 = compileInt(e.getOperand(0));
+			IntEvaluator op2 = compileInt(e.getOperand(1));
+			numCompiled++;
+			return state -> {
+				int i1 = op1.evaluate(state);
+				int i2 = op2.evaluate(state);
+				// Non-positive divisor not allowed
+				if (i2 <= 0) {
+					throw new PrismLangException("Attempt to compute modulo with non-positive divisor", e);
+				}
+				// Take care of negative case (% is remainder, not modulo)
+				int rem = i1 % i2;
+				return (rem < 0) ? rem + i2 : rem;
+			};
+		}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Compile an int- or double-typed expression, to be evaluated as a double (or return null if not possible).
+	 */
+	private DoubleEvaluator compileD(Expression expr) throws PrismLangException
+	{
+		// Int-typed expressions are compiled as such, then cast
+		if (expr.getType() instanceof TypeInt) {
+			IntEvaluator eval = compileI(expr);
+			if (eval == null) {
+				return null;
+			}
+			return state -> eval.evaluate(state);
+		}
+		if (expr instanceof ExpressionLiteral) {
+			numCompiled++;
+			double d = expr.evaluateDouble();
+			return state -> d;
+		}
+		if (expr instanceof ExpressionUnaryOp) {
+			ExpressionUnaryOp e = (ExpressionUnaryOp) expr;
+			switch (e.getOperator()) {
+			case ExpressionUnaryOp.MINUS:
+				numCompiled++;
+				DoubleEvaluator op = compileDouble(e.getOperand());
+				return state -> -op.evaluate(state);
+			case ExpressionUnaryOp.PARENTH:
+				return compileDouble(e.getOperand());
+			default:
+				return null;
+			}
+		}
+		if (expr instanceof ExpressionITE) {
+			ExpressionITE e = (ExpressionITE) expr;
+			numCompiled++;
+			BooleanEvaluator cond = compileBoolean(e.getOperand1());
+			DoubleEvaluator op1 = compileDouble(e.getOperand2());
+			DoubleEvaluator op2 = compileDouble(e.getOperand3());
+			return state -> cond.evaluate(state) ? op1.evaluate(state) : op2.evaluate(state);
+		}
+		if (expr instanceof ExpressionBinaryOp) {
+			ExpressionBinaryOp e = (ExpressionBinaryOp) expr;
+			if (!(isNumeric(e.getOperand1().getType()) && isNumeric(e.getOperand2().getType()))) {
+				return null;
+			}
+			DoubleEvaluator d1 = compileDouble(e.getOperand1());
+			DoubleEvaluator d2 = compileDouble(e.getOperand2());
+			switch (e.getOperator()) {
+			case ExpressionBinaryOp.PLUS:
+				numCompiled++;
+				return state -> d1.evaluate(state) + d2.evaluate(state);
+			case ExpressionBinaryOp.MINUS:
+				numCompiled++;
+				return state -> d1.evaluate(state) - d2.evaluate(state);
+			case ExpressionBinaryOp.TIMES:
+				numCompiled++;
+				return state -> d1.evaluate(state) * d2.evaluate(state);
+			case ExpressionBinaryOp.DIVIDE:
+				numCompiled++;
+				return state -> d1.evaluate(state) / d2.evaluate(state);
+			default:
+				return null;
+			}
+		}
+		if (expr instanceof ExpressionFunc) {
+			return compileFuncDouble((ExpressionFunc) expr);
+		}
+		return null;
+	}
+
+	/**
+	 * Compile a double-typed function (or return null if not possible).
+	 */
+	private DoubleEvaluator compileFuncDouble(ExpressionFunc e) throws PrismLangException
+	{
+		switch (e.getNameCode()) {
+		case ExpressionFunc.MIN:
+		case ExpressionFunc.MAX: {
+			int n = e.getNumOperands();
+			DoubleEvaluator[] ops = new DoubleEvaluator[n];
+			for (int i = 0; i < n; i++) {
+				if (!isNumeric(e.getOperand(i).getType())) {
+					return null;
+				}
+				ops[i] = compileDouble(e.getOperand(i));
+			}
+			numCompiled++;
+			if (e.getNameCode() == ExpressionFunc.MIN) {
+				return state -> {
+					double res = ops[0].evaluate(state);
+					for (int i = 1; i < n; i++) {
+						res = Math.min(res, ops[i].evaluate(state));
+					}
+					return res;
+				};
+			} else {
+				return state -> {
+					double res = ops[0].evaluate(state);
+					for (int i = 1; i < n; i++) {
+						res = Math.max(res, ops[i].evaluate(state));
+					}
+					return res;
+				};
+			}
+		}
+		case ExpressionFunc.POW: {
+			DoubleEvaluator base = compileDouble(e.getOperand(0));
+			DoubleEvaluator exp = compileDouble(e.getOperand(1));
+			numCompiled++;
+			return state -> Math.pow(base.evaluate(state), exp.evaluate(state));
+		}
+		case ExpressionFunc.LOG: {
+			DoubleEvaluator x = compileDouble(e.getOperand(0));
+			DoubleEvaluator b = compileDouble(e.getOperand(1));
+			numCompiled++;
+			return state -> PrismUtils.log(x.evaluate(state), b.evaluate(state));
+		}
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Is a type int or double?
+	 */
+	private static boolean isNumeric(Type type)
+	{
+		return type instanceof TypeInt || type instanceof TypeDouble;
+	}
+}
@@ -18,7 +18,10 @@ import prism.ModelType;
 import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismLangException;
+import prism.PrismSettings;
 import prism.RewardGenerator;
+import simulator.ExpressionCompiler.BooleanEvaluator;
+import simulator.ExpressionCompiler.DoubleEvaluator;
 
 public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerator
 {
@@ -48,6 +51,11 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 	protected boolean transitionListBuilt;
 	// Global clock invariant (conjunction of per-module invariants)
 	protected Expression invariant;
+	// Compiled labels and reward structure items (guards, rewards)
+	// (all null if expressions are being interpreted)
+	protected BooleanEvaluator[] compiledLabels;
+	protected BooleanEvaluator[][] compiledRewardGuards;
+	protected DoubleEvaluator[][] compiledRewards;
 	
 	/**
 	 * Build a ModulesFileModelGenerator for a particular PRISM model, represented by a ModuleFile instance.
@@ -86,6 +94,27 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		}
 	}
 	
+	/**
+	 * Create a copy of an (initialised) ModulesFileModelGenerator, with its own
+	 * copy of the modules file and data structures for exploring the model.
+	 */
+	private ModulesFileModelGenerator(ModulesFileModelGenerator modelGen) throws PrismException
+	{
+		this.parent = modelGen.parent;
+		this.originalModulesFile = modelGen.originalModulesFile;
+		this.modelType = modelGen.modelType;
+		this.mfConstants = modelGen.mfConstants;
+		// Constants have already been replaced, so just copy
+		modulesFile = (ModulesFile) modelGen.modulesFile.deepCopy();
+		varList = modulesFile.createVarList();
+		labelList = modulesFile.getLabelList();
+		labelNames = labelList.getLabelNames();
+		updater = new Updater(modulesFile, varList, parent);
+		transitionList = new TransitionList();
+		transitionListBuilt = false;
+		compileExpressions();
+	}
+
 	/**
 	 * (Re-)Initialise the class ready for model exploration
 	 * (can only be done once any constants needed have been provided)
@@ -104,8 +133,56 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		updater = new Updater(modulesFile, varList, parent);
 		transitionList = new TransitionList();
 		transitionListBuilt = false;
+		compileExpressions();
+	}
+
+	/**
+	 * Compile the labels and reward structures of the model, if required,
+	 * to be used in place of interpreting the corresponding expressions.
+	 */
+	private void compileExpressions()
+	{
+		compiledLabels = null;
+		compiledRewardGuards = null;
+		compiledRewards = null;
+		if (parent == null || parent.getSettings() == null || !parent.getSettings().getBoolean(PrismSettings.PRISM_COMPILE_EXPRESSIONS)) {
+			return;
+		}
+		// Not for real-time models (may refer to clocks)
+		if (modelType.realTime()) {
+			return;
+		}
+		ExpressionCompiler compiler = new ExpressionCompiler(modulesFile.getConstantValues());
+		int numLabels = labelList.size();
+		compiledLabels = new BooleanEvaluator[numLabels];
+		for (int i = 0; i < numLabels; i++) {
+			compiledLabels[i] = compiler.compileBoolean(labelList.getLabel(i));
+		}
+		int numRewardStructs = modulesFile.getNumRewardStructs();
+		compiledRewardGuards = new BooleanEvaluator[numRewardStructs][];
+		compiledRewards = new DoubleEvaluator[numRewardStructs][];
+		for (int r = 0; r < numRewardStructs; r++) {
+			RewardStruct rewStr = modulesFile.getRewardStruct(r);
+			int n = rewStr.getNumItems();
+			compiledRewardGuards[r] = new BooleanEvaluator[n];
+			compiledRewards[r] = new DoubleEvaluator[n];
+			for (int i = 0; i < n; i++) {
+				compiledRewardGuards[r][i] = compiler.compileBoolean(rewStr.getStates(i));
+				compiledRewards[r][i] = compiler.compileDouble(rewStr.getReward(i));
+			}
+		}
 	}
 	
+	@Override
+	public ModelGenerator createCopy() throws PrismException
+	{
+		// Can only copy once constants are available
+		if (updater == null) {
+			return null;
+		}
+		return new ModulesFileModelGenerator(this);
+	}
+
 	// Methods for ModelInfo interface
 	
 	@Override
@@ -417,6 +494,9 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 	@Override
 	public boolean isLabelTrue(int i) throws PrismException
 	{
+		if (compiledLabels != null) {
+			return compiledLabels[i].evaluate(exploreState);
+		}
 		Expression expr = labelList.getLabel(i);
 		return expr.evaluateBoolean(exploreState);
 	}
@@ -491,9 +571,8 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		double d = 0;
 		for (int i = 0; i < n; i++) {
 			if (!rewStr.getRewardStructItem(i).isTransitionReward()) {
-				Expression guard = rewStr.getStates(i);
-				if (guard.evaluateBoolean(modulesFile.getConstantValues(), state)) {
-					double rew = rewStr.getReward(i).evaluateDouble(modulesFile.getConstantValues(), state);
+				if (evaluateRewardGuard(rewStr, r, i, state)) {
+					double rew = evaluateReward(rewStr, r, i, state);
 					// Check reward is finite/non-negative (would be checked at model construction time,
 					// but more fine grained error reporting can be done here)
 					// Note use of original model since modulesFile may have been simplified
@@ -518,11 +597,10 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 		double d = 0;
 		for (int i = 0; i < n; i++) {
 			if (rewStr.getRewardStructItem(i).isTransitionReward()) {
-				Expression guard = rewStr.getStates(i);
 				String cmdAction = rewStr.getSynch(i);
 				if (action == null ? (cmdAction.isEmpty()) : action.equals(cmdAction)) {
-					if (guard.evaluateBoolean(modulesFile.getConstantValues(), state)) {
-						double rew = rewStr.getReward(i).evaluateDouble(modulesFile.getConstantValues(), state);
+					if (evaluateRewardGuard(rewStr, r, i, state)) {
+						double rew = evaluateReward(rewStr, r, i, state);
 						// Check reward is finite/non-negative (would be checked at model construction time,
 						// but more fine grained error reporting can be done here)
 						// Note use of original model since modulesFile may have been simplified
@@ -541,6 +619,28 @@ public class ModulesFileModelGenerator implements ModelGenerator, RewardGenerato
 	}
 
 	// Local utility methods
+
+	/**
+	 * Evaluate the guard of the {@code i}th item of reward structure {@code rewStr} (with index {@code r}) in a state.
+	 */
+	private boolean evaluateRewardGuard(RewardStruct rewStr, int r, int i, State state) throws PrismLangException
+	{
+		if (compiledRewardGuards != null) {
+			return compiledRewardGuards[r][i].evaluate(state);
+		}
+		return rewStr.getStates(i).evaluateBoolean(modulesFile.getConstantValues(), state);
+	}
+
+	/**
+	 * Evaluate the reward of the {@code i}th item of reward structure {@code rewStr} (with index {@code r}) in a state.
+	 */
+	private double evaluateReward(RewardStruct rewStr, int r, int i, State state) throws PrismLangException
+	{
+		if (compiledRewards != null) {
+			return compiledRewards[r][i].evaluate(state);
+		}
+		return rewStr.getReward(i).evaluateDouble(modulesFile.getConstantValues(), state);
+	}
 	
 	/**
 	 * Returns the current list of available transitions, generating it first if this has not yet been done.
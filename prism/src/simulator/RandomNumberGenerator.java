@@ -54,6 +54,31 @@ public class RandomNumberGenerator
 		exponential = new Exponential(1.0, random);
 	}
 
+	/**
+	 * Create a new random number generator, seeded with {@code seed}.
+	 */
+	public RandomNumberGenerator(int seed)
+	{
+		random = new MersenneTwister(seed);
+		uniform = new Uniform(random);
+		// Create exponential generator (rate 1.0 but this is ignored from now on)
+		exponential = new Exponential(1.0, random);
+	}
+
+	/**
+	 * Derive the seed for the {@code i}th of several independent streams from a single seed.
+	 * Streams are decorrelated by passing the pair through the SplitMix64 finaliser,
+	 * so that nearby seeds/indices do not give rise to related Mersenne Twister states.
+	 */
+	public static int deriveSeed(int seed, int i)
+	{
+		long z = seed + (i + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		return (int) (z ^ (z >>> 32));
+	}
+
 	/**
 	 * Pick a (uniformly distributed) random integer in the range [0,...,n-1].
 	 */
@@ -30,6 +30,10 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import parser.State;
 import parser.Values;
@@ -50,6 +54,7 @@ import prism.PrismFileLog;
 import prism.PrismLangException;
 import prism.PrismLog;
 import prism.PrismNotSupportedException;
+import prism.PrismSettings;
 import prism.PrismUtils;
 import prism.Result;
 import prism.ResultsCollection;
@@ -150,6 +155,9 @@ public class SimulatorEngine extends PrismComponent
 	// Random number generator
 	private RandomNumberGenerator rng;
 
+	// Length of the last path generated by generateSamplePath
+	private long samplePathLength;
+
 	/**
 	 * Utility class to store a reference to a transition,
 	 * broken up into the index of its (nondetermnistic) choice {@code i}
@@ -1967,7 +1975,6 @@ public class SimulatorEngine extends PrismComponent
 		boolean deadlocksFound = false;
 		boolean allDone = false;
 		boolean allKnown = false;
-		boolean someUnknownButBounded = false;
 		boolean shouldStopSampling = false;
 		// Path stats
 		double avgPathLength = 0;
@@ -1979,80 +1986,99 @@ public class SimulatorEngine extends PrismComponent
 		long start, stop;
 		double time_taken;
 
-		// Start
-		start = System.currentTimeMillis();
-		mainLog.print("\nSampling progress: [");
-		mainLog.flush();
-
-		// Main sampling loop
-		iters = 0;
-		while (!shouldStopSampling) {
-
-			// See if all properties are done; if so, stop sampling
-			allDone = true;
-			for (Sampler sampler : propertySamplers) {
-				if (!sampler.getSimulationMethod().shouldStopNow(iters, sampler))
-					allDone = false;
-			}
-			if (allDone)
-				break;
-
-			// Display progress (of slowest property)
-			percentageDone = 100;
-			for (Sampler sampler : propertySamplers) {
-				percentageDone = Math.min(percentageDone, sampler.getSimulationMethod().getProgress(iters, sampler));
-			}
-			if (percentageDone > lastPercentageDone) {
-				lastPercentageDone = percentageDone;
-				mainLog.print(" " + lastPercentageDone + "%");
-				mainLog.flush();
+		// Seed the random number generator, if requested
+		int seed = 0;
+		int numThreads = 1;
+		if (settings != null) {
+			seed = settings.getInteger(PrismSettings.SIMULATOR_SEED);
+			numThreads = settings.getInteger(PrismSettings.SIMULATOR_THREADS);
+		}
+		if (seed != 0) {
+			rng = new RandomNumberGenerator(seed);
+		}
+		// Create workers for parallel sampling, if requested (and possible)
+		List<SamplingWorker> workers = createSamplingWorkers(numThreads, seed, initialState, maxPathLength);
+		ExecutorService executor = null;
+		if (workers != null) {
+			mainLog.println("Sampling threads: " + workers.size());
+			executor = Executors.newFixedThreadPool(workers.size());
+			for (SamplingWorker worker : workers) {
+				executor.execute(worker);
 			}
+		}
 
-			iters++;
+		try {
+			// Start
+			start = System.currentTimeMillis();
+			mainLog.print("\nSampling progress: [");
+			mainLog.flush();
 
-			// Start the new path for this iteration (sample)
-			initialisePath(initialState);
+			// Main sampling loop
+			iters = 0;
+			while (!shouldStopSampling) {
 
-			// Generate a path
-			allKnown = false;
-			someUnknownButBounded = false;
-			i = 0;
-			while ((!allKnown && i < maxPathLength) || someUnknownButBounded) {
-				// Check status of samplers
-				allKnown = true;
-				someUnknownButBounded = false;
+				// See if all properties are done; if so, stop sampling
+				allDone = true;
 				for (Sampler sampler : propertySamplers) {
-					if (!sampler.isCurrentValueKnown()) {
-						allKnown = false;
-						if (sampler.needsBoundedNumSteps())
-							someUnknownButBounded = true;
-					}
+					if (!sampler.getSimulationMethod().shouldStopNow(iters, sampler))
+						allDone = false;
 				}
-				// Stop when all answers are known or we have reached max path length
-				// (but don't stop yet if there are "bounded" samplers with unkown values)
-				if ((allKnown || i >= maxPathLength) && !someUnknownButBounded)
+				if (allDone)
 					break;
-				// Make a random transition
-				automaticTransition();
-				i++;
-			}
 
-			// TODO: Detect deadlocks so we can report a warning
+				// Display progress (of slowest property)
+				percentageDone = 100;
+				for (Sampler sampler : propertySamplers) {
+					percentageDone = Math.min(percentageDone, sampler.getSimulationMethod().getProgress(iters, sampler));
+				}
+				if (percentageDone > lastPercentageDone) {
+					lastPercentageDone = percentageDone;
+					mainLog.print(" " + lastPercentageDone + "%");
+					mainLog.flush();
+				}
+
+				iters++;
+
+				// Generate a path, or, if sampling in parallel, take the next one generated by a worker
+				// (workers are used in a fixed round-robin order, so that results are reproducible)
+				PathSample sample = null;
+				if (workers == null) {
+					allKnown = generateSamplePath(initialState, maxPathLength);
+					i = samplePathLength;
+				} else {
+					sample = workers.get((iters - 1) % workers.size()).takeSample();
+					allKnown = sample.allKnown;
+					i = sample.length;
+				}
 
-			// Update path length statistics
-			avgPathLength = (avgPathLength * (iters - 1) + (i)) / iters;
-			minPathFound = (iters == 1) ? i : Math.min(minPathFound, i);
-			maxPathFound = (iters == 1) ? i : Math.max(maxPathFound, i);
+				// TODO: Detect deadlocks so we can report a warning
 
-			// If not all samplers could produce values, this an error
-			if (!allKnown) {
-				stoppedEarly = true;
-				break;
-			}
+				// Update path length statistics
+				avgPathLength = (avgPathLength * (iters - 1) + (i)) / iters;
+				minPathFound = (iters == 1) ? i : Math.min(minPathFound, i);
+				maxPathFound = (iters == 1) ? i : Math.max(maxPathFound, i);
 
-			// Update state of samplers based on last path
-			for (Sampler sampler : propertySamplers) {
-				sampler.updateStats();
+				// If not all samplers could produce values, this an error
+				if (!allKnown) {
+					stoppedEarly = true;
+					break;
+				}
+
+				// Update state of samplers based on last path
+				if (sample == null) {
+					for (Sampler sampler : propertySamplers) {
+						sampler.updateStats();
+					}
+				} else {
+					int numProps = propertySamplers.size();
+					for (int j = 0; j < numProps; j++) {
+						propertySamplers.get(j).updateStats(sample.values[j]);
+					}
+				}
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
 			}
 		}
 
@@ -2088,6 +2114,164 @@ public class SimulatorEngine extends PrismComponent
 		}
 	}
 
+	/**
+	 * Generate a single sample path for the currently loaded properties,
+	 * from the specified initial state and up to the specified maximum length
+	 * (or beyond, if needed by "bounded" samplers whose values are not yet known).
+	 * Returns true if the values of all samplers are known for the path.
+	 * The length of the path is stored in {@code samplePathLength}.
+	 * @param initialState Initial state (if null, is selected randomly)
+	 * @param maxPathLength The maximum path length for sampling
+	 */
+	private boolean generateSamplePath(State initialState, long maxPathLength) throws PrismException
+	{
+		// Start the new path for this iteration (sample)
+		initialisePath(initialState);
+
+		// Generate a path
+		boolean allKnown = false;
+		boolean someUnknownButBounded = false;
+		long i = 0;
+		while ((!allKnown && i < maxPathLength) || someUnknownButBounded) {
+			// Check status of samplers
+			allKnown = true;
+			someUnknownButBounded = false;
+			for (Sampler sampler : propertySamplers) {
+				if (!sampler.isCurrentValueKnown()) {
+					allKnown = false;
+					if (sampler.needsBoundedNumSteps())
+						someUnknownButBounded = true;
+				}
+			}
+			// Stop when all answers are known or we have reached max path length
+			// (but don't stop yet if there are "bounded" samplers with unkown values)
+			if ((allKnown || i >= maxPathLength) && !someUnknownButBounded)
+				break;
+			// Make a random transition
+			automaticTransition();
+			i++;
+		}
+		samplePathLength = i;
+		return allKnown;
+	}
+
+	/**
+	 * Create workers to generate sample paths in parallel for the currently loaded properties,
+	 * each with its own copy of the model generator and its own random number stream,
+	 * derived from {@code seed} (or from the current time if this is 0).
+	 * Returns null if sampling should be done sequentially, i.e., if only one
+	 * thread is requested, a strategy is loaded, or the model generator cannot be copied.
+	 */
+	private List<SamplingWorker> createSamplingWorkers(int numThreads, int seed, State initialState, long maxPathLength) throws PrismException
+	{
+		if (numThreads <= 1 || stratGen != null) {
+			return null;
+		}
+		int baseSeed = (seed != 0) ? seed : (int) System.currentTimeMillis();
+		List<SamplingWorker> workers = new ArrayList<SamplingWorker>(numThreads);
+		for (int t = 0; t < numThreads; t++) {
+			ModelGenerator modelGenCopy = modelGen.createCopy();
+			if (modelGenCopy == null) {
+				mainLog.printWarning("Model does not support parallel sampling; using a single thread.");
+				return null;
+			}
+			// Reward generators are copied along with the model generator if they are the same object
+			// (otherwise, they are assumed to be stateless, and are shared)
+			RewardGenerator rewardGenCopy = (rewardGen == modelGen) ? (RewardGenerator) modelGenCopy : rewardGen;
+			SimulatorEngine engine = new SimulatorEngine(this);
+			engine.loadModel(modelGenCopy, rewardGenCopy);
+			engine.createNewOnTheFlyPath();
+			for (Expression prop : properties) {
+				engine.properties.add(prop);
+				engine.propertySamplers.add(Sampler.createSampler(prop, modelGenCopy, rewardGenCopy));
+			}
+			engine.rng = new RandomNumberGenerator(RandomNumberGenerator.deriveSeed(baseSeed, t));
+			workers.add(new SamplingWorker(engine, initialState, maxPathLength));
+		}
+		return workers;
+	}
+
+	/**
+	 * Outcome of generating a single sample path (in a worker thread).
+	 */
+	private static class PathSample
+	{
+		/** Are the values of all samplers known? */
+		boolean allKnown;
+		/** Length of the path */
+		long length;
+		/** Values of the samplers for the path (see {@link Sampler#getCurrentValue()}) */
+		Object[] values;
+		/** Error that occurred during path generation (if any) */
+		PrismException error;
+	}
+
+	/**
+	 * Worker for parallel sampling: generates sample paths, using its own simulator engine,
+	 * until it is interrupted, an error occurs, or a path is found for which not all
+	 * sampler values are known. Paths are passed back through a bounded queue.
+	 */
+	private static class SamplingWorker implements Runnable
+	{
+		private SimulatorEngine engine;
+		private State initialState;
+		private long maxPathLength;
+		private BlockingQueue<PathSample> samples = new ArrayBlockingQueue<PathSample>(256);
+
+		SamplingWorker(SimulatorEngine engine, State initialState, long maxPathLength)
+		{
+			this.engine = engine;
+			this.initialState = initialState;
+			this.maxPathLength = maxPathLength;
+		}
+
+		@Override
+		public void run()
+		{
+			try {
+				while (!Thread.currentThread().isInterrupted()) {
+					PathSample sample = new PathSample();
+					try {
+						sample.allKnown = engine.generateSamplePath(initialState, maxPathLength);
+						sample.length = engine.samplePathLength;
+						int numProps = engine.propertySamplers.size();
+						sample.values = new Object[numProps];
+						for (int j = 0; j < numProps; j++) {
+							sample.values[j] = engine.propertySamplers.get(j).getCurrentValue();
+						}
+					} catch (PrismException e) {
+						sample.error = e;
+					} catch (RuntimeException e) {
+						sample.error = new PrismException("Error during sampling: " + e);
+					}
+					samples.put(sample);
+					if (sample.error != null || !sample.allKnown) {
+						return;
+					}
+				}
+			} catch (InterruptedException e) {
+				// Sampling has finished
+			}
+		}
+
+		/**
+		 * Get the next sample path generated by this worker, waiting for it if necessary.
+		 */
+		PathSample takeSample() throws PrismException
+		{
+			PathSample sample;
+			try {
+				sample = samples.take();
+			} catch (InterruptedException e) {
+				throw new PrismException("Sampling was interrupted");
+			}
+			if (sample.error != null) {
+				throw sample.error;
+			}
+			return sample;
+		}
+	}
+
 	/**
 	 * Halt the sampling algorithm in its tracks (not implemented).
 	 */
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
@@ -48,6 +49,9 @@ import prism.PrismComponent;
 import prism.PrismException;
 import prism.PrismLangException;
 import prism.PrismSettings;
+import simulator.ExpressionCompiler.BooleanEvaluator;
+import simulator.ExpressionCompiler.DoubleEvaluator;
+import simulator.ExpressionCompiler.UpdateEvaluator;
 
 public class Updater extends PrismComponent
 {
@@ -70,6 +74,11 @@ public class Updater extends PrismComponent
 	protected int numRewardStructs;
 	// For real-time models, info about which vars are clocks (bitset over variable indices)
 	protected BitSet clockVars;
+	// Compiled guards (indexed by module/command), probabilities and updates
+	// (all null if expressions are being interpreted)
+	protected BooleanEvaluator[][] compiledGuards;
+	protected Map<Updates,DoubleEvaluator[]> compiledProbs;
+	protected Map<Update,UpdateEvaluator> compiledUpdates;
 	
 	// Temporary storage:
 
@@ -147,6 +156,42 @@ public class Updater extends PrismComponent
 			enabledModules[j] = new BitSet(numModules);
 		}
 		clockGuards = new HashMap<Updates, Expression>();
+
+		// Compile expressions, if required
+		// (not for real-time models, where guards are evaluated partially)
+		if (parent.getSettings().getBoolean(PrismSettings.PRISM_COMPILE_EXPRESSIONS) && !modelType.realTime()) {
+			compileExpressions();
+		}
+	}
+
+	/**
+	 * Compile the guards, probabilities/rates and updates of all commands in the model,
+	 * to be used in place of interpreting the corresponding expressions.
+	 */
+	private void compileExpressions()
+	{
+		ExpressionCompiler compiler = new ExpressionCompiler(modulesFile.getConstantValues());
+		compiledGuards = new BooleanEvaluator[numModules][];
+		compiledProbs = new IdentityHashMap<Updates, DoubleEvaluator[]>();
+		compiledUpdates = new IdentityHashMap<Update, UpdateEvaluator>();
+		for (int m = 0; m < numModules; m++) {
+			Module module = modulesFile.getModule(m);
+			int n = module.getNumCommands();
+			compiledGuards[m] = new BooleanEvaluator[n];
+			for (int i = 0; i < n; i++) {
+				Command command = module.getCommand(i);
+				compiledGuards[m][i] = compiler.compileBoolean(command.getGuard());
+				Updates ups = command.getUpdates();
+				int numUpdates = ups.getNumUpdates();
+				DoubleEvaluator[] probs = new DoubleEvaluator[numUpdates];
+				for (int j = 0; j < numUpdates; j++) {
+					Expression p = ups.getProbability(j);
+					probs[j] = (p == null) ? state -> 1.0 : compiler.compileDouble(p);
+					compiledUpdates.put(ups.getUpdate(j), compiler.compileUpdate(ups.getUpdate(j)));
+				}
+				compiledProbs.put(ups, probs);
+			}
+		}
 	}
 
 	/**
@@ -310,7 +355,7 @@ public class Updater extends PrismComponent
 					guardSat = true;
 				}
 			} else {
-				guardSat = command.getGuard().evaluateBoolean(state);
+				guardSat = (compiledGuards != null) ? compiledGuards[m][i].evaluate(state) : command.getGuard().evaluateBoolean(state);
 			}
 			// If the command is enabled, update stored info
 			if (guardSat) {
@@ -343,11 +388,13 @@ public class Updater extends PrismComponent
 		// Create choice and add all info
 		ch = new ChoiceListFlexi();
 		ch.setModuleOrActionIndex(moduleOrActionIndex);
+		ch.setCompiledUpdates(compiledUpdates);
+		DoubleEvaluator[] probs = (compiledProbs != null) ? compiledProbs.get(ups) : null;
 		n = ups.getNumUpdates();
 		sum = 0;
 		for (i = 0; i < n; i++) {
 			// Compute probability/rate
-			p = ups.getProbabilityInState(i, state);
+			p = (probs != null) ? probs[i].evaluate(state) : ups.getProbabilityInState(i, state);
 			// Check for non-finite/NaN probabilities/rates
 			if (!Double.isFinite(p) || p < 0) {
 				String s = modelType.choicesSumToOne() ? "Probability" : "Rate";
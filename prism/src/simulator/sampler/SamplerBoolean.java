@@ -69,6 +69,14 @@ public abstract class SamplerBoolean extends Sampler
 			numTrue++;
 	}
 
+	@Override
+	public void updateStats(Object value)
+	{
+		numSamples++;
+		if ((Boolean) value)
+			numTrue++;
+	}
+
 	@Override
 	public Object getCurrentValue()
 	{
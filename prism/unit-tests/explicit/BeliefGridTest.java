@@ -0,0 +1,104 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import parser.State;
+import prism.PrismException;
+
+public class BeliefGridTest
+{
+	private static final int RESOLUTION = 4;
+
+	/**
+	 * POMDP with 6 states: states 0-3 have observation 0, state 4 has observation 1
+	 * and state 5 has observation 2; the unobservation of each state is its index.
+	 */
+	private static POMDPSimple pomdp() throws PrismException
+	{
+		POMDPSimple pomdp = new POMDPSimple();
+		pomdp.addStates(6);
+		int[] obs = { 0, 0, 0, 0, 1, 2 };
+		for (int s = 0; s < 6; s++) {
+			pomdp.setObservation(s, new State(1).setValue(0, obs[s]), new State(1).setValue(0, s), null);
+		}
+		return pomdp;
+	}
+
+	private static BeliefGrid grid() throws PrismException
+	{
+		BitSet obs = new BitSet();
+		obs.set(0, 2);
+		return new BeliefGrid(pomdp(), obs, RESOLUTION);
+	}
+
+	@Test
+	public void testPoints() throws PrismException
+	{
+		BeliefGrid grid = grid();
+		// (4+3 choose 3) points for observation 0, 1 for observation 1
+		assertEquals(35 + 1, grid.getNumPoints());
+		assertTrue(grid.containsObservation(0));
+		assertFalse(grid.containsObservation(2));
+		List<Belief> points = grid.getPoints();
+		assertEquals(points.size(), new HashSet<>(points).size());
+		int[] indices = new int[6];
+		double[] weights = new double[6];
+		for (int i = 0; i < points.size(); i++) {
+			Belief point = points.get(i);
+			double sum = 0;
+			for (double p : point.bu) {
+				assertEquals(Math.rint(p * RESOLUTION), p * RESOLUTION, 1e-12);
+				sum += p;
+			}
+			assertEquals(1.0, sum, 1e-12);
+			// Grid points are interpolated by themselves
+			assertEquals(1, grid.interpolate(point, indices, weights));
+			assertEquals(i, indices[0]);
+			assertEquals(1.0, weights[0], 1e-12);
+		}
+	}
+
+	@Test
+	public void testInterpolate() throws PrismException
+	{
+		BeliefGrid grid = grid();
+		List<Belief> points = grid.getPoints();
+		Random random = new Random(42);
+		int[] indices = new int[6];
+		double[] weights = new double[6];
+		for (int n = 0; n < 1000; n++) {
+			double[] bu = new double[6];
+			double sum = 0;
+			for (int u = 0; u < 4; u++) {
+				bu[u] = random.nextDouble();
+				sum += bu[u];
+			}
+			for (int u = 0; u < 4; u++) {
+				bu[u] /= sum;
+			}
+			int count = grid.interpolate(new Belief(0, bu), indices, weights);
+			double[] interpolated = new double[6];
+			double weightSum = 0;
+			for (int k = 0; k < count; k++) {
+				assertTrue(weights[k] >= BeliefGrid.MIN_WEIGHT);
+				assertEquals(0, points.get(indices[k]).so);
+				weightSum += weights[k];
+				for (int u = 0; u < 6; u++) {
+					interpolated[u] += weights[k] * points.get(indices[k]).bu[u];
+				}
+			}
+			assertEquals(1.0, weightSum, 1e-4);
+			assertArrayEquals(bu, interpolated, 1e-4);
+		}
+	}
+}
@@ -0,0 +1,275 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import explicit.rewards.ConstructRewards;
+import explicit.rewards.MCRewards;
+import explicit.rewards.MDPRewards;
+import parser.State;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.DeclarationType;
+import parser.ast.Expression;
+import parser.type.Type;
+import parser.type.TypeBool;
+import parser.type.TypeInt;
+import prism.ModelInfo;
+import prism.ModelType;
+import prism.PrismComponent;
+import prism.PrismException;
+import prism.RewardGenerator;
+
+public class BinaryModelFileTest
+{
+	@TempDir
+	File tempDir;
+
+	/** Model info for models with variables x : [0..9] and b : bool, and a single label "goal" */
+	private static ModelInfo modelInfo(ModelType modelType)
+	{
+		return new ModelInfo()
+		{
+			@Override
+			public ModelType getModelType()
+			{
+				return modelType;
+			}
+
+			@Override
+			public List<String> getVarNames()
+			{
+				return List.of("x", "b");
+			}
+
+			@Override
+			public List<Type> getVarTypes()
+			{
+				return List.of(TypeInt.getInstance(), TypeBool.getInstance());
+			}
+
+			@Override
+			public DeclarationType getVarDeclarationType(int i)
+			{
+				return i == 0 ? new DeclarationInt(Expression.Int(0), Expression.Int(9)) : new DeclarationBool();
+			}
+
+			@Override
+			public List<String> getLabelNames()
+			{
+				return List.of("goal");
+			}
+		};
+	}
+
+	/** Rewards: state reward s+1 in state s, transition reward 5 for action "a" (and 7 otherwise) */
+	private static final RewardGenerator REWARDS = new RewardGenerator()
+	{
+		@Override
+		public List<String> getRewardStructNames()
+		{
+			return List.of("r");
+		}
+
+		@Override
+		public boolean rewardStructHasTransitionRewards(int r)
+		{
+			return false;
+		}
+
+		@Override
+		public boolean isRewardLookupSupported(RewardLookup lookup)
+		{
+			return lookup == RewardLookup.BY_STATE_INDEX;
+		}
+
+		@Override
+		public double getStateReward(int r, int s)
+		{
+			return s + 1;
+		}
+	};
+
+	private static final RewardGenerator MDP_REWARDS = new RewardGenerator()
+	{
+		@Override
+		public List<String> getRewardStructNames()
+		{
+			return List.of("r");
+		}
+
+		@Override
+		public boolean isRewardLookupSupported(RewardLookup lookup)
+		{
+			return lookup == RewardLookup.BY_STATE_INDEX;
+		}
+
+		@Override
+		public double getStateReward(int r, int s)
+		{
+			return s + 1;
+		}
+
+		@Override
+		public double getStateActionReward(int r, int s, Object action)
+		{
+			return "a".equals(action) ? 5 : 7;
+		}
+	};
+
+	private static void addStatesAndLabels(ModelExplicit model)
+	{
+		model.addInitialState(0);
+		model.setStatesList(List.of(state(0, false), state(3, true), state(9, false)));
+		BitSet goal = new BitSet();
+		goal.set(2);
+		model.addLabel("goal", goal);
+	}
+
+	private static State state(int x, boolean b)
+	{
+		return new State(2).setValue(0, x).setValue(1, b);
+	}
+
+	@Test
+	public void testMDPRoundTrip() throws PrismException
+	{
+		MDPSimple mdp = new MDPSimple(3);
+		Distribution distr = new Distribution();
+		distr.add(1, 0.25);
+		distr.add(2, 0.75);
+		mdp.addActionLabelledChoice(0, distr, "a");
+		distr = new Distribution();
+		distr.add(0, 1.0);
+		mdp.addActionLabelledChoice(0, distr, "b");
+		distr = new Distribution();
+		distr.add(1, 1.0);
+		mdp.addChoice(1, distr);
+		distr = new Distribution();
+		distr.add(2, 1.0);
+		mdp.addActionLabelledChoice(2, distr, "a");
+		addStatesAndLabels(mdp);
+
+		File file = new File(tempDir, "mdp.pbin");
+		BinaryModelFile.write(new PrismComponent(), mdp, modelInfo(ModelType.MDP), MDP_REWARDS, file);
+		BinaryModelFile bmf = BinaryModelFile.open(file);
+		assertEquals(ModelType.MDP, bmf.getModelType());
+		MDP copy = (MDP) bmf.getModel();
+		assertTrue(copy instanceof MDPOffHeap);
+
+		assertEquals(3, copy.getNumStates());
+		assertEquals(4, copy.getNumChoices());
+		assertEquals(mdp.getNumTransitions(), copy.getNumTransitions());
+		assertEquals(2, copy.getMaxNumChoices());
+		assertEquals(List.of(0), copy.getInitialStates());
+		for (int s = 0; s < 3; s++) {
+			assertEquals(mdp.getNumChoices(s), copy.getNumChoices(s));
+			for (int i = 0; i < mdp.getNumChoices(s); i++) {
+				assertEquals(mdp.getAction(s, i), copy.getAction(s, i));
+				assertEquals(new Distribution(mdp.getTransitionsIterator(s, i)), new Distribution(copy.getTransitionsIterator(s, i)));
+			}
+		}
+		assertNull(copy.getAction(1, 0));
+		assertEquals(mdp.getLabelStates("goal"), copy.getLabelStates("goal"));
+		assertEquals(state(3, true), copy.getStatesList().get(1));
+
+		double[] vect = { 1.0, 2.0, 4.0 };
+		for (boolean min : new boolean[] { true, false }) {
+			for (int s = 0; s < 3; s++) {
+				assertEquals(mdp.mvMultMinMaxSingle(s, vect, min, null), copy.mvMultMinMaxSingle(s, vect, min, null), 0.0);
+				assertEquals(mdp.mvMultJacMinMaxSingle(s, vect, min, null), copy.mvMultJacMinMaxSingle(s, vect, min, null), 0.0);
+			}
+		}
+		BitSet u = new BitSet();
+		u.set(1, 3);
+		BitSet expected = new BitSet();
+		BitSet actual = new BitSet();
+		mdp.prob0step(null, u, false, expected);
+		copy.prob0step(null, u, false, actual);
+		assertEquals(expected, actual);
+		mdp.prob1step(null, u, u, true, expected);
+		copy.prob1step(null, u, u, true, actual);
+		assertEquals(expected, actual);
+
+		MDPRewards rewards = new ConstructRewards(new PrismComponent()).buildMDPRewardStructure(copy, bmf.getRewardGenerator(), 0);
+		assertEquals(2.0, rewards.getStateReward(1), 0.0);
+		assertEquals(5.0, rewards.getTransitionReward(0, 0), 0.0);
+		assertEquals(7.0, rewards.getTransitionReward(0, 1), 0.0);
+		assertEquals(7.0, rewards.getTransitionReward(1, 0), 0.0);
+	}
+
+	@Test
+	public void testCTMCRoundTrip() throws PrismException
+	{
+		CTMCSimple ctmc = new CTMCSimple(3);
+		ctmc.setProbability(0, 1, 2.0);
+		ctmc.setProbability(0, 2, 3.0);
+		ctmc.setProbability(1, 0, 1.5);
+		ctmc.setProbability(2, 2, 1.0);
+		addStatesAndLabels(ctmc);
+
+		File file = new File(tempDir, "ctmc.pbin");
+		BinaryModelFile.write(new PrismComponent(), ctmc, modelInfo(ModelType.CTMC), REWARDS, file);
+		BinaryModelFile bmf = BinaryModelFile.open(file);
+		CTMC copy = (CTMC) bmf.getModel();
+		assertEquals(ModelType.CTMC, copy.getModelType());
+		assertEquals(ctmc.getNumTransitions(), copy.getNumTransitions());
+		assertEquals(List.of("x", "b"), bmf.getModelInfo().getVarNames());
+		assertEquals(List.of(state(0, false), state(3, true), state(9, false)), copy.getStatesList());
+		for (int s = 0; s < 3; s++) {
+			assertEquals(ctmc.getExitRate(s), copy.getExitRate(s), 0.0);
+			assertEquals(new Distribution(ctmc.getTransitionsIterator(s)), new Distribution(copy.getTransitionsIterator(s)));
+		}
+		assertEquals(ctmc.getDefaultUniformisationRate(), copy.getDefaultUniformisationRate(), 0.0);
+
+		double[] vect = { 1.0, 2.0, 4.0 };
+		DTMC unif = ctmc.buildImplicitUniformisedDTMC(6.0);
+		DTMC unifCopy = copy.buildImplicitUniformisedDTMC(6.0);
+		DTMC emb = copy.getImplicitEmbeddedDTMC();
+		for (int s = 0; s < 3; s++) {
+			assertEquals(unif.mvMultSingle(s, vect), unifCopy.mvMultSingle(s, vect), 0.0);
+			assertEquals(ctmc.getImplicitEmbeddedDTMC().mvMultSingle(s, vect), emb.mvMultSingle(s, vect), 0.0);
+		}
+
+		MCRewards rewards = new ConstructRewards(new PrismComponent()).buildMCRewardStructure(copy, bmf.getRewardGenerator(), 0);
+		assertEquals(3.0, rewards.getStateReward(2), 0.0);
+	}
+
+	@Test
+	public void testWithoutStates() throws PrismException
+	{
+		DTMCSimple dtmc = new DTMCSimple(2);
+		dtmc.setProbability(0, 1, 1.0);
+		dtmc.setProbability(1, 1, 1.0);
+		dtmc.addInitialState(0);
+
+		File file = new File(tempDir, "dtmc.pbin");
+		BinaryModelFile.write(new PrismComponent(), dtmc, null, null, file);
+		BinaryModelFile bmf = BinaryModelFile.open(file);
+		DTMC copy = (DTMC) bmf.getModel();
+		assertEquals(ModelType.DTMC, copy.getModelType());
+		assertNull(copy.getStatesList());
+		assertEquals(0, bmf.getRewardGenerator().getNumRewardStructs());
+		assertEquals(1.0, copy.mvMultSingle(0, new double[] { 0.0, 1.0 }), 0.0);
+	}
+
+	@Test
+	public void testInvalidFile() throws IOException
+	{
+		File file = new File(tempDir, "bad.pbin");
+		Files.write(file.toPath(), "not a binary model file".getBytes());
+		assertThrows(PrismException.class, () -> BinaryModelFile.open(file));
+		assertThrows(PrismException.class, () -> BinaryModelFile.open(new File(tempDir, "missing.pbin")));
+	}
+}
@@ -0,0 +1,166 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import prism.PrismComponent;
+import prism.PrismDevNullLog;
+import prism.PrismException;
+
+public class BisimulationTest
+{
+	private static Bisimulation bisimulation() throws PrismException
+	{
+		Bisimulation bisim = new Bisimulation(new PrismComponent());
+		bisim.setLog(new PrismDevNullLog());
+		return bisim;
+	}
+
+	private static BitSet bits(int... states)
+	{
+		BitSet bs = new BitSet();
+		for (int s : states) {
+			bs.set(s);
+		}
+		return bs;
+	}
+
+	/**
+	 * Two symmetric chains 1-2 and 3-4 from state 0, both ending in the target 5;
+	 * 1 and 3 (and 2 and 4) are bisimilar, with transitions stored in different orders.
+	 */
+	private static DTMCSimple symmetricDTMC()
+	{
+		DTMCSimple dtmc = new DTMCSimple(6);
+		dtmc.addInitialState(0);
+		dtmc.setProbability(0, 1, 0.5);
+		dtmc.setProbability(0, 3, 0.5);
+		dtmc.setProbability(1, 2, 0.1);
+		dtmc.setProbability(1, 1, 0.2);
+		dtmc.setProbability(1, 5, 0.7);
+		dtmc.setProbability(3, 5, 0.7);
+		dtmc.setProbability(3, 3, 0.2);
+		dtmc.setProbability(3, 4, 0.1);
+		dtmc.setProbability(2, 5, 1.0);
+		dtmc.setProbability(4, 5, 1.0);
+		dtmc.setProbability(5, 5, 1.0);
+		return dtmc;
+	}
+
+	@Test
+	public void testDTMC() throws PrismException
+	{
+		Bisimulation bisim = bisimulation();
+		DTMC min = (DTMC) bisim.minimise(symmetricDTMC(), List.of("init", "target"), List.of(bits(0), bits(5)));
+		assertEquals(4, min.getNumStates());
+		int[] partition = bisim.getPartition();
+		assertEquals(partition[1], partition[3]);
+		assertEquals(partition[2], partition[4]);
+		assertNotEquals(partition[1], partition[2]);
+		assertEquals(1.0, min.getTransitionsIterator(partition[0]).next().getValue());
+		assertTrue(min.isInitialState(partition[0]));
+		assertEquals(1, min.getNumInitialStates());
+		assertEquals(bits(partition[5]), ((ModelExplicit) min).getLabelStates("target"));
+	}
+
+	/**
+	 * States 0 and 1 both move to target block {2,3}, with probabilities p and q, respectively.
+	 */
+	private static DTMCSimple twoProbabilitiesDTMC(double p, double q)
+	{
+		DTMCSimple dtmc = new DTMCSimple(4);
+		dtmc.addInitialState(0);
+		dtmc.setProbability(0, 2, p);
+		dtmc.setProbability(0, 1, 1.0 - p);
+		dtmc.setProbability(1, 2, q / 2);
+		dtmc.setProbability(1, 3, q / 2);
+		dtmc.setProbability(1, 0, 1.0 - q);
+		dtmc.setProbability(2, 2, 1.0);
+		dtmc.setProbability(3, 3, 1.0);
+		return dtmc;
+	}
+
+	@Test
+	public void testRoundOff() throws PrismException
+	{
+		// 0.1+0.2 vs 0.3
+		Bisimulation bisim = bisimulation();
+		DTMCSimple dtmc = twoProbabilitiesDTMC(0.3, 0.3);
+		dtmc.setProbability(1, 2, 0.1);
+		dtmc.setProbability(1, 3, 0.2);
+		assertEquals(2, bisim.minimise(dtmc, List.of("target"), List.of(bits(2, 3))).getNumStates());
+		assertEquals(bisim.getPartition()[0], bisim.getPartition()[1]);
+		// Adjacent values, either side of a boundary for rounding to 40 significant bits
+		double p = Double.longBitsToDouble((Double.doubleToLongBits(0.3) & ~0xFFFL) | 0x7FFL);
+		double q = Math.nextUp(p);
+		assertEquals(2, bisim.minimise(twoProbabilitiesDTMC(p, q), List.of("target"), List.of(bits(2, 3))).getNumStates());
+		// Values that really differ
+		assertEquals(3, bisim.minimise(twoProbabilitiesDTMC(0.3, 0.3 + 1e-9), List.of("target"), List.of(bits(2, 3))).getNumStates());
+	}
+
+	@Test
+	public void testPropositionsSplit() throws PrismException
+	{
+		// State 2 is labelled, so 2 and 4 (and hence 1 and 3) are no longer bisimilar
+		Bisimulation bisim = bisimulation();
+		Model min = bisim.minimise(symmetricDTMC(), List.of("init", "target", "a"), List.of(bits(0), bits(5), bits(2)));
+		assertEquals(6, min.getNumStates());
+	}
+
+	@Test
+	public void testMDP() throws PrismException
+	{
+		// States 1 and 2 have the same choices (up to order and duplicates) over bisimilar targets 3 and 4
+		MDPSimple mdp = new MDPSimple(5);
+		mdp.addInitialState(0);
+		Distribution d;
+		d = new Distribution();
+		d.add(1, 0.5);
+		d.add(2, 0.5);
+		mdp.addChoice(0, d);
+		d = new Distribution();
+		d.add(3, 1.0);
+		mdp.addChoice(1, d);
+		d = new Distribution();
+		d.add(3, 0.5);
+		d.add(0, 0.5);
+		mdp.addChoice(1, d);
+		d = new Distribution();
+		d.add(4, 0.5);
+		d.add(0, 0.5);
+		mdp.addChoice(2, d);
+		d = new Distribution();
+		d.add(4, 1.0);
+		mdp.addChoice(2, d);
+		mdp.addChoice(2, d);
+		d = new Distribution();
+		d.add(3, 1.0);
+		mdp.addChoice(3, d);
+		d = new Distribution();
+		d.add(4, 1.0);
+		mdp.addChoice(4, d);
+
+		Bisimulation bisim = bisimulation();
+		MDP min = (MDP) bisim.minimise(mdp, List.of("init", "target"), List.of(bits(0), bits(3, 4)));
+		assertEquals(3, min.getNumStates());
+		int[] partition = bisim.getPartition();
+		assertEquals(partition[1], partition[2]);
+		assertEquals(partition[3], partition[4]);
+		assertEquals(2, min.getNumChoices(partition[1]));
+	}
+
+	@Test
+	public void testMaxRatio() throws PrismException
+	{
+		Bisimulation bisim = bisimulation();
+		assertNull(bisim.minimise(symmetricDTMC(), List.of("init", "target"), List.of(bits(0), bits(5)), 0.5));
+		assertEquals(4, bisim.minimise(symmetricDTMC(), List.of("init", "target"), List.of(bits(0), bits(5)), 0.7).getNumStates());
+	}
+}
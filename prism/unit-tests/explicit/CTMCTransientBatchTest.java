@@ -0,0 +1,93 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import prism.PrismComponent;
+import prism.PrismDevNullLog;
+import prism.PrismException;
+
+public class CTMCTransientBatchTest
+{
+	private static final double TIMES[] = { 0.5, 3.0, 0.0, 1.0, 10.0 };
+
+	/**
+	 * Birth-death chain 0 <-> 1 <-> ... <-> 5, with a faster rate back towards 0.
+	 */
+	private static CTMCSimple ctmc()
+	{
+		CTMCSimple ctmc = new CTMCSimple(6);
+		ctmc.addInitialState(0);
+		for (int i = 0; i < 5; i++) {
+			ctmc.setProbability(i, i + 1, 1.0 + i);
+			ctmc.setProbability(i + 1, i, 2.0);
+		}
+		return ctmc;
+	}
+
+	private static CTMCModelChecker modelChecker() throws PrismException
+	{
+		CTMCModelChecker mc = new CTMCModelChecker(new PrismComponent());
+		mc.setLog(new PrismDevNullLog());
+		return mc;
+	}
+
+	private static BitSet bits(int... states)
+	{
+		BitSet bs = new BitSet();
+		for (int s : states) {
+			bs.set(s);
+		}
+		return bs;
+	}
+
+	@Test
+	public void testTimeBoundedUntil() throws PrismException
+	{
+		CTMCModelChecker mc = modelChecker();
+		CTMCSimple ctmc = ctmc();
+		ModelCheckerResult res[] = mc.computeTimeBoundedUntilProbs(ctmc, bits(0, 1, 2, 3), bits(5), TIMES);
+		for (int j = 0; j < TIMES.length; j++) {
+			ModelCheckerResult resSingle = mc.computeTimeBoundedUntilProbs(ctmc, bits(0, 1, 2, 3), bits(5), TIMES[j]);
+			assertArrayEquals(resSingle.soln, res[j].soln);
+		}
+		assertEquals(0.0, res[2].soln[0]);
+		assertEquals(1.0, res[2].soln[5]);
+	}
+
+	@Test
+	public void testTransient() throws PrismException
+	{
+		CTMCModelChecker mc = modelChecker();
+		CTMCSimple ctmc = ctmc();
+		double initDist[] = { 1.0, 0, 0, 0, 0, 0 };
+		ModelCheckerResult res[] = mc.computeTransientProbs(ctmc, TIMES, initDist.clone());
+		for (int j = 0; j < TIMES.length; j++) {
+			assertArrayEquals(mc.computeTransientProbs(ctmc, TIMES[j], initDist.clone()).soln, res[j].soln);
+		}
+	}
+
+	@Test
+	public void testSweep() throws PrismException
+	{
+		CTMCModelChecker mc = modelChecker();
+		CTMCSimple ctmc = ctmc();
+		ModelCheckerResult expected[] = mc.computeTimeBoundedUntilProbs(ctmc, null, bits(5), TIMES);
+		TimeBoundSweep sweep = new TimeBoundSweep(TIMES);
+		mc.setTimeBoundSweep(sweep);
+		for (int j = 0; j < TIMES.length; j++) {
+			assertArrayEquals(expected[j].soln, mc.computeTimeBoundedReachProbs(ctmc, bits(5), TIMES[j]).soln);
+		}
+		// All stored vectors have been used up
+		for (double t : TIMES) {
+			assertNull(sweep.remove(ctmc, null, bits(5), t));
+		}
+		assertEquals(1, sweep.getBatch(3.0, TimeBoundSweep.MAX_BATCH_VALUES).length);
+		assertArrayEquals(new double[] { 3.0, 0.0, 1.0, 10.0 }, sweep.getBatch(3.0, 6));
+	}
+}
@@ -0,0 +1,120 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class DistributionTest
+{
+	@Test
+	public void testEntriesSortedAndMerged()
+	{
+		Distribution distr = new Distribution();
+		distr.add(7, 0.25);
+		distr.add(2, 0.25);
+		distr.add(5, 0.125);
+		distr.add(2, 0.25);
+		distr.add(5, 0.125);
+		assertEquals(3, distr.size());
+		int[] indices = { 2, 5, 7 };
+		double[] probs = { 0.5, 0.25, 0.25 };
+		for (int k = 0; k < distr.size(); k++) {
+			assertEquals(indices[k], distr.getIndexAt(k));
+			assertEquals(probs[k], distr.getProbabilityAt(k), 0.0);
+		}
+		List<Integer> keys = new ArrayList<>();
+		for (Iterator<Map.Entry<Integer, Double>> it = distr.iterator(); it.hasNext();) {
+			keys.add(it.next().getKey());
+		}
+		assertEquals(List.of(2, 5, 7), keys);
+		assertEquals(1.0, distr.sum(), 0.0);
+		assertEquals(0.5, distr.sumAllBut(2), 0.0);
+		assertEquals(0.0, distr.get(3), 0.0);
+	}
+
+	@Test
+	public void testSetAndRemove()
+	{
+		Distribution distr = new Distribution();
+		for (int j = 100; j >= 0; j -= 10) {
+			distr.set(j, j / 1000.0);
+		}
+		assertEquals(10, distr.size());
+		assertFalse(distr.contains(0));
+		distr.set(50, 0.0);
+		assertFalse(distr.contains(50));
+		assertEquals(9, distr.size());
+		distr.set(40, 0.5);
+		assertEquals(0.5, distr.get(40), 0.0);
+		assertTrue(distr.getSupport().contains(60));
+		assertFalse(distr.getSupport().contains(50));
+		distr.trimToSize();
+		assertEquals(9, distr.size());
+		distr.clear();
+		assertTrue(distr.isEmpty());
+	}
+
+	@Test
+	public void testCopyMapAndEquals()
+	{
+		Distribution distr = new Distribution();
+		distr.add(0, 0.5);
+		distr.add(1, 0.25);
+		distr.add(2, 0.25);
+		Distribution copy = new Distribution(distr);
+		assertEquals(distr, copy);
+		copy.set(1, 0.125);
+		assertFalse(distr.equals(copy));
+		// Merge states 0 and 2 into 1, and 1 into 0
+		Distribution mapped = distr.map(new int[] { 1, 0, 1 });
+		assertEquals(2, mapped.size());
+		assertEquals(0.25, mapped.get(0), 0.0);
+		assertEquals(0.75, mapped.get(1), 0.0);
+	}
+
+	@Test
+	public void testSortedAfterPermutation()
+	{
+		// Small and large choices, whose transitions are no longer sorted after permuting states
+		for (int n : new int[] { 5, 1000 }) {
+			MDPSimple mdp = new MDPSimple(n);
+			Distribution distr = new Distribution();
+			for (int i = 0; i < n; i++) {
+				distr.add(i, (i + 1.0) / (n * (n + 1) / 2));
+			}
+			mdp.addChoice(0, distr);
+			int[] permut = new int[n];
+			for (int i = 0; i < n; i++) {
+				permut[i] = (i * 7 + 3) % n;
+			}
+			MDPSparse sparse = new MDPSparse(mdp, true, permut);
+			int last = -1;
+			int count = 0;
+			for (Iterator<Map.Entry<Integer, Double>> it = sparse.getTransitionsIterator(permut[0], 0); it.hasNext();) {
+				Map.Entry<Integer, Double> e = it.next();
+				assertTrue(e.getKey() > last);
+				last = e.getKey();
+				assertEquals(distr.get(indexOf(permut, e.getKey())), e.getValue(), 0.0);
+				count++;
+			}
+			assertEquals(n, count);
+		}
+	}
+
+	private static int indexOf(int[] array, int value)
+	{
+		for (int i = 0; i < array.length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
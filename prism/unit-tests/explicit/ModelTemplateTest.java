@@ -0,0 +1,124 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import parser.PrismParser;
+import parser.Values;
+import parser.ast.ModulesFile;
+import prism.ModelGenerator;
+import prism.Prism;
+import prism.PrismComponent;
+import prism.PrismException;
+import simulator.ModulesFileModelGenerator;
+
+public class ModelTemplateTest
+{
+	private static final String DTMC = "dtmc const double p; const int N; const int M = N + 1; const double q = p / 2;"
+			+ " module m x : [0..M] init 1; [] x>0 & x<N -> p : (x'=x+1) + (1-p) : (x'=x-1); [] x=N -> q : (x'=0) + (1-q) : true; endmodule"
+			+ " label \"goal\" = x=N; rewards x=0 : p; endrewards";
+
+	private static final String MDP = "mdp const double p; const int N = 5;"
+			+ " module m x : [0..N] init 1; [a] x>0 & x<N -> p : (x'=x+1) + (1-p) : (x'=x-1); [b] x>0 & x<N -> 0.5 : (x'=0) + 0.5 : (x'=x); endmodule";
+
+	private static ModulesFile parse(String model) throws Exception
+	{
+		PrismParser parser = Prism.getPrismParser();
+		try {
+			ModulesFile modulesFile = parser.parseModulesFile(new ByteArrayInputStream(model.getBytes()));
+			modulesFile.tidyUp();
+			return modulesFile;
+		} finally {
+			Prism.releasePrismParser();
+		}
+	}
+
+	private static ModelGenerator generator(ModulesFile modulesFile, Values constants) throws PrismException
+	{
+		modulesFile.setUndefinedConstants(constants);
+		return new ModulesFileModelGenerator(modulesFile, new PrismComponent());
+	}
+
+	private static Values constants(double p, int n)
+	{
+		Values values = new Values();
+		values.addValue("p", p);
+		if (n > 0) {
+			values.addValue("N", n);
+		}
+		return values;
+	}
+
+	private static void assertSameModel(Model expected, Model actual)
+	{
+		assertEquals(expected.getClass(), actual.getClass());
+		assertEquals(expected.getNumStates(), actual.getNumStates());
+		assertEquals(expected.getNumTransitions(), actual.getNumTransitions());
+		assertEquals(expected.getInitialStates(), actual.getInitialStates());
+		assertEquals(expected.getStatesList(), actual.getStatesList());
+		assertEquals(expected.getConstantValues(), actual.getConstantValues());
+		for (int s = 0; s < expected.getNumStates(); s++) {
+			if (expected instanceof MDP) {
+				MDP mdp = (MDP) expected;
+				assertEquals(mdp.getNumChoices(s), ((MDP) actual).getNumChoices(s));
+				for (int i = 0; i < mdp.getNumChoices(s); i++) {
+					assertEquals(mdp.getAction(s, i), ((MDP) actual).getAction(s, i));
+					assertEquals(new Distribution(mdp.getTransitionsIterator(s, i)), new Distribution(((MDP) actual).getTransitionsIterator(s, i)));
+				}
+			} else {
+				assertEquals(new Distribution(((DTMC) expected).getTransitionsIterator(s)), new Distribution(((DTMC) actual).getTransitionsIterator(s)));
+			}
+		}
+	}
+
+	@Test
+	public void testStructuralConstants() throws Exception
+	{
+		assertEquals(Set.of("M", "N"), parse(DTMC).getStructuralConstants());
+		assertEquals(Set.of("N"), parse(MDP).getStructuralConstants());
+	}
+
+	@Test
+	public void testDTMC() throws Exception
+	{
+		ModulesFile modulesFile = parse(DTMC);
+		for (boolean sparse : new boolean[] { true, false }) {
+			ConstructModel constructModel = new ConstructModel(new PrismComponent());
+			constructModel.setBuildSparse(sparse);
+			Model base = constructModel.constructModel(generator(modulesFile, constants(0.3, 6)));
+			ModelGenerator modelGen = generator(modulesFile, constants(0.8, 6));
+			ModelTemplate template = ModelTemplate.create(base, modelGen);
+			assertNotNull(template);
+			Model model = template.instantiate(modelGen);
+			assertSameModel(constructModel.constructModel(modelGen), model);
+			// Re-instantiating for the original values gives the original model
+			assertSameModel(base, template.instantiate(generator(modulesFile, constants(0.3, 6))));
+			// A probability of 0 removes transitions, so the structure changes
+			assertNull(template.instantiate(generator(modulesFile, constants(1.0, 6))));
+			// As does a different structural constant
+			assertNull(template.instantiate(generator(modulesFile, constants(0.3, 5))));
+		}
+	}
+
+	@Test
+	public void testMDP() throws Exception
+	{
+		ModulesFile modulesFile = parse(MDP);
+		ConstructModel constructModel = new ConstructModel(new PrismComponent());
+		Model base = constructModel.constructModel(generator(modulesFile, constants(0.3, 0)));
+		assertTrue(base instanceof MDPSparse);
+		// Deadlock (with self-loop added) in state x=0
+		assertTrue(base.isDeadlockState(0));
+		ModelGenerator modelGen = generator(modulesFile, constants(0.6, 0));
+		ModelTemplate template = ModelTemplate.create(base, modelGen);
+		assertNotNull(template);
+		assertSameModel(constructModel.constructModel(modelGen), template.instantiate(modelGen));
+	}
+}
@@ -0,0 +1,146 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import common.OffHeapArray;
+import prism.PrismException;
+
+public class OffHeapModelTest
+{
+	@Test
+	public void testOffHeapArray()
+	{
+		OffHeapArray.OfLong longs = OffHeapArray.OfLong.allocate(3);
+		longs.set(2, 1L << 40);
+		assertEquals(3, longs.length());
+		assertEquals(0L, longs.get(0));
+		assertEquals(1L << 40, longs.get(2));
+		OffHeapArray.OfDouble doubles = OffHeapArray.OfDouble.allocate(0);
+		assertEquals(0, doubles.length());
+	}
+
+	@Test
+	public void testMDPCopy() throws PrismException
+	{
+		MDPSimple mdp = new MDPSimple(3);
+		Distribution distr = new Distribution();
+		distr.add(1, 0.5);
+		distr.add(2, 0.5);
+		mdp.addChoice(0, distr);
+		distr = new Distribution();
+		distr.add(0, 1.0);
+		mdp.addActionLabelledChoice(0, distr, "b");
+		distr = new Distribution();
+		distr.add(1, 0.3);
+		distr.add(2, 0.7);
+		mdp.addActionLabelledChoice(1, distr, "a");
+		mdp.addInitialState(0);
+		mdp.findDeadlocks(false);
+		BitSet target = new BitSet();
+		target.set(2);
+		mdp.addLabel("target", target);
+
+		MDPOffHeap copy = new MDPOffHeap(mdp);
+		assertEquals(3, copy.getNumStates());
+		assertEquals(3, copy.getNumChoices());
+		assertEquals(5, copy.getNumTransitionsLong());
+		assertEquals(2, copy.getMaxNumChoices());
+		assertEquals(List.of(0), copy.getInitialStates());
+		assertTrue(copy.isDeadlockState(2));
+		assertEquals(target, copy.getLabelStates("target"));
+		assertNull(copy.getAction(0, 0));
+		assertEquals("b", copy.getAction(0, 1));
+		assertEquals("a", copy.getAction(1, 0));
+		for (int s = 0; s < 3; s++) {
+			for (int i = 0; i < mdp.getNumChoices(s); i++) {
+				assertEquals(new Distribution(mdp.getTransitionsIterator(s, i)), new Distribution(copy.getTransitionsIterator(s, i)));
+			}
+		}
+
+		double[] vect = { 1.0, 2.0, 4.0 };
+		for (boolean min : new boolean[] { true, false }) {
+			int strat1[] = { -1, -1, -1 };
+			int strat2[] = { -1, -1, -1 };
+			for (int s = 0; s < 2; s++) {
+				assertEquals(mdp.mvMultMinMaxSingle(s, vect, min, strat1), copy.mvMultMinMaxSingle(s, vect, min, strat2), 0.0);
+				assertEquals(mdp.mvMultJacMinMaxSingle(s, vect, min, null), copy.mvMultJacMinMaxSingle(s, vect, min, null), 0.0);
+			}
+			assertEquals(List.of(strat1[0], strat1[1]), List.of(strat2[0], strat2[1]));
+		}
+		BitSet u = new BitSet();
+		u.set(1, 3);
+		BitSet expected = new BitSet();
+		BitSet actual = new BitSet();
+		for (boolean forall : new boolean[] { true, false }) {
+			mdp.prob0step(null, u, forall, expected);
+			copy.prob0step(null, u, forall, actual);
+			assertEquals(expected, actual);
+			mdp.prob1step(null, u, target, forall, expected);
+			copy.prob1step(null, u, target, forall, actual);
+			assertEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testDTMCCopy()
+	{
+		DTMCSimple dtmc = new DTMCSimple(3);
+		dtmc.setProbability(0, 1, 0.25);
+		dtmc.setProbability(0, 2, 0.75);
+		dtmc.setProbability(1, 1, 0.5);
+		dtmc.setProbability(1, 0, 0.5);
+		dtmc.setProbability(2, 2, 1.0);
+		dtmc.addInitialState(0);
+
+		DTMCOffHeap copy = new DTMCOffHeap(dtmc);
+		assertEquals(5, copy.getNumTransitionsLong());
+		assertEquals(List.of(0), copy.getInitialStates());
+		double[] vect = { 1.0, 2.0, 4.0 };
+		double[] result1 = new double[3];
+		double[] result2 = new double[3];
+		for (int s = 0; s < 3; s++) {
+			assertEquals(new Distribution(dtmc.getTransitionsIterator(s)), new Distribution(copy.getTransitionsIterator(s)));
+			assertEquals(dtmc.mvMultSingle(s, vect), copy.mvMultSingle(s, vect), 0.0);
+			assertEquals(dtmc.mvMultJacSingle(s, vect), copy.mvMultJacSingle(s, vect), 1e-15);
+		}
+		dtmc.vmMult(vect, result1);
+		copy.vmMult(vect, result2);
+		for (int s = 0; s < 3; s++) {
+			assertEquals(result1[s], result2[s], 0.0);
+		}
+		BitSet u = new BitSet();
+		u.set(0, 2);
+		BitSet v = new BitSet();
+		v.set(0);
+		for (int s = 0; s < 3; s++) {
+			assertEquals(dtmc.prob0step(s, u), copy.prob0step(s, u));
+			assertEquals(dtmc.prob1step(s, u, v), copy.prob1step(s, u, v));
+		}
+	}
+
+	@Test
+	public void testCTMCCopy()
+	{
+		CTMCSimple ctmc = new CTMCSimple(2);
+		ctmc.setProbability(0, 1, 3.0);
+		ctmc.setProbability(1, 0, 1.0);
+		ctmc.addInitialState(0);
+
+		CTMCOffHeap copy = new CTMCOffHeap(ctmc);
+		assertEquals(3.0, copy.getExitRate(0), 0.0);
+		assertEquals(ctmc.getDefaultUniformisationRate(), copy.getDefaultUniformisationRate(), 0.0);
+		double[] vect = { 1.0, 2.0 };
+		DTMC unif = ctmc.buildImplicitUniformisedDTMC(4.0);
+		DTMC unifCopy = copy.buildImplicitUniformisedDTMC(4.0);
+		for (int s = 0; s < 2; s++) {
+			assertEquals(unif.mvMultSingle(s, vect), unifCopy.mvMultSingle(s, vect), 0.0);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import parser.State;
+import parser.Values;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.Expression;
+import prism.PrismLangException;
+
+public class PackedStateStorageTest
+{
+	/**
+	 * Variables: x in [-3..4], b bool, y in [0..100000], z, w in [0..2^30]
+	 * (enough bits to need two words per state)
+	 */
+	private static VarList createVarList() throws PrismLangException
+	{
+		VarList varList = new VarList();
+		varList.addVar("x", new DeclarationInt(Expression.Int(-3), Expression.Int(4)), -1, new Values());
+		varList.addVar("b", new DeclarationBool(), -1, new Values());
+		varList.addVar("y", new DeclarationInt(Expression.Int(0), Expression.Int(100000)), -1, new Values());
+		varList.addVar("z", new DeclarationInt(Expression.Int(0), Expression.Int(1 << 30)), -1, new Values());
+		varList.addVar("w", new DeclarationInt(Expression.Int(0), Expression.Int(1 << 30)), -1, new Values());
+		return varList;
+	}
+
+	private static State randomState(Random random)
+	{
+		State state = new State(5);
+		state.setValue(0, random.nextInt(8) - 3);
+		state.setValue(1, random.nextBoolean());
+		state.setValue(2, random.nextInt(100001));
+		state.setValue(3, random.nextInt(4) * (1 << 28));
+		state.setValue(4, random.nextInt(3));
+		return state;
+	}
+
+	@Test
+	public void testAddAndGet() throws PrismLangException
+	{
+		for (boolean offHeap : new boolean[] { false, true }) {
+			PackedStateStorage packed = new PackedStateStorage(createVarList(), offHeap);
+			IndexedSet<State> reference = new IndexedSet<>(true);
+			assertEquals(2, packed.getNumWordsPerState());
+			Random random = new Random(42);
+			for (int i = 0; i < 20000; i++) {
+				State state = randomState(random);
+				boolean isNew = reference.add(state);
+				assertEquals(isNew, packed.add(state));
+				assertEquals(reference.getIndexOfLastAdd(), packed.getIndexOfLastAdd());
+				assertEquals(state, packed.getState(packed.getIndexOfLastAdd()));
+			}
+			assertEquals(reference.size(), packed.size());
+			assertEquals(reference.toArrayList(), packed.toArrayList());
+			State absent = new State(5).setValue(0, 4).setValue(1, true).setValue(2, 0).setValue(3, 1).setValue(4, 0);
+			assertFalse(packed.contains(absent));
+			assertEquals(-1, packed.get(absent));
+			assertTrue(packed.contains(reference.toArrayList().get(0)));
+		}
+	}
+
+	@Test
+	public void testWideRange() throws PrismLangException
+	{
+		// x has a range wider than 2^31 (so 32 bits), and shares a word with b and y
+		// (such ranges are rejected by VarList itself, so the bounds of x are overridden)
+		VarList varList = new VarList()
+		{
+			@Override
+			public int getLow(int i)
+			{
+				return i == 1 ? -2000000000 : super.getLow(i);
+			}
+
+			@Override
+			public int getHigh(int i)
+			{
+				return i == 1 ? 2000000000 : super.getHigh(i);
+			}
+		};
+		varList.addVar("b", new DeclarationBool(), -1, new Values());
+		varList.addVar("x", new DeclarationInt(Expression.Int(0), Expression.Int(1)), -1, new Values());
+		varList.addVar("y", new DeclarationInt(Expression.Int(0), Expression.Int(7)), -1, new Values());
+		PackedStateStorage packed = new PackedStateStorage(varList, false);
+		assertEquals(1, packed.getNumWordsPerState());
+		IndexedSet<State> reference = new IndexedSet<>(true);
+		int[] xs = { -2000000000, -1, 0, 1, 147483648, 2000000000 };
+		for (int x : xs) {
+			for (int y = 0; y < 8; y += 7) {
+				for (boolean b : new boolean[] { false, true }) {
+					State state = new State(3).setValue(0, b).setValue(1, x).setValue(2, y);
+					reference.add(state);
+					assertTrue(packed.add(state));
+					assertEquals(state, packed.getState(packed.getIndexOfLastAdd()));
+				}
+			}
+		}
+		assertEquals(reference.toArrayList(), packed.toArrayList());
+		int[] permut = reference.buildSortingPermutation();
+		assertArrayEquals(permut, packed.buildSortingPermutation());
+	}
+
+	@Test
+	public void testSortingPermutation() throws PrismLangException
+	{
+		PackedStateStorage packed = new PackedStateStorage(createVarList(), false);
+		IndexedSet<State> reference = new IndexedSet<>(true);
+		Random random = new Random(7);
+		for (int i = 0; i < 5000; i++) {
+			State state = randomState(random);
+			reference.add(state);
+			packed.add(state);
+		}
+		int[] permut = reference.buildSortingPermutation();
+		assertArrayEquals(permut, packed.buildSortingPermutation());
+		assertEquals(reference.toPermutedArrayList(permut), packed.toPermutedArrayList(permut));
+	}
+}
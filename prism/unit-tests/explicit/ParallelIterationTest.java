@@ -0,0 +1,63 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.jupiter.api.Test;
+
+import common.IntSet;
+import prism.PrismException;
+
+public class ParallelIterationTest
+{
+	private static IntSet evenStates(int n)
+	{
+		BitSet bs = new BitSet();
+		for (int i = 0; i < n; i += 2) {
+			bs.set(i);
+		}
+		return IntSet.asIntSet(bs);
+	}
+
+	@Test
+	public void testEachStateVisitedOnce() throws PrismException
+	{
+		int n = 10000;
+		ParallelIteration parallel = new ParallelIteration(3, 64);
+		AtomicIntegerArray visits = new AtomicIntegerArray(n);
+		boolean result = parallel.forEachChunk(evenStates(n), (array, from, to) -> {
+			for (PrimitiveIterator.OfInt it = ParallelIteration.iterator(array, from, to); it.hasNext();) {
+				visits.incrementAndGet(it.nextInt());
+			}
+			return true;
+		});
+		assertTrue(result);
+		for (int i = 0; i < n; i++) {
+			assertEquals(i % 2 == 0 ? 1 : 0, visits.get(i));
+		}
+	}
+
+	@Test
+	public void testConjunctionOfChunkResults() throws PrismException
+	{
+		ParallelIteration parallel = new ParallelIteration(2, 16);
+		IntSet states = evenStates(1000);
+		assertFalse(parallel.forEachChunk(states, (array, from, to) -> from > 0));
+		assertTrue(parallel.forEachChunk(states, (array, from, to) -> to - from <= 16));
+	}
+
+	@Test
+	public void testExceptionPropagated()
+	{
+		ParallelIteration parallel = new ParallelIteration(2, 16);
+		assertThrows(PrismException.class, () -> parallel.forEachChunk(evenStates(1000), (array, from, to) -> {
+			throw new PrismException("error in chunk");
+		}));
+	}
+}
@@ -0,0 +1,105 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class PredecessorRelationTest
+{
+	/** Random MDP with up to 3 choices per state, which may share successors */
+	private static MDPSimple randomMDP(int numStates, long seed)
+	{
+		Random random = new Random(seed);
+		MDPSimple mdp = new MDPSimple(numStates);
+		for (int s = 0; s < numStates; s++) {
+			int numChoices = random.nextInt(4);
+			for (int i = 0; i < numChoices; i++) {
+				Distribution distr = new Distribution();
+				for (int j = random.nextInt(3); j >= 0; j--) {
+					distr.add(random.nextInt(10) == 0 ? random.nextInt(numStates) : Math.floorMod(s + random.nextInt(5) - 2, numStates), 0.5);
+				}
+				mdp.addChoice(s, distr);
+			}
+		}
+		return mdp;
+	}
+
+	/** Predecessors of each state, computed naively (ascending, without duplicates) */
+	private static List<List<Integer>> naivePre(Model model)
+	{
+		int n = model.getNumStates();
+		List<List<Integer>> pre = new ArrayList<>();
+		for (int t = 0; t < n; t++) {
+			pre.add(new ArrayList<>());
+		}
+		for (int s = 0; s < n; s++) {
+			BitSet succ = new BitSet();
+			SuccessorsIterator it = model.getSuccessors(s);
+			while (it.hasNext()) {
+				succ.set(it.nextInt());
+			}
+			for (int t = succ.nextSetBit(0); t >= 0; t = succ.nextSetBit(t + 1)) {
+				pre.get(t).add(s);
+			}
+		}
+		return pre;
+	}
+
+	@Test
+	public void testMatchesNaive()
+	{
+		// Large enough for the parallel construction to be used (if more than one thread is available)
+		for (int numStates : new int[] { 1, 50, 100_000 }) {
+			MDPSimple mdp = randomMDP(numStates, numStates);
+			PredecessorRelation pre = new PredecessorRelation(mdp);
+			List<List<Integer>> expected = naivePre(mdp);
+			int numEntries = 0;
+			for (int t = 0; t < numStates; t++) {
+				List<Integer> actual = new ArrayList<>();
+				for (PrimitiveIterator.OfInt it = pre.getPredecessorsIterator(t); it.hasNext();) {
+					actual.add(it.nextInt());
+				}
+				assertEquals(expected.get(t), actual);
+				List<Integer> viaConsumer = new ArrayList<>();
+				pre.forEachPredecessor(t, viaConsumer::add);
+				assertEquals(expected.get(t), viaConsumer);
+				assertEquals(expected.get(t).size(), pre.getNumPredecessors(t));
+				numEntries += expected.get(t).size();
+			}
+			assertEquals(numEntries, pre.getNumEntries());
+		}
+	}
+
+	@Test
+	public void testPreStar()
+	{
+		// 0 -> 1 -> 2 -> 3, 4 -> 3, 5 -> 4
+		DTMCSimple dtmc = new DTMCSimple(6);
+		dtmc.setProbability(0, 1, 1.0);
+		dtmc.setProbability(1, 2, 1.0);
+		dtmc.setProbability(2, 3, 1.0);
+		dtmc.setProbability(4, 3, 1.0);
+		dtmc.setProbability(5, 4, 1.0);
+		PredecessorRelation pre = new PredecessorRelation(dtmc);
+		BitSet target = new BitSet();
+		target.set(3);
+		assertEquals(bits(0, 1, 2, 3, 4, 5), pre.calculatePreStar(null, target, null));
+		assertEquals(bits(1, 2, 3, 4, 5), pre.calculatePreStar(bits(1, 2, 4, 5), target, null));
+		assertEquals(bits(0, 1, 2, 3), pre.calculatePreStar(null, target, bits(4)));
+	}
+
+	private static BitSet bits(int... states)
+	{
+		BitSet bs = new BitSet();
+		for (int s : states) {
+			bs.set(s);
+		}
+		return bs;
+	}
+}
@@ -0,0 +1,46 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import prism.PrismComponent;
+
+public class SCCCacheTest
+{
+	private static DTMCSimple chain()
+	{
+		// 0 -> {1, 2}; 1 <-> 3; 2 self-loop
+		DTMCSimple dtmc = new DTMCSimple(4);
+		dtmc.addInitialState(0);
+		dtmc.setProbability(0, 1, 0.5);
+		dtmc.setProbability(0, 2, 0.5);
+		dtmc.setProbability(1, 3, 1.0);
+		dtmc.setProbability(3, 1, 1.0);
+		dtmc.setProbability(2, 2, 1.0);
+		return dtmc;
+	}
+
+	@Test
+	public void testCache() throws Exception
+	{
+		SCCCache cache = new SCCCache();
+		DTMCSimple dtmc = chain();
+		SCCConsumerStore sccs = cache.getSCCs(new PrismComponent(), dtmc);
+		List<BitSet> bsccs = sccs.getBSCCs();
+		assertEquals(2, bsccs.size());
+		// Stored for the same model object, but not for an equal one
+		assertSame(sccs, cache.getSCCs(new PrismComponent(), dtmc));
+		assertNull(cache.get(chain()));
+		// Least recently used entries are discarded
+		for (int i = 0; i < SCCCache.MAX_ENTRIES; i++) {
+			cache.getSCCs(new PrismComponent(), chain());
+		}
+		assertNull(cache.get(dtmc));
+	}
+}
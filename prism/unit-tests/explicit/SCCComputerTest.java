@@ -0,0 +1,112 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import org.junit.jupiter.api.Test;
+
+import explicit.SCCComputer.SCCMethod;
+import prism.PrismComponent;
+import prism.PrismException;
+
+public class SCCComputerTest
+{
+	/** Compute SCCs (in the order reported) with the given method */
+	private static List<BitSet> computeSCCs(SCCMethod method, Model model, boolean filterTrivialSCCs, IntPredicate restrict) throws PrismException
+	{
+		List<BitSet> sccs = new ArrayList<>();
+		SCCComputer sccComputer = SCCComputer.createSCCComputer(new PrismComponent(), method, model, new SCCConsumerBitSet()
+		{
+			@Override
+			public void notifyNextSCC(BitSet scc)
+			{
+				sccs.add(scc);
+			}
+		});
+		sccComputer.computeSCCs(filterTrivialSCCs, restrict);
+		return sccs;
+	}
+
+	/** Random DTMC with numStates states and (roughly) numStates*degree transitions, mostly to nearby states */
+	private static DTMCSimple randomDTMC(int numStates, int degree, long seed)
+	{
+		Random random = new Random(seed);
+		DTMCSimple dtmc = new DTMCSimple(numStates);
+		for (int s = 0; s < numStates; s++) {
+			int n = random.nextInt(degree + 1);
+			for (int i = 0; i < n; i++) {
+				int t = random.nextInt(10) == 0 ? random.nextInt(numStates) : Math.floorMod(s + random.nextInt(7) - 2, numStates);
+				dtmc.setProbability(s, t, 1.0);
+			}
+		}
+		return dtmc;
+	}
+
+	/** Check that SCCs are reported in reverse topological order, i.e., no edges to later SCCs */
+	private static void checkReverseTopological(Model model, List<BitSet> sccs)
+	{
+		BitSet seen = new BitSet();
+		for (BitSet scc : sccs) {
+			seen.or(scc);
+			for (int s = scc.nextSetBit(0); s >= 0; s = scc.nextSetBit(s + 1)) {
+				SuccessorsIterator it = model.getSuccessors(s);
+				while (it.hasNext()) {
+					int t = it.nextInt();
+					assertTrue(seen.get(t) || sccs.stream().noneMatch(c -> c.get(t)), "edge " + s + "->" + t + " to an SCC reported later");
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testParallelMatchesTarjan() throws PrismException
+	{
+		for (long seed = 0; seed < 20; seed++) {
+			DTMCSimple dtmc = randomDTMC(500, 3, seed);
+			BitSet relevant = new BitSet();
+			for (int s = 0; s < 500; s += 1 + (int) (seed % 3)) {
+				relevant.set(s);
+			}
+			for (boolean filter : new boolean[] { true, false }) {
+				for (IntPredicate restrict : new IntPredicate[] { null, relevant::get }) {
+					List<BitSet> tarjan = computeSCCs(SCCMethod.TARJAN, dtmc, filter, restrict);
+					List<BitSet> parallel = computeSCCs(SCCMethod.PARALLEL, dtmc, filter, restrict);
+					assertEquals(tarjan.size(), parallel.size());
+					assertTrue(parallel.containsAll(tarjan));
+					if (!filter && restrict == null) {
+						checkReverseTopological(dtmc, parallel);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLongChain() throws PrismException
+	{
+		// Long chain of states, ending in a cycle: would overflow the stack with recursive DFS
+		int numStates = 1_000_000;
+		DTMCSimple dtmc = new DTMCSimple(numStates);
+		for (int s = 0; s < numStates - 1; s++) {
+			dtmc.setProbability(s, s + 1, 1.0);
+		}
+		dtmc.setProbability(numStates - 1, numStates - 2, 1.0);
+		for (SCCMethod method : SCCMethod.values()) {
+			List<BitSet> sccs = computeSCCs(method, dtmc, true, null);
+			assertEquals(1, sccs.size());
+			assertEquals(2, sccs.get(0).cardinality());
+			assertTrue(sccs.get(0).get(numStates - 1));
+			SCCInfo sccInfo = new SCCInfo(numStates);
+			SCCComputer.createSCCComputer(new PrismComponent(), method, dtmc, sccInfo).computeSCCs(false, null);
+			assertEquals(numStates - 1, sccInfo.getNumSCCs());
+			// Bottom SCC first
+			assertEquals(0, sccInfo.getSCCIndex(numStates - 1));
+		}
+	}
+}
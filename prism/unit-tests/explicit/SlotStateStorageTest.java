@@ -0,0 +1,84 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import parser.State;
+import parser.Values;
+import parser.VarList;
+import parser.ast.DeclarationBool;
+import parser.ast.DeclarationInt;
+import parser.ast.Expression;
+import prism.PrismLangException;
+
+public class SlotStateStorageTest
+{
+	/**
+	 * Variables: x in [0..50], b bool, y in [-10..10]
+	 */
+	private static VarList createVarList() throws PrismLangException
+	{
+		VarList varList = new VarList();
+		varList.addVar("x", new DeclarationInt(Expression.Int(0), Expression.Int(50)), -1, new Values());
+		varList.addVar("b", new DeclarationBool(), -1, new Values());
+		varList.addVar("y", new DeclarationInt(Expression.Int(-10), Expression.Int(10)), -1, new Values());
+		return varList;
+	}
+
+	private static State randomState(Random random)
+	{
+		State state = new State(3);
+		state.setValue(0, random.nextInt(51));
+		state.setValue(1, random.nextBoolean());
+		state.setValue(2, random.nextInt(21) - 10);
+		return state;
+	}
+
+	@Test
+	public void testAddRemoveReuse() throws PrismLangException
+	{
+		for (boolean pack : new boolean[] { false, true }) {
+			SlotStateStorage storage = new SlotStateStorage(createVarList(), pack);
+			assertEquals(pack, storage.isPacked());
+			Map<State, Integer> reference = new HashMap<>();
+			List<State> stored = new ArrayList<>();
+			Random random = new Random(42);
+			int maxSize = 0;
+			for (int i = 0; i < 50000; i++) {
+				State state = randomState(random);
+				Integer slot = reference.get(state);
+				assertEquals(slot == null ? -1 : (int) slot, storage.get(state));
+				if (slot == null) {
+					int newSlot = storage.add(state);
+					assertFalse(reference.containsValue(newSlot));
+					reference.put(state, newSlot);
+					stored.add(state);
+				} else if (random.nextInt(3) == 0) {
+					storage.remove(slot);
+					assertFalse(storage.isUsed(slot));
+					reference.remove(state);
+					stored.remove(state);
+				}
+				assertEquals(reference.size(), storage.size());
+				maxSize = Math.max(maxSize, reference.size());
+			}
+			// Slots of removed states are reused before new ones are created
+			assertEquals(maxSize, storage.getNumSlots());
+			for (State state : stored) {
+				int slot = reference.get(state);
+				assertTrue(storage.isUsed(slot));
+				assertEquals(state, storage.getState(slot));
+				assertEquals(slot, storage.get(state));
+			}
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+import parser.ast.ExpressionFilter;
+import parser.type.TypeBool;
+import parser.type.TypeDouble;
+import parser.type.TypeInt;
+import prism.PrismException;
+
+public class StateValuesTest
+{
+	private static final double[] VALUES = { 0.5, 0.25, 1.0, 0.0, 0.75 };
+
+	private static BitSet allStates()
+	{
+		BitSet bs = new BitSet();
+		bs.set(0, VALUES.length);
+		return bs;
+	}
+
+	@Test
+	public void testDoubleStorage() throws PrismException
+	{
+		DTMCSimple model = new DTMCSimple(VALUES.length);
+		StateValues sv = StateValues.createFromDoubleArray(VALUES.clone(), model);
+		assertSame(TypeDouble.getInstance(), sv.getType());
+		for (int i = 0; i < VALUES.length; i++) {
+			assertEquals(VALUES[i], sv.getValue(i));
+			assertEquals(VALUES[i], sv.getDoubleValue(i), 0.0);
+		}
+		assertArrayEquals(VALUES, sv.getDoubleArray(), 0.0);
+		sv.setValue(3, 0.125);
+		assertEquals(0.125, sv.getDoubleValue(3), 0.0);
+		StateValues copy = sv.deepCopy();
+		sv.setValue(0, 9.0);
+		assertEquals(VALUES[0], copy.getDoubleValue(0), 0.0);
+	}
+
+	@Test
+	public void testAggregates() throws PrismException
+	{
+		DTMCSimple model = new DTMCSimple(VALUES.length);
+		StateValues sv = StateValues.createFromDoubleArray(VALUES.clone(), model);
+		BitSet all = allStates();
+		BitSet some = new BitSet();
+		some.set(0);
+		some.set(1);
+		assertEquals(ExpressionFilter.applyMin(sv.filtered(all), sv.getType()), sv.minOverBitSet(all));
+		assertEquals(ExpressionFilter.applyMax(sv.filtered(some), sv.getType()), sv.maxOverBitSet(some));
+		assertEquals(ExpressionFilter.applySum(sv.filtered(all), sv.getType()), sv.sumOverBitSet(all));
+		assertEquals(ExpressionFilter.applyAvg(sv.filtered(some), sv.getType()), sv.averageOverBitSet(some));
+
+		StateValues svInt = StateValues.create(TypeInt.getInstance(), i -> i * 3 - 4, model);
+		assertEquals(-4, svInt.minOverBitSet(all));
+		assertEquals(8, svInt.maxOverBitSet(all));
+		assertEquals(10, svInt.sumOverBitSet(all));
+		assertEquals(ExpressionFilter.applyAvg(svInt.filtered(all), svInt.getType()), svInt.averageOverBitSet(all));
+	}
+
+	@Test
+	public void testPrimitiveFunctions() throws PrismException
+	{
+		DTMCSimple model = new DTMCSimple(VALUES.length);
+		StateValues sv = StateValues.createFromDoubleArray(VALUES.clone(), model);
+		BitSet subset = new BitSet();
+		subset.set(1);
+		subset.set(2);
+		sv.applyDoubleFunction(v -> 1.0 - v, subset);
+		assertArrayEquals(new double[] { 0.5, 0.75, 0.0, 0.0, 0.75 }, sv.getDoubleArray(), 0.0);
+
+		StateValues svInt = StateValues.create(TypeInt.getInstance(), i -> i, model);
+		svInt.applyDoubleFunction((v1, v2) -> v1 * v2, sv, null);
+		assertSame(TypeDouble.getInstance(), svInt.getType());
+		assertArrayEquals(new double[] { 0.0, 0.75, 0.0, 0.0, 3.0 }, svInt.getDoubleArray(), 0.0);
+
+		sv.applyDoublePredicate(v -> v > 0.6);
+		assertSame(TypeBool.getInstance(), sv.getType());
+		BitSet expected = new BitSet();
+		expected.set(1);
+		expected.set(4);
+		assertEquals(expected, sv.getBitSet());
+		assertEquals(2, sv.countOverBitSet(allStates()));
+	}
+
+	@Test
+	public void testTypeChange() throws PrismException
+	{
+		DTMCSimple model = new DTMCSimple(VALUES.length);
+		StateValues sv = StateValues.createFromDoubleArray(VALUES.clone(), model);
+		sv.applyFunction(TypeInt.getInstance(), v -> (int) Math.round(4 * (double) v));
+		assertSame(TypeInt.getInstance(), sv.getType());
+		for (int i = 0; i < VALUES.length; i++) {
+			assertEquals((int) Math.round(4 * VALUES[i]), sv.getIntValue(i));
+		}
+		sv.applyFunction(TypeDouble.getInstance(), v -> (int) v / 2.0);
+		assertArrayEquals(new double[] { 1.0, 0.5, 2.0, 0.0, 1.5 }, sv.getDoubleArray(), 0.0);
+	}
+}
@@ -0,0 +1,157 @@
+package explicit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import explicit.ProbModelChecker.LinEqMethod;
+import explicit.ProbModelChecker.MDPSolnMethod;
+import prism.PrismComponent;
+import prism.PrismDevNullLog;
+import prism.PrismException;
+
+public class TopologicalValueIterationTest
+{
+	private static final int BRANCHES = 6;
+	private static final int LENGTH = 30;
+
+	/**
+	 * State 0 branches to BRANCHES independent chains, each consisting of LENGTH
+	 * two-state SCCs linked by singleton SCCs. Chains end in the target (last state)
+	 * or a sink (second-last state). For an MDP, states in cycles get a second choice.
+	 */
+	private static void build(ModelSimple model, boolean mdp)
+	{
+		int n = model.getNumStates();
+		int target = n - 1;
+		int sink = n - 2;
+		Distribution init = new Distribution();
+		for (int b = 0; b < BRANCHES; b++) {
+			init.add(1 + b * 3 * LENGTH, 1.0 / BRANCHES);
+		}
+		add(model, 0, init);
+		for (int b = 0; b < BRANCHES; b++) {
+			for (int i = 0; i < LENGTH; i++) {
+				int s = 1 + (b * LENGTH + i) * 3;
+				int next = i < LENGTH - 1 ? s + 3 : (b % 2 == 0 ? target : sink);
+				double p = 0.1 + 0.8 * ((b + i) % 7) / 7.0;
+				// cycle s <-> s+1, exits to s+2 (singleton) and to the sink
+				add(model, s, dist(s + 1, p, s + 2, 1 - p));
+				add(model, s + 1, dist(s, 0.9, sink, 0.1));
+				if (mdp) {
+					add(model, s, dist(s + 1, 0.5, s + 2, 0.5));
+					add(model, s + 1, dist(s, 0.5, s + 2, 0.5));
+				}
+				add(model, s + 2, dist(next));
+			}
+		}
+		add(model, target, dist(target));
+		add(model, sink, dist(sink));
+		model.addInitialState(0);
+	}
+
+	private static Distribution dist(int s)
+	{
+		Distribution distr = new Distribution();
+		distr.add(s, 1.0);
+		return distr;
+	}
+
+	private static Distribution dist(int s1, double p1, int s2, double p2)
+	{
+		Distribution distr = new Distribution();
+		distr.add(s1, p1);
+		distr.add(s2, p2);
+		return distr;
+	}
+
+	private static void add(ModelSimple model, int s, Distribution distr)
+	{
+		if (model instanceof MDPSimple) {
+			((MDPSimple) model).addChoice(s, distr);
+		} else {
+			for (Map.Entry<Integer, Double> e : distr) {
+				((DTMCSimple) model).setProbability(s, e.getKey(), e.getValue());
+			}
+		}
+	}
+
+	private static int numStates()
+	{
+		return 1 + BRANCHES * LENGTH * 3 + 2;
+	}
+
+	private static BitSet target()
+	{
+		BitSet target = new BitSet();
+		target.set(numStates() - 1);
+		return target;
+	}
+
+	private static <MC extends ProbModelChecker> MC setup(MC mc, int numThreads)
+	{
+		mc.setLog(new PrismDevNullLog());
+		mc.setDoTopologicalValueIteration(true);
+		mc.setNumIterationThreads(numThreads);
+		mc.setTermCritParam(1e-12);
+		return mc;
+	}
+
+	private static ModelCheckerResult checkDTMC(LinEqMethod method, int numThreads) throws PrismException
+	{
+		DTMCSimple dtmc = new DTMCSimple(numStates());
+		build(dtmc, false);
+		DTMCModelChecker mc = setup(new DTMCModelChecker(new PrismComponent()), numThreads);
+		mc.setLinEqMethod(method);
+		return mc.computeReachProbs(dtmc, target());
+	}
+
+	private static ModelCheckerResult checkMDP(MDPSolnMethod method, boolean min, int numThreads) throws PrismException
+	{
+		MDPSimple mdp = new MDPSimple(numStates());
+		build(mdp, true);
+		MDPModelChecker mc = setup(new MDPModelChecker(new PrismComponent()), numThreads);
+		mc.setMDPSolnMethod(method);
+		return mc.computeReachProbs(mdp, target(), min);
+	}
+
+	private static void assertSameResult(ModelCheckerResult expected, ModelCheckerResult actual)
+	{
+		assertArrayEquals(expected.soln, actual.soln);
+		assertEquals(expected.numIters, actual.numIters);
+		assertEquals(expected.accuracy.getAbsoluteErrorBound(0.5), actual.accuracy.getAbsoluteErrorBound(0.5));
+	}
+
+	@Test
+	public void testDTMCParallelMatchesSequential() throws PrismException
+	{
+		for (LinEqMethod method : new LinEqMethod[] { LinEqMethod.POWER, LinEqMethod.JACOBI, LinEqMethod.GAUSS_SEIDEL }) {
+			assertSameResult(checkDTMC(method, 1), checkDTMC(method, 3));
+		}
+	}
+
+	@Test
+	public void testMDPParallelMatchesSequential() throws PrismException
+	{
+		for (MDPSolnMethod method : new MDPSolnMethod[] { MDPSolnMethod.VALUE_ITERATION, MDPSolnMethod.GAUSS_SEIDEL }) {
+			for (boolean min : new boolean[] { true, false }) {
+				assertSameResult(checkMDP(method, min, 1), checkMDP(method, min, 3));
+			}
+		}
+	}
+
+	@Test
+	public void testNonConvergence() throws PrismException
+	{
+		DTMCSimple dtmc = new DTMCSimple(numStates());
+		build(dtmc, false);
+		DTMCModelChecker mc = setup(new DTMCModelChecker(new PrismComponent()), 3);
+		mc.setMaxIters(2);
+		assertThrows(PrismException.class, () -> mc.computeReachProbs(dtmc, target()));
+	}
+}
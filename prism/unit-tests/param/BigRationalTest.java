@@ -4,8 +4,10 @@ import org.junit.jupiter.api.Test;
 
 import java.math.BigInteger;
 import java.util.BitSet;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class BigRationalTest
 {
@@ -44,4 +46,120 @@ public class BigRationalTest
 		assertEquals(absMin, new BigRational(Double.MIN_VALUE));
 		assertEquals(absMin.negate(), new BigRational(-Double.MIN_VALUE));
 	}
+
+	/**
+	 * Numerator/denominator of (num / den) as computed using BigIntegers only,
+	 * with or without cancellation.
+	 */
+	private static BigInteger[] reference(BigInteger num, BigInteger den, boolean cancel)
+	{
+		if (den.signum() == 0) {
+			return new BigInteger[] { BigInteger.valueOf(num.signum()), den };
+		}
+		if (cancel) {
+			if (num.signum() == 0) {
+				return new BigInteger[] { BigInteger.ZERO, BigInteger.ONE };
+			}
+			BigInteger gcd = num.gcd(den);
+			num = num.divide(gcd);
+			den = den.divide(gcd);
+			if (den.signum() < 0) {
+				num = num.negate();
+				den = den.negate();
+			}
+		}
+		return new BigInteger[] { num, den };
+	}
+
+	private static void assertReference(BigInteger[] expected, BigRational actual)
+	{
+		assertEquals(expected[0], actual.getNum());
+		assertEquals(expected[1], actual.getDen());
+		assertEquals(37 * expected[0].hashCode() + expected[1].hashCode(), actual.hashCode());
+		if (expected[1].signum() != 0) {
+			String expectedString = expected[1].equals(BigInteger.ONE) ? expected[0].toString() : expected[0] + "/" + expected[1];
+			assertEquals(expectedString, actual.toString());
+		}
+		assertEquals(actual, new BigRational(expected[0], expected[1], false));
+	}
+
+	/**
+	 * Random (non-zero, for denominators) value, concentrated around the limits of long.
+	 */
+	private static BigInteger randomValue(Random random, boolean nonZero)
+	{
+		BigInteger value;
+		switch (random.nextInt(5)) {
+		case 0:
+			value = BigInteger.valueOf(random.nextInt(21) - 10);
+			break;
+		case 1:
+			value = BigInteger.valueOf(random.nextInt());
+			break;
+		case 2:
+			value = BigInteger.valueOf(Long.MAX_VALUE - random.nextInt(3));
+			break;
+		case 3:
+			value = BigInteger.valueOf(Long.MIN_VALUE + random.nextInt(3));
+			break;
+		default:
+			value = new BigInteger(random.nextInt(100) + 1, random);
+		}
+		value = random.nextBoolean() ? value : value.negate();
+		return nonZero && value.signum() == 0 ? BigInteger.ONE : value;
+	}
+
+	@Test
+	public void testBigRationalArithmetic()
+	{
+		// compare against arithmetic on BigIntegers, in particular when long operations overflow
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			BigInteger an = randomValue(random, false), ad = randomValue(random, true);
+			BigInteger bn = randomValue(random, false), bd = randomValue(random, true);
+			boolean cancel = random.nextBoolean();
+			BigRational a = new BigRational(an, ad, cancel);
+			BigRational b = new BigRational(bn, bd, cancel);
+			BigInteger[] ar = reference(an, ad, cancel);
+			BigInteger[] br = reference(bn, bd, cancel);
+			assertReference(ar, a);
+			assertReference(br, b);
+			assertReference(reference(ar[0].multiply(br[1]).add(br[0].multiply(ar[1])), ar[1].multiply(br[1]), cancel), a.add(b, cancel));
+			assertReference(reference(ar[0].multiply(br[1]).subtract(br[0].multiply(ar[1])), ar[1].multiply(br[1]), true), a.subtract(b));
+			if (ar[0].signum() != 0 && br[0].signum() != 0) {
+				// (special cases for zero values are handled before any arithmetic)
+				assertReference(reference(ar[0].multiply(br[0]), ar[1].multiply(br[1]), cancel), a.multiply(b, cancel));
+				BigInteger[] inv = reference(br[1], br[0], cancel);
+				assertReference(reference(ar[0].multiply(inv[0]), ar[1].multiply(inv[1]), cancel), a.divide(b, cancel));
+			}
+			assertReference(reference(ar[0].negate(), ar[1], false), a.negate());
+			assertReference(reference(ar[0], ar[1], true), a.cancel());
+			assertEquals(ar[0].multiply(br[1]).compareTo(br[0].multiply(ar[1])), a.compareTo(b));
+			assertEquals(ar[0].signum() * ar[1].signum(), a.signum());
+		}
+	}
+
+	@Test
+	public void testBigRationalLongLimits() throws Exception
+	{
+		BigRational max = new BigRational(Long.MAX_VALUE);
+		BigRational min = new BigRational(Long.MIN_VALUE);
+		assertEquals(Long.MAX_VALUE, max.longValue());
+		assertEquals(Long.MIN_VALUE, min.longValue());
+		assertEquals(BigInteger.valueOf(Long.MIN_VALUE).negate(), min.negate().getNum());
+		assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), max.add(BigRational.ONE).getNum());
+		assertEquals(min, max.add(BigRational.ONE).negate());
+		assertEquals(max, min.add(BigRational.ONE).abs());
+		assertEquals(BigRational.ONE, new BigRational(Long.MIN_VALUE, Long.MIN_VALUE));
+		assertEquals(new BigRational(Long.MIN_VALUE / 2), new BigRational(Long.MIN_VALUE, 2));
+		assertEquals(BigRational.MONE, new BigRational(Long.MIN_VALUE / 2, Long.MAX_VALUE / 2 + 1));
+		assertEquals(BigRational.MINF, new BigRational(Long.MIN_VALUE, 0));
+		assertEquals(BigRational.NAN, new BigRational(0, 0));
+		assertEquals(new BigRational(-4), new BigRational(-7, 2).floor());
+		assertEquals(new BigRational(-3), new BigRational(-7, 2).ceil());
+		assertEquals(new BigRational(4), new BigRational(7, 2).ceil());
+		assertEquals(new BigRational(3), new BigRational(7, 2).floor());
+		assertTrue(max.lessThan(max.add(new BigRational(1, Long.MAX_VALUE))));
+		assertEquals(BigRational.ZERO, max.multiply(max).subtract(max.multiply(max)));
+	}
 }
@@ -0,0 +1,99 @@
+package param;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class OperationCacheTest
+{
+	private static final String[] NAMES = { "p", "q" };
+	private static final BigRational[] LOWER = { BigRational.ZERO, BigRational.ZERO };
+	private static final BigRational[] UPPER = { BigRational.ONE, BigRational.ONE };
+
+	@Test
+	public void testBoundedWithCounters()
+	{
+		for (OperationCache.EvictionPolicy policy : OperationCache.EvictionPolicy.values()) {
+			OperationCache<Integer, Integer> cache = new OperationCache<>(100, policy);
+			for (int i = 0; i < 1000; i++) {
+				cache.put(i, -i);
+			}
+			assertEquals(100, cache.size());
+			assertEquals(900, cache.getEvictions());
+			int found = 0;
+			for (int i = 0; i < 1000; i++) {
+				Integer value = cache.get(i);
+				if (value != null) {
+					assertEquals(-i, value.intValue());
+					found++;
+				}
+			}
+			assertEquals(100, found);
+			assertEquals(100, cache.getHits());
+			assertEquals(900, cache.getMisses());
+		}
+	}
+
+	@Test
+	public void testEvictionPolicy()
+	{
+		// single segment, so that eviction order is exact
+		OperationCache<Integer, Integer> lru = new OperationCache<>(1, OperationCache.EvictionPolicy.LRU);
+		lru.put(1, 1);
+		lru.put(2, 2);
+		assertNull(lru.get(1));
+		assertEquals(2, lru.get(2).intValue());
+
+		for (OperationCache.EvictionPolicy policy : OperationCache.EvictionPolicy.values()) {
+			// entry used after each insertion survives for LRU only
+			OperationCache<Integer, Integer> cache = new OperationCache<>(1000, policy);
+			cache.put(0, 0);
+			for (int i = 1; i < 10000; i++) {
+				cache.put(i, i);
+				cache.get(0);
+			}
+			assertEquals(policy == OperationCache.EvictionPolicy.LRU, cache.get(0) != null);
+		}
+	}
+
+	@Test
+	public void testCachedFunctionsConcurrently() throws InterruptedException
+	{
+		// small operation caches, so that there are evictions; results must not depend on them
+		CachedFunctionFactory factory = new CachedFunctionFactory(new DagFunctionFactory(NAMES, LOWER, UPPER, 1E-100, false), 8,
+				OperationCache.EvictionPolicy.LRU);
+		Function p = factory.getVar(0);
+		Function q = factory.getVar(1);
+		Function[] expected = new Function[50];
+		Function value = factory.getOne();
+		for (int i = 0; i < expected.length; i++) {
+			value = value.multiply(p).add(q).star();
+			expected[i] = value;
+		}
+		Function[][] results = new Function[4][expected.length];
+		Thread[] threads = new Thread[results.length];
+		for (int t = 0; t < threads.length; t++) {
+			Function[] result = results[t];
+			threads[t] = new Thread(() -> {
+				Function v = factory.getOne();
+				for (int i = 0; i < result.length; i++) {
+					v = v.multiply(p).add(q).star();
+					result[i] = v;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (Function[] result : results) {
+			for (int i = 0; i < expected.length; i++) {
+				assertSame(expected[i], result[i]);
+			}
+		}
+		assertTrue(factory.isUseOpCache());
+	}
+}
@@ -0,0 +1,59 @@
+package param;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class RegionCheckTest
+{
+	private static final String[] NAMES = { "p", "q" };
+	private static final BigRational[] LOWER = { BigRational.ZERO, BigRational.ZERO };
+	private static final BigRational[] UPPER = { BigRational.ONE, BigRational.ONE };
+
+	/**
+	 * Compare the values of two states, p*q and p+q-1, with op against 1/4,
+	 * splitting the parameter space (with the given split method) until
+	 * at most 1/100 of it remains undecided.
+	 */
+	private static RegionValues compare(FunctionFactory functionFactory, int op, int splitMethod, int numThreads)
+	{
+		BoxRegionFactory regionFactory = new BoxRegionFactory(functionFactory, new ConstraintChecker(5), new BigRational(1, 100), 2, 0, false, splitMethod,
+				numThreads);
+		Function p = functionFactory.getVar(0);
+		Function q = functionFactory.getVar(1);
+		StateValues values = new StateValues(2, 0);
+		values.setStateValue(0, p.multiply(q));
+		values.setStateValue(1, p.add(q).subtract(functionFactory.getOne()));
+		return regionFactory.completeCover(values).binaryOp(op, new BigRational(1, 4));
+	}
+
+	private static void assertSameRegionValues(RegionValues expected, RegionValues actual)
+	{
+		assertEquals(expected.getNumRegions(), actual.getNumRegions());
+		for (int i = 0; i < expected.getNumRegions(); i++) {
+			assertEquals(expected.getRegion(i), actual.getRegion(i));
+			assertEquals(expected.getResult(i), actual.getResult(i));
+		}
+	}
+
+	@Test
+	public void testParallelRegionChecks()
+	{
+		// results (and the order of regions) do not depend on the number of threads
+		for (int op : new int[] { Region.GT, Region.LE, Region.NE }) {
+			for (int splitMethod : new int[] { BoxRegion.SPLIT_LONGEST, BoxRegion.SPLIT_ALL }) {
+				FunctionFactory functionFactory = new CachedFunctionFactory(new DagFunctionFactory(NAMES, LOWER, UPPER, 1E-100, false));
+				RegionValues sequential = compare(functionFactory, op, splitMethod, 1);
+				BigRational volume = BigRational.ZERO;
+				for (int i = 0; i < sequential.getNumRegions(); i++) {
+					volume = volume.add(sequential.getRegion(i).volume());
+				}
+				assertTrue(volume.compareTo(new BigRational(99, 100)) >= 0);
+				for (int numThreads : new int[] { 2, 4 }) {
+					assertSameRegionValues(sequential, compare(functionFactory, op, splitMethod, numThreads));
+				}
+			}
+		}
+	}
+}
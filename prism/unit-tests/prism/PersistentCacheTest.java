@@ -0,0 +1,76 @@
+package prism;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import param.BigRational;
+
+public class PersistentCacheTest
+{
+	@TempDir
+	File dir;
+
+	@Test
+	public void testHash()
+	{
+		assertEquals(PersistentCache.hash("a", "b"), PersistentCache.hash("a", "b"));
+		// Parts are delimited unambiguously
+		assertNotEquals(PersistentCache.hash("ab", "c"), PersistentCache.hash("a", "bc"));
+		assertNotEquals(PersistentCache.hash("a", null), PersistentCache.hash("a", "null"));
+	}
+
+	@Test
+	public void testResults() throws PrismException
+	{
+		PersistentCache cache = new PersistentCache(new PrismComponent(), dir, 1 << 20);
+		assertNull(cache.getResult("x"));
+
+		Result result = new Result(0.25);
+		result.setAccuracy(new Accuracy(Accuracy.AccuracyLevel.ESTIMATED_BOUNDED, 1e-6));
+		double vector[] = { 0.0, 0.25, 1.0 };
+		assertTrue(cache.putResult("x", result, vector));
+		PersistentCache.CachedResult cached = cache.getResult("x");
+		assertNotNull(cached);
+		assertEquals(0.25, cached.result.getResult());
+		assertEquals(result.getResultAndAccuracy(), cached.result.getResultAndAccuracy());
+		assertArrayEquals(vector, cached.vector);
+
+		assertTrue(cache.putResult("y", new Result(new BigRational(1, 3)), null));
+		cached = cache.getResult("y");
+		assertEquals(new BigRational(1, 3), cached.result.getResult());
+		assertNull(cached.vector);
+
+		// Results of other types are not stored
+		assertFalse(cache.putResult("z", new Result("string"), null));
+		assertNull(cache.getResult("z"));
+	}
+
+	@Test
+	public void testEviction() throws PrismException
+	{
+		// Room for 3 results, each with a vector of 100 doubles
+		PersistentCache cache = new PersistentCache(new PrismComponent(), dir, 3 * 900);
+		double vector[] = new double[100];
+		for (int i = 0; i < 3; i++) {
+			assertTrue(cache.putResult("r" + i, new Result(i), vector));
+			new File(dir, "r" + i + PersistentCache.RESULT_EXTENSION).setLastModified(1000L * (i + 1));
+		}
+		// Use the oldest entry, so that the second oldest is evicted instead
+		assertNotNull(cache.getResult("r0"));
+		assertTrue(cache.putResult("r3", new Result(3), vector));
+		assertNotNull(cache.getResult("r0"));
+		assertNull(cache.getResult("r1"));
+		assertNotNull(cache.getResult("r2"));
+		assertNotNull(cache.getResult("r3"));
+	}
+}
@@ -0,0 +1,163 @@
+package pta;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DBMTest
+{
+	private static PTA createPTA(int numClocks)
+	{
+		PTA pta = new PTA(new ArrayList<String>());
+		for (int i = 0; i < numClocks; i++) {
+			pta.addClock("x" + (i + 1));
+		}
+		return pta;
+	}
+
+	/**
+	 * Reference implementation: conjunction of all constraints, then full Floyd-Warshall
+	 * (on a matrix stored as an array of arrays); returns null if empty.
+	 */
+	private static int[] closure(PTA pta, Iterable<Constraint> constraints)
+	{
+		int n = pta.numClocks + 1;
+		int[][] m = new int[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				m[i][j] = (i == 0 || i == j) ? DB.LEQ_ZERO : DB.INFTY;
+			}
+		}
+		for (Constraint c : constraints) {
+			m[c.x][c.y] = Math.min(m[c.x][c.y], c.db);
+		}
+		for (int k = 0; k < n; k++) {
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					m[i][j] = Math.min(m[i][j], DB.add(m[i][k], m[k][j]));
+				}
+			}
+		}
+		int[] flat = new int[n * n];
+		for (int i = 0; i < n; i++) {
+			if (m[i][i] < DB.LEQ_ZERO)
+				return null;
+			System.arraycopy(m[i], 0, flat, i * n, n);
+		}
+		return flat;
+	}
+
+	private static Constraint randomConstraint(Random random, int numClocks)
+	{
+		int x = random.nextInt(numClocks + 1);
+		int y = random.nextInt(numClocks + 1);
+		while (y == x) {
+			y = random.nextInt(numClocks + 1);
+		}
+		int v = random.nextInt(21) - 5;
+		boolean strict = random.nextBoolean();
+		if (y == 0)
+			return strict ? Constraint.buildLt(x, v) : Constraint.buildLeq(x, v);
+		else if (x == 0)
+			return strict ? Constraint.buildGt(y, -v) : Constraint.buildGeq(y, -v);
+		else
+			return strict ? Constraint.buildXYLt(x, y, v) : Constraint.buildXYLeq(x, y, v);
+	}
+
+	@Test
+	public void testIncrementalCanonicalisation()
+	{
+		Random random = new Random(42);
+		for (int numClocks = 1; numClocks <= 4; numClocks++) {
+			PTA pta = createPTA(numClocks);
+			for (int run = 0; run < 500; run++) {
+				ArrayList<Constraint> constraints = new ArrayList<Constraint>();
+				DBM dbm = DBM.createTrue(pta);
+				for (int k = 0; k < 6; k++) {
+					Constraint c = randomConstraint(random, numClocks);
+					constraints.add(c);
+					dbm.addConstraint(c);
+					int[] expected = closure(pta, constraints);
+					assertEquals(expected == null, dbm.isEmpty());
+					if (expected == null)
+						break;
+					assertArrayEquals(expected, dbm.d);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOperations()
+	{
+		PTA pta = createPTA(2);
+		// Zero zone, let time elapse, add x1<=3
+		DBM dbm = DBM.createZero(pta);
+		dbm.up(Collections.singletonList(Constraint.buildLeq(1, 3)));
+		assertEquals(0, dbm.getClockMin(2));
+		assertEquals(3, dbm.getClockMax(2));
+		assertFalse(dbm.clockIsUnbounded(1));
+		// Reset x2, then x1-x2 is in [0,3]
+		dbm.reset(2, 0);
+		DBM expected = DBM.createFromConstraints(pta, Arrays.asList(Constraint.buildLeq(1, 3), Constraint.buildLeq(2, 0)));
+		assertEquals(expected, dbm);
+		assertEquals(expected.hashCode(), dbm.hashCode());
+		// Copies are independent
+		DBM copy = dbm.deepCopy();
+		copy.up();
+		assertTrue(copy.includes(dbm));
+		assertFalse(dbm.includes(copy));
+		assertTrue(copy.allClocksAreUnbounded());
+		// c-Closure
+		copy.addConstraint(Constraint.buildGeq(1, 10));
+		copy.cClosure(5);
+		assertTrue(copy.clockIsUnbounded(1));
+		assertEquals(5, copy.getClockMin(1));
+		// Contradiction
+		dbm.addConstraint(Constraint.buildGt(1, 3));
+		assertTrue(dbm.isEmpty());
+	}
+
+	@Test
+	public void testPassedWaitingList()
+	{
+		PTA pta = createPTA(1);
+		PassedWaitingList list = new PassedWaitingList();
+		DBM zero = DBM.createZero(pta);
+		DBM small = DBM.createFromConstraints(pta, Collections.singletonList(Constraint.buildLeq(1, 2)));
+		DBM large = DBM.createFromConstraints(pta, Collections.singletonList(Constraint.buildLeq(1, 5)));
+		assertTrue(list.add(new LocZone(0, zero)));
+		assertEquals(0, list.getIndexOfLastAdd());
+		// Explore state 0
+		list.removeWaiting();
+		assertTrue(list.add(new LocZone(1, small)));
+		assertEquals(1, list.getIndexOfLastAdd());
+		// Identical state
+		assertFalse(list.add(new LocZone(1, small.deepCopy())));
+		assertEquals(1, list.getIndexOfLastAdd());
+		// Larger zone replaces waiting state 1
+		assertFalse(list.add(new LocZone(1, large)));
+		assertEquals(1, list.getIndexOfLastAdd());
+		assertEquals(1, list.getNumReplaced());
+		// Smaller zone is subsumed by the stored larger one
+		assertFalse(list.add(new LocZone(1, small)));
+		assertEquals(1, list.getIndexOfLastAdd());
+		assertEquals(1, list.getNumSubsumed());
+		// Explored zones are not replaced
+		assertFalse(list.add(new LocZone(0, zero.deepCopy())));
+		assertTrue(list.add(new LocZone(0, large)));
+		assertEquals(2, list.getIndexOfLastAdd());
+		// No subsumption if not requested
+		assertTrue(list.add(new LocZone(1, small), false));
+		assertEquals(4, list.size());
+		assertEquals(large, list.removeWaiting().zone);
+	}
+}
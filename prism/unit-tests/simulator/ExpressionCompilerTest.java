@@ -0,0 +1,138 @@
+package simulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import parser.State;
+import parser.Values;
+import parser.ast.Expression;
+import parser.type.Type;
+import parser.type.TypeBool;
+import parser.type.TypeInt;
+import prism.Prism;
+import prism.PrismLangException;
+import simulator.ExpressionCompiler.BooleanEvaluator;
+import simulator.ExpressionCompiler.DoubleEvaluator;
+import simulator.ExpressionCompiler.IntEvaluator;
+
+public class ExpressionCompilerTest
+{
+	private static final List<String> VAR_NAMES = Arrays.asList("b", "c", "i", "j");
+	private static final List<Type> VAR_TYPES = Arrays.asList(TypeBool.getInstance(), TypeBool.getInstance(), TypeInt.getInstance(), TypeInt.getInstance());
+	private static final Values CONSTANTS = new Values();
+
+	private static final String[] BOOL_EXPRS = {
+			"true", "!b", "b & c", "b | c", "b => c", "b <=> c", "(b)",
+			// (in)equality of booleans, and of ints/doubles (falling through to numerical comparisons)
+			"b = c", "b != c", "(i > 0) = c", "(i > 0) != (j > 0)", "i = j", "i != j", "i/2 = j/2", "i/2 != j",
+			"i > j", "i >= j", "i < j", "i <= j", "i/3 > j", "i/3 >= j/2", "i < j/4", "i <= 1.5",
+			"b ? i > j : c", "!(b & i = 2) | (c & j != -1)"
+	};
+
+	private static final String[] INT_EXPRS = {
+			"3", "i", "-i", "(i)", "i + j", "i - j", "i * j", "b ? i : j", "min(i, j)", "max(i, j, 2)",
+			"floor(i / 2)", "ceil(i / 2)", "round(i / 2)", "mod(i, 3)", "mod(i, j)", "pow(i, 2)"
+	};
+
+	private static final String[] DOUBLE_EXPRS = {
+			"0.5", "i", "-(i / 2)", "i / j", "i / 2 + j", "i / 2 - j * 0.25", "i * 1.5", "b ? i / 2 : 0.1",
+			"min(i / 2, j)", "max(i, j / 3)", "pow(2, i)", "pow(i / 2, 2)", "log(i + 4, 2)", "i + j"
+	};
+
+	private static Expression parse(String s) throws PrismLangException
+	{
+		Expression expr = Prism.parseSingleExpressionString(s);
+		expr = (Expression) expr.findAllVars(VAR_NAMES, VAR_TYPES);
+		expr.typeCheck();
+		return expr;
+	}
+
+	/**
+	 * All combinations of values of b, c (booleans) and i, j (in -3..3).
+	 */
+	private static List<State> allStates()
+	{
+		List<State> states = new ArrayList<>();
+		for (boolean b : new boolean[] { false, true }) {
+			for (boolean c : new boolean[] { false, true }) {
+				for (int i = -3; i <= 3; i++) {
+					for (int j = -3; j <= 3; j++) {
+						states.add(new State(4).setValue(0, b).setValue(1, c).setValue(2, i).setValue(3, j));
+					}
+				}
+			}
+		}
+		return states;
+	}
+
+	@FunctionalInterface
+	private interface Evaluation
+	{
+		Object evaluate() throws PrismLangException;
+	}
+
+	/**
+	 * Evaluate, returning the result, or the exception class if an exception is thrown.
+	 */
+	private static Object result(Evaluation evaluation)
+	{
+		try {
+			return evaluation.evaluate();
+		} catch (PrismLangException e) {
+			return e.getClass();
+		}
+	}
+
+	@Test
+	public void testBooleanExpressions() throws PrismLangException
+	{
+		ExpressionCompiler compiler = new ExpressionCompiler(CONSTANTS);
+		for (String s : BOOL_EXPRS) {
+			Expression expr = parse(s);
+			BooleanEvaluator eval = compiler.compileBoolean(expr);
+			for (State state : allStates()) {
+				assertEquals(result(() -> expr.evaluateBoolean(CONSTANTS, state)), result(() -> eval.evaluate(state)), s + " in " + state);
+			}
+		}
+		// All of these are compiled, i.e., not passed to the interpreter
+		assertEquals(0, compiler.getNumInterpreted());
+		assertTrue(compiler.getNumCompiled() >= BOOL_EXPRS.length);
+	}
+
+	@Test
+	public void testIntExpressions() throws PrismLangException
+	{
+		ExpressionCompiler compiler = new ExpressionCompiler(CONSTANTS);
+		for (String s : INT_EXPRS) {
+			Expression expr = parse(s);
+			IntEvaluator eval = compiler.compileInt(expr);
+			for (State state : allStates()) {
+				assertEquals(result(() -> expr.evaluateInt(CONSTANTS, state)), result(() -> eval.evaluate(state)), s + " in " + state);
+			}
+		}
+		// Integer pow is left to the interpreter
+		assertEquals(1, compiler.getNumInterpreted());
+	}
+
+	@Test
+	public void testDoubleExpressions() throws PrismLangException
+	{
+		ExpressionCompiler compiler = new ExpressionCompiler(CONSTANTS);
+		for (String s : DOUBLE_EXPRS) {
+			Expression expr = parse(s);
+			DoubleEvaluator eval = compiler.compileDouble(expr);
+			for (State state : allStates()) {
+				// (compare as Double objects, so that NaN equals NaN)
+				assertEquals(result(() -> expr.evaluateDouble(CONSTANTS, state)), result(() -> eval.evaluate(state)), s + " in " + state);
+			}
+		}
+		// Only the (integer-typed) pow(2, i) is left to the interpreter
+		assertEquals(1, compiler.getNumInterpreted());
+	}
+}